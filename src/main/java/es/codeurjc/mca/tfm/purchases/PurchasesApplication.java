@@ -2,11 +2,13 @@ package es.codeurjc.mca.tfm.purchases;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Purchase application class.
  */
 @SpringBootApplication
+@EnableScheduling
 public class PurchasesApplication {
 
   /**
@@ -9,6 +9,8 @@ import es.codeurjc.mca.tfm.purchases.application.mappers.ApplicationShoppingCart
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.ShoppingCartUseCase;
 import java.net.URI;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import javax.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -20,6 +22,7 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.util.UriComponentsBuilder;
 
 /**
  * Shopping cart command controller.
@@ -56,18 +59,19 @@ public class ShoppingCartCommandController {
    * Create a shopping cart for authenticated user.
    *
    * @param authentication authenticated user info.
-   * @return accepted code with Location header if request finish successfully.
+   * @return future of accepted code with Location header if request finish successfully.
    */
   @PostMapping
-  public ResponseEntity<Void> createShoppingCart(
+  public CompletableFuture<ResponseEntity<Void>> createShoppingCart(
       Authentication authentication) {
     Integer userId = Integer.valueOf(authentication.getName());
-    ShoppingCartDto shoppingCartDto = this.shoppingCartUseCase.create(userId);
+    // Location must be built on request thread, the future may complete on a producer thread
+    UriComponentsBuilder locationBuilder = fromCurrentRequest().path("/{id}");
 
-    URI location = fromCurrentRequest().path("/{id}")
-        .buildAndExpand(shoppingCartDto.getId()).toUri();
-
-    return ResponseEntity.accepted().location(location).build();
+    return this.shoppingCartUseCase.create(userId).thenApply(shoppingCartDto -> {
+      URI location = locationBuilder.buildAndExpand(shoppingCartDto.getId()).toUri();
+      return ResponseEntity.accepted().location(location).build();
+    });
   }
 
   /**
@@ -75,17 +79,15 @@ public class ShoppingCartCommandController {
    *
    * @param id             shopping cart identifier.
    * @param authentication authenticated user info.
-   * @return accepted code with shopping cart to delete info.
+   * @return future of accepted code with shopping cart to delete info.
    */
   @DeleteMapping("/{id}")
-  public ResponseEntity<ShoppingCartResponseDto> deleteShoppingCart(
+  public CompletableFuture<ResponseEntity<ShoppingCartResponseDto>> deleteShoppingCart(
       @PathVariable(name = "id") Long id,
       Authentication authentication) {
     Integer userId = Integer.valueOf(authentication.getName());
-    this.shoppingCartUseCase.delete(id, userId)
-        .orElseThrow(() -> new NotFoundException("Shopping cart not found."));
-
-    return ResponseEntity.accepted().build();
+    return this.shoppingCartUseCase.delete(id, userId)
+        .thenApply(this::acceptedOrNotFound);
   }
 
   /**
@@ -93,17 +95,15 @@ public class ShoppingCartCommandController {
    *
    * @param id             shopping cart identifier.
    * @param authentication authenticated user info.
-   * @return accepted code response.
+   * @return future of accepted code response.
    */
   @PatchMapping("/{id}")
-  public ResponseEntity<Void> completeShoppingCart(
+  public CompletableFuture<ResponseEntity<Void>> completeShoppingCart(
       @PathVariable(name = "id") Long id,
       Authentication authentication) {
     Integer userId = Integer.valueOf(authentication.getName());
-    this.shoppingCartUseCase.complete(id, userId)
-        .orElseThrow(() -> new NotFoundException("Shopping cart not found."));
-
-    return ResponseEntity.accepted().build();
+    return this.shoppingCartUseCase.complete(id, userId)
+        .thenApply(this::acceptedOrNotFound);
   }
 
   /**
@@ -113,18 +113,16 @@ public class ShoppingCartCommandController {
    * @param productId      product identifier.
    * @param setItemRequest set item info.
    * @param authentication authenticated user info.
-   * @return accepted code response.
+   * @return future of accepted code response.
    */
   @PatchMapping("/{id}/products/{productId}")
-  public ResponseEntity<Void> setItemToShoppingCart(
+  public CompletableFuture<ResponseEntity<Void>> setItemToShoppingCart(
       @PathVariable(name = "id") Long id, @PathVariable(name = "productId") Integer productId,
       @Valid @RequestBody SetItemRequest setItemRequest, Authentication authentication) {
     Integer userId = Integer.valueOf(authentication.getName());
-    this.shoppingCartUseCase.setItem(
+    return this.shoppingCartUseCase.setItem(
             id, userId, productId, setItemRequest.getUnitPrice(), setItemRequest.getQuantity())
-        .orElseThrow(() -> new NotFoundException("Shopping cart not found."));
-
-    return ResponseEntity.accepted().build();
+        .thenApply(this::acceptedOrNotFound);
   }
 
   /**
@@ -133,15 +131,28 @@ public class ShoppingCartCommandController {
    * @param id             shopping cart identifier.
    * @param productId      product identifier.
    * @param authentication authenticated user info.
-   * @return accepted code response.
+   * @return future of accepted code response.
    */
   @DeleteMapping("/{id}/products/{productId}")
-  public ResponseEntity<Void> deleteItemFromShoppingCart(
+  public CompletableFuture<ResponseEntity<Void>> deleteItemFromShoppingCart(
       @PathVariable(name = "id") Long id, @PathVariable(name = "productId") Integer productId,
       Authentication authentication) {
     Integer userId = Integer.valueOf(authentication.getName());
-    this.shoppingCartUseCase.deleteItem(id, userId, productId)
-        .orElseThrow(() -> new NotFoundException("Shopping cart not found."));
+    return this.shoppingCartUseCase.deleteItem(id, userId, productId)
+        .thenApply(this::acceptedOrNotFound);
+  }
+
+  /**
+   * Builds accepted response if shopping cart was found.
+   *
+   * @param shoppingCartDtoOptional optional of shopping cart DTO.
+   * @param <T>                     response body type.
+   * @return future of accepted code response.
+   * @throws NotFoundException if shopping cart wasn't found.
+   */
+  private <T> ResponseEntity<T> acceptedOrNotFound(
+      Optional<ShoppingCartDto> shoppingCartDtoOptional) {
+    shoppingCartDtoOptional.orElseThrow(() -> new NotFoundException("Shopping cart not found."));
 
     return ResponseEntity.accepted().build();
   }
@@ -1,5 +1,6 @@
 package es.codeurjc.mca.tfm.purchases.application.exceptions;
 
+import es.codeurjc.mca.tfm.purchases.domain.exceptions.EventPublicationRejectedException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IllegalShoppingCartStateException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IncompleteShoppingCartAlreadyExistsException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.InvalidItemException;
@@ -67,6 +68,18 @@ public class ControllerAdvisor extends ResponseEntityExceptionHandler {
     return this.handle(ex.getMessage(), HttpStatus.BAD_REQUEST);
   }
 
+  /**
+   * Handles EventPublicationRejectedException.
+   *
+   * @param ex EventPublicationRejectedException.
+   * @return ResponseEntity with an error message and service unavailable status code.
+   */
+  @ExceptionHandler(EventPublicationRejectedException.class)
+  public ResponseEntity<Object> handleEventPublicationRejectedException(
+      EventPublicationRejectedException ex) {
+    return this.handle(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+  }
+
   /**
    * Handles Exception.
    *
@@ -2,9 +2,14 @@ package es.codeurjc.mca.tfm.purchases.application.security.config;
 
 import es.codeurjc.mca.tfm.purchases.application.security.filters.JwtAuthorizationFilter;
 import es.codeurjc.mca.tfm.purchases.application.security.filters.JwtTokenProvider;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementPortType;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
@@ -19,18 +24,35 @@ import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 @EnableWebSecurity
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
+  /**
+   * Role of the tokens of administrators.
+   */
+  public static final String ADMIN_ROLE = "ADMIN_ROLE";
+
+  /**
+   * Role of the tokens of other instances of this service.
+   */
+  public static final String SERVICE_ROLE = "SERVICE_ROLE";
+
   /**
    * JWT token provider.
    */
   private JwtTokenProvider jwtTokenProvider;
 
+  /**
+   * Environment.
+   */
+  private Environment environment;
+
   /**
    * Constructor.
    *
    * @param jwtTokenProvider JWT token provider.
+   * @param environment      environment.
    */
-  public SecurityConfig(JwtTokenProvider jwtTokenProvider) {
+  public SecurityConfig(JwtTokenProvider jwtTokenProvider, Environment environment) {
     this.jwtTokenProvider = jwtTokenProvider;
+    this.environment = environment;
   }
 
   /**
@@ -45,6 +67,20 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     return source;
   }
 
+  /**
+   * Configure requests bypassing security: metrics scraped by prometheus, when actuator endpoints
+   * are served in their own management port, which is not exposed outside the cluster. If they
+   * share the application port, metrics require a token as any other request.
+   *
+   * @param web web security bean.
+   */
+  @Override
+  public void configure(WebSecurity web) {
+    if (ManagementPortType.get(this.environment) == ManagementPortType.DIFFERENT) {
+      web.ignoring().requestMatchers(EndpointRequest.to(PrometheusScrapeEndpoint.class));
+    }
+  }
+
   /**
    * Configure application security.
    *
@@ -58,6 +94,10 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
         .cors().and()
         .csrf().disable()
         .authorizeRequests()
+        // dead letters replay, sending events to listener topics
+        .antMatchers("/actuator/deadletters/**").hasAuthority(ADMIN_ROLE)
+        // shopping carts store, queried by other instances
+        .antMatchers("/actuator/shoppingcartstore/**").hasAuthority(SERVICE_ROLE)
         // application urls
         .anyRequest().authenticated().and()
         .addFilter(new JwtAuthorizationFilter(authenticationManager(), this.jwtTokenProvider));
@@ -1,12 +1,17 @@
 package es.codeurjc.mca.tfm.purchases.application.security.filters;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.Jwts;
-import java.util.ArrayList;
+import io.jsonwebtoken.SignatureAlgorithm;
 import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
 import javax.annotation.PostConstruct;
 import javax.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Component;
 
 /**
@@ -19,6 +24,20 @@ public class JwtTokenProvider {
 
   private static final String TOKEN_BEARER_PREFIX = "Bearer ";
 
+  private static final String ID_CLAIM = "id";
+
+  private static final String ROLE_CLAIM = "role";
+
+  /**
+   * Identifier of the tokens of this service, sent in requests to other instances.
+   */
+  private static final String SERVICE_ID = "purchases";
+
+  /**
+   * Validity of the tokens of this service, only used in the request they are created for.
+   */
+  private static final long SERVICE_TOKEN_VALIDITY_MS = 60000;
+
   /**
    * Secret key to validate signature.
    */
@@ -51,21 +70,41 @@ public class JwtTokenProvider {
 
 
   /**
-   * Get authentication from token.
+   * Create a token of this service with the given role, signed with the secret key shared by all
+   * instances, to authenticate requests to other instances.
+   *
+   * @param role role of the token.
+   * @return signed token.
+   */
+  public String createServiceToken(String role) {
+    Date now = new Date();
+    return Jwts.builder()
+        .setClaims(Map.of(ID_CLAIM, SERVICE_ID, ROLE_CLAIM, role))
+        .setIssuedAt(now)
+        .setExpiration(new Date(now.getTime() + SERVICE_TOKEN_VALIDITY_MS))
+        .signWith(SignatureAlgorithm.HS512, this.secretKey)
+        .compact();
+  }
+
+  /**
+   * Get authentication from token, with the token role as authority.
    *
    * @param token with user details to authenticate.
    * @return UsernamePasswordAuthenticationToken instance.
    */
   public UsernamePasswordAuthenticationToken getAuthentication(String token) {
     UsernamePasswordAuthenticationToken authentication = null;
-    String user = String.valueOf(Jwts.parser()
+    Claims claims = Jwts.parser()
         .setSigningKey(this.secretKey)
         .parseClaimsJws(token)
-        .getBody()
-        .get("id"));
+        .getBody();
+    String user = String.valueOf(claims.get(ID_CLAIM));
+    Object role = claims.get(ROLE_CLAIM);
 
     if (user != null) {
-      authentication = new UsernamePasswordAuthenticationToken(user, null, new ArrayList<>());
+      authentication = new UsernamePasswordAuthenticationToken(user, null, role == null
+          ? List.of()
+          : List.of(new SimpleGrantedAuthority(String.valueOf(role))));
     }
     return authentication;
   }
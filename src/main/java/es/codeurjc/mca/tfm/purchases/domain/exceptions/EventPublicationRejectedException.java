@@ -0,0 +1,16 @@
+package es.codeurjc.mca.tfm.purchases.domain.exceptions;
+
+/**
+ * Exception class for event publications rejected because too many publications are in flight.
+ */
+public class EventPublicationRejectedException extends RuntimeException {
+
+  /**
+   * Constructor.
+   *
+   * @param message exception message.
+   */
+  public EventPublicationRejectedException(String message) {
+    super(message);
+  }
+}
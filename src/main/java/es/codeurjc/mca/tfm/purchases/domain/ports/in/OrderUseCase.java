@@ -4,6 +4,7 @@ import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Order use case interface.
@@ -14,9 +15,9 @@ public interface OrderUseCase {
    * Create an order.
    *
    * @param shoppingCartDto shopping cart associated with the order.
-   * @return created order DTO.
+   * @return future of created order DTO, completed when the creation is published.
    */
-  OrderDto create(ShoppingCartDto shoppingCartDto);
+  CompletableFuture<OrderDto> create(ShoppingCartDto shoppingCartDto);
 
   /**
    * Update order state.
@@ -24,8 +25,9 @@ public interface OrderUseCase {
    * @param id     order identifier.
    * @param state  state to update.
    * @param errors optional with errors if any.
-   * @return updated order DTO.
+   * @return future of an optional of updated order DTO.
    */
-  Optional<OrderDto> update(Long id, String state, Optional<List<String>> errors);
+  CompletableFuture<Optional<OrderDto>> update(Long id, String state,
+      Optional<List<String>> errors);
 
 }
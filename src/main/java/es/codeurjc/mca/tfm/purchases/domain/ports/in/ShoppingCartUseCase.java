@@ -2,6 +2,7 @@ package es.codeurjc.mca.tfm.purchases.domain.ports.in;
 
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Shopping cart use case interface.
@@ -12,9 +13,9 @@ public interface ShoppingCartUseCase {
    * Create a shopping cart for passed user.
    *
    * @param userId user identifier.
-   * @return created shopping cart DTO.
+   * @return future of created shopping cart DTO, completed when the creation is published.
    */
-  ShoppingCartDto create(Integer userId);
+  CompletableFuture<ShoppingCartDto> create(Integer userId);
 
   /**
    * Gets a shopping cart with passed id and user.
@@ -30,18 +31,18 @@ public interface ShoppingCartUseCase {
    *
    * @param id     shopping cart identifier.
    * @param userId user identifier.
-   * @return an optional of deleted shopping cart DTO.
+   * @return future of an optional of deleted shopping cart DTO.
    */
-  Optional<ShoppingCartDto> delete(Long id, Integer userId);
+  CompletableFuture<Optional<ShoppingCartDto>> delete(Long id, Integer userId);
 
   /**
    * Complete a shopping cart with passed id and user.
    *
    * @param id     shopping cart identifier.
    * @param userId user identifier.
-   * @return an optional of completed shopping cart DTO.
+   * @return future of an optional of completed shopping cart DTO.
    */
-  Optional<ShoppingCartDto> complete(Long id, Integer userId);
+  CompletableFuture<Optional<ShoppingCartDto>> complete(Long id, Integer userId);
 
   /**
    * Set item into shopping cart with passed id and user.
@@ -51,10 +52,10 @@ public interface ShoppingCartUseCase {
    * @param productId product identifier.
    * @param unitPrice item unit price.
    * @param quantity  item quantity.
-   * @return an optional of shopping cart DTO with item set.
+   * @return future of an optional of shopping cart DTO with item set.
    */
-  Optional<ShoppingCartDto> setItem(Long id, Integer userId, Integer productId, Double unitPrice,
-      Integer quantity);
+  CompletableFuture<Optional<ShoppingCartDto>> setItem(Long id, Integer userId, Integer productId,
+      Double unitPrice, Integer quantity);
 
   /**
    * Delete item from shopping cart with passed id and user.
@@ -62,8 +63,9 @@ public interface ShoppingCartUseCase {
    * @param id        shopping cart identifier.
    * @param userId    user identifier.
    * @param productId product identifier.
-   * @return an optional of shopping cart DTO with item deleted.
+   * @return future of an optional of shopping cart DTO with item deleted.
    */
-  Optional<ShoppingCartDto> deleteItem(Long id, Integer userId, Integer productId);
+  CompletableFuture<Optional<ShoppingCartDto>> deleteItem(Long id, Integer userId,
+      Integer productId);
 
 }
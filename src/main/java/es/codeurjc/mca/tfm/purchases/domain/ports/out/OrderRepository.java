@@ -2,6 +2,7 @@ package es.codeurjc.mca.tfm.purchases.domain.ports.out;
 
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Order repository interface.
@@ -12,8 +13,9 @@ public interface OrderRepository {
    * Create an order.
    *
    * @param orderDto DTO with order info.
+   * @return future completed when the request is published.
    */
-  void create(OrderDto orderDto);
+  CompletableFuture<Void> create(OrderDto orderDto);
 
   /**
    * Find order by identifier.
@@ -27,35 +29,40 @@ public interface OrderRepository {
    * Update an order.
    *
    * @param orderDto DTO with order info to update.
+   * @return future completed when the request is published.
    */
-  void update(OrderDto orderDto);
+  CompletableFuture<Void> update(OrderDto orderDto);
 
   /**
    * Validates order items.
    *
    * @param orderDto order DTO.
+   * @return future completed when the request is published.
    */
-  void validateItems(OrderDto orderDto);
+  CompletableFuture<Void> validateItems(OrderDto orderDto);
 
   /**
    * Validates user balance.
    *
    * @param orderDto order DTO.
+   * @return future completed when the request is published.
    */
-  void validateBalance(OrderDto orderDto);
+  CompletableFuture<Void> validateBalance(OrderDto orderDto);
 
   /**
    * Restores items stock.
    *
    * @param orderDto order DTO.
+   * @return future completed when the request is published.
    */
-  void restoreItemsStock(OrderDto orderDto);
+  CompletableFuture<Void> restoreItemsStock(OrderDto orderDto);
 
   /**
    * Finish order.
    *
    * @param orderDto order DTO.
+   * @return future completed when the request is published.
    */
-  void finish(OrderDto orderDto);
+  CompletableFuture<Void> finish(OrderDto orderDto);
 
 }
@@ -2,6 +2,7 @@ package es.codeurjc.mca.tfm.purchases.domain.ports.out;
 
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Shopping cart repository interface.
@@ -12,8 +13,9 @@ public interface ShoppingCartRepository {
    * Create a shopping cart.
    *
    * @param shoppingCartDto DTO with shopping cart info.
+   * @return future completed when the request is published.
    */
-  void create(ShoppingCartDto shoppingCartDto);
+  CompletableFuture<Void> create(ShoppingCartDto shoppingCartDto);
 
   /**
    * Get the current only incomplete shopping cart for passed user.
@@ -36,21 +38,34 @@ public interface ShoppingCartRepository {
    * Delete a shopping cart by id.
    *
    * @param id shopping cart identifer.
+   * @return future completed when the request is published.
    */
-  void delete(Long id);
+  CompletableFuture<Void> delete(Long id);
 
   /**
    * Complete a shopping cart by id.
    *
    * @param shoppingCartDto DTO with shopping cart info.
+   * @return future completed when the request is published.
    */
-  void complete(ShoppingCartDto shoppingCartDto);
+  CompletableFuture<Void> complete(ShoppingCartDto shoppingCartDto);
 
   /**
-   * Updates shopping cart items.
+   * Sets an item of a shopping cart.
    *
-   * @param shoppingCartDto DTO with shopping cart with updated items.
+   * @param shoppingCartDto DTO with shopping cart with the item set.
+   * @param productId       product identifier of the set item.
+   * @return future completed when the request is published.
    */
-  void updateItems(ShoppingCartDto shoppingCartDto);
+  CompletableFuture<Void> setItem(ShoppingCartDto shoppingCartDto, Integer productId);
+
+  /**
+   * Deletes an item of a shopping cart.
+   *
+   * @param shoppingCartDto DTO with shopping cart without the deleted item.
+   * @param productId       product identifier of the deleted item.
+   * @return future completed when the request is published.
+   */
+  CompletableFuture<Void> deleteItem(ShoppingCartDto shoppingCartDto, Integer productId);
 
 }
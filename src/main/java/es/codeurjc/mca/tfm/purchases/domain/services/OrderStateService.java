@@ -2,6 +2,7 @@ package es.codeurjc.mca.tfm.purchases.domain.services;
 
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Order state service interface.
@@ -21,7 +22,9 @@ public interface OrderStateService {
    * @param previousState previous state.
    * @param currentState  current state.
    * @param orderDto      order DTO.
+   * @return future completed when the action is performed.
    */
-  void performAction(OrderState previousState, OrderState currentState, OrderDto orderDto);
+  CompletableFuture<Void> performAction(OrderState previousState, OrderState currentState,
+      OrderDto orderDto);
 
 }
@@ -3,6 +3,7 @@ package es.codeurjc.mca.tfm.purchases.domain.services.impl;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Rejected order state service implementation.
@@ -34,13 +35,16 @@ public class RejectedStateServiceImpl extends FinalAbstractBaseOrderState {
    * @param previousState previous state.
    * @param currentState  current state.
    * @param orderDto      order DTO.
+   * @return future completed when the action is performed.
    */
   @Override
-  public void performAction(OrderState previousState, OrderState currentState, OrderDto orderDto) {
+  public CompletableFuture<Void> performAction(OrderState previousState, OrderState currentState,
+      OrderDto orderDto) {
     if (OrderState.VALIDATING_BALANCE.equals(previousState)) {
-      this.orderRepository.restoreItemsStock(orderDto);
+      return CompletableFuture.allOf(this.orderRepository.restoreItemsStock(orderDto),
+          super.performAction(previousState, currentState, orderDto));
     }
-    super.performAction(previousState, currentState, orderDto);
+    return super.performAction(previousState, currentState, orderDto);
   }
 
 }
@@ -4,6 +4,7 @@ import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
 import es.codeurjc.mca.tfm.purchases.domain.services.OrderStateService;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Validating user balance order state service implementation.
@@ -40,9 +41,11 @@ public class ValidatingBalanceOrderStateServiceImpl implements OrderStateService
    * @param previousState previous state.
    * @param currentState  current state.
    * @param orderDto      order DTO.
+   * @return future completed when the action is performed.
    */
   @Override
-  public void performAction(OrderState previousState, OrderState currentState, OrderDto orderDto) {
-    this.orderRepository.validateBalance(orderDto);
+  public CompletableFuture<Void> performAction(OrderState previousState, OrderState currentState,
+      OrderDto orderDto) {
+    return this.orderRepository.validateBalance(orderDto);
   }
 }
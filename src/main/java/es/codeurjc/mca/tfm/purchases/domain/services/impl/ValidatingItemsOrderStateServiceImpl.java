@@ -4,6 +4,7 @@ import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
 import es.codeurjc.mca.tfm.purchases.domain.services.OrderStateService;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Validating items order state service implementation.
@@ -40,10 +41,12 @@ public class ValidatingItemsOrderStateServiceImpl implements OrderStateService {
    * @param previousState previous state.
    * @param currentState  current state.
    * @param orderDto      order DTO.
+   * @return future completed when the action is performed.
    */
   @Override
-  public void performAction(OrderState previousState, OrderState currentState, OrderDto orderDto) {
-    this.orderRepository.validateItems(orderDto);
+  public CompletableFuture<Void> performAction(OrderState previousState, OrderState currentState,
+      OrderDto orderDto) {
+    return this.orderRepository.validateItems(orderDto);
   }
 
 }
@@ -15,6 +15,7 @@ import es.codeurjc.mca.tfm.purchases.domain.services.OrderStateService;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Order use case implementation.
@@ -47,18 +48,17 @@ public class OrderUseCaseImpl implements OrderUseCase {
    * Create an order.
    *
    * @param shoppingCartDto shopping cart associated with the order.
-   * @return created order DTO.
+   * @return future of created order DTO, completed when the creation is published.
    */
   @Override
-  public OrderDto create(ShoppingCartDto shoppingCartDto) {
+  public CompletableFuture<OrderDto> create(ShoppingCartDto shoppingCartDto) {
     ShoppingCart shoppingCart = DomainMapper.map(shoppingCartDto);
     if (!shoppingCart.isCompleted()) {
       throw new IllegalShoppingCartStateException("Can't create order from incomplete cart");
     }
     Order order = new Order(shoppingCart);
     OrderDto orderDto = DomainMapper.map(order);
-    this.orderRepository.create(orderDto);
-    return orderDto;
+    return this.orderRepository.create(orderDto).thenApply(v -> orderDto);
   }
 
   /**
@@ -67,10 +67,11 @@ public class OrderUseCaseImpl implements OrderUseCase {
    * @param id     order identifier.
    * @param state  state to update.
    * @param errors optional with errors if any.
-   * @return updated order DTO.
+   * @return future of an optional of updated order DTO.
    */
   @Override
-  public Optional<OrderDto> update(Long id, String state, Optional<List<String>> errors) {
+  public CompletableFuture<Optional<OrderDto>> update(Long id, String state,
+      Optional<List<String>> errors) {
     Optional<OrderDto> orderDtoOptional = this.orderRepository.findById(id);
     if (orderDtoOptional.isPresent()) {
       Order order = DomainMapper.map(orderDtoOptional.get());
@@ -85,12 +86,13 @@ public class OrderUseCaseImpl implements OrderUseCase {
             "Can't change state of order by other previous");
       }
       OrderDto orderDto = DomainMapper.map(order);
-      this.orderRepository.update(orderDto);
-      this.orderStateServiceMap.get(order.getState().name())
-          .performAction(previousState, order.getState(), orderDto);
-      orderDtoOptional = Optional.of(orderDto);
+      return CompletableFuture.allOf(
+          this.orderRepository.update(orderDto),
+          this.orderStateServiceMap.get(order.getState().name())
+              .performAction(previousState, order.getState(), orderDto)
+      ).thenApply(v -> Optional.of(orderDto));
     }
-    return orderDtoOptional;
+    return CompletableFuture.completedFuture(orderDtoOptional);
   }
 
 }
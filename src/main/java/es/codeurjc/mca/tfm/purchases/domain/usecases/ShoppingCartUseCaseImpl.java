@@ -9,6 +9,7 @@ import es.codeurjc.mca.tfm.purchases.domain.models.ShoppingCart;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.ShoppingCartUseCase;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.ShoppingCartRepository;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Shopping cart use case implementation.
@@ -33,19 +34,17 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    * Create a shopping cart for passed user.
    *
    * @param userId user identifier.
-   * @return created shopping cart DTO.
+   * @return future of created shopping cart DTO, completed when the creation is published.
    */
   @Override
-  public ShoppingCartDto create(Integer userId) {
+  public CompletableFuture<ShoppingCartDto> create(Integer userId) {
     this.shoppingCartRepository.getIncompleteByUser(userId).ifPresent(shoppingCart -> {
       throw new IncompleteShoppingCartAlreadyExistsException(
           "Already exists incomplete shopping cart with id=" + shoppingCart.getId());
     });
     ShoppingCart shoppingCart = new ShoppingCart(userId);
     ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
-    this.shoppingCartRepository.create(shoppingCartDto);
-
-    return shoppingCartDto;
+    return this.shoppingCartRepository.create(shoppingCartDto).thenApply(v -> shoppingCartDto);
   }
 
   /**
@@ -65,10 +64,10 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    *
    * @param id     shopping cart identifier.
    * @param userId user identifier.
-   * @return an optional of deleted shopping cart DTO.
+   * @return future of an optional of deleted shopping cart DTO.
    */
   @Override
-  public Optional<ShoppingCartDto> delete(Long id, Integer userId) {
+  public CompletableFuture<Optional<ShoppingCartDto>> delete(Long id, Integer userId) {
     Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
         id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
@@ -76,9 +75,9 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
       if (!shoppingCart.isDeletable()) {
         throw new IllegalShoppingCartStateException("Can't delete completed cart");
       }
-      this.shoppingCartRepository.delete(id);
+      return this.shoppingCartRepository.delete(id).thenApply(v -> shoppingCartDtoOptional);
     }
-    return shoppingCartDtoOptional;
+    return CompletableFuture.completedFuture(shoppingCartDtoOptional);
   }
 
   /**
@@ -86,10 +85,10 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    *
    * @param id     shopping cart identifier.
    * @param userId user identifier.
-   * @return an optional of completed shopping cart DTO.
+   * @return future of an optional of completed shopping cart DTO.
    */
   @Override
-  public Optional<ShoppingCartDto> complete(Long id, Integer userId) {
+  public CompletableFuture<Optional<ShoppingCartDto>> complete(Long id, Integer userId) {
     Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
         id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
@@ -99,10 +98,10 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
       }
       shoppingCart.complete();
       ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
-      this.shoppingCartRepository.complete(shoppingCartDto);
-      shoppingCartDtoOptional = Optional.of(shoppingCartDto);
+      return this.shoppingCartRepository.complete(shoppingCartDto)
+          .thenApply(v -> Optional.of(shoppingCartDto));
     }
-    return shoppingCartDtoOptional;
+    return CompletableFuture.completedFuture(shoppingCartDtoOptional);
   }
 
   /**
@@ -113,11 +112,11 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    * @param productId product identifier.
    * @param unitPrice item unit price.
    * @param quantity  item quantity.
-   * @return an optional of shopping cart DTO with item set.
+   * @return future of an optional of shopping cart DTO with item set.
    */
   @Override
-  public Optional<ShoppingCartDto> setItem(Long id, Integer userId, Integer productId,
-      Double unitPrice, Integer quantity) {
+  public CompletableFuture<Optional<ShoppingCartDto>> setItem(Long id, Integer userId,
+      Integer productId, Double unitPrice, Integer quantity) {
     Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
         id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
@@ -130,10 +129,10 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
             "Can't set item, check item unit price and quantity to be greater than 0");
       }
       ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
-      this.shoppingCartRepository.updateItems(shoppingCartDto);
-      shoppingCartDtoOptional = Optional.of(shoppingCartDto);
+      return this.shoppingCartRepository.setItem(shoppingCartDto, productId)
+          .thenApply(v -> Optional.of(shoppingCartDto));
     }
-    return shoppingCartDtoOptional;
+    return CompletableFuture.completedFuture(shoppingCartDtoOptional);
   }
 
   /**
@@ -142,10 +141,11 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
    * @param id        shopping cart identifier.
    * @param userId    user identifier.
    * @param productId product identifier.
-   * @return an optional of shopping cart DTO with item deleted.
+   * @return future of an optional of shopping cart DTO with item deleted.
    */
   @Override
-  public Optional<ShoppingCartDto> deleteItem(Long id, Integer userId, Integer productId) {
+  public CompletableFuture<Optional<ShoppingCartDto>> deleteItem(Long id, Integer userId,
+      Integer productId) {
     Optional<ShoppingCartDto> shoppingCartDtoOptional = this.shoppingCartRepository.getByIdAndUser(
         id, userId);
     if (shoppingCartDtoOptional.isPresent()) {
@@ -155,11 +155,11 @@ public class ShoppingCartUseCaseImpl implements ShoppingCartUseCase {
       }
       if (shoppingCart.deleteItem(productId)) {
         ShoppingCartDto shoppingCartDto = DomainMapper.map(shoppingCart);
-        this.shoppingCartRepository.updateItems(shoppingCartDto);
-        shoppingCartDtoOptional = Optional.of(shoppingCartDto);
+        return this.shoppingCartRepository.deleteItem(shoppingCartDto, productId)
+            .thenApply(v -> Optional.of(shoppingCartDto));
       }
     }
-    return shoppingCartDtoOptional;
+    return CompletableFuture.completedFuture(shoppingCartDtoOptional);
   }
 
 }
@@ -1,8 +1,5 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.adapters;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
@@ -11,11 +8,12 @@ import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderRejectedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderValidationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.EventPublisher;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 /**
@@ -31,9 +29,9 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
   private InfraMapper infraMapper;
 
   /**
-   * Kafka template.
+   * Event publisher.
    */
-  private KafkaTemplate<String, String> kafkaTemplate;
+  private EventPublisher eventPublisher;
 
   /**
    * Order repository.
@@ -70,46 +68,34 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
   @Value("${kafka.topics.restoreStock}")
   private String restoreStockTopic;
 
-  /**
-   * Object mapper.
-   */
-  private ObjectMapper objectMapper;
-
   /**
    * Constructor.
    *
    * @param infraMapper        mapper.
-   * @param kafkaTemplate      kafka template.
+   * @param eventPublisher     event publisher.
    * @param jpaOrderRepository jpa order repository.
    */
   public KafkaOrderRepositoryAdapter(InfraMapper infraMapper,
-      KafkaTemplate<String, String> kafkaTemplate,
+      EventPublisher eventPublisher,
       JpaOrderRepository jpaOrderRepository) {
     this.infraMapper = infraMapper;
-    this.kafkaTemplate = kafkaTemplate;
+    this.eventPublisher = eventPublisher;
     this.jpaOrderRepository = jpaOrderRepository;
-    this.objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new Jdk8Module());
   }
 
   /**
    * Create an order.
    *
    * @param orderDto DTO with order info.
+   * @return future completed when the event is published.
    */
   @Override
-  public void create(OrderDto orderDto) {
-    try {
-      OrderCreationRequestedEvent orderCreationRequestedEvent =
-          this.infraMapper.mapToOrderCreationRequestedEvent(orderDto);
-      this.kafkaTemplate.send(this.createOrderTopic,
-          this.objectMapper.writeValueAsString(orderCreationRequestedEvent));
-      log.info("Sent order creation requested event {}",
-          orderCreationRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending order creation requested event");
-      e.printStackTrace();
-    }
+  public CompletableFuture<Void> create(OrderDto orderDto) {
+    OrderCreationRequestedEvent orderCreationRequestedEvent =
+        this.infraMapper.mapToOrderCreationRequestedEvent(orderDto);
+    return this.eventPublisher.publish(this.createOrderTopic,
+        String.valueOf(orderCreationRequestedEvent.getId()),
+        orderCreationRequestedEvent);
   }
 
   /**
@@ -124,93 +110,84 @@ public class KafkaOrderRepositoryAdapter implements OrderRepository {
   }
 
   /**
-   * Update an order.
+   * Update an order. Records the published state in the stored order, in the caller transaction,
+   * so later state changes can wait for the update to be stored.
    *
    * @param orderDto DTO with order info to update.
+   * @return future completed when the event is published.
    */
   @Override
-  public void update(OrderDto orderDto) {
-    try {
-      OrderUpdateRequestedEvent orderUpdateRequestedEvent =
-          this.infraMapper.mapToOrderUpdateRequestedEvent(orderDto);
-      this.kafkaTemplate.send(this.updateOrderTopic,
-          this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
-      log.info("Sent order update requested event {}", orderUpdateRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending order update requested event");
-      e.printStackTrace();
-    }
+  public CompletableFuture<Void> update(OrderDto orderDto) {
+    OrderUpdateRequestedEvent orderUpdateRequestedEvent =
+        this.infraMapper.mapToOrderUpdateRequestedEvent(orderDto);
+    this.jpaOrderRepository.findById(orderUpdateRequestedEvent.getId()).ifPresent(orderEntity -> {
+      orderEntity.setPublishedState(orderUpdateRequestedEvent.getState());
+      this.jpaOrderRepository.save(orderEntity);
+    });
+    return this.eventPublisher.publish(this.updateOrderTopic,
+        String.valueOf(orderUpdateRequestedEvent.getId()),
+        orderUpdateRequestedEvent);
   }
 
   /**
    * Validates order items.
    *
    * @param orderDto order DTO.
+   * @return future completed when the event is published.
    */
   @Override
-  public void validateItems(OrderDto orderDto) {
-    try {
-      OrderValidationRequestedEvent orderValidationRequestedEvent =
-          this.infraMapper.mapToOrderValidationRequestedEvent(orderDto);
-      orderValidationRequestedEvent.setFailureState(OrderState.REJECTED.name());
-      orderValidationRequestedEvent.setSuccessState(OrderState.VALIDATING_BALANCE.name());
-      this.kafkaTemplate.send(this.validateItemsTopic,
-          this.objectMapper.writeValueAsString(orderValidationRequestedEvent));
-      log.info("Sent items validation requested event {}", orderValidationRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending items validation requested event");
-      e.printStackTrace();
-    }
+  public CompletableFuture<Void> validateItems(OrderDto orderDto) {
+    OrderValidationRequestedEvent orderValidationRequestedEvent =
+        this.infraMapper.mapToOrderValidationRequestedEvent(orderDto);
+    orderValidationRequestedEvent.setFailureState(OrderState.REJECTED.name());
+    orderValidationRequestedEvent.setSuccessState(OrderState.VALIDATING_BALANCE.name());
+    return this.eventPublisher.publish(this.validateItemsTopic,
+        String.valueOf(orderValidationRequestedEvent.getId()),
+        orderValidationRequestedEvent);
   }
 
   /**
    * Validates user balance.
    *
    * @param orderDto order DTO.
+   * @return future completed when the event is published.
    */
   @Override
-  public void validateBalance(OrderDto orderDto) {
-    try {
-      OrderValidationRequestedEvent orderValidationRequestedEvent =
-          this.infraMapper.mapToOrderValidationRequestedEvent(orderDto);
-      orderValidationRequestedEvent.setFailureState(OrderState.REJECTED.name());
-      orderValidationRequestedEvent.setSuccessState(OrderState.DONE.name());
-      this.kafkaTemplate.send(this.validateBalanceTopic,
-          this.objectMapper.writeValueAsString(orderValidationRequestedEvent));
-      log.info("Sent user balance validation requested event {}", orderValidationRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending user balance validation requested event");
-      e.printStackTrace();
-    }
+  public CompletableFuture<Void> validateBalance(OrderDto orderDto) {
+    OrderValidationRequestedEvent orderValidationRequestedEvent =
+        this.infraMapper.mapToOrderValidationRequestedEvent(orderDto);
+    orderValidationRequestedEvent.setFailureState(OrderState.REJECTED.name());
+    orderValidationRequestedEvent.setSuccessState(OrderState.DONE.name());
+    return this.eventPublisher.publish(this.validateBalanceTopic,
+        String.valueOf(orderValidationRequestedEvent.getId()),
+        orderValidationRequestedEvent);
   }
 
   /**
    * Restores items stock.
    *
    * @param orderDto order DTO.
+   * @return future completed when the event is published.
    */
   @Override
-  public void restoreItemsStock(OrderDto orderDto) {
-    try {
-      OrderRejectedEvent orderRejectedEvent =
-          this.infraMapper.mapToOrderRejectedEvent(orderDto);
-      this.kafkaTemplate.send(this.restoreStockTopic,
-          this.objectMapper.writeValueAsString(orderRejectedEvent));
-      log.info("Sent items restore stock requested event {}", orderRejectedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending items restore stock requested event");
-      e.printStackTrace();
-    }
+  public CompletableFuture<Void> restoreItemsStock(OrderDto orderDto) {
+    OrderRejectedEvent orderRejectedEvent =
+        this.infraMapper.mapToOrderRejectedEvent(orderDto);
+    return this.eventPublisher.publish(this.restoreStockTopic,
+        String.valueOf(orderRejectedEvent.getId()),
+        orderRejectedEvent);
   }
 
   /**
    * Finish order.
    *
    * @param orderDto order DTO.
+   * @return future completed when the order is finished.
    */
   @Override
-  public void finish(OrderDto orderDto) {
+  public CompletableFuture<Void> finish(OrderDto orderDto) {
     // TODO: send mail
+    return CompletableFuture.completedFuture(null);
   }
 
 }
@@ -1,23 +1,28 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.adapters;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.ShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.EventPublisher;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 /**
- * Shopping cart repository adapter Kafka implementation.
+ * Shopping cart repository adapter Kafka implementation. When the shopping carts changelog view is
+ * enabled and bootstrapped, reads are served from it, and only shopping carts not found in it are
+ * read from database. When the Kafka Streams store is enabled and running, shopping carts by
+ * identifier are read from it first.
  */
 @Service
 @Slf4j
@@ -29,15 +34,30 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
   private InfraMapper infraMapper;
 
   /**
-   * Kafka template.
+   * Event publisher.
    */
-  private KafkaTemplate<String, String> kafkaTemplate;
+  private EventPublisher eventPublisher;
 
   /**
    * Shopping cart repository.
    */
   private JpaShoppingCartRepository jpaShoppingCartRepository;
 
+  /**
+   * Shopping cart items updates coalescer.
+   */
+  private ShoppingCartItemsCoalescer shoppingCartItemsCoalescer;
+
+  /**
+   * Shopping carts changelog view, if enabled.
+   */
+  private ObjectProvider<ShoppingCartChangelogView> shoppingCartChangelogView;
+
+  /**
+   * Shopping carts Kafka Streams store, if enabled.
+   */
+  private ObjectProvider<ShoppingCartStreamsStore> shoppingCartStreamsStore;
+
   /**
    * Kafka create shopping cart topic.
    */
@@ -62,60 +82,68 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
   @Value("${kafka.topics.updateItems}")
   private String updateItemsTopic;
 
-  /**
-   * Object mapper.
-   */
-  private ObjectMapper objectMapper;
-
   /**
    * Constructor.
    *
-   * @param infraMapper   mapper.
-   * @param kafkaTemplate kafka template.
+   * @param infraMapper                mapper.
+   * @param eventPublisher             event publisher.
+   * @param jpaShoppingCartRepository  jpa shopping cart repository.
+   * @param shoppingCartItemsCoalescer shopping cart items updates coalescer.
+   * @param shoppingCartChangelogView  shopping carts changelog view, if enabled.
+   * @param shoppingCartStreamsStore   shopping carts Kafka Streams store, if enabled.
    */
   public KafkaShoppingCartRepositoryAdapter(InfraMapper infraMapper,
-      KafkaTemplate<String, String> kafkaTemplate,
-      JpaShoppingCartRepository jpaShoppingCartRepository) {
+      EventPublisher eventPublisher,
+      JpaShoppingCartRepository jpaShoppingCartRepository,
+      ShoppingCartItemsCoalescer shoppingCartItemsCoalescer,
+      ObjectProvider<ShoppingCartChangelogView> shoppingCartChangelogView,
+      ObjectProvider<ShoppingCartStreamsStore> shoppingCartStreamsStore) {
     this.infraMapper = infraMapper;
-    this.kafkaTemplate = kafkaTemplate;
+    this.eventPublisher = eventPublisher;
     this.jpaShoppingCartRepository = jpaShoppingCartRepository;
-    this.objectMapper = new ObjectMapper();
+    this.shoppingCartItemsCoalescer = shoppingCartItemsCoalescer;
+    this.shoppingCartChangelogView = shoppingCartChangelogView;
+    this.shoppingCartStreamsStore = shoppingCartStreamsStore;
   }
 
   /**
    * Send a created shopping cart event to save it in database.
    *
    * @param shoppingCartDto DTO with shopping cart info.
+   * @return future completed when the event is published.
    */
   @Override
-  public void create(ShoppingCartDto shoppingCartDto) {
-    try {
-      ShoppingCartCreationRequestedEvent shoppingCartCreationRequestedEvent =
-          this.infraMapper.mapToShoppingCartCreationRequestedEvent(shoppingCartDto);
-      this.kafkaTemplate.send(this.createShoppingCartTopic,
-          this.objectMapper.writeValueAsString(shoppingCartCreationRequestedEvent));
-      log.info("Sent shopping cart creation requested event {}",
-          shoppingCartCreationRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending shopping cart creation requested event");
-      e.printStackTrace();
-    }
+  public CompletableFuture<Void> create(ShoppingCartDto shoppingCartDto) {
+    ShoppingCartCreationRequestedEvent shoppingCartCreationRequestedEvent =
+        this.infraMapper.mapToShoppingCartCreationRequestedEvent(shoppingCartDto);
+    return this.eventPublisher.publish(this.createShoppingCartTopic,
+        String.valueOf(shoppingCartCreationRequestedEvent.getId()),
+        shoppingCartCreationRequestedEvent);
   }
 
   /**
-   * Get the current only incomplete shopping cart for passed user.
+   * Get the current only incomplete shopping cart for passed user, with its held items update if
+   * exists.
    *
    * @param userId user identifier.
    * @return optional of incomplete shopping cart for user if exists, else empty.
    */
   @Override
   public Optional<ShoppingCartDto> getIncompleteByUser(Integer userId) {
+    ShoppingCartChangelogView view = this.getReadyView();
+    if (view != null) {
+      Optional<ShoppingCartDto> shoppingCartDto =
+          view.getIncompleteByUser(userId).map(this::mapWithHeldItems);
+      if (shoppingCartDto.isPresent()) {
+        return shoppingCartDto;
+      }
+    }
     return this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(userId)
-        .map(this.infraMapper::map);
+        .map(this::mapWithHeldItems);
   }
 
   /**
-   * Get shopping cart by identifier and user.
+   * Get shopping cart by identifier and user, with its held items update if exists.
    *
    * @param id     shopping cart identifier.
    * @param userId user identifier.
@@ -123,68 +151,173 @@ public class KafkaShoppingCartRepositoryAdapter implements ShoppingCartRepositor
    */
   @Override
   public Optional<ShoppingCartDto> getByIdAndUser(Long id, Integer userId) {
+    ShoppingCartStreamsStore store = this.shoppingCartStreamsStore.getIfAvailable();
+    if (store != null && store.isReady()) {
+      Optional<ShoppingCartDto> shoppingCartDto =
+          store.getByIdAndUser(id, userId).map(this::mapWithHeldItems);
+      if (shoppingCartDto.isPresent()) {
+        return shoppingCartDto;
+      }
+    }
+    ShoppingCartChangelogView view = this.getReadyView();
+    if (view != null) {
+      Optional<ShoppingCartDto> shoppingCartDto =
+          view.getByIdAndUser(id, userId).map(this::mapWithHeldItems);
+      if (shoppingCartDto.isPresent()) {
+        return shoppingCartDto;
+      }
+    }
     return this.jpaShoppingCartRepository.findByIdAndUserId(id, userId)
-        .map(this.infraMapper::map);
+        .map(this::mapWithHeldItems);
   }
 
   /**
-   * Delete a shopping cart by id.
+   * Delete a shopping cart by id. Its held items update is published first, and the deletion
+   * event once it's acknowledged, so it can't be applied after the deletion.
    *
    * @param id shopping cart identifier.
+   * @return future completed when the events are published.
    */
   @Override
-  public void delete(Long id) {
-    try {
-      ShoppingCartDeletionRequestedEvent shoppingCartDeletionRequestedEvent =
-          new ShoppingCartDeletionRequestedEvent(id);
-      this.kafkaTemplate.send(this.deleteShoppingCartTopic,
-          this.objectMapper.writeValueAsString(shoppingCartDeletionRequestedEvent));
-      log.info("Sent shopping cart deletion requested event {}",
-          shoppingCartDeletionRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending shopping cart deletion requested event");
-      e.printStackTrace();
-    }
+  public CompletableFuture<Void> delete(Long id) {
+    ShoppingCartDeletionRequestedEvent shoppingCartDeletionRequestedEvent =
+        new ShoppingCartDeletionRequestedEvent(id);
+    return this.shoppingCartItemsCoalescer.flush(id)
+        .thenCompose(v -> this.eventPublisher.publish(this.deleteShoppingCartTopic,
+            String.valueOf(id),
+            shoppingCartDeletionRequestedEvent));
   }
 
   /**
-   * Send a completed shopping cart event to save it in database.
+   * Send a completed shopping cart event to save it in database. Its held items update is
+   * published first, and the completion event once it's acknowledged, so it can't be applied
+   * after the completion.
    *
    * @param shoppingCartDto DTO with completed shopping cart info.
+   * @return future completed when the events are published.
+   */
+  @Override
+  public CompletableFuture<Void> complete(ShoppingCartDto shoppingCartDto) {
+    final ShoppingCartCompletionRequestedEvent shoppingCartCompletionRequestedEvent =
+        this.infraMapper.mapToShoppingCartCompletionRequestedEvent(shoppingCartDto);
+    return this.shoppingCartItemsCoalescer.flush(shoppingCartDto.getId())
+        .thenCompose(v -> this.eventPublisher.publish(this.completeShoppingCartTopic,
+            String.valueOf(shoppingCartCompletionRequestedEvent.getId()),
+            shoppingCartCompletionRequestedEvent));
+  }
+
+  /**
+   * Sets an item of a shopping cart, publishing only the set item. If coalescing is enabled, the
+   * shopping cart items are held for a short window and only the newest items of the shopping cart
+   * in the window are published.
+   *
+   * @param shoppingCartDto DTO with shopping cart with the item set.
+   * @param productId       product identifier of the set item.
+   * @return future completed when the event, or a newer one, is published.
    */
   @Override
-  public void complete(ShoppingCartDto shoppingCartDto) {
-    try {
-      final ShoppingCartCompletionRequestedEvent shoppingCartCompletionRequestedEvent =
-          this.infraMapper.mapToShoppingCartCompletionRequestedEvent(shoppingCartDto);
-      this.kafkaTemplate.send(this.completeShoppingCartTopic,
-          this.objectMapper.writeValueAsString(shoppingCartCompletionRequestedEvent));
-      log.info("Sent shopping cart completion requested event {}",
-          shoppingCartCompletionRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending shopping cart completion requested event");
-      e.printStackTrace();
+  public CompletableFuture<Void> setItem(ShoppingCartDto shoppingCartDto, Integer productId) {
+    if (this.shoppingCartItemsCoalescer.isEnabled()) {
+      return this.shoppingCartItemsCoalescer.hold(shoppingCartDto, this::publishItemsUpdate);
     }
+    ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent =
+        this.buildItemUpdate(shoppingCartDto);
+    shoppingCartDto.getItems().stream()
+        .filter(itemDto -> productId.equals(itemDto.getProductId()))
+        .findFirst()
+        .map(this.infraMapper::mapToShoppingCartItem)
+        .ifPresent(shoppingCartItemsUpdateRequestedEvent::setUpsertedItem);
+    return this.publishItemsUpdate(shoppingCartItemsUpdateRequestedEvent);
   }
 
   /**
-   * Updates shopping cart items.
+   * Deletes an item of a shopping cart, publishing only the deleted product. If coalescing is
+   * enabled, the shopping cart items are held for a short window and only the newest items of the
+   * shopping cart in the window are published.
    *
-   * @param shoppingCartDto DTO with shopping cart with updated items.
+   * @param shoppingCartDto DTO with shopping cart without the deleted item.
+   * @param productId       product identifier of the deleted item.
+   * @return future completed when the event, or a newer one, is published.
    */
   @Override
-  public void updateItems(ShoppingCartDto shoppingCartDto) {
-    try {
-      final ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent =
-          this.infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(shoppingCartDto);
-      this.kafkaTemplate.send(this.updateItemsTopic,
-          this.objectMapper.writeValueAsString(shoppingCartItemsUpdateRequestedEvent));
-      log.info("Sent shopping cart items update requested event {}",
-          shoppingCartItemsUpdateRequestedEvent);
-    } catch (JsonProcessingException e) {
-      log.error("Error sending shopping cart items update requested event");
-      e.printStackTrace();
+  public CompletableFuture<Void> deleteItem(ShoppingCartDto shoppingCartDto, Integer productId) {
+    if (this.shoppingCartItemsCoalescer.isEnabled()) {
+      return this.shoppingCartItemsCoalescer.hold(shoppingCartDto, this::publishItemsUpdate);
     }
+    ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent =
+        this.buildItemUpdate(shoppingCartDto);
+    shoppingCartItemsUpdateRequestedEvent.setDeletedProductId(productId);
+    return this.publishItemsUpdate(shoppingCartItemsUpdateRequestedEvent);
+  }
+
+  /**
+   * Builds a single item change event of a shopping cart, without its items nor total price, as
+   * listeners compute it from the stored items.
+   *
+   * @param shoppingCartDto DTO with shopping cart with the changed item.
+   * @return event with the shopping cart identifier.
+   */
+  private ShoppingCartItemsUpdateRequestedEvent buildItemUpdate(ShoppingCartDto shoppingCartDto) {
+    ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent =
+        new ShoppingCartItemsUpdateRequestedEvent();
+    shoppingCartItemsUpdateRequestedEvent.setId(shoppingCartDto.getId());
+    return shoppingCartItemsUpdateRequestedEvent;
+  }
+
+  /**
+   * Publishes a shopping cart items update event with all the shopping cart items.
+   *
+   * @param shoppingCartDto DTO with shopping cart with updated items.
+   * @return future completed when the event is published.
+   */
+  private CompletableFuture<Void> publishItemsUpdate(ShoppingCartDto shoppingCartDto) {
+    return this.publishItemsUpdate(
+        this.infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(shoppingCartDto));
+  }
+
+  /**
+   * Publishes a shopping cart items update event.
+   *
+   * @param shoppingCartItemsUpdateRequestedEvent event to publish.
+   * @return future completed when the event is published.
+   */
+  private CompletableFuture<Void> publishItemsUpdate(
+      ShoppingCartItemsUpdateRequestedEvent shoppingCartItemsUpdateRequestedEvent) {
+    return this.eventPublisher.publish(this.updateItemsTopic,
+        String.valueOf(shoppingCartItemsUpdateRequestedEvent.getId()),
+        shoppingCartItemsUpdateRequestedEvent);
+  }
+
+  /**
+   * Maps a shopping cart entity to DTO, replaced by its held items update if exists.
+   *
+   * @param shoppingCartEntity shopping cart entity.
+   * @return shopping cart DTO.
+   */
+  private ShoppingCartDto mapWithHeldItems(ShoppingCartEntity shoppingCartEntity) {
+    return this.shoppingCartItemsCoalescer.getHeld(shoppingCartEntity.getId())
+        .orElseGet(() -> this.infraMapper.map(shoppingCartEntity));
+  }
+
+  /**
+   * Maps a shopping cart snapshot to DTO, replaced by its held items update if exists.
+   *
+   * @param shoppingCartSnapshot shopping cart snapshot.
+   * @return shopping cart DTO.
+   */
+  private ShoppingCartDto mapWithHeldItems(ShoppingCartSnapshot shoppingCartSnapshot) {
+    return this.shoppingCartItemsCoalescer.getHeld(shoppingCartSnapshot.getId())
+        .orElseGet(() -> this.infraMapper.mapToShoppingCartDto(shoppingCartSnapshot));
+  }
+
+  /**
+   * Gets the shopping carts changelog view if it's enabled and can serve reads.
+   *
+   * @return changelog view, null if disabled or not ready.
+   */
+  private ShoppingCartChangelogView getReadyView() {
+    ShoppingCartChangelogView view = this.shoppingCartChangelogView.getIfAvailable();
+    return view != null && view.isReady() ? view : null;
   }
 
 }
@@ -0,0 +1,267 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.adapters;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.errors.WakeupException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.stereotype.Component;
+
+/**
+ * In memory view of shopping carts, built from the compacted shopping carts changelog topic. At
+ * startup each partition is read from the beginning by its own consumer, in parallel, and the view
+ * is ready once all of them reach the end offsets they had when started. Consumers keep tailing
+ * the topic afterwards, so the view follows the stored shopping carts with the changelog delay.
+ * Partitions are assigned manually and no offsets are committed, so every instance holds the full
+ * view.
+ */
+@Component
+@ConditionalOnProperty(value = "kafka.changelog.viewEnabled", havingValue = "true")
+@Slf4j
+public class ShoppingCartChangelogView {
+
+  /**
+   * Consumer factory.
+   */
+  private final ConsumerFactory<String, byte[]> consumerFactory;
+
+  /**
+   * Event codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Kafka shopping carts changelog topic.
+   */
+  private final String shoppingCartsChangelogTopic;
+
+  /**
+   * Max time to wait for the view bootstrap at startup.
+   */
+  private final long bootstrapTimeoutMs;
+
+  /**
+   * Max time each changelog poll waits for records.
+   */
+  private final long pollTimeoutMs;
+
+  /**
+   * Map with shopping cart snapshots by identifier.
+   */
+  private final Map<Long, ShoppingCartSnapshot> shoppingCarts = new ConcurrentHashMap<>();
+
+  /**
+   * Map with incomplete shopping cart identifiers by user.
+   */
+  private final Map<Integer, Long> incompleteShoppingCarts = new ConcurrentHashMap<>();
+
+  /**
+   * Changelog consumers, one by partition.
+   */
+  private final List<Consumer<String, byte[]>> consumers = new CopyOnWriteArrayList<>();
+
+  /**
+   * Latch released once all partitions are read up to their end offsets at startup.
+   */
+  private CountDownLatch bootstrapped = new CountDownLatch(1);
+
+  /**
+   * Whether some consumer failed, so the view no longer follows the changelog.
+   */
+  private volatile boolean failed;
+
+  /**
+   * Whether the view is being closed.
+   */
+  private volatile boolean closing;
+
+  /**
+   * Constructor.
+   *
+   * @param consumerFactory             consumer factory.
+   * @param eventCodecs                 event codecs.
+   * @param shoppingCartsChangelogTopic shopping carts changelog topic.
+   * @param bootstrapTimeoutMs          max time to wait for the view bootstrap at startup.
+   * @param pollTimeoutMs               max time each changelog poll waits for records.
+   */
+  public ShoppingCartChangelogView(ConsumerFactory<String, byte[]> consumerFactory,
+      EventCodecs eventCodecs,
+      @Value("${kafka.topics.shoppingCartsChangelog}") String shoppingCartsChangelogTopic,
+      @Value("${kafka.changelog.bootstrapTimeoutMs}") long bootstrapTimeoutMs,
+      @Value("${kafka.changelog.pollTimeoutMs}") long pollTimeoutMs) {
+    this.consumerFactory = consumerFactory;
+    this.eventCodecs = eventCodecs;
+    this.shoppingCartsChangelogTopic = shoppingCartsChangelogTopic;
+    this.bootstrapTimeoutMs = bootstrapTimeoutMs;
+    this.pollTimeoutMs = pollTimeoutMs;
+  }
+
+  /**
+   * Starts a reader thread by changelog partition, and waits for the view bootstrap up to its
+   * timeout. If it isn't bootstrapped by then, the startup goes on and reads are served by the
+   * database until it is.
+   *
+   * @throws InterruptedException if interrupted while waiting for the bootstrap.
+   */
+  @PostConstruct
+  public void start() throws InterruptedException {
+    final long start = System.nanoTime();
+    List<TopicPartition> partitions;
+    try (Consumer<String, byte[]> consumer = this.createConsumer()) {
+      partitions = consumer.partitionsFor(this.shoppingCartsChangelogTopic).stream()
+          .map(partition -> new TopicPartition(partition.topic(), partition.partition()))
+          .collect(Collectors.toList());
+    }
+    this.bootstrapped = new CountDownLatch(partitions.size());
+    for (TopicPartition partition : partitions) {
+      Consumer<String, byte[]> consumer = this.createConsumer();
+      this.consumers.add(consumer);
+      Thread reader = new Thread(() -> this.read(consumer, partition),
+          "changelog-reader-" + partition.partition());
+      reader.setDaemon(true);
+      reader.start();
+    }
+    if (this.bootstrapped.await(this.bootstrapTimeoutMs, TimeUnit.MILLISECONDS)) {
+      log.info("Bootstrapped {} shopping carts from {} changelog partitions in {} ms",
+          this.shoppingCarts.size(), partitions.size(),
+          TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    } else {
+      log.warn("Shopping carts changelog view not bootstrapped in {} ms, reading from database "
+          + "until it is", this.bootstrapTimeoutMs);
+    }
+  }
+
+  /**
+   * Stops the changelog consumers.
+   */
+  @PreDestroy
+  public void close() {
+    this.closing = true;
+    this.consumers.forEach(Consumer::wakeup);
+  }
+
+  /**
+   * Indicates if the view is bootstrapped and still following the changelog.
+   *
+   * @return true if the view can serve reads, else false.
+   */
+  public boolean isReady() {
+    return this.bootstrapped.getCount() == 0 && !this.failed;
+  }
+
+  /**
+   * Get shopping cart by identifier and user.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @return optional of shopping cart snapshot with id and user, empty if not in the view.
+   */
+  public Optional<ShoppingCartSnapshot> getByIdAndUser(Long id, Integer userId) {
+    return Optional.ofNullable(this.shoppingCarts.get(id))
+        .filter(shoppingCartSnapshot -> userId.equals(shoppingCartSnapshot.getUserId()));
+  }
+
+  /**
+   * Get the incomplete shopping cart of a user.
+   *
+   * @param userId user identifier.
+   * @return optional of incomplete shopping cart snapshot, empty if not in the view.
+   */
+  public Optional<ShoppingCartSnapshot> getIncompleteByUser(Integer userId) {
+    return Optional.ofNullable(this.incompleteShoppingCarts.get(userId))
+        .map(this.shoppingCarts::get)
+        .filter(shoppingCartSnapshot -> !shoppingCartSnapshot.isCompleted());
+  }
+
+  /**
+   * Reads a changelog partition from the beginning, releasing its bootstrap latch once it reaches
+   * the end offset it had when started, and tailing it afterwards.
+   *
+   * @param consumer  partition consumer.
+   * @param partition changelog partition.
+   */
+  private void read(Consumer<String, byte[]> consumer, TopicPartition partition) {
+    try (consumer) {
+      List<TopicPartition> assignment = List.of(partition);
+      consumer.assign(assignment);
+      consumer.seekToBeginning(assignment);
+      long endOffset = consumer.endOffsets(assignment).get(partition);
+      boolean caughtUp = false;
+      while (!this.closing) {
+        if (!caughtUp && consumer.position(partition) >= endOffset) {
+          caughtUp = true;
+          this.bootstrapped.countDown();
+        }
+        for (ConsumerRecord<String, byte[]> consumerRecord :
+            consumer.poll(Duration.ofMillis(this.pollTimeoutMs))) {
+          this.apply(consumerRecord);
+        }
+      }
+    } catch (WakeupException we) {
+      log.debug("Stopped shopping carts changelog reader of partition {}", partition);
+    } catch (Exception e) {
+      this.failed = true;
+      log.error("Error reading shopping carts changelog partition {}, reading from database: {}",
+          partition, e.getMessage());
+    }
+  }
+
+  /**
+   * Applies a changelog record to the view.
+   *
+   * @param consumerRecord changelog record, a tombstone if the shopping cart was deleted.
+   */
+  private void apply(ConsumerRecord<String, byte[]> consumerRecord) {
+    Long id = Long.valueOf(consumerRecord.key());
+    ShoppingCartSnapshot shoppingCartSnapshot = null;
+    if (consumerRecord.value() != null) {
+      try {
+        shoppingCartSnapshot =
+            this.eventCodecs.decode(consumerRecord.value(), ShoppingCartSnapshot.class);
+      } catch (Exception e) {
+        log.error("Dropped undecodable changelog record of shopping cart {}: {}", id,
+            e.getMessage());
+        return;
+      }
+    }
+    ShoppingCartSnapshot previous = shoppingCartSnapshot == null
+        ? this.shoppingCarts.remove(id)
+        : this.shoppingCarts.put(id, shoppingCartSnapshot);
+    if (previous != null && !previous.isCompleted()) {
+      this.incompleteShoppingCarts.remove(previous.getUserId(), id);
+    }
+    if (shoppingCartSnapshot != null && !shoppingCartSnapshot.isCompleted()) {
+      this.incompleteShoppingCarts.put(shoppingCartSnapshot.getUserId(), id);
+    }
+  }
+
+  /**
+   * Creates a changelog consumer, that doesn't commit offsets.
+   *
+   * @return consumer.
+   */
+  private Consumer<String, byte[]> createConsumer() {
+    Properties properties = new Properties();
+    properties.setProperty(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, "false");
+    return this.consumerFactory.createConsumer(null, null, "-changelog", properties);
+  }
+
+}
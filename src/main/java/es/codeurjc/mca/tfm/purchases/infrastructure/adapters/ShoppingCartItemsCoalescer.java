@@ -0,0 +1,201 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.adapters;
+
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Coalesces shopping cart items updates. As each update is a full snapshot of the shopping cart
+ * items, the latest snapshot of a shopping cart is held for a short window and only the newest
+ * one is published. Held snapshots are returned when the shopping cart is read, so following
+ * updates of the same shopping cart are applied over them.
+ */
+@Component
+@Slf4j
+public class ShoppingCartItemsCoalescer {
+
+  /**
+   * Held snapshots by shopping cart identifier.
+   */
+  private final Map<Long, PendingUpdate> pendingUpdates = new ConcurrentHashMap<>();
+
+  /**
+   * Time a snapshot is held, 0 if coalescing is disabled.
+   */
+  private final long windowMs;
+
+  /**
+   * Scheduler of held snapshots publication.
+   */
+  private final ScheduledExecutorService scheduler;
+
+  /**
+   * Constructor.
+   *
+   * @param windowMs time a snapshot is held, 0 to disable coalescing.
+   */
+  public ShoppingCartItemsCoalescer(@Value("${kafka.coalescing.windowMs}") long windowMs) {
+    this.windowMs = windowMs;
+    this.scheduler = windowMs > 0
+        ? Executors.newSingleThreadScheduledExecutor(runnable -> {
+          Thread thread = new Thread(runnable, "shopping-cart-items-coalescer");
+          thread.setDaemon(true);
+          return thread;
+        })
+        : null;
+  }
+
+  /**
+   * Indicates if coalescing is enabled.
+   *
+   * @return true if enabled, else false.
+   */
+  public boolean isEnabled() {
+    return this.scheduler != null;
+  }
+
+  /**
+   * Holds a shopping cart items snapshot, replacing the held one if exists. The window starts
+   * with the first held snapshot, so a shopping cart updated continuously is still published.
+   *
+   * @param shoppingCartDto shopping cart with updated items.
+   * @param publisher       function that publishes a snapshot.
+   * @return future completed when the newest snapshot is published.
+   */
+  public CompletableFuture<Void> hold(ShoppingCartDto shoppingCartDto,
+      Function<ShoppingCartDto, CompletableFuture<Void>> publisher) {
+    Long id = shoppingCartDto.getId();
+    return this.pendingUpdates.compute(id, (key, pendingUpdate) -> {
+      if (pendingUpdate == null) {
+        PendingUpdate createdUpdate = new PendingUpdate(publisher);
+        createdUpdate.task = this.scheduler.schedule(() -> this.flushExpired(id, createdUpdate),
+            this.windowMs, TimeUnit.MILLISECONDS);
+        pendingUpdate = createdUpdate;
+      }
+      pendingUpdate.snapshot = shoppingCartDto;
+      return pendingUpdate;
+    }).future;
+  }
+
+  /**
+   * Get the held snapshot of a shopping cart.
+   *
+   * @param id shopping cart identifier.
+   * @return optional of held snapshot, empty if there isn't.
+   */
+  public Optional<ShoppingCartDto> getHeld(Long id) {
+    return Optional.ofNullable(this.pendingUpdates.get(id)).map(pendingUpdate ->
+        pendingUpdate.snapshot);
+  }
+
+  /**
+   * Publishes the held snapshot of a shopping cart if exists. Called before publishing other
+   * events of the shopping cart, to keep events order.
+   *
+   * @param id shopping cart identifier.
+   * @return future completed when the held snapshot is published, or completed if there isn't.
+   */
+  public CompletableFuture<Void> flush(Long id) {
+    PendingUpdate pendingUpdate = this.pendingUpdates.remove(id);
+    if (pendingUpdate == null) {
+      return CompletableFuture.completedFuture(null);
+    }
+    return this.publish(id, pendingUpdate);
+  }
+
+  /**
+   * Publishes all held snapshots and stops the scheduler.
+   */
+  @PreDestroy
+  public void stop() {
+    if (this.scheduler != null) {
+      this.pendingUpdates.keySet().forEach(this::flush);
+      this.scheduler.shutdown();
+    }
+  }
+
+  /**
+   * Publishes a held snapshot once its window expires, unless it was already flushed. A snapshot
+   * held after the flush belongs to a new window, so it's not published early.
+   *
+   * @param id            shopping cart identifier.
+   * @param pendingUpdate held snapshot whose window expired.
+   */
+  private void flushExpired(Long id, PendingUpdate pendingUpdate) {
+    if (this.pendingUpdates.remove(id, pendingUpdate)) {
+      this.publish(id, pendingUpdate);
+    }
+  }
+
+  /**
+   * Publishes a held snapshot removed from the held ones.
+   *
+   * @param id            shopping cart identifier.
+   * @param pendingUpdate held snapshot.
+   * @return future completed when the snapshot is published.
+   */
+  private CompletableFuture<Void> publish(Long id, PendingUpdate pendingUpdate) {
+    pendingUpdate.task.cancel(false);
+    try {
+      pendingUpdate.publisher.apply(pendingUpdate.snapshot).whenComplete((v, throwable) -> {
+        if (throwable != null) {
+          pendingUpdate.future.completeExceptionally(throwable);
+        } else {
+          pendingUpdate.future.complete(null);
+        }
+      });
+    } catch (RuntimeException e) {
+      log.error("Error publishing shopping cart {} items: {}", id, e.getMessage());
+      pendingUpdate.future.completeExceptionally(e);
+    }
+    return pendingUpdate.future;
+  }
+
+  /**
+   * Held shopping cart items snapshot.
+   */
+  private static final class PendingUpdate {
+
+    /**
+     * Future completed when the newest snapshot is published.
+     */
+    private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+    /**
+     * Function that publishes the snapshot.
+     */
+    private final Function<ShoppingCartDto, CompletableFuture<Void>> publisher;
+
+    /**
+     * Newest snapshot.
+     */
+    private volatile ShoppingCartDto snapshot;
+
+    /**
+     * Scheduled publication.
+     */
+    private ScheduledFuture<?> task;
+
+    /**
+     * Constructor.
+     *
+     * @param publisher function that publishes the snapshot.
+     */
+    private PendingUpdate(Function<ShoppingCartDto, CompletableFuture<Void>> publisher) {
+      this.publisher = publisher;
+    }
+
+  }
+
+}
@@ -0,0 +1,201 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.adapters;
+
+import es.codeurjc.mca.tfm.purchases.application.security.config.SecurityConfig;
+import es.codeurjc.mca.tfm.purchases.application.security.filters.JwtTokenProvider;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.StoreQueryParameters;
+import org.apache.kafka.streams.state.HostInfo;
+import org.apache.kafka.streams.state.QueryableStoreTypes;
+import org.apache.kafka.streams.state.ReadOnlyKeyValueStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Shopping carts Kafka Streams store. Queries each shopping cart in the instance whose store holds
+ * its changelog partition: in the local store if it's this one, or through the store endpoint of
+ * the owner instance management port otherwise, authenticated with a token of this service. Shopping
+ * carts not found, or whose owner can't be queried, are reported as missing, so
+ * they are read from database.
+ */
+@Component
+@ConditionalOnProperty(value = "kafka.streams.enabled", havingValue = "true")
+@Slf4j
+public class ShoppingCartStreamsStore {
+
+  /**
+   * Path of the store endpoint in other instances, followed by the shopping cart identifier.
+   */
+  private static final String STORE_ENDPOINT_PATH = "/actuator/shoppingcartstore/";
+
+  /**
+   * Streams builder factory bean, holding the running Kafka Streams.
+   */
+  private final StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+
+  /**
+   * Event codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * JWT token provider, creating the tokens sent to other instances.
+   */
+  private final JwtTokenProvider jwtTokenProvider;
+
+  /**
+   * Client of other instances store endpoint.
+   */
+  private final RestTemplate restTemplate;
+
+  /**
+   * Name of the shopping carts store.
+   */
+  private final String storeName;
+
+  /**
+   * Host and port of this instance, as advertised to the rest.
+   */
+  private final HostInfo hostInfo;
+
+  /**
+   * Scheme of other instances store endpoint.
+   */
+  private final String remoteScheme;
+
+  /**
+   * Constructor.
+   *
+   * @param streamsBuilderFactoryBean streams builder factory bean.
+   * @param eventCodecs               event codecs.
+   * @param jwtTokenProvider          JWT token provider.
+   * @param restTemplateBuilder       rest template builder.
+   * @param storeName                 name of the shopping carts store.
+   * @param advertisedHost            host advertised to other instances.
+   * @param managementPort            management port, serving the store endpoint.
+   * @param remoteScheme              scheme of other instances store endpoint.
+   * @param remoteTimeoutMs           max time to wait for other instances store endpoint.
+   */
+  public ShoppingCartStreamsStore(StreamsBuilderFactoryBean streamsBuilderFactoryBean,
+      EventCodecs eventCodecs,
+      JwtTokenProvider jwtTokenProvider,
+      RestTemplateBuilder restTemplateBuilder,
+      @Value("${kafka.streams.storeName}") String storeName,
+      @Value("${kafka.streams.advertisedHost}") String advertisedHost,
+      @Value("${management.server.port}") int managementPort,
+      @Value("${kafka.streams.remoteScheme}") String remoteScheme,
+      @Value("${kafka.streams.remoteTimeoutMs}") long remoteTimeoutMs) {
+    this.streamsBuilderFactoryBean = streamsBuilderFactoryBean;
+    this.eventCodecs = eventCodecs;
+    this.jwtTokenProvider = jwtTokenProvider;
+    this.restTemplate = restTemplateBuilder
+        .setConnectTimeout(Duration.ofMillis(remoteTimeoutMs))
+        .setReadTimeout(Duration.ofMillis(remoteTimeoutMs))
+        .build();
+    this.storeName = storeName;
+    this.hostInfo = new HostInfo(advertisedHost, managementPort);
+    this.remoteScheme = remoteScheme;
+  }
+
+  /**
+   * Indicates if Kafka Streams is running, so its stores can be queried.
+   *
+   * @return true if stores can be queried, else false.
+   */
+  public boolean isReady() {
+    KafkaStreams kafkaStreams = this.streamsBuilderFactoryBean.getKafkaStreams();
+    return kafkaStreams != null && kafkaStreams.state() == KafkaStreams.State.RUNNING;
+  }
+
+  /**
+   * Get shopping cart by identifier and user, from the instance that holds it.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @return optional of shopping cart snapshot with id and user, empty if not found.
+   */
+  public Optional<ShoppingCartSnapshot> getByIdAndUser(Long id, Integer userId) {
+    KafkaStreams kafkaStreams = this.streamsBuilderFactoryBean.getKafkaStreams();
+    if (kafkaStreams == null) {
+      return Optional.empty();
+    }
+    KeyQueryMetadata metadata = kafkaStreams.queryMetadataForKey(this.storeName,
+        String.valueOf(id), Serdes.String().serializer());
+    if (metadata == null || KeyQueryMetadata.NOT_AVAILABLE.equals(metadata)) {
+      return Optional.empty();
+    }
+    Optional<ShoppingCartSnapshot> shoppingCartSnapshot =
+        this.hostInfo.equals(metadata.activeHost())
+            ? this.getLocal(id)
+            : this.getRemote(metadata.activeHost(), id, userId);
+    return shoppingCartSnapshot
+        .filter(snapshot -> userId.equals(snapshot.getUserId()));
+  }
+
+  /**
+   * Get shopping cart by identifier from the local store.
+   *
+   * @param id shopping cart identifier.
+   * @return optional of shopping cart snapshot, empty if not in the local store.
+   */
+  public Optional<ShoppingCartSnapshot> getLocal(Long id) {
+    KafkaStreams kafkaStreams = this.streamsBuilderFactoryBean.getKafkaStreams();
+    if (kafkaStreams == null) {
+      return Optional.empty();
+    }
+    try {
+      ReadOnlyKeyValueStore<String, byte[]> store = kafkaStreams.store(
+          StoreQueryParameters.fromNameAndType(this.storeName,
+              QueryableStoreTypes.<String, byte[]>keyValueStore()));
+      byte[] value = store.get(String.valueOf(id));
+      return value == null
+          ? Optional.empty()
+          : Optional.of(this.eventCodecs.decode(value, ShoppingCartSnapshot.class));
+    } catch (Exception e) {
+      log.warn("Error querying shopping cart {} in local store: {}", id, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Get shopping cart by identifier and user from the store of other instance.
+   *
+   * @param owner  host of the instance holding the shopping cart.
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @return optional of shopping cart snapshot, empty if not found or the instance fails.
+   */
+  private Optional<ShoppingCartSnapshot> getRemote(HostInfo owner, Long id, Integer userId) {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setAccept(List.of(MediaType.APPLICATION_JSON));
+    headers.setBearerAuth(this.jwtTokenProvider.createServiceToken(SecurityConfig.SERVICE_ROLE));
+    String url = this.remoteScheme + "://" + owner.host() + ":" + owner.port()
+        + STORE_ENDPOINT_PATH + id + "?userId=" + userId;
+    try {
+      return Optional.ofNullable(this.restTemplate.exchange(url, HttpMethod.GET,
+          new HttpEntity<>(headers), ShoppingCartSnapshot.class).getBody());
+    } catch (HttpClientErrorException.NotFound nf) {
+      return Optional.empty();
+    } catch (Exception e) {
+      log.warn("Error querying shopping cart {} in {}: {}", id, owner, e.getMessage());
+      return Optional.empty();
+    }
+  }
+
+}
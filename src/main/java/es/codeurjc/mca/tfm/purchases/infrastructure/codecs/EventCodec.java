@@ -0,0 +1,45 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import java.io.IOException;
+
+/**
+ * Event codec interface, which encodes and decodes events in a wire format.
+ */
+public interface EventCodec {
+
+  /**
+   * Get codec name, used to select it by configuration.
+   *
+   * @return codec name.
+   */
+  String getName();
+
+  /**
+   * Indicates if passed payload was encoded with this codec.
+   *
+   * @param payload encoded event.
+   * @return true if this codec can decode the payload, else false.
+   */
+  boolean canDecode(byte[] payload);
+
+  /**
+   * Encodes an event.
+   *
+   * @param event event to encode.
+   * @return encoded event.
+   * @throws IOException if an error encoding event happens.
+   */
+  byte[] encode(Object event) throws IOException;
+
+  /**
+   * Decodes an event.
+   *
+   * @param payload encoded event.
+   * @param type    event class.
+   * @param <T>     event type.
+   * @return decoded event.
+   * @throws IOException if an error decoding event happens.
+   */
+  <T> T decode(byte[] payload, Class<T> type) throws IOException;
+
+}
@@ -0,0 +1,120 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Event codecs registry. Encodes events with the codec configured for each topic, and decodes
+ * them detecting the codec used to encode them, so topics can be migrated from a format to other
+ * while both formats are in flight.
+ */
+@Component
+@ConfigurationProperties(prefix = "kafka.codecs")
+public class EventCodecs {
+
+  /**
+   * JSON codec.
+   */
+  private final JsonEventCodec jsonEventCodec = new JsonEventCodec();
+
+  /**
+   * Available codecs, the JSON one must be the last because it decodes any payload.
+   */
+  private final List<EventCodec> codecs = List.of(new SmileEventCodec(), this.jsonEventCodec);
+
+  /**
+   * Name of the codec used in topics without specific codec.
+   */
+  private String defaultCodec = JsonEventCodec.NAME;
+
+  /**
+   * Map with codec names by topic.
+   */
+  private Map<String, String> topics = new HashMap<>();
+
+  /**
+   * Map with codecs by topic.
+   */
+  private final Map<String, EventCodec> topicCodecs = new HashMap<>();
+
+  /**
+   * Codec used in topics without specific codec.
+   */
+  private EventCodec defaultEventCodec;
+
+  public void setDefaultCodec(String defaultCodec) {
+    this.defaultCodec = defaultCodec;
+  }
+
+  public void setTopics(Map<String, String> topics) {
+    this.topics = topics;
+  }
+
+  /**
+   * Checks configured codecs exist, and resolves codec of each topic.
+   */
+  @PostConstruct
+  public void init() {
+    this.defaultEventCodec = this.getCodec(this.defaultCodec);
+    this.topics.forEach((topic, codec) -> this.topicCodecs.put(topic, this.getCodec(codec)));
+  }
+
+  /**
+   * Get JSON codec, shared by the components which store JSON text.
+   *
+   * @return JSON codec.
+   */
+  public JsonEventCodec getJsonCodec() {
+    return this.jsonEventCodec;
+  }
+
+  /**
+   * Encodes an event with the codec configured for passed topic.
+   *
+   * @param topic topic where event will be sent.
+   * @param event event to encode.
+   * @return encoded event.
+   * @throws IOException if an error encoding event happens.
+   */
+  public byte[] encode(String topic, Object event) throws IOException {
+    return this.topicCodecs.getOrDefault(topic, this.defaultEventCodec).encode(event);
+  }
+
+  /**
+   * Decodes an event with the codec which encoded it.
+   *
+   * @param payload encoded event.
+   * @param type    event class.
+   * @param <T>     event type.
+   * @return decoded event.
+   * @throws IOException if an error decoding event happens.
+   */
+  public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+    for (EventCodec codec : this.codecs) {
+      if (codec.canDecode(payload)) {
+        return codec.decode(payload, type);
+      }
+    }
+    throw new IOException("Not codec found to decode payload");
+  }
+
+  /**
+   * Get codec by name.
+   *
+   * @param name codec name.
+   * @return codec with passed name.
+   */
+  private EventCodec getCodec(String name) {
+    Optional<EventCodec> codec = this.codecs.stream()
+        .filter(eventCodec -> eventCodec.getName().equals(name))
+        .findFirst();
+    return codec.orElseThrow(() -> new IllegalArgumentException("Unknown event codec " + name));
+  }
+
+}
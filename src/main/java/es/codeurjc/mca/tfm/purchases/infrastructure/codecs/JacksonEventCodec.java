@@ -0,0 +1,90 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Jackson based event codec base class. Readers and writers are immutable and thread-safe, so
+ * they are built once per type and shared.
+ */
+public abstract class JacksonEventCodec implements EventCodec {
+
+  /**
+   * Readers by type.
+   */
+  private final Map<Class<?>, ObjectReader> readers = new ConcurrentHashMap<>();
+
+  /**
+   * Writers by type.
+   */
+  private final Map<Class<?>, ObjectWriter> writers = new ConcurrentHashMap<>();
+
+  /**
+   * Object mapper.
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Constructor.
+   *
+   * @param objectMapper object mapper of the codec format.
+   */
+  protected JacksonEventCodec(ObjectMapper objectMapper) {
+    this.objectMapper = objectMapper;
+    this.objectMapper.registerModule(new Jdk8Module());
+    this.objectMapper.disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+  }
+
+  /**
+   * Encodes an event.
+   *
+   * @param event event to encode.
+   * @return encoded event.
+   * @throws IOException if an error encoding event happens.
+   */
+  @Override
+  public byte[] encode(Object event) throws IOException {
+    return this.writer(event.getClass()).writeValueAsBytes(event);
+  }
+
+  /**
+   * Decodes an event.
+   *
+   * @param payload encoded event.
+   * @param type    event class.
+   * @param <T>     event type.
+   * @return decoded event.
+   * @throws IOException if an error decoding event happens.
+   */
+  @Override
+  public <T> T decode(byte[] payload, Class<T> type) throws IOException {
+    return this.reader(type).readValue(payload);
+  }
+
+  /**
+   * Get cached reader of passed type.
+   *
+   * @param type type to read.
+   * @return reader of passed type.
+   */
+  protected ObjectReader reader(Class<?> type) {
+    return this.readers.computeIfAbsent(type, this.objectMapper::readerFor);
+  }
+
+  /**
+   * Get cached writer of passed type.
+   *
+   * @param type type to write.
+   * @return writer of passed type.
+   */
+  protected ObjectWriter writer(Class<?> type) {
+    return this.writers.computeIfAbsent(type, this.objectMapper::writerFor);
+  }
+
+}
@@ -0,0 +1,69 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * JSON event codec, the text format used by default.
+ */
+public class JsonEventCodec extends JacksonEventCodec {
+
+  /**
+   * Codec name.
+   */
+  public static final String NAME = "json";
+
+  /**
+   * Constructor.
+   */
+  public JsonEventCodec() {
+    super(new ObjectMapper());
+  }
+
+  /**
+   * Get codec name, used to select it by configuration.
+   *
+   * @return codec name.
+   */
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Indicates if passed payload was encoded with this codec. As JSON is the default format, any
+   * payload not claimed by other codec is considered JSON.
+   *
+   * @param payload encoded event.
+   * @return always true.
+   */
+  @Override
+  public boolean canDecode(byte[] payload) {
+    return true;
+  }
+
+  /**
+   * Encodes a value as JSON text, used to store JSON columns.
+   *
+   * @param value value to encode.
+   * @return JSON text.
+   * @throws JsonProcessingException if an error encoding value happens.
+   */
+  public String encodeToString(Object value) throws JsonProcessingException {
+    return this.writer(value.getClass()).writeValueAsString(value);
+  }
+
+  /**
+   * Decodes a value from JSON text, used to read JSON columns.
+   *
+   * @param json JSON text.
+   * @param type value class.
+   * @param <T>  value type.
+   * @return decoded value.
+   * @throws JsonProcessingException if an error decoding value happens.
+   */
+  public <T> T decodeFromString(String json, Class<T> type) throws JsonProcessingException {
+    return this.reader(type).readValue(json);
+  }
+
+}
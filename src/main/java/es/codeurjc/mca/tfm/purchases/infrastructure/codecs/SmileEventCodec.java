@@ -0,0 +1,64 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.codecs;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileGenerator;
+
+/**
+ * Smile event codec, a compact binary JSON format. Every payload starts with the Smile header,
+ * so it can be told apart from JSON payloads in the same topic.
+ */
+public class SmileEventCodec extends JacksonEventCodec {
+
+  /**
+   * Codec name.
+   */
+  public static final String NAME = "smile";
+
+  /**
+   * Smile header first bytes (":)\n").
+   */
+  private static final byte[] HEADER = {0x3A, 0x29, 0x0A};
+
+  /**
+   * Constructor.
+   */
+  public SmileEventCodec() {
+    super(buildObjectMapper());
+  }
+
+  /**
+   * Builds Smile object mapper, writing header so payloads can be told apart from JSON ones.
+   *
+   * @return Smile object mapper.
+   */
+  private static ObjectMapper buildObjectMapper() {
+    SmileFactory smileFactory = new SmileFactory();
+    smileFactory.enable(SmileGenerator.Feature.WRITE_HEADER);
+    smileFactory.enable(SmileGenerator.Feature.CHECK_SHARED_NAMES);
+    return new ObjectMapper(smileFactory);
+  }
+
+  /**
+   * Get codec name, used to select it by configuration.
+   *
+   * @return codec name.
+   */
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  /**
+   * Indicates if passed payload was encoded with this codec.
+   *
+   * @param payload encoded event.
+   * @return true if payload starts with Smile header, else false.
+   */
+  @Override
+  public boolean canDecode(byte[] payload) {
+    return payload != null && payload.length >= HEADER.length
+        && payload[0] == HEADER[0] && payload[1] == HEADER[1] && payload[2] == HEADER[2];
+  }
+
+}
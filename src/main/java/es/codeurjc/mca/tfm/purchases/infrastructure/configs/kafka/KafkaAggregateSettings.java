@@ -0,0 +1,109 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import javax.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Aggregate topics. When enabled, the events of the listener topics of an aggregate are published
+ * to a single topic, keyed by aggregate identifier, with their listener topic as event type header.
+ * So all the events of a shopping cart or an order are consumed in the order they were published,
+ * whatever their type is. Transactional topics are left out while transactions are enabled, so
+ * their events keep being consumed by their own containers, committing offsets in their Kafka
+ * transaction.
+ */
+@Component
+@ConfigurationProperties(prefix = "kafka.aggregates")
+public class KafkaAggregateSettings {
+
+  /**
+   * Whether Kafka transactions are enabled.
+   */
+  @Value("${kafka.transactions.enabled}")
+  private boolean transactionsEnabled;
+
+  /**
+   * Topics consumed in a Kafka transaction.
+   */
+  @Value("${kafka.transactions.topics}")
+  private Set<String> transactionalTopics;
+
+  /**
+   * Whether aggregate topics are enabled.
+   */
+  private boolean enabled;
+
+  /**
+   * Map with listener topics by aggregate topic.
+   */
+  private Map<String, List<String>> topics = new HashMap<>();
+
+  /**
+   * Map with aggregate topic by listener topic.
+   */
+  private final Map<String, String> aggregateTopics = new HashMap<>();
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Map<String, List<String>> getTopics() {
+    return this.topics;
+  }
+
+  public void setTopics(Map<String, List<String>> topics) {
+    this.topics = topics;
+  }
+
+  /**
+   * Checks each listener topic belongs to a single aggregate topic, and indexes them, except the
+   * transactional ones while transactions are enabled.
+   *
+   * @throws IllegalStateException if a listener topic belongs to several aggregate topics.
+   */
+  @PostConstruct
+  public void init() {
+    this.topics.forEach((aggregateTopic, listenerTopics) -> listenerTopics.forEach(topic -> {
+      String previous = this.aggregateTopics.put(topic, aggregateTopic);
+      if (previous != null) {
+        throw new IllegalStateException("Topic " + topic + " belongs to " + previous + " and "
+            + aggregateTopic + " aggregate topics");
+      }
+    }));
+    if (this.transactionsEnabled) {
+      this.aggregateTopics.keySet().removeAll(this.transactionalTopics);
+    }
+  }
+
+  /**
+   * Get the aggregate topic where the events of a listener topic are published.
+   *
+   * @param topic listener topic.
+   * @return aggregate topic, empty if aggregate topics are disabled or the topic has none or is
+   *     transactional.
+   */
+  public Optional<String> getAggregateTopic(String topic) {
+    return this.enabled ? Optional.ofNullable(this.aggregateTopics.get(topic)) : Optional.empty();
+  }
+
+  /**
+   * Get aggregate topics with any listener topic published to them.
+   *
+   * @return aggregate topics, empty if aggregate topics are disabled.
+   */
+  public Set<String> getAggregateTopics() {
+    return this.enabled ? new HashSet<>(this.aggregateTopics.values()) : Set.of();
+  }
+
+}
@@ -1,16 +1,53 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.AggregateEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.DuplicateEventFilter;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventAgeInterceptor;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDispatcher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.MultiplexedEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ParallelEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.PriorityLaneController;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ShoppingCartBatchEventsListener;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.stream.Collectors;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.common.IsolationLevel;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
 import org.apache.kafka.common.serialization.StringDeserializer;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.AfterRollbackProcessor;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.CompositeBatchInterceptor;
+import org.springframework.kafka.listener.CompositeRecordInterceptor;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DeadLetterPublishingRecoverer;
+import org.springframework.kafka.listener.DefaultAfterRollbackProcessor;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.transaction.KafkaTransactionManager;
+import org.springframework.util.StringUtils;
 
 /**
  * Kafka configuration class.
@@ -33,12 +70,157 @@ public class KafkaConsumerConfig {
   private String groupId;
 
   /**
-   * Kafka consumer factory bean.
+   * Partition assignment strategies of consumers, in preference order.
+   */
+  @Value(value = "${kafka.consumer.partitionAssignmentStrategy}")
+  private List<String> partitionAssignmentStrategy;
+
+  /**
+   * Static group membership identifier of this instance, empty for dynamic membership.
+   */
+  @Value(value = "${kafka.consumer.groupInstanceId}")
+  private String groupInstanceId;
+
+  /**
+   * Time without heartbeats after which a consumer is removed from the group.
+   */
+  @Value(value = "${kafka.consumer.sessionTimeoutMs}")
+  private int sessionTimeoutMs;
+
+  /**
+   * Max time to wait for consumers to finish the records of their last poll on shutdown.
+   */
+  @Value(value = "${kafka.consumer.shutdownTimeoutMs}")
+  private long shutdownTimeoutMs;
+
+  /**
+   * Whether Kafka transactions are enabled.
+   */
+  @Value(value = "${kafka.transactions.enabled}")
+  private boolean transactionsEnabled;
+
+  /**
+   * Topics whose listeners consume and produce in a Kafka transaction.
+   */
+  @Value(value = "${kafka.transactions.topics}")
+  private Set<String> transactionalTopics;
+
+  /**
+   * Per topic settings.
+   */
+  @Autowired
+  private KafkaTopicSettings kafkaTopicSettings;
+
+  /**
+   * Max processing attempts of a record, including the first one.
+   */
+  @Value(value = "${kafka.retry.maxAttempts}")
+  private int maxAttempts;
+
+  /**
+   * Delay before the first retry.
+   */
+  @Value(value = "${kafka.retry.initialIntervalMs}")
+  private long initialIntervalMs;
+
+  /**
+   * Delay multiplier between retries.
+   */
+  @Value(value = "${kafka.retry.multiplier}")
+  private double multiplier;
+
+  /**
+   * Max delay between retries.
+   */
+  @Value(value = "${kafka.retry.maxIntervalMs}")
+  private long maxIntervalMs;
+
+  /**
+   * Suffix of dead letter topics.
+   */
+  @Value(value = "${kafka.retry.dltSuffix}")
+  private String dltSuffix;
+
+  /**
+   * Topics processed in-process, whose listener containers are not started.
+   */
+  @Value(value = "${kafka.inprocess.topics:}")
+  private Set<String> inProcessTopics;
+
+  /**
+   * Whether multiplexed consumer mode is enabled.
+   */
+  @Value(value = "${kafka.multiplexed.enabled}")
+  private boolean multiplexedEnabled;
+
+  /**
+   * Topics consumed by the multiplexed container when multiplexed mode is enabled.
+   */
+  @Value(value = "${kafka.multiplexed.topics}")
+  private Set<String> multiplexedTopics;
+
+  /**
+   * Kafka update order topic.
+   */
+  @Value(value = "${kafka.topics.updateOrder}")
+  private String updateOrderTopic;
+
+  /**
+   * Kafka change order state topic.
+   */
+  @Value(value = "${kafka.topics.changeState}")
+  private String changeStateTopic;
+
+  /**
+   * Whether parallel consumer mode is enabled.
+   */
+  @Value(value = "${kafka.parallel.enabled}")
+  private boolean parallelEnabled;
+
+  /**
+   * Topics consumed by the parallel container when parallel mode is enabled.
+   */
+  @Value(value = "${kafka.parallel.topics}")
+  private Set<String> parallelTopics;
+
+  /**
+   * Suffix of retry topics, followed by retry index.
+   */
+  @Value(value = "${kafka.retry.retryTopicSuffix}")
+  private String retryTopicSuffix;
+
+  /**
+   * Priority classes settings.
+   */
+  @Autowired
+  private KafkaPrioritySettings kafkaPrioritySettings;
+
+  /**
+   * Priority lanes controller, only present when priority classes are enabled.
+   */
+  @Autowired(required = false)
+  private PriorityLaneController priorityLaneController;
+
+  /**
+   * Interceptor recording the age of processed events.
+   */
+  @Autowired
+  private EventAgeInterceptor eventAgeInterceptor;
+
+  /**
+   * Interceptor dropping redelivered events by their event id header.
+   */
+  @Autowired
+  private DuplicateEventFilter duplicateEventFilter;
+
+  /**
+   * Kafka consumer factory bean. With cooperative sticky assignment, a rebalance only revokes the
+   * partitions that move to other consumers, so the rest keep being processed.
    *
    * @return ConsumerFactory instance.
    */
   @Bean
-  public ConsumerFactory<String, String> consumerFactory() {
+  public ConsumerFactory<String, byte[]> consumerFactory() {
     Map<String, Object> props = new HashMap<>();
     props.put(
         ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG,
@@ -51,25 +233,440 @@ public class KafkaConsumerConfig {
         StringDeserializer.class);
     props.put(
         ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG,
-        StringDeserializer.class);
+        ByteArrayDeserializer.class);
+    props.put(
+        ConsumerConfig.PARTITION_ASSIGNMENT_STRATEGY_CONFIG,
+        this.partitionAssignmentStrategy);
+    props.put(
+        ConsumerConfig.SESSION_TIMEOUT_MS_CONFIG,
+        this.sessionTimeoutMs);
+    if (this.transactionsEnabled) {
+      props.put(
+          ConsumerConfig.ISOLATION_LEVEL_CONFIG,
+          IsolationLevel.READ_COMMITTED.toString().toLowerCase(Locale.ROOT));
+    }
     return new DefaultKafkaConsumerFactory<>(props);
   }
 
   /**
-   * ConcurrentKafkaListenerContainerFactory bean.
+   * ConcurrentKafkaListenerContainerFactory bean. When transactions are enabled, containers of
+   * transactional topics commit consumed offsets and produced records in the same transaction. As
+   * retry topics can't be used in a rolled back transaction, their failed records are retried in
+   * place and then forwarded to the dead letter topic in a new transaction.
+   * Containers of topics processed in-process are not started. Listener concurrency and consumer
+   * overrides are taken from the settings of the container topics. Containers of multiplexed or
+   * parallel topics and of their retry and dead letter topics are not started. Age of processed
+   * events is recorded by topic.
    *
+   * @param producerFactory producer factory.
+   * @param kafkaTemplate   template used to forward failed records to dead letter topics.
    * @return ConcurrentKafkaListenerContainerFactory instance.
    */
   @Bean
-  public ConcurrentKafkaListenerContainerFactory<String, String> kafkaListenerContainerFactory() {
-    ConcurrentKafkaListenerContainerFactory<String, String> factory =
+  public ConcurrentKafkaListenerContainerFactory<String, byte[]> kafkaListenerContainerFactory(
+      ProducerFactory<String, byte[]> producerFactory,
+      KafkaTemplate<String, byte[]> kafkaTemplate) {
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
         new ConcurrentKafkaListenerContainerFactory<>();
     factory.setConsumerFactory(consumerFactory());
+    factory.setRecordInterceptor(this.recordInterceptor());
+    // Not exposed as a bean to keep JPA transaction manager as the default one
+    KafkaTransactionManager<String, byte[]> kafkaTransactionManager =
+        this.transactionsEnabled ? new KafkaTransactionManager<>(producerFactory) : null;
+    factory.setContainerCustomizer(container -> {
+      List<String> topics = Arrays.asList(container.getContainerProperties().getTopics());
+      this.applyTopicSettings(container, topics);
+      this.applyMembership(container, topics);
+      this.applyPriority(container, topics);
+      if (kafkaTransactionManager != null && this.transactionalTopics.containsAll(topics)) {
+        container.getContainerProperties().setTransactionManager(kafkaTransactionManager);
+        container.setAfterRollbackProcessor(this.deadLetterAfterRollbackProcessor(kafkaTemplate));
+      }
+      if (this.inProcessTopics.containsAll(topics) || this.isDispatched(topics)) {
+        container.setAutoStartup(false);
+      }
+    });
     return factory;
   }
 
-}
+  /**
+   * Shopping cart events batch listener container bean. Receives create, update items and delete
+   * shopping cart events of a poll together. Failed events are retried with exponential backoff,
+   * and then forwarded to their dead letter topic.
+   *
+   * @param listener                shopping cart events batch listener.
+   * @param kafkaTemplate           template used to forward failed records to dead letter topics.
+   * @param createShoppingCartTopic create shopping cart topic.
+   * @param deleteShoppingCartTopic delete shopping cart topic.
+   * @param updateItemsTopic        update items topic.
+   * @return ConcurrentMessageListenerContainer instance.
+   */
+  @Bean
+  @ConditionalOnProperty(value = "kafka.batch.enabled", havingValue = "true")
+  public ConcurrentMessageListenerContainer<String, byte[]> shoppingCartBatchListenerContainer(
+      ShoppingCartBatchEventsListener listener,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      @Value("${kafka.topics.createShoppingCart}") String createShoppingCartTopic,
+      @Value("${kafka.topics.deleteShoppingCart}") String deleteShoppingCartTopic,
+      @Value("${kafka.topics.updateItems}") String updateItemsTopic) {
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory());
+    factory.setBatchListener(true);
+    factory.setBatchInterceptor(this.batchInterceptor());
+    DefaultErrorHandler errorHandler = new DefaultErrorHandler(
+        this.deadLetterPublishingRecoverer(kafkaTemplate), this.retryBackOff());
+    errorHandler.addNotRetryableExceptions(JsonProcessingException.class);
+    factory.setCommonErrorHandler(errorHandler);
+    ConcurrentMessageListenerContainer<String, byte[]> container = factory.createContainer(
+        createShoppingCartTopic, updateItemsTopic, deleteShoppingCartTopic);
+    container.getContainerProperties().setMessageListener(listener);
+    List<String> topics =
+        List.of(createShoppingCartTopic, updateItemsTopic, deleteShoppingCartTopic);
+    this.applyTopicSettings(container, topics);
+    this.applyMembership(container, topics);
+    this.applyPriority(container, topics);
+    container.setAutoStartup(
+        !this.inProcessTopics.containsAll(topics) && !this.isDispatched(topics));
+    return container;
+  }
 
+  /**
+   * Multiplexed listener container bean. Consumes all multiplexed topics with the configured
+   * number of consumers, instead of a container per topic, and dispatches each record to the
+   * listener method of its topic. Records of a partition are still processed in order. Failed
+   * events are retried in place with exponential backoff, and then forwarded to their dead letter
+   * topic.
+   *
+   * @param listener        multiplexed events listener.
+   * @param eventDispatcher event dispatcher.
+   * @param kafkaTemplate   template used to forward failed records to dead letter topics.
+   * @param concurrency     number of consumers of the container.
+   * @return ConcurrentMessageListenerContainer instance.
+   * @throws IllegalStateException if a multiplexed topic has no listener, or if order updates and
+   *                               order state changes are both multiplexed.
+   */
+  @Bean
+  @ConditionalOnProperty(value = "kafka.multiplexed.enabled", havingValue = "true")
+  public ConcurrentMessageListenerContainer<String, byte[]> multiplexedListenerContainer(
+      MultiplexedEventsListener listener,
+      EventDispatcher eventDispatcher,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      @Value("${kafka.multiplexed.concurrency}") int concurrency) {
+    Set<String> topics = this.getMultiplexedTopics();
+    this.checkSequencing(topics);
+    this.checkHandled(eventDispatcher, topics);
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory());
+    factory.setRecordInterceptor(this.recordInterceptor());
+    DefaultErrorHandler errorHandler = new DefaultErrorHandler(
+        this.deadLetterPublishingRecoverer(kafkaTemplate), this.retryBackOff());
+    errorHandler.addNotRetryableExceptions(JsonProcessingException.class);
+    factory.setCommonErrorHandler(errorHandler);
+    ConcurrentMessageListenerContainer<String, byte[]> container =
+        factory.createContainer(topics.toArray(String[]::new));
+    container.getContainerProperties().setMessageListener(listener);
+    container.setConcurrency(concurrency);
+    this.applyMembership(container, new ArrayList<>(topics));
+    this.applyPriority(container, new ArrayList<>(topics));
+    container.setAutoStartup(!topics.isEmpty());
+    return container;
+  }
+
+  /**
+   * Parallel listener container bean. Consumes all parallel topics, processing the records of each
+   * poll with a pool of worker threads: records of the same partition and key sequentially, and
+   * records with distinct keys in parallel, so a hot partition can use several cores. Offsets of a
+   * poll are committed once all its records are processed. Failed events are retried in place with
+   * exponential backoff from the lowest failed one, and then forwarded to their dead letter topic.
+   *
+   * @param listener        parallel events listener.
+   * @param eventDispatcher event dispatcher.
+   * @param kafkaTemplate   template used to forward failed records to dead letter topics.
+   * @param concurrency     number of consumers of the container.
+   * @return ConcurrentMessageListenerContainer instance.
+   * @throws IllegalStateException if a parallel topic has no listener.
+   */
+  @Bean
+  @ConditionalOnProperty(value = "kafka.parallel.enabled", havingValue = "true")
+  public ConcurrentMessageListenerContainer<String, byte[]> parallelListenerContainer(
+      ParallelEventsListener listener,
+      EventDispatcher eventDispatcher,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      @Value("${kafka.parallel.concurrency}") int concurrency) {
+    Set<String> topics = this.getParallelTopics();
+    this.checkHandled(eventDispatcher, topics);
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory());
+    factory.setBatchListener(true);
+    factory.setBatchInterceptor(this.batchInterceptor());
+    DefaultErrorHandler errorHandler = new DefaultErrorHandler(
+        this.deadLetterPublishingRecoverer(kafkaTemplate), this.retryBackOff());
+    errorHandler.addNotRetryableExceptions(JsonProcessingException.class);
+    factory.setCommonErrorHandler(errorHandler);
+    ConcurrentMessageListenerContainer<String, byte[]> container =
+        factory.createContainer(topics.toArray(String[]::new));
+    container.getContainerProperties().setMessageListener(listener);
+    container.setConcurrency(concurrency);
+    this.applyMembership(container, new ArrayList<>(topics));
+    this.applyPriority(container, new ArrayList<>(topics));
+    container.setAutoStartup(!topics.isEmpty());
+    return container;
+  }
+
+  /**
+   * Aggregate topics listener container bean. Consumes the aggregate topics, and dispatches each
+   * record to the listener method of the event type in its header, so all the events of an
+   * aggregate are processed in the order they were published. Failed events are retried in place
+   * with exponential backoff, and then forwarded to the dead letter topic of their aggregate topic.
+   * Records without event type are forwarded without retries. Transactional topics are not
+   * published to aggregate topics while transactions are enabled, so this container, which has no
+   * transaction manager, never processes their events.
+   *
+   * @param listener               aggregate events listener.
+   * @param eventDispatcher        event dispatcher.
+   * @param kafkaAggregateSettings aggregate topics settings.
+   * @param kafkaTemplate          template used to forward failed records to dead letter topics.
+   * @param concurrency            number of consumers of the container.
+   * @return ConcurrentMessageListenerContainer instance.
+   * @throws IllegalStateException if an event type of an aggregate topic has no listener.
+   */
+  @Bean
+  @ConditionalOnProperty(value = "kafka.aggregates.enabled", havingValue = "true")
+  public ConcurrentMessageListenerContainer<String, byte[]> aggregateListenerContainer(
+      AggregateEventsListener listener,
+      EventDispatcher eventDispatcher,
+      KafkaAggregateSettings kafkaAggregateSettings,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      @Value("${kafka.aggregates.concurrency}") int concurrency) {
+    kafkaAggregateSettings.getTopics().values()
+        .forEach(types -> this.checkHandled(eventDispatcher, new HashSet<>(types)));
+    ConcurrentKafkaListenerContainerFactory<String, byte[]> factory =
+        new ConcurrentKafkaListenerContainerFactory<>();
+    factory.setConsumerFactory(consumerFactory());
+    factory.setRecordInterceptor(this.recordInterceptor());
+    DefaultErrorHandler errorHandler = new DefaultErrorHandler(
+        this.deadLetterPublishingRecoverer(kafkaTemplate), this.retryBackOff());
+    errorHandler.addNotRetryableExceptions(JsonProcessingException.class,
+        IllegalArgumentException.class);
+    factory.setCommonErrorHandler(errorHandler);
+    Set<String> topics = kafkaAggregateSettings.getAggregateTopics();
+    ConcurrentMessageListenerContainer<String, byte[]> container =
+        factory.createContainer(topics.toArray(String[]::new));
+    container.getContainerProperties().setMessageListener(listener);
+    container.setConcurrency(concurrency);
+    this.applyMembership(container, new ArrayList<>(topics));
+    this.applyPriority(container, new ArrayList<>(topics));
+    container.setAutoStartup(!topics.isEmpty());
+    return container;
+  }
+
+  /**
+   * Gets topics consumed by the multiplexed container, except the ones consumed by the parallel
+   * container.
+   *
+   * @return multiplexed topics, empty if multiplexed mode is disabled.
+   */
+  private Set<String> getMultiplexedTopics() {
+    Set<String> topics = this.getDispatchedTopics(this.multiplexedEnabled, this.multiplexedTopics);
+    topics.removeAll(this.getParallelTopics());
+    return topics;
+  }
+
+  /**
+   * Gets topics consumed by the parallel container.
+   *
+   * @return parallel topics, empty if parallel mode is disabled.
+   */
+  private Set<String> getParallelTopics() {
+    return this.getDispatchedTopics(this.parallelEnabled, this.parallelTopics);
+  }
+
+  /**
+   * Gets topics consumed by a dispatching container. Topics processed in-process are not consumed
+   * from Kafka, and transactional topics keep their own containers, so they still commit offsets
+   * in their Kafka transaction.
+   *
+   * @param enabled          whether the container mode is enabled.
+   * @param configuredTopics topics configured for the container.
+   * @return topics consumed by the container, empty if its mode is disabled.
+   */
+  private Set<String> getDispatchedTopics(boolean enabled, Set<String> configuredTopics) {
+    Set<String> topics = new HashSet<>();
+    if (enabled) {
+      topics.addAll(configuredTopics);
+      topics.removeAll(this.inProcessTopics);
+      if (this.transactionsEnabled) {
+        topics.removeAll(this.transactionalTopics);
+      }
+    }
+    return topics;
+  }
 
+  /**
+   * Indicates if the passed topics are consumed by the multiplexed or parallel containers, either
+   * directly or through their retry or dead letter topics.
+   *
+   * @param topics topics consumed by a container.
+   * @return true if all topics are consumed by dispatching containers, else false.
+   */
+  private boolean isDispatched(List<String> topics) {
+    Set<String> dispatched = this.getMultiplexedTopics();
+    dispatched.addAll(this.getParallelTopics());
+    return !dispatched.isEmpty() && topics.stream().allMatch(topic ->
+        dispatched.stream().anyMatch(dispatchedTopic -> topic.equals(dispatchedTopic)
+            || topic.startsWith(dispatchedTopic + this.retryTopicSuffix)
+            || topic.equals(dispatchedTopic + this.dltSuffix)));
+  }
 
+  /**
+   * Checks that order updates and order state changes are not both consumed by the multiplexed
+   * container. A state change received before the order update that precedes it waits for it, and
+   * with both topics multiplexed, the update may only be processed by the same consumer thread.
+   *
+   * @param topics topics consumed by the multiplexed container.
+   * @throws IllegalStateException if both topics are multiplexed.
+   */
+  private void checkSequencing(Set<String> topics) {
+    if (topics.contains(this.updateOrderTopic) && topics.contains(this.changeStateTopic)) {
+      throw new IllegalStateException("Topics " + this.updateOrderTopic + " and "
+          + this.changeStateTopic + " can't be both multiplexed");
+    }
+  }
 
+  /**
+   * Checks that there is a listener for every topic consumed by a dispatching container.
+   *
+   * @param eventDispatcher event dispatcher.
+   * @param topics          topics consumed by the container.
+   * @throws IllegalStateException if a topic has no listener.
+   */
+  private void checkHandled(EventDispatcher eventDispatcher, Set<String> topics) {
+    topics.stream().filter(topic -> !eventDispatcher.handles(topic)).findAny().ifPresent(topic -> {
+      throw new IllegalStateException("Not listener found for topic " + topic);
+    });
+  }
+
+  /**
+   * Builds the record interceptor of listener containers, that drops redelivered events by header
+   * and records the age of processed ones.
+   *
+   * @return record interceptor.
+   */
+  private RecordInterceptor<String, byte[]> recordInterceptor() {
+    return new CompositeRecordInterceptor<>(this.duplicateEventFilter, this.eventAgeInterceptor);
+  }
+
+  /**
+   * Builds the batch interceptor of listener containers, that drops redelivered events by header
+   * and records the age of processed ones.
+   *
+   * @return batch interceptor.
+   */
+  private BatchInterceptor<String, byte[]> batchInterceptor() {
+    return new CompositeBatchInterceptor<>(this.duplicateEventFilter, this.eventAgeInterceptor);
+  }
+
+  /**
+   * Holds the listener invocations of a container to the connections quota of its topics priority
+   * class, when priority classes are enabled.
+   *
+   * @param container container.
+   * @param topics    topics consumed by the container.
+   */
+  private void applyPriority(ConcurrentMessageListenerContainer<String, byte[]> container,
+      List<String> topics) {
+    if (this.priorityLaneController != null) {
+      this.priorityLaneController.getConnectionsQuota(topics)
+          .ifPresent(quota -> container.getContainerProperties().setAdviceChain(quota));
+    }
+  }
+
+  /**
+   * Applies listener concurrency and consumer overrides of the passed topics to a container. The
+   * listener threads of the topics priority class, capped by the topics partitions, take
+   * precedence over the topics concurrency.
+   *
+   * @param container container.
+   * @param topics    topics consumed by the container.
+   */
+  private void applyTopicSettings(ConcurrentMessageListenerContainer<String, byte[]> container,
+      List<String> topics) {
+    int partitions = topics.stream().mapToInt(this.kafkaTopicSettings::getPartitions).min()
+        .orElse(1);
+    container.setConcurrency(this.kafkaPrioritySettings.getThreads(topics)
+        .map(threads -> Math.min(threads, partitions))
+        .orElseGet(() -> this.kafkaTopicSettings.getConcurrency(topics)));
+    Properties consumerProperties = new Properties();
+    topics.forEach(topic -> consumerProperties.putAll(this.kafkaTopicSettings.getConsumer(topic)));
+    if (!consumerProperties.isEmpty()) {
+      container.getContainerProperties().setKafkaConsumerProperties(consumerProperties);
+    }
+  }
+
+  /**
+   * Applies group membership settings to a container. When a static group instance identifier is
+   * configured, each container consumer gets its own one, derived from it and the container topics,
+   * so a restarted instance gets back its partitions without a rebalance. On stop, consumers finish
+   * the records of their last poll and commit them before leaving.
+   *
+   * @param container container.
+   * @param topics    topics consumed by the container.
+   */
+  private void applyMembership(ConcurrentMessageListenerContainer<String, byte[]> container,
+      List<String> topics) {
+    ContainerProperties containerProperties = container.getContainerProperties();
+    containerProperties.setShutdownTimeout(this.shutdownTimeoutMs);
+    if (StringUtils.hasText(this.groupInstanceId)) {
+      Properties consumerProperties = new Properties();
+      consumerProperties.putAll(containerProperties.getKafkaConsumerProperties());
+      consumerProperties.setProperty(ConsumerConfig.GROUP_INSTANCE_ID_CONFIG,
+          this.groupInstanceId + "." + topics.stream().sorted().collect(Collectors.joining(".")));
+      containerProperties.setKafkaConsumerProperties(consumerProperties);
+    }
+  }
+
+  /**
+   * Builds an after rollback processor that retries failed records with exponential backoff, and
+   * then forwards them to their dead letter topic, committing their offset.
+   *
+   * @param kafkaTemplate template used to forward failed records.
+   * @return AfterRollbackProcessor instance.
+   */
+  private AfterRollbackProcessor<String, byte[]> deadLetterAfterRollbackProcessor(
+      KafkaTemplate<String, byte[]> kafkaTemplate) {
+    return new DefaultAfterRollbackProcessor<>(this.deadLetterPublishingRecoverer(kafkaTemplate),
+        this.retryBackOff(), kafkaTemplate, true);
+  }
+
+  /**
+   * Builds a recoverer that forwards failed records to their dead letter topic, with the failure
+   * cause in headers.
+   *
+   * @param kafkaTemplate template used to forward failed records.
+   * @return DeadLetterPublishingRecoverer instance.
+   */
+  private DeadLetterPublishingRecoverer deadLetterPublishingRecoverer(
+      KafkaTemplate<String, byte[]> kafkaTemplate) {
+    return new DeadLetterPublishingRecoverer(kafkaTemplate,
+        (consumerRecord, exception) ->
+            new TopicPartition(consumerRecord.topic() + this.dltSuffix, -1));
+  }
+
+  /**
+   * Builds the exponential backoff of in place retries.
+   *
+   * @return ExponentialBackOffWithMaxRetries instance.
+   */
+  private ExponentialBackOffWithMaxRetries retryBackOff() {
+    ExponentialBackOffWithMaxRetries backOff =
+        new ExponentialBackOffWithMaxRetries(this.maxAttempts - 1);
+    backOff.setInitialInterval(this.initialIntervalMs);
+    backOff.setMultiplier(this.multiplier);
+    backOff.setMaxInterval(this.maxIntervalMs);
+    return backOff;
+  }
+
+}
@@ -0,0 +1,163 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import javax.annotation.PostConstruct;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Priority classes of listener topics. Each class has its own listener threads and database
+ * connections quota, and lower priority classes are paused while a higher priority one lags. Retry
+ * and dead letter topics belong to the class of their topic.
+ */
+@Component
+@ConfigurationProperties(prefix = "kafka.priority")
+public class KafkaPrioritySettings {
+
+  /**
+   * Suffix of retry topics, followed by retry index.
+   */
+  @Value("${kafka.retry.retryTopicSuffix}")
+  private String retryTopicSuffix;
+
+  /**
+   * Suffix of dead letter topics.
+   */
+  @Value("${kafka.retry.dltSuffix}")
+  private String dltSuffix;
+
+  /**
+   * Whether priority classes are enabled.
+   */
+  private boolean enabled;
+
+  /**
+   * Map with priority classes by name.
+   */
+  private Map<String, PriorityClass> classes = new HashMap<>();
+
+  public boolean isEnabled() {
+    return this.enabled;
+  }
+
+  public void setEnabled(boolean enabled) {
+    this.enabled = enabled;
+  }
+
+  public Map<String, PriorityClass> getClasses() {
+    return this.classes;
+  }
+
+  public void setClasses(Map<String, PriorityClass> classes) {
+    this.classes = classes;
+  }
+
+  /**
+   * Checks each topic belongs to a single priority class.
+   *
+   * @throws IllegalStateException if a topic belongs to several classes.
+   */
+  @PostConstruct
+  public void init() {
+    Map<String, String> classByTopic = new HashMap<>();
+    this.classes.forEach((name, priorityClass) -> priorityClass.topics.forEach(topic -> {
+      String previous = classByTopic.put(topic, name);
+      if (previous != null) {
+        throw new IllegalStateException("Topic " + topic + " belongs to " + previous + " and "
+            + name + " priority classes");
+      }
+    }));
+  }
+
+  /**
+   * Get priority class of a topic, or of the topic a retry or dead letter topic belongs to.
+   *
+   * @param topic topic.
+   * @return class name, empty if priority classes are disabled or the topic has no class.
+   */
+  public Optional<String> getClassName(String topic) {
+    if (!this.enabled) {
+      return Optional.empty();
+    }
+    return this.classes.entrySet().stream()
+        .filter(entry -> entry.getValue().topics.stream().anyMatch(classTopic ->
+            topic.equals(classTopic) || topic.startsWith(classTopic + this.retryTopicSuffix)
+                || topic.equals(classTopic + this.dltSuffix)))
+        .map(Map.Entry::getKey)
+        .findFirst();
+  }
+
+  /**
+   * Get priority class of a container consuming several topics, the lowest priority one of them
+   * so it doesn't take resources of higher priority classes.
+   *
+   * @param topics topics.
+   * @return class name, empty if priority classes are disabled or no topic has a class.
+   */
+  public Optional<String> getClassName(Collection<String> topics) {
+    return topics.stream()
+        .map(this::getClassName)
+        .flatMap(Optional::stream)
+        .min(Comparator.comparingInt(name -> this.classes.get(name).priority));
+  }
+
+  /**
+   * Get listener threads of a container consuming several topics, from their priority class.
+   *
+   * @param topics topics.
+   * @return number of listener threads, empty if the class doesn't set them.
+   */
+  public Optional<Integer> getThreads(Collection<String> topics) {
+    return this.getClassName(topics)
+        .map(name -> this.classes.get(name).threads)
+        .filter(Objects::nonNull);
+  }
+
+  /**
+   * Settings of a priority class.
+   */
+  @Data
+  public static class PriorityClass {
+
+    /**
+     * Topics of the class.
+     */
+    private List<String> topics = new ArrayList<>();
+
+    /**
+     * Class priority, higher values are more important.
+     */
+    private int priority;
+
+    /**
+     * Number of listener threads of each class topic, capped by its partitions.
+     */
+    private Integer threads;
+
+    /**
+     * Max events of the class processed at once, so the database connections they take.
+     */
+    private Integer connections;
+
+    /**
+     * Lag of the class topics from which lower priority classes are paused, 0 to never pause them.
+     */
+    private long pauseLag;
+
+    /**
+     * Lag of the class topics below which paused lower priority classes are resumed.
+     */
+    private long resumeLag;
+
+  }
+
+}
@@ -3,6 +3,7 @@ package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
 import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
 import org.apache.kafka.common.serialization.StringSerializer;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
@@ -23,13 +24,49 @@ public class KafkaProducerConfig {
   @Value(value = "${kafka.bootstrapAddress}")
   private String bootstrapAddress;
 
+  /**
+   * Max time in milliseconds a send can block waiting for metadata or buffer space.
+   */
+  @Value(value = "${kafka.producer.maxBlockMs}")
+  private long maxBlockMs;
+
+  /**
+   * Compression type of record batches.
+   */
+  @Value(value = "${kafka.producer.compressionType}")
+  private String compressionType;
+
+  /**
+   * Time in milliseconds to wait for more records before sending a batch.
+   */
+  @Value(value = "${kafka.producer.lingerMs}")
+  private int lingerMs;
+
+  /**
+   * Max size in bytes of a record batch.
+   */
+  @Value(value = "${kafka.producer.batchSize}")
+  private int batchSize;
+
+  /**
+   * Whether Kafka transactions are enabled.
+   */
+  @Value(value = "${kafka.transactions.enabled}")
+  private boolean transactionsEnabled;
+
+  /**
+   * Prefix of producers transactional identifiers.
+   */
+  @Value(value = "${kafka.transactions.transactionIdPrefix}")
+  private String transactionIdPrefix;
+
   /**
    * Kafka producer factory bean.
    *
    * @return ProducerFactory instance.
    */
   @Bean
-  public ProducerFactory<String, String> producerFactory() {
+  public ProducerFactory<String, byte[]> producerFactory() {
     Map<String, Object> configProps = new HashMap<>();
     configProps.put(
         ProducerConfig.BOOTSTRAP_SERVERS_CONFIG,
@@ -39,19 +76,39 @@ public class KafkaProducerConfig {
         StringSerializer.class);
     configProps.put(
         ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG,
-        StringSerializer.class);
-    return new DefaultKafkaProducerFactory<>(configProps);
+        ByteArraySerializer.class);
+    configProps.put(
+        ProducerConfig.MAX_BLOCK_MS_CONFIG,
+        this.maxBlockMs);
+    configProps.put(
+        ProducerConfig.COMPRESSION_TYPE_CONFIG,
+        this.compressionType);
+    configProps.put(
+        ProducerConfig.LINGER_MS_CONFIG,
+        this.lingerMs);
+    configProps.put(
+        ProducerConfig.BATCH_SIZE_CONFIG,
+        this.batchSize);
+    DefaultKafkaProducerFactory<String, byte[]> producerFactory =
+        new DefaultKafkaProducerFactory<>(configProps);
+    if (this.transactionsEnabled) {
+      producerFactory.setTransactionIdPrefix(this.transactionIdPrefix);
+    }
+    return producerFactory;
   }
 
   /**
    * KafkaTemplate bean, which wraps a Producer instance and provides convenience methods for
-   * sending messages to Kafka topics.
+   * sending messages to Kafka topics. When transactions are enabled, sends performed outside a
+   * listener transaction use a non transactional producer.
    *
    * @return KafkaTemplate bean.
    */
   @Bean
-  public KafkaTemplate<String, String> kafkaTemplate() {
-    return new KafkaTemplate<>(producerFactory());
+  public KafkaTemplate<String, byte[]> kafkaTemplate() {
+    KafkaTemplate<String, byte[]> kafkaTemplate = new KafkaTemplate<>(producerFactory());
+    kafkaTemplate.setAllowNonTransactional(true);
+    return kafkaTemplate;
   }
 
 }
@@ -0,0 +1,99 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.retrytopic.RetryTopicConfiguration;
+import org.springframework.kafka.retrytopic.RetryTopicConfigurationBuilder;
+
+/**
+ * Kafka retry topics configuration class. Failed records of listener topics are forwarded to delay
+ * topics and retried there with exponential backoff, so they don't block the records behind them.
+ * Records still failing after the last attempt are forwarded to a dead letter topic, with the
+ * failure cause in headers.
+ */
+@Configuration
+public class KafkaRetryTopicConfig {
+
+  /**
+   * Kafka partitions of retry and dead letter topics.
+   */
+  @Value(value = "${kafka.partitions}")
+  private int partitions;
+
+  /**
+   * Kafka replication factor of retry and dead letter topics.
+   */
+  @Value(value = "${kafka.replicationFactor}")
+  private short replicationFactor;
+
+  /**
+   * Topics whose failed records are retried in retry topics.
+   */
+  @Value(value = "${kafka.retry.topics}")
+  private List<String> topics;
+
+  /**
+   * Max processing attempts of a record, including the first one.
+   */
+  @Value(value = "${kafka.retry.maxAttempts}")
+  private int maxAttempts;
+
+  /**
+   * Delay before the first retry.
+   */
+  @Value(value = "${kafka.retry.initialIntervalMs}")
+  private long initialIntervalMs;
+
+  /**
+   * Delay multiplier between retries.
+   */
+  @Value(value = "${kafka.retry.multiplier}")
+  private double multiplier;
+
+  /**
+   * Max delay between retries.
+   */
+  @Value(value = "${kafka.retry.maxIntervalMs}")
+  private long maxIntervalMs;
+
+  /**
+   * Suffix of retry topics, followed by retry index.
+   */
+  @Value(value = "${kafka.retry.retryTopicSuffix}")
+  private String retryTopicSuffix;
+
+  /**
+   * Suffix of dead letter topics.
+   */
+  @Value(value = "${kafka.retry.dltSuffix}")
+  private String dltSuffix;
+
+  /**
+   * Retry topics configuration bean. Records that can't be decoded are not retried and forwarded
+   * straight to the dead letter topic.
+   *
+   * @param kafkaTemplate template used to forward failed records.
+   * @return RetryTopicConfiguration instance.
+   */
+  @Bean
+  public RetryTopicConfiguration retryTopicConfiguration(
+      KafkaTemplate<String, byte[]> kafkaTemplate) {
+    return RetryTopicConfigurationBuilder.newInstance()
+        .includeTopics(new ArrayList<>(this.topics))
+        .maxAttempts(this.maxAttempts)
+        .exponentialBackoff(this.initialIntervalMs, this.multiplier, this.maxIntervalMs)
+        .suffixTopicsWithIndexValues()
+        .retryTopicSuffix(this.retryTopicSuffix)
+        .dltSuffix(this.dltSuffix)
+        .notRetryOn(JsonProcessingException.class)
+        .traversingCauses()
+        .autoCreateTopicsWith(this.partitions, this.replicationFactor)
+        .create(kafkaTemplate);
+  }
+
+}
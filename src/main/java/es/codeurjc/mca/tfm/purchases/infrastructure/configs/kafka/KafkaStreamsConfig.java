@@ -0,0 +1,137 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.PostConstruct;
+import org.apache.kafka.common.serialization.Serdes;
+import org.apache.kafka.streams.StreamsBuilder;
+import org.apache.kafka.streams.StreamsConfig;
+import org.apache.kafka.streams.kstream.Consumed;
+import org.apache.kafka.streams.kstream.KTable;
+import org.apache.kafka.streams.kstream.Materialized;
+import org.apache.kafka.streams.state.Stores;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.annotation.EnableKafkaStreams;
+import org.springframework.kafka.annotation.KafkaStreamsDefaultConfiguration;
+import org.springframework.kafka.config.KafkaStreamsConfiguration;
+
+/**
+ * Kafka Streams configuration class. Materializes the shopping carts changelog topic in a local
+ * persistent store, so shopping carts can be read with interactive queries. Each instance holds
+ * the shopping carts of its assigned partitions, and advertises its host so the rest can route
+ * queries of other shopping carts to it. Requires the changelog topic to be published, otherwise
+ * the store would never be updated, so startup fails if it's not.
+ */
+@Configuration
+@EnableKafkaStreams
+@ConditionalOnProperty(value = "kafka.streams.enabled", havingValue = "true")
+public class KafkaStreamsConfig {
+
+  /**
+   * Kafka bootstrap server address.
+   */
+  @Value(value = "${kafka.bootstrapAddress}")
+  private String bootstrapAddress;
+
+  /**
+   * Indicates if listeners publish the shopping carts changelog topic.
+   */
+  @Value("${kafka.changelog.enabled}")
+  private boolean changelogEnabled;
+
+  /**
+   * Kafka shopping carts changelog topic.
+   */
+  @Value("${kafka.topics.shoppingCartsChangelog}")
+  private String shoppingCartsChangelogTopic;
+
+  /**
+   * Kafka Streams application identifier, shared by all instances.
+   */
+  @Value("${kafka.streams.applicationId}")
+  private String applicationId;
+
+  /**
+   * Directory of local state stores.
+   */
+  @Value("${kafka.streams.stateDir}")
+  private String stateDir;
+
+  /**
+   * Number of stream threads.
+   */
+  @Value("${kafka.streams.threads}")
+  private int threads;
+
+  /**
+   * Host advertised to other instances for interactive queries.
+   */
+  @Value("${kafka.streams.advertisedHost}")
+  private String advertisedHost;
+
+  /**
+   * Management port, serving the store endpoint queried by other instances.
+   */
+  @Value("${management.server.port}")
+  private int managementPort;
+
+  /**
+   * Name of the shopping carts store.
+   */
+  @Value("${kafka.streams.storeName}")
+  private String storeName;
+
+  /**
+   * Post construct method to check the changelog topic is published.
+   *
+   * @throws IllegalStateException if changelog is disabled.
+   */
+  @PostConstruct
+  public void init() {
+    if (!this.changelogEnabled) {
+      throw new IllegalStateException("kafka.streams.enabled requires kafka.changelog.enabled,"
+          + " otherwise the shopping carts store is never updated");
+    }
+  }
+
+  /**
+   * Kafka Streams configuration bean. Topology optimization reuses the compacted changelog topic
+   * to restore the store, instead of creating another changelog topic for it.
+   *
+   * @return KafkaStreamsConfiguration instance.
+   */
+  @Bean(name = KafkaStreamsDefaultConfiguration.DEFAULT_STREAMS_CONFIG_BEAN_NAME)
+  public KafkaStreamsConfiguration kafkaStreamsConfiguration() {
+    Map<String, Object> props = new HashMap<>();
+    props.put(StreamsConfig.APPLICATION_ID_CONFIG, this.applicationId);
+    props.put(StreamsConfig.BOOTSTRAP_SERVERS_CONFIG, this.bootstrapAddress);
+    props.put(StreamsConfig.STATE_DIR_CONFIG, this.stateDir);
+    props.put(StreamsConfig.NUM_STREAM_THREADS_CONFIG, this.threads);
+    props.put(StreamsConfig.APPLICATION_SERVER_CONFIG,
+        this.advertisedHost + ":" + this.managementPort);
+    props.put(StreamsConfig.TOPOLOGY_OPTIMIZATION_CONFIG, StreamsConfig.OPTIMIZE);
+    props.put(StreamsConfig.DEFAULT_KEY_SERDE_CLASS_CONFIG, Serdes.StringSerde.class);
+    props.put(StreamsConfig.DEFAULT_VALUE_SERDE_CLASS_CONFIG, Serdes.ByteArraySerde.class);
+    return new KafkaStreamsConfiguration(props);
+  }
+
+  /**
+   * Shopping carts table bean, materialized in a RocksDB store. Values are kept encoded as they
+   * are in the changelog topic, and decoded when queried.
+   *
+   * @param streamsBuilder streams builder.
+   * @return KTable instance with shopping carts by identifier.
+   */
+  @Bean
+  public KTable<String, byte[]> shoppingCartsTable(StreamsBuilder streamsBuilder) {
+    return streamsBuilder.table(this.shoppingCartsChangelogTopic,
+        Consumed.with(Serdes.String(), Serdes.ByteArray()),
+        Materialized.<String, byte[]>as(Stores.persistentKeyValueStore(this.storeName))
+            .withKeySerde(Serdes.String())
+            .withValueSerde(Serdes.ByteArray()));
+  }
+
+}
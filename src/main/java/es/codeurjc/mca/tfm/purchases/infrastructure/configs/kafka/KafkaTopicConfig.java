@@ -4,9 +4,13 @@ import java.util.HashMap;
 import java.util.Map;
 import org.apache.kafka.clients.admin.AdminClientConfig;
 import org.apache.kafka.clients.admin.NewTopic;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.TopicBuilder;
 import org.springframework.kafka.core.KafkaAdmin;
 
 /**
@@ -81,6 +85,24 @@ public class KafkaTopicConfig {
   @Value("${kafka.topics.changeState}")
   private String changeOrderStateTopic;
 
+  /**
+   * Kafka shopping carts changelog topic.
+   */
+  @Value("${kafka.topics.shoppingCartsChangelog}")
+  private String shoppingCartsChangelogTopic;
+
+  /**
+   * Per topic settings. Records are keyed by shopping cart or order identifier, so the order of
+   * the events of an aggregate is kept whatever the number of partitions is.
+   */
+  @Autowired
+  private KafkaTopicSettings kafkaTopicSettings;
+
+  /**
+   * Aggregate topics settings.
+   */
+  @Autowired
+  private KafkaAggregateSettings kafkaAggregateSettings;
 
   /**
    * KafkaAdmin Spring bean, which will automatically add topics for all beans of type NewTopic.
@@ -101,7 +123,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic createShoppingCartsTopic() {
-    return new NewTopic(this.createShoppingCartTopic, 1, (short) 1);
+    return this.buildTopic(this.createShoppingCartTopic);
   }
 
   /**
@@ -111,7 +133,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic deleteShoppingCartsTopic() {
-    return new NewTopic(this.deleteShoppingCartTopic, 1, (short) 1);
+    return this.buildTopic(this.deleteShoppingCartTopic);
   }
 
   /**
@@ -121,7 +143,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic completeShoppingCartsTopic() {
-    return new NewTopic(this.completeShoppingCartTopic, 1, (short) 1);
+    return this.buildTopic(this.completeShoppingCartTopic);
   }
 
   /**
@@ -131,7 +153,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic createOrdersTopic() {
-    return new NewTopic(this.createOrderTopic, 1, (short) 1);
+    return this.buildTopic(this.createOrderTopic);
   }
 
   /**
@@ -141,7 +163,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic validateOrderItemsTopic() {
-    return new NewTopic(this.validateItemsTopic, 1, (short) 1);
+    return this.buildTopic(this.validateItemsTopic);
   }
 
   /**
@@ -151,7 +173,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic setItemToShoppingCartTopic() {
-    return new NewTopic(this.updateItemsTopic, 1, (short) 1);
+    return this.buildTopic(this.updateItemsTopic);
   }
 
   /**
@@ -161,7 +183,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic updateOrderTopic() {
-    return new NewTopic(this.updateOrderTopic, 1, (short) 1);
+    return this.buildTopic(this.updateOrderTopic);
   }
 
   /**
@@ -171,7 +193,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic restoreStockTopic() {
-    return new NewTopic(this.restoreStockTopic, 1, (short) 1);
+    return this.buildTopic(this.restoreStockTopic);
   }
 
   /**
@@ -181,7 +203,7 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic validateBalanceTopic() {
-    return new NewTopic(this.validateBalanceTopic, 1, (short) 1);
+    return this.buildTopic(this.validateBalanceTopic);
   }
 
   /**
@@ -191,7 +213,53 @@ public class KafkaTopicConfig {
    */
   @Bean
   public NewTopic changeOrderStateTopic() {
-    return new NewTopic(this.changeOrderStateTopic, 1, (short) 1);
+    return this.buildTopic(this.changeOrderStateTopic);
+  }
+
+  /**
+   * Shopping carts changelog topic bean. It's always compacted, whatever its topic configs are, so
+   * it keeps the latest snapshot of each shopping cart, and deleted ones are removed after their
+   * tombstone.
+   *
+   * @return NewTopic instance for shopping carts changelog topic.
+   */
+  @Bean
+  @ConditionalOnExpression("${kafka.changelog.enabled} or ${kafka.changelog.viewEnabled} "
+      + "or ${kafka.streams.enabled}")
+  public NewTopic shoppingCartsChangelogTopic() {
+    return TopicBuilder.name(this.shoppingCartsChangelogTopic)
+        .partitions(this.kafkaTopicSettings.getPartitions(this.shoppingCartsChangelogTopic))
+        .replicas(this.kafkaTopicSettings.getReplicationFactor(this.shoppingCartsChangelogTopic))
+        .configs(this.kafkaTopicSettings.getConfig(this.shoppingCartsChangelogTopic))
+        .compact()
+        .build();
+  }
+
+  /**
+   * Aggregate topics bean.
+   *
+   * @return NewTopics instance with aggregate topics.
+   */
+  @Bean
+  @ConditionalOnProperty(value = "kafka.aggregates.enabled", havingValue = "true")
+  public KafkaAdmin.NewTopics aggregateTopics() {
+    return new KafkaAdmin.NewTopics(this.kafkaAggregateSettings.getAggregateTopics().stream()
+        .map(this::buildTopic)
+        .toArray(NewTopic[]::new));
+  }
+
+  /**
+   * Builds a topic with its configured partitions, replication factor and topic configs.
+   *
+   * @param name topic name.
+   * @return NewTopic instance.
+   */
+  private NewTopic buildTopic(String name) {
+    return TopicBuilder.name(name)
+        .partitions(this.kafkaTopicSettings.getPartitions(name))
+        .replicas(this.kafkaTopicSettings.getReplicationFactor(name))
+        .configs(this.kafkaTopicSettings.getConfig(name))
+        .build();
   }
 
-}
\ No newline at end of file
+}
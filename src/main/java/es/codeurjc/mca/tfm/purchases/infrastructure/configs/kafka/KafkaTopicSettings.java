@@ -0,0 +1,165 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import javax.annotation.PostConstruct;
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Per topic Kafka settings: partitions, replication factor, listener concurrency, topic configs
+ * and listener consumer overrides. Topics without specific settings use the global partitions
+ * and replication factor, and a single listener thread.
+ */
+@Component
+@ConfigurationProperties(prefix = "kafka.topic-settings")
+public class KafkaTopicSettings {
+
+  /**
+   * Default number of partitions.
+   */
+  @Value("${kafka.partitions}")
+  private int defaultPartitions;
+
+  /**
+   * Default replication factor.
+   */
+  @Value("${kafka.replicationFactor}")
+  private short defaultReplicationFactor;
+
+  /**
+   * Map with settings by topic.
+   */
+  private Map<String, TopicSettings> topics = new HashMap<>();
+
+  public void setTopics(Map<String, TopicSettings> topics) {
+    this.topics = topics;
+  }
+
+  /**
+   * Checks listener concurrency of each topic doesn't exceed its partitions, as extra listener
+   * threads would be idle.
+   *
+   * @throws IllegalStateException if a topic concurrency exceeds its partitions.
+   */
+  @PostConstruct
+  public void init() {
+    this.topics.keySet().forEach(topic -> {
+      if (this.getConcurrency(topic) > this.getPartitions(topic)) {
+        throw new IllegalStateException("Topic " + topic + " concurrency "
+            + this.getConcurrency(topic) + " exceeds its " + this.getPartitions(topic)
+            + " partitions");
+      }
+    });
+  }
+
+  /**
+   * Get number of partitions of a topic.
+   *
+   * @param topic topic.
+   * @return number of partitions.
+   */
+  public int getPartitions(String topic) {
+    TopicSettings settings = this.topics.get(topic);
+    return settings != null && settings.partitions != null
+        ? settings.partitions : this.defaultPartitions;
+  }
+
+  /**
+   * Get replication factor of a topic.
+   *
+   * @param topic topic.
+   * @return replication factor.
+   */
+  public short getReplicationFactor(String topic) {
+    TopicSettings settings = this.topics.get(topic);
+    return settings != null && settings.replicationFactor != null
+        ? settings.replicationFactor : this.defaultReplicationFactor;
+  }
+
+  /**
+   * Get listener concurrency of a topic.
+   *
+   * @param topic topic.
+   * @return number of listener threads.
+   */
+  public int getConcurrency(String topic) {
+    TopicSettings settings = this.topics.get(topic);
+    return settings != null && settings.concurrency != null ? settings.concurrency : 1;
+  }
+
+  /**
+   * Get listener concurrency of a container consuming several topics, the lowest one of them so
+   * it doesn't exceed the partitions of any topic.
+   *
+   * @param topics topics.
+   * @return number of listener threads.
+   */
+  public int getConcurrency(Collection<String> topics) {
+    return topics.stream().mapToInt(this::getConcurrency).min().orElse(1);
+  }
+
+  /**
+   * Get topic level configs of a topic, i.e. retention.ms or compression.type.
+   *
+   * @param topic topic.
+   * @return map with topic configs.
+   */
+  public Map<String, String> getConfig(String topic) {
+    TopicSettings settings = this.topics.get(topic);
+    return settings != null ? settings.config : Map.of();
+  }
+
+  /**
+   * Get consumer properties overrides of the listener of a topic.
+   *
+   * @param topic topic.
+   * @return consumer properties overrides.
+   */
+  public Properties getConsumer(String topic) {
+    Properties properties = new Properties();
+    TopicSettings settings = this.topics.get(topic);
+    if (settings != null) {
+      properties.putAll(settings.consumer);
+    }
+    return properties;
+  }
+
+  /**
+   * Settings of a topic.
+   */
+  @Data
+  public static class TopicSettings {
+
+    /**
+     * Number of partitions.
+     */
+    private Integer partitions;
+
+    /**
+     * Replication factor.
+     */
+    private Short replicationFactor;
+
+    /**
+     * Number of listener threads.
+     */
+    private Integer concurrency;
+
+    /**
+     * Topic level configs.
+     */
+    private Map<String, String> config = new HashMap<>();
+
+    /**
+     * Listener consumer properties overrides.
+     */
+    private Map<String, String> consumer = new HashMap<>();
+
+  }
+
+}
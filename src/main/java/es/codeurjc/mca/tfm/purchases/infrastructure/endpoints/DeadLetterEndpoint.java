@@ -0,0 +1,192 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.endpoints;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaAggregateSettings;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.InProcessEventPublisher;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.Header;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dead letters actuator endpoint. Replays the records of the dead letter topic of a listener
+ * topic or an aggregate topic, sending them back to it once the failure cause is fixed. Record
+ * headers, like the event type, are kept, except the failure ones. Dead letters of topics
+ * processed in-process are queued back in their lane instead.
+ */
+@Component
+@Endpoint(id = "deadletters")
+@Slf4j
+public class DeadLetterEndpoint {
+
+  /**
+   * Consumer group suffix of the dead letter topics replay consumers.
+   */
+  private static final String REPLAY_GROUP_SUFFIX = "-dlt-replay";
+
+  /**
+   * Prefix of the headers added when a record is forwarded to a dead letter topic.
+   */
+  private static final String DLT_HEADERS_PREFIX = "kafka_dlt-";
+
+  /**
+   * Consumer factory.
+   */
+  private final ConsumerFactory<String, byte[]> consumerFactory;
+
+  /**
+   * Kafka template.
+   */
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  /**
+   * Kafka group identifier.
+   */
+  private final String groupId;
+
+  /**
+   * Topics with dead letter topic.
+   */
+  private final List<String> topics;
+
+  /**
+   * Aggregate topics settings.
+   */
+  private final KafkaAggregateSettings kafkaAggregateSettings;
+
+  /**
+   * In-process event publisher, only present with inprocess profile.
+   */
+  private final Optional<InProcessEventPublisher> inProcessEventPublisher;
+
+  /**
+   * Suffix of dead letter topics.
+   */
+  private final String dltSuffix;
+
+  /**
+   * Max time to wait for records of the dead letter topic, once it's drained.
+   */
+  private final Duration pollTimeout;
+
+  /**
+   * Max time to wait for a replayed record acknowledgement.
+   */
+  private final long sendTimeoutMs;
+
+  /**
+   * Constructor.
+   *
+   * @param consumerFactory         consumer factory.
+   * @param kafkaTemplate           kafka template.
+   * @param groupId                 kafka group identifier.
+   * @param topics                  topics with dead letter topic.
+   * @param kafkaAggregateSettings  aggregate topics settings.
+   * @param inProcessEventPublisher in-process event publisher, only present with inprocess profile.
+   * @param dltSuffix               suffix of dead letter topics.
+   * @param pollTimeoutMs           max time to wait for records of the dead letter topic.
+   * @param sendTimeoutMs           max time to wait for a replayed record acknowledgement.
+   */
+  public DeadLetterEndpoint(ConsumerFactory<String, byte[]> consumerFactory,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      @Value("${kafka.groupId}") String groupId,
+      @Value("${kafka.retry.topics}") List<String> topics,
+      KafkaAggregateSettings kafkaAggregateSettings,
+      Optional<InProcessEventPublisher> inProcessEventPublisher,
+      @Value("${kafka.retry.dltSuffix}") String dltSuffix,
+      @Value("${kafka.retry.replayPollTimeoutMs}") long pollTimeoutMs,
+      @Value("${kafka.producer.maxBlockMs}") long sendTimeoutMs) {
+    this.consumerFactory = consumerFactory;
+    this.kafkaTemplate = kafkaTemplate;
+    this.groupId = groupId;
+    this.topics = topics;
+    this.kafkaAggregateSettings = kafkaAggregateSettings;
+    this.inProcessEventPublisher = inProcessEventPublisher;
+    this.dltSuffix = dltSuffix;
+    this.pollTimeout = Duration.ofMillis(pollTimeoutMs);
+    this.sendTimeoutMs = sendTimeoutMs;
+  }
+
+  /**
+   * Replays the pending records of the dead letter topic of the passed topic. Replayed records
+   * offsets are committed, so each record is replayed once. Nothing is replayed if the dead letter
+   * topic doesn't exist yet.
+   *
+   * @param topic listener or aggregate topic whose dead letters are replayed.
+   * @return replayed records count.
+   * @throws Exception if a record can't be sent back to the topic.
+   */
+  @WriteOperation
+  public Map<String, Object> replay(@Selector String topic) throws Exception {
+    Optional<InProcessEventPublisher> inProcess =
+        this.inProcessEventPublisher.filter(publisher -> publisher.isInProcess(topic));
+    if (!this.topics.contains(topic) && inProcess.isEmpty()
+        && !this.kafkaAggregateSettings.getAggregateTopics().contains(topic)) {
+      throw new InvalidEndpointRequestException("Topic " + topic + " has no dead letter topic",
+          "Topic has no dead letter topic");
+    }
+    String deadLetterTopic = topic + this.dltSuffix;
+    Properties properties = new Properties();
+    properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+    properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+    int replayed = 0;
+    try (Consumer<String, byte[]> consumer = this.consumerFactory.createConsumer(
+        this.groupId + REPLAY_GROUP_SUFFIX, null, null, properties)) {
+      List<PartitionInfo> partitions = consumer.partitionsFor(deadLetterTopic);
+      if (partitions == null || partitions.isEmpty()) {
+        log.info("Dead letter topic {} doesn't exist, nothing to replay", deadLetterTopic);
+        return Map.of("topic", topic, "replayed", replayed);
+      }
+      consumer.assign(partitions.stream()
+          .map(partitionInfo -> new TopicPartition(deadLetterTopic, partitionInfo.partition()))
+          .collect(Collectors.toList()));
+      ConsumerRecords<String, byte[]> records = consumer.poll(this.pollTimeout);
+      while (!records.isEmpty()) {
+        for (ConsumerRecord<String, byte[]> consumerRecord : records) {
+          if (inProcess.isPresent()) {
+            Header eventId = consumerRecord.headers().lastHeader(EventHeaders.ID);
+            inProcess.get().replay(topic, consumerRecord.key(),
+                eventId == null ? null : EventHeaders.toString(eventId.value()),
+                consumerRecord.value());
+            replayed++;
+            continue;
+          }
+          ProducerRecord<String, byte[]> producerRecord =
+              new ProducerRecord<>(topic, consumerRecord.key(), consumerRecord.value());
+          for (Header header : consumerRecord.headers()) {
+            if (!header.key().startsWith(DLT_HEADERS_PREFIX)) {
+              producerRecord.headers().add(header);
+            }
+          }
+          this.kafkaTemplate.send(producerRecord).get(this.sendTimeoutMs, TimeUnit.MILLISECONDS);
+          replayed++;
+        }
+        consumer.commitSync();
+        records = consumer.poll(this.pollTimeout);
+      }
+    }
+    log.info("Replayed {} dead letters from {} to {}", replayed, deadLetterTopic, topic);
+    return Map.of("topic", topic, "replayed", replayed);
+  }
+
+}
@@ -0,0 +1,50 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.endpoints;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.adapters.ShoppingCartStreamsStore;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Shopping cart store actuator endpoint. Serves the interactive queries routed by other instances
+ * to this one, reading only the local Kafka Streams store, so queries are never forwarded again.
+ * Only reachable with tokens of this service, as the user of the query is sent as a parameter.
+ */
+@Component
+@Endpoint(id = "shoppingcartstore")
+@ConditionalOnProperty(value = "kafka.streams.enabled", havingValue = "true")
+public class ShoppingCartStoreEndpoint {
+
+  /**
+   * Shopping carts Kafka Streams store.
+   */
+  private final ShoppingCartStreamsStore shoppingCartStreamsStore;
+
+  /**
+   * Constructor.
+   *
+   * @param shoppingCartStreamsStore shopping carts Kafka Streams store.
+   */
+  public ShoppingCartStoreEndpoint(ShoppingCartStreamsStore shoppingCartStreamsStore) {
+    this.shoppingCartStreamsStore = shoppingCartStreamsStore;
+  }
+
+  /**
+   * Get a shopping cart of a user from the local store.
+   *
+   * @param id     shopping cart identifier.
+   * @param userId user identifier.
+   * @return shopping cart snapshot, or null if it's not in the local store or belongs to other
+   *     user, answered with 404 status.
+   */
+  @ReadOperation
+  public ShoppingCartSnapshot get(@Selector Long id, Integer userId) {
+    return this.shoppingCartStreamsStore.getLocal(id)
+        .filter(snapshot -> userId.equals(snapshot.getUserId()))
+        .orElse(null);
+  }
+
+}
@@ -1,5 +1,6 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
 
+import com.vladmihalcea.hibernate.type.json.JsonStringType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.Id;
@@ -10,6 +11,7 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.Type;
+import org.hibernate.annotations.TypeDef;
 
 /**
  * Order database entity.
@@ -18,6 +20,7 @@ import org.hibernate.annotations.Type;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@TypeDef(name = "json", typeClass = JsonStringType.class)
 public class OrderEntity {
 
   /**
@@ -40,6 +43,12 @@ public class OrderEntity {
   @NotBlank
   private String state;
 
+  /**
+   * State of the last order update published, stored once the update is processed. Null for
+   * orders whose updates were published by previous versions.
+   */
+  private String publishedState;
+
   /**
    * Errors happened in order if they exist.
    */
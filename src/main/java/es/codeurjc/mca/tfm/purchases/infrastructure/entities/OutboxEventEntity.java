@@ -0,0 +1,55 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.GeneratedValue;
+import javax.persistence.GenerationType;
+import javax.persistence.Id;
+import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outbox event database entity. Stores an encoded event pending to be relayed to Kafka.
+ */
+@Entity(name = "outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEventEntity {
+
+  /**
+   * Outbox event identifier, increasing in insertion order.
+   */
+  @Id
+  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  private Long id;
+
+  /**
+   * Topic where the event must be sent.
+   */
+  @NotBlank
+  private String topic;
+
+  /**
+   * Event key.
+   */
+  @Column(name = "event_key")
+  private String key;
+
+  /**
+   * Event identifier, null if it's not an identified event.
+   */
+  @Column(name = "event_id")
+  private String eventId;
+
+  /**
+   * Encoded event.
+   */
+  @NotNull
+  @Column(columnDefinition = "mediumblob")
+  private byte[] payload;
+
+}
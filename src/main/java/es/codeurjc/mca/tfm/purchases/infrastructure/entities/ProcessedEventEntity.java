@@ -0,0 +1,62 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import java.time.Instant;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Persistable;
+
+/**
+ * Processed event database entity. Stores the identifier of an event processed by a listener,
+ * written in the listener transaction, so the event is dropped if it's redelivered to any
+ * instance. Rows are purged once they are older than the retention.
+ */
+@Entity(name = "processed_events")
+@Table(indexes = @Index(name = "processed_events_processed_at", columnList = "processed_at"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessedEventEntity implements Persistable<String> {
+
+  /**
+   * Event identifier.
+   */
+  @Id
+  @Column(name = "event_id")
+  private String eventId;
+
+  /**
+   * Time the event was processed.
+   */
+  @NotNull
+  @Column(name = "processed_at")
+  private Instant processedAt;
+
+  /**
+   * Get processed event identifier.
+   *
+   * @return event identifier.
+   */
+  @Override
+  public String getId() {
+    return this.eventId;
+  }
+
+  /**
+   * Indicates if the processed event is not stored in database yet. Processed events are only
+   * inserted, so they are always new, and are inserted without querying them first.
+   *
+   * @return always true.
+   */
+  @Override
+  public boolean isNew() {
+    return true;
+  }
+
+}
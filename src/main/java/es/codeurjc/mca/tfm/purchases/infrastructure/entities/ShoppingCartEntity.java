@@ -1,26 +1,36 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
 
-import com.vladmihalcea.hibernate.type.json.JsonStringType;
-import javax.persistence.Column;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import javax.persistence.CascadeType;
 import javax.persistence.Entity;
 import javax.persistence.Id;
-import javax.validation.constraints.NotBlank;
+import javax.persistence.OneToMany;
+import javax.persistence.OrderBy;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Transient;
 import javax.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
-import org.hibernate.annotations.Type;
-import org.hibernate.annotations.TypeDef;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 /**
- * Shopping cart database entity.
+ * Shopping cart database entity. Identifiers are assigned, so the entity tracks if it's stored in
+ * database to let new shopping carts be inserted without a previous select. Items are stored in
+ * their own table, so only changed items are written: new items are inserted on flush, removed
+ * ones are deleted and updated ones are updated by dirty checking.
  */
 @Entity(name = "shopping_carts")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-@TypeDef(name = "json", typeClass = JsonStringType.class)
-public class ShoppingCartEntity {
+public class ShoppingCartEntity implements Persistable<Long> {
 
   /**
    * Shopping cart identifier.
@@ -44,10 +54,9 @@ public class ShoppingCartEntity {
   /**
    * List of items of the shopping cart.
    */
-  @NotBlank
-  @Type(type = "json")
-  @Column(columnDefinition = "json")
-  private String items;
+  @OneToMany(mappedBy = "cart", cascade = CascadeType.PERSIST, orphanRemoval = true)
+  @OrderBy("productId")
+  private List<ShoppingCartItemEntity> items = new ArrayList<>();
 
   /**
    * Total price.
@@ -55,4 +64,93 @@ public class ShoppingCartEntity {
   @NotNull
   private Double totalPrice;
 
+  /**
+   * Indicates if the shopping cart is stored in database.
+   */
+  @Transient
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private boolean persisted;
+
+  /**
+   * Indicates if the shopping cart is not stored in database yet.
+   *
+   * @return true if the shopping cart is new, else false.
+   */
+  @Override
+  public boolean isNew() {
+    return !this.persisted;
+  }
+
+  /**
+   * Marks the shopping cart as stored in database once loaded or inserted.
+   */
+  @PostLoad
+  @PostPersist
+  void markPersisted() {
+    this.persisted = true;
+  }
+
+  /**
+   * Links the items to the shopping cart, once mapped from an event.
+   */
+  public void attachItems() {
+    if (this.items == null) {
+      this.items = new ArrayList<>();
+    }
+    this.items.forEach(this::attach);
+  }
+
+  /**
+   * Sets an item, updating the stored item of its product if exists, else adding it.
+   *
+   * @param item item to set.
+   */
+  public void upsertItem(ShoppingCartItemEntity item) {
+    this.items.stream()
+        .filter(storedItem -> storedItem.getProductId().equals(item.getProductId()))
+        .findFirst()
+        .ifPresentOrElse(storedItem -> {
+          storedItem.setUnitPrice(item.getUnitPrice());
+          storedItem.setQuantity(item.getQuantity());
+          storedItem.setTotalPrice(item.getTotalPrice());
+        }, () -> {
+          this.attach(item);
+          this.items.add(item);
+        });
+  }
+
+  /**
+   * Removes the item of a product.
+   *
+   * @param productId product identifier.
+   */
+  public void removeItem(Integer productId) {
+    this.items.removeIf(item -> item.getProductId().equals(productId));
+  }
+
+  /**
+   * Replaces the items, removing the ones not present in passed items and setting the rest, so
+   * unchanged items are not written.
+   *
+   * @param newItems new items of the shopping cart.
+   */
+  public void replaceItems(List<ShoppingCartItemEntity> newItems) {
+    Set<Integer> productIds = newItems.stream()
+        .map(ShoppingCartItemEntity::getProductId)
+        .collect(Collectors.toSet());
+    this.items.removeIf(item -> !productIds.contains(item.getProductId()));
+    newItems.forEach(this::upsertItem);
+  }
+
+  /**
+   * Links an item to the shopping cart.
+   *
+   * @param item item to link.
+   */
+  private void attach(ShoppingCartItemEntity item) {
+    item.setCartId(this.id);
+    item.setCart(this);
+  }
+
 }
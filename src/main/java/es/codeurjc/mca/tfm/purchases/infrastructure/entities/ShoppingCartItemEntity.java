@@ -0,0 +1,89 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.entities;
+
+import java.io.Serializable;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.FetchType;
+import javax.persistence.Id;
+import javax.persistence.IdClass;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Shopping cart item database entity, one row by shopping cart and product, so changing an item
+ * only writes its row.
+ */
+@Entity(name = "shopping_cart_items")
+@IdClass(ShoppingCartItemEntity.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ShoppingCartItemEntity {
+
+  /**
+   * Identifier of the shopping cart of the item.
+   */
+  @Id
+  @Column(name = "cart_id")
+  private Long cartId;
+
+  /**
+   * Product identifier.
+   */
+  @Id
+  private Integer productId;
+
+  /**
+   * Unit price.
+   */
+  @NotNull
+  private Double unitPrice;
+
+  /**
+   * Quantity.
+   */
+  @NotNull
+  private Integer quantity;
+
+  /**
+   * Total price.
+   */
+  @NotNull
+  private Double totalPrice;
+
+  /**
+   * Shopping cart of the item.
+   */
+  @ManyToOne(fetch = FetchType.LAZY)
+  @JoinColumn(name = "cart_id", insertable = false, updatable = false)
+  @EqualsAndHashCode.Exclude
+  @ToString.Exclude
+  private ShoppingCartEntity cart;
+
+  /**
+   * Shopping cart item identifier.
+   */
+  @Data
+  @NoArgsConstructor
+  @AllArgsConstructor
+  public static class Key implements Serializable {
+
+    /**
+     * Identifier of the shopping cart of the item.
+     */
+    private Long cartId;
+
+    /**
+     * Product identifier.
+     */
+    private Integer productId;
+
+  }
+
+}
@@ -0,0 +1,95 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.events;
+
+import java.nio.charset.StandardCharsets;
+import org.apache.kafka.common.header.Header;
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Names of the headers of published event records. They describe the event, so listeners can
+ * filter or drop events without decoding their payload.
+ */
+public final class EventHeaders {
+
+  /**
+   * Event type header, the listener topic of the event.
+   */
+  public static final String TYPE = "event-type";
+
+  /**
+   * Event identifier header, if it's an identified event.
+   */
+  public static final String ID = "event-id";
+
+  /**
+   * Header of the identifier of the shopping cart or order the event belongs to.
+   */
+  public static final String AGGREGATE_ID = "event-aggregate-id";
+
+  /**
+   * Event payload version header.
+   */
+  public static final String VERSION = "event-version";
+
+  /**
+   * Header of the time the event was produced, in epoch milliseconds.
+   */
+  public static final String TIMESTAMP = "event-timestamp";
+
+  /**
+   * Current event payload version.
+   */
+  public static final String CURRENT_VERSION = "1";
+
+  /**
+   * Constructor.
+   */
+  private EventHeaders() {
+  }
+
+  /**
+   * Get the last value of a header as string.
+   *
+   * @param headers record headers, may be null.
+   * @param name    header name.
+   * @return header value, null if the record doesn't have it.
+   */
+  public static String getValue(Headers headers, String name) {
+    return toString(getBytes(headers, name));
+  }
+
+  /**
+   * Get the last value of a header.
+   *
+   * @param headers record headers, may be null.
+   * @param name    header name.
+   * @return header value, null if the record doesn't have it.
+   */
+  public static byte[] getBytes(Headers headers, String name) {
+    Header header = headers == null ? null : headers.lastHeader(name);
+    return header == null ? null : header.value();
+  }
+
+  /**
+   * Decodes a header value.
+   *
+   * @param value header value, may be null.
+   * @return header value as string, null if there is no value.
+   */
+  public static String toString(byte[] value) {
+    return value == null ? null : new String(value, StandardCharsets.UTF_8);
+  }
+
+  /**
+   * Adds a header with a string value.
+   *
+   * @param headers record headers.
+   * @param name    header name.
+   * @param value   header value, not added if null.
+   */
+  public static void add(Headers headers, String name, String value) {
+    if (value != null) {
+      headers.add(name, value.getBytes(StandardCharsets.UTF_8));
+    }
+  }
+
+}
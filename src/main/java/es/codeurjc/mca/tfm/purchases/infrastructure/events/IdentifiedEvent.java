@@ -0,0 +1,48 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.events;
+
+import java.util.UUID;
+
+/**
+ * Event with a unique identifier, stamped when the event is published, so redelivered events can
+ * be detected by their consumers.
+ */
+public interface IdentifiedEvent {
+
+  /**
+   * Get event identifier.
+   *
+   * @return event identifier, null if the event has not been published yet or it's published by
+   *     other service.
+   */
+  String getEventId();
+
+  /**
+   * Set event identifier.
+   *
+   * @param eventId event identifier.
+   */
+  void setEventId(String eventId);
+
+  /**
+   * Stamps an event with a new identifier if it's an identified event without one. Events
+   * published again, like relayed outbox ones, keep their identifier.
+   *
+   * @param event event to stamp.
+   */
+  static void stamp(Object event) {
+    if (event instanceof IdentifiedEvent && ((IdentifiedEvent) event).getEventId() == null) {
+      ((IdentifiedEvent) event).setEventId(UUID.randomUUID().toString());
+    }
+  }
+
+  /**
+   * Get the identifier of an event.
+   *
+   * @param event event.
+   * @return event identifier, null if it's not an identified event or it has no identifier.
+   */
+  static String idOf(Object event) {
+    return event instanceof IdentifiedEvent ? ((IdentifiedEvent) event).getEventId() : null;
+  }
+
+}
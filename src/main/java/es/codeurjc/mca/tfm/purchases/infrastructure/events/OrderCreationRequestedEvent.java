@@ -6,7 +6,12 @@ import lombok.Data;
  * Requested order creation event.
  */
 @Data
-public class OrderCreationRequestedEvent {
+public class OrderCreationRequestedEvent implements IdentifiedEvent {
+
+  /**
+   * Event identifier.
+   */
+  private String eventId;
 
   /**
    * Order identifier.
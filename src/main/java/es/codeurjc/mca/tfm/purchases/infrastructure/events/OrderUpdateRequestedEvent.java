@@ -8,7 +8,12 @@ import lombok.Data;
  * Order update requested event.
  */
 @Data
-public class OrderUpdateRequestedEvent {
+public class OrderUpdateRequestedEvent implements IdentifiedEvent {
+
+  /**
+   * Event identifier.
+   */
+  private String eventId;
 
   /**
    * Order identifier.
@@ -6,7 +6,12 @@ import lombok.Data;
  * Completed shopping cart event.
  */
 @Data
-public class ShoppingCartCompletionRequestedEvent {
+public class ShoppingCartCompletionRequestedEvent implements IdentifiedEvent {
+
+  /**
+   * Event identifier.
+   */
+  private String eventId;
 
   /**
    * Shopping cart identifier.
@@ -7,7 +7,12 @@ import lombok.Data;
  * Created shopping cart event.
  */
 @Data
-public class ShoppingCartCreationRequestedEvent {
+public class ShoppingCartCreationRequestedEvent implements IdentifiedEvent {
+
+  /**
+   * Event identifier.
+   */
+  private String eventId;
 
   /**
    * Shopping cart identifier.
@@ -1,6 +1,5 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.events;
 
-import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
@@ -9,12 +8,25 @@ import lombok.NoArgsConstructor;
  */
 @Data
 @NoArgsConstructor
-@AllArgsConstructor
-public class ShoppingCartDeletionRequestedEvent {
+public class ShoppingCartDeletionRequestedEvent implements IdentifiedEvent {
+
+  /**
+   * Event identifier.
+   */
+  private String eventId;
 
   /**
    * Shopping cart identifier.
    */
   private Long id;
 
+  /**
+   * Constructor.
+   *
+   * @param id shopping cart identifier.
+   */
+  public ShoppingCartDeletionRequestedEvent(Long id) {
+    this.id = id;
+  }
+
 }
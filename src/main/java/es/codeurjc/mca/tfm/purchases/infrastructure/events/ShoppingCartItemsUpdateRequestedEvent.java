@@ -4,10 +4,17 @@ import java.util.List;
 import lombok.Data;
 
 /**
- * Shopping cart items update requested event.
+ * Shopping cart items update requested event. It carries either all the items of the shopping
+ * cart, when items updates are coalesced, or a single item change: the item of a product set or
+ * the product whose item is deleted.
  */
 @Data
-public class ShoppingCartItemsUpdateRequestedEvent {
+public class ShoppingCartItemsUpdateRequestedEvent implements IdentifiedEvent {
+
+  /**
+   * Event identifier.
+   */
+  private String eventId;
 
   /**
    * Shopping cart identifier.
@@ -15,12 +22,23 @@ public class ShoppingCartItemsUpdateRequestedEvent {
   private Long id;
 
   /**
-   * List of items of the shopping cart.
+   * List of items of the shopping cart, null if the event is a single item change.
    */
   private List<ShoppingCartItem> items;
 
   /**
-   * Total price.
+   * Item set in the shopping cart, if the event is an item upsert.
+   */
+  private ShoppingCartItem upsertedItem;
+
+  /**
+   * Product whose item is deleted from the shopping cart, if the event is an item deletion.
+   */
+  private Integer deletedProductId;
+
+  /**
+   * Total price, null if the event is a single item change. Listeners compute it from the stored
+   * items.
    */
   private Double totalPrice;
 
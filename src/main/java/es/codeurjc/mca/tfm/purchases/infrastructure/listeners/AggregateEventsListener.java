@@ -0,0 +1,60 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Listener of the aggregate topics container, that dispatches each record to the listener method
+ * of the event type in its header, so events of an aggregate are processed in publication order
+ * whatever their type is.
+ */
+@Service
+@ConditionalOnProperty(value = "kafka.aggregates.enabled", havingValue = "true")
+public class AggregateEventsListener implements MessageListener<String, byte[]> {
+
+  /**
+   * Event dispatcher, the registry of listeners by event type.
+   */
+  private final EventDispatcher eventDispatcher;
+
+  /**
+   * Constructor.
+   *
+   * @param eventDispatcher event dispatcher.
+   */
+  public AggregateEventsListener(EventDispatcher eventDispatcher) {
+    this.eventDispatcher = eventDispatcher;
+  }
+
+  /**
+   * Dispatches a record to the listener of its event type.
+   *
+   * @param consumerRecord received record.
+   * @throws IllegalArgumentException         if the record has no event type header, or there is
+   *                                          no listener for it, so it's forwarded to the dead
+   *                                          letter topic without retries.
+   * @throws ListenerExecutionFailedException if the listener fails, so the container error handler
+   *                                          retries the record or forwards it to the dead letter
+   *                                          topic.
+   */
+  @Override
+  public void onMessage(ConsumerRecord<String, byte[]> consumerRecord) {
+    String type = EventHeaders.getValue(consumerRecord.headers(), EventHeaders.TYPE);
+    if (type == null) {
+      throw new IllegalArgumentException("Not event type header in record "
+          + consumerRecord.offset() + " of " + consumerRecord.topic());
+    }
+    try {
+      this.eventDispatcher.dispatch(type, consumerRecord.value(), consumerRecord.headers());
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ListenerExecutionFailedException(e.getMessage(), e);
+    }
+  }
+
+}
@@ -0,0 +1,230 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.admin.OffsetSpec;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Publishes the consumer lag of the partitions assigned to this instance listeners, by group,
+ * topic and partition. As each partition is only reported by the instance it's assigned to, the
+ * sum of all instances metrics is the lag of the group, suitable to autoscale instances on.
+ */
+@Component
+@Slf4j
+public class ConsumerLagMonitor {
+
+  /**
+   * Lag metric name.
+   */
+  private static final String LAG_METRIC = "purchases.consumer.lag";
+
+  /**
+   * Registry of listener containers.
+   */
+  private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Admin client.
+   */
+  private final AdminClient adminClient;
+
+  /**
+   * Max time to wait for offsets.
+   */
+  private final long timeoutMs;
+
+  /**
+   * Lag of reported partitions by group.
+   */
+  private final Map<String, Map<TopicPartition, PartitionLag>> lags = new HashMap<>();
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaListenerEndpointRegistry registry of listener containers.
+   * @param meterRegistry                 meter registry.
+   * @param kafkaAdmin                    kafka admin.
+   * @param timeoutMs                     max time to wait for offsets.
+   */
+  public ConsumerLagMonitor(KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+      MeterRegistry meterRegistry,
+      KafkaAdmin kafkaAdmin,
+      @Value("${kafka.lag.timeoutMs}") long timeoutMs) {
+    this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    this.meterRegistry = meterRegistry;
+    this.adminClient = AdminClient.create(kafkaAdmin.getConfigurationProperties());
+    this.timeoutMs = timeoutMs;
+  }
+
+  /**
+   * Updates lag of assigned partitions, as the difference between the partition end offset and
+   * the group committed offset. Partitions no longer assigned stop being reported.
+   */
+  @Scheduled(fixedDelayString = "${kafka.lag.checkIntervalMs}")
+  public synchronized void update() {
+    Map<String, Set<TopicPartition>> assignedPartitions = this.getAssignedPartitions();
+    try {
+      Map<TopicPartition, OffsetSpec> latest = assignedPartitions.values().stream()
+          .flatMap(Set::stream)
+          .distinct()
+          .collect(Collectors.toMap(partition -> partition, partition -> OffsetSpec.latest()));
+      Map<TopicPartition, ListOffsetsResultInfo> endOffsets = latest.isEmpty()
+          ? Map.of()
+          : this.adminClient.listOffsets(latest).all().get(this.timeoutMs, TimeUnit.MILLISECONDS);
+      for (Map.Entry<String, Set<TopicPartition>> entry : assignedPartitions.entrySet()) {
+        Map<TopicPartition, OffsetAndMetadata> committedOffsets =
+            this.adminClient.listConsumerGroupOffsets(entry.getKey())
+                .partitionsToOffsetAndMetadata().get(this.timeoutMs, TimeUnit.MILLISECONDS);
+        for (TopicPartition partition : entry.getValue()) {
+          OffsetAndMetadata committed = committedOffsets.get(partition);
+          ListOffsetsResultInfo end = endOffsets.get(partition);
+          if (committed != null && end != null) {
+            this.getPartitionLag(entry.getKey(), partition)
+                .set(Math.max(0, end.offset() - committed.offset()));
+          }
+        }
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.error("Error updating consumer lag: {}", e.getMessage());
+    }
+    this.removeRevokedPartitions(assignedPartitions);
+  }
+
+  /**
+   * Gets the last checked lag of the passed topics partitions assigned to this instance.
+   *
+   * @param topics topics.
+   * @return sum of the lag of the topics partitions.
+   */
+  public synchronized long getLag(Collection<String> topics) {
+    return this.lags.values().stream()
+        .flatMap(partitionLags -> partitionLags.entrySet().stream())
+        .filter(entry -> topics.contains(entry.getKey().topic()))
+        .mapToLong(entry -> entry.getValue().lag.get())
+        .sum();
+  }
+
+  /**
+   * Closes admin client.
+   */
+  @PreDestroy
+  public void close() {
+    this.adminClient.close();
+  }
+
+  /**
+   * Gets partitions assigned to running listener containers by group.
+   *
+   * @return map with assigned partitions by group.
+   */
+  private Map<String, Set<TopicPartition>> getAssignedPartitions() {
+    Map<String, Set<TopicPartition>> assignedPartitions = new HashMap<>();
+    for (MessageListenerContainer container :
+        this.kafkaListenerEndpointRegistry.getAllListenerContainers()) {
+      Collection<TopicPartition> partitions = container.getAssignedPartitions();
+      if (container.isRunning() && partitions != null && !partitions.isEmpty()) {
+        assignedPartitions.computeIfAbsent(container.getGroupId(), group -> new HashSet<>())
+            .addAll(partitions);
+      }
+    }
+    return assignedPartitions;
+  }
+
+  /**
+   * Gets lag of a partition, registering its gauge if it's not reported yet.
+   *
+   * @param group     consumer group.
+   * @param partition partition.
+   * @return partition lag.
+   */
+  private AtomicLong getPartitionLag(String group, TopicPartition partition) {
+    return this.lags.computeIfAbsent(group, key -> new HashMap<>())
+        .computeIfAbsent(partition, key -> {
+          AtomicLong lag = new AtomicLong();
+          Gauge gauge = Gauge.builder(LAG_METRIC, lag, AtomicLong::get)
+              .description("Records of the partition not yet committed by the consumer group")
+              .tag("group", group)
+              .tag("topic", partition.topic())
+              .tag("partition", String.valueOf(partition.partition()))
+              .register(this.meterRegistry);
+          return new PartitionLag(lag, gauge);
+        }).lag;
+  }
+
+  /**
+   * Stops reporting partitions no longer assigned to this instance.
+   *
+   * @param assignedPartitions currently assigned partitions by group.
+   */
+  private void removeRevokedPartitions(Map<String, Set<TopicPartition>> assignedPartitions) {
+    for (Map.Entry<String, Map<TopicPartition, PartitionLag>> entry : this.lags.entrySet()) {
+      Set<TopicPartition> partitions = assignedPartitions.getOrDefault(entry.getKey(), Set.of());
+      Iterator<Map.Entry<TopicPartition, PartitionLag>> iterator =
+          entry.getValue().entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<TopicPartition, PartitionLag> partitionLag = iterator.next();
+        if (!partitions.contains(partitionLag.getKey())) {
+          this.meterRegistry.remove(partitionLag.getValue().gauge);
+          iterator.remove();
+        }
+      }
+    }
+  }
+
+  /**
+   * Reported lag of a partition.
+   */
+  private static final class PartitionLag {
+
+    /**
+     * Partition lag.
+     */
+    private final AtomicLong lag;
+
+    /**
+     * Gauge reporting the lag.
+     */
+    private final Gauge gauge;
+
+    /**
+     * Constructor.
+     *
+     * @param lag   partition lag.
+     * @param gauge gauge reporting the lag.
+     */
+    private PartitionLag(AtomicLong lag, Gauge gauge) {
+      this.lag = lag;
+      this.gauge = gauge;
+    }
+
+  }
+
+}
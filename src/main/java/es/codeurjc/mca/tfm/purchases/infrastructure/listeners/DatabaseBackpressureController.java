@@ -0,0 +1,215 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.sql.DataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Pauses listener containers while the database connection pool is saturated, and resumes them
+ * when it recovers. Paused containers keep polling without fetching records, so they don't exceed
+ * max poll interval and trigger a rebalance while listener threads would be waiting for
+ * connections. Pause and resume thresholds are distinct, so containers don't flap around a single
+ * threshold. Containers paused by {@link PriorityLaneController} are left paused on resume.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.backpressure.enabled", havingValue = "true")
+@Slf4j
+public class DatabaseBackpressureController {
+
+  /**
+   * Metrics name prefix.
+   */
+  private static final String METRIC_PREFIX = "purchases.backpressure";
+
+  /**
+   * Hikari connection acquire time metric name.
+   */
+  private static final String ACQUIRE_METRIC = "hikari.connections.acquire";
+
+  /**
+   * Registry of listener containers.
+   */
+  private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Hikari data source.
+   */
+  private final HikariDataSource hikariDataSource;
+
+  /**
+   * Mean connection acquire time from which containers are paused.
+   */
+  private final double pauseWaitMs;
+
+  /**
+   * Mean connection acquire time below which containers are resumed.
+   */
+  private final double resumeWaitMs;
+
+  /**
+   * Ratio of active connections from which containers are paused.
+   */
+  private final double pauseActiveRatio;
+
+  /**
+   * Ratio of active connections below which containers are resumed.
+   */
+  private final double resumeActiveRatio;
+
+  /**
+   * Priority lanes controller, if enabled.
+   */
+  private final ObjectProvider<PriorityLaneController> priorityLaneController;
+
+  /**
+   * Whether containers are paused.
+   */
+  private final AtomicBoolean paused = new AtomicBoolean();
+
+  /**
+   * Pause transitions.
+   */
+  private final Counter pauseCounter;
+
+  /**
+   * Resume transitions.
+   */
+  private final Counter resumeCounter;
+
+  /**
+   * Connection acquisitions count at previous check.
+   */
+  private long lastAcquireCount;
+
+  /**
+   * Connection acquisitions total time in milliseconds at previous check.
+   */
+  private double lastAcquireTimeMs;
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaListenerEndpointRegistry registry of listener containers.
+   * @param meterRegistry                 meter registry.
+   * @param dataSource                    data source.
+   * @param pauseWaitMs                   mean connection acquire time to pause containers.
+   * @param resumeWaitMs                  mean connection acquire time to resume containers.
+   * @param pauseActiveRatio              ratio of active connections to pause containers.
+   * @param resumeActiveRatio             ratio of active connections to resume containers.
+   * @param priorityLaneController        priority lanes controller, if enabled.
+   * @throws SQLException if data source is not a Hikari one.
+   */
+  public DatabaseBackpressureController(
+      KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+      MeterRegistry meterRegistry,
+      DataSource dataSource,
+      @Value("${kafka.backpressure.pauseWaitMs}") double pauseWaitMs,
+      @Value("${kafka.backpressure.resumeWaitMs}") double resumeWaitMs,
+      @Value("${kafka.backpressure.pauseActiveRatio}") double pauseActiveRatio,
+      @Value("${kafka.backpressure.resumeActiveRatio}") double resumeActiveRatio,
+      ObjectProvider<PriorityLaneController> priorityLaneController)
+      throws SQLException {
+    this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    this.meterRegistry = meterRegistry;
+    this.hikariDataSource = dataSource.unwrap(HikariDataSource.class);
+    this.pauseWaitMs = pauseWaitMs;
+    this.resumeWaitMs = resumeWaitMs;
+    this.pauseActiveRatio = pauseActiveRatio;
+    this.resumeActiveRatio = resumeActiveRatio;
+    this.priorityLaneController = priorityLaneController;
+    this.pauseCounter = Counter.builder(METRIC_PREFIX + ".transitions")
+        .description("Listener containers pause and resume transitions")
+        .tag("action", "pause")
+        .register(meterRegistry);
+    this.resumeCounter = Counter.builder(METRIC_PREFIX + ".transitions")
+        .description("Listener containers pause and resume transitions")
+        .tag("action", "resume")
+        .register(meterRegistry);
+    meterRegistry.gauge(METRIC_PREFIX + ".paused", this.paused, p -> p.get() ? 1 : 0);
+  }
+
+  /**
+   * Checks connection pool state, pausing or resuming listener containers when a threshold is
+   * crossed.
+   */
+  @Scheduled(fixedDelayString = "${kafka.backpressure.checkIntervalMs}")
+  public void check() {
+    HikariPoolMXBean pool = this.hikariDataSource.getHikariPoolMXBean();
+    if (pool == null) {
+      return;
+    }
+    double waitMs = this.acquireWaitMs();
+    double activeRatio =
+        (double) pool.getActiveConnections() / this.hikariDataSource.getMaximumPoolSize();
+    if (!this.paused.get()
+        && (waitMs >= this.pauseWaitMs || activeRatio >= this.pauseActiveRatio)) {
+      log.warn("Pausing listeners, database pool saturated: acquire wait {} ms, active ratio {}",
+          waitMs, activeRatio);
+      this.paused.set(true);
+      this.pauseCounter.increment();
+      this.kafkaListenerEndpointRegistry.getAllListenerContainers().stream()
+          .filter(MessageListenerContainer::isRunning)
+          .forEach(MessageListenerContainer::pause);
+    } else if (this.paused.get() && waitMs <= this.resumeWaitMs
+        && activeRatio <= this.resumeActiveRatio) {
+      log.info("Resuming listeners, database pool recovered: acquire wait {} ms, active ratio {}",
+          waitMs, activeRatio);
+      this.paused.set(false);
+      this.resumeCounter.increment();
+      PriorityLaneController priorityLanes = this.priorityLaneController.getIfAvailable();
+      this.kafkaListenerEndpointRegistry.getAllListenerContainers().stream()
+          .filter(container -> priorityLanes == null || !priorityLanes.isPaused(container))
+          .forEach(MessageListenerContainer::resume);
+    }
+  }
+
+  /**
+   * Indicates if containers are paused because the database pool is saturated.
+   *
+   * @return true if containers are paused, else false.
+   */
+  public boolean isPaused() {
+    return this.paused.get();
+  }
+
+  /**
+   * Gets mean connection acquire time since previous check.
+   *
+   * @return mean connection acquire time in milliseconds, 0 if there were no acquisitions.
+   */
+  private double acquireWaitMs() {
+    Timer timer = this.meterRegistry.find(ACQUIRE_METRIC)
+        .tag("pool", this.hikariDataSource.getPoolName())
+        .timer();
+    if (timer == null) {
+      return 0;
+    }
+    long count = timer.count();
+    double timeMs = timer.totalTime(TimeUnit.MILLISECONDS);
+    long acquisitions = count - this.lastAcquireCount;
+    double waitMs = acquisitions > 0 ? (timeMs - this.lastAcquireTimeMs) / acquisitions : 0;
+    this.lastAcquireCount = count;
+    this.lastAcquireTimeMs = timeMs;
+    return waitMs;
+  }
+
+}
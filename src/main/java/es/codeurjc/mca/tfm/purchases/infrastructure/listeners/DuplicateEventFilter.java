@@ -0,0 +1,110 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener containers interceptor that drops redelivered events by their event id header, before
+ * their payload is decoded. Listeners don't look up again the events of records with the header,
+ * only the ones without it, like the ones published by other services, once decoded.
+ */
+@Component
+@Slf4j
+public class DuplicateEventFilter implements RecordInterceptor<String, byte[]>,
+    BatchInterceptor<String, byte[]> {
+
+  /**
+   * Event deduplicator.
+   */
+  private final EventDeduplicator eventDeduplicator;
+
+  /**
+   * Constructor.
+   *
+   * @param eventDeduplicator event deduplicator.
+   */
+  public DuplicateEventFilter(EventDeduplicator eventDeduplicator) {
+    this.eventDeduplicator = eventDeduplicator;
+  }
+
+  /**
+   * Drops a record if its event has already been processed. Only implemented because the
+   * interface requires it, containers call the consumer aware variant.
+   *
+   * @param consumerRecord received record.
+   * @return the same record, or null if it's a duplicate.
+   */
+  @Override
+  public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> consumerRecord) {
+    return this.isDuplicate(consumerRecord) ? null : consumerRecord;
+  }
+
+  /**
+   * Drops a record if its event has already been processed.
+   *
+   * @param consumerRecord received record.
+   * @param consumer       consumer.
+   * @return the same record, or null if it's a duplicate.
+   */
+  @Override
+  public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> consumerRecord,
+      Consumer<String, byte[]> consumer) {
+    return this.isDuplicate(consumerRecord) ? null : consumerRecord;
+  }
+
+  /**
+   * Drops the records whose events have already been processed.
+   *
+   * @param consumerRecords received records.
+   * @param consumer        consumer.
+   * @return records that are not duplicates, the same records if there are none.
+   */
+  @Override
+  public ConsumerRecords<String, byte[]> intercept(ConsumerRecords<String, byte[]> consumerRecords,
+      Consumer<String, byte[]> consumer) {
+    Map<TopicPartition, List<ConsumerRecord<String, byte[]>>> filtered = new HashMap<>();
+    boolean dropped = false;
+    for (TopicPartition partition : consumerRecords.partitions()) {
+      List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+      for (ConsumerRecord<String, byte[]> consumerRecord : consumerRecords.records(partition)) {
+        if (this.isDuplicate(consumerRecord)) {
+          dropped = true;
+        } else {
+          records.add(consumerRecord);
+        }
+      }
+      if (!records.isEmpty()) {
+        filtered.put(partition, records);
+      }
+    }
+    return dropped ? new ConsumerRecords<>(filtered) : consumerRecords;
+  }
+
+  /**
+   * Checks if the event of a record has already been processed.
+   *
+   * @param consumerRecord received record.
+   * @return true if its event id header has been processed, else false.
+   */
+  private boolean isDuplicate(ConsumerRecord<String, byte[]> consumerRecord) {
+    String eventId = EventHeaders.getValue(consumerRecord.headers(), EventHeaders.ID);
+    if (this.eventDeduplicator.isDuplicate(eventId)) {
+      log.info("Dropped duplicated event {} of {}-{}@{}", eventId, consumerRecord.topic(),
+          consumerRecord.partition(), consumerRecord.offset());
+      return true;
+    }
+    return false;
+  }
+
+}
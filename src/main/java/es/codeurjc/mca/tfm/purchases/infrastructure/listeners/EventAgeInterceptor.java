@@ -0,0 +1,122 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.springframework.kafka.listener.BatchInterceptor;
+import org.springframework.kafka.listener.RecordInterceptor;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listener containers interceptor that records the age of successfully processed events, from the
+ * record timestamp to the listener completion, by topic. As each topic has a single listener, it's
+ * the end to end latency of each listener.
+ */
+@Component
+public class EventAgeInterceptor implements RecordInterceptor<String, byte[]>,
+    BatchInterceptor<String, byte[]> {
+
+  /**
+   * Event age metric name.
+   */
+  private static final String AGE_METRIC = "purchases.events.age";
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Constructor.
+   *
+   * @param meterRegistry meter registry.
+   */
+  public EventAgeInterceptor(MeterRegistry meterRegistry) {
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Returns the record unchanged. Only implemented because the interface requires it, containers
+   * call the consumer aware variant.
+   *
+   * @param consumerRecord received record.
+   * @return the same record.
+   */
+  @Override
+  public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> consumerRecord) {
+    return consumerRecord;
+  }
+
+  /**
+   * Returns the record unchanged.
+   *
+   * @param consumerRecord received record.
+   * @param consumer       consumer.
+   * @return the same record.
+   */
+  @Override
+  public ConsumerRecord<String, byte[]> intercept(ConsumerRecord<String, byte[]> consumerRecord,
+      Consumer<String, byte[]> consumer) {
+    return consumerRecord;
+  }
+
+  /**
+   * Returns the records unchanged.
+   *
+   * @param consumerRecords received records.
+   * @param consumer        consumer.
+   * @return the same records.
+   */
+  @Override
+  public ConsumerRecords<String, byte[]> intercept(ConsumerRecords<String, byte[]> consumerRecords,
+      Consumer<String, byte[]> consumer) {
+    return consumerRecords;
+  }
+
+  /**
+   * Records the age of a processed record.
+   *
+   * @param consumerRecord processed record.
+   * @param consumer       consumer.
+   */
+  @Override
+  public void success(ConsumerRecord<String, byte[]> consumerRecord,
+      Consumer<String, byte[]> consumer) {
+    this.record(consumerRecord, System.currentTimeMillis());
+  }
+
+  /**
+   * Records the age of processed records.
+   *
+   * @param consumerRecords processed records.
+   * @param consumer        consumer.
+   */
+  @Override
+  public void success(ConsumerRecords<String, byte[]> consumerRecords,
+      Consumer<String, byte[]> consumer) {
+    long now = System.currentTimeMillis();
+    consumerRecords.forEach(consumerRecord -> this.record(consumerRecord, now));
+  }
+
+  /**
+   * Records the age of a processed record.
+   *
+   * @param consumerRecord processed record.
+   * @param now            processing completion time in milliseconds.
+   */
+  private void record(ConsumerRecord<String, byte[]> consumerRecord, long now) {
+    if (consumerRecord.timestamp() < 0) {
+      return;
+    }
+    Timer.builder(AGE_METRIC)
+        .description("Time from event publication until its listener completes processing it")
+        .tag("topic", consumerRecord.topic())
+        .publishPercentileHistogram()
+        .register(this.meterRegistry)
+        .record(Math.max(0, now - consumerRecord.timestamp()), TimeUnit.MILLISECONDS);
+  }
+
+}
@@ -0,0 +1,302 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.IdentifiedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaProcessedEventRepository;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Index of processed event identifiers, to drop redelivered events. An event is claimed at the
+ * start of the transaction of the listener that processes it, inserting its identifier in the
+ * processed events table unless it's already stored, so redeliveries are dropped by any instance,
+ * also after a rebalance or a restart, without querying the table first. Rows are kept for a
+ * retention time and purged periodically. A Bloom filter and a bounded table of the identifiers
+ * recently seen by this instance drop redeliveries to the same instance before the insert. The
+ * Bloom filter is rotated in two generations, so it always covers the identifiers of the recent
+ * identifiers table.
+ */
+@Component
+@Slf4j
+public class EventDeduplicator {
+
+  /**
+   * Bloom filter bits per identifier, for a false positive rate around 1%.
+   */
+  private static final int BITS_PER_ID = 10;
+
+  /**
+   * Bloom filter hash functions.
+   */
+  private static final int HASH_FUNCTIONS = 7;
+
+  /**
+   * Processed events repository.
+   */
+  private final JpaProcessedEventRepository jpaProcessedEventRepository;
+
+  /**
+   * Max number of identifiers of the recent identifiers table.
+   */
+  private final int capacity;
+
+  /**
+   * Time processed events are kept in the processed events table.
+   */
+  private final long retentionMs;
+
+  /**
+   * Recent identifiers table, evicting the oldest ones.
+   */
+  private final Map<String, Boolean> recentIds;
+
+  /**
+   * Current Bloom filter generation.
+   */
+  private volatile BloomFilter current;
+
+  /**
+   * Previous Bloom filter generation.
+   */
+  private volatile BloomFilter previous;
+
+  /**
+   * Identifiers added to current Bloom filter generation.
+   */
+  private int currentCount;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaProcessedEventRepository processed events repository.
+   * @param capacity                    max number of identifiers of the recent identifiers table.
+   * @param retentionMs                 time processed events are kept in database.
+   */
+  public EventDeduplicator(JpaProcessedEventRepository jpaProcessedEventRepository,
+      @Value("${kafka.dedupe.capacity}") int capacity,
+      @Value("${kafka.dedupe.retentionMs}") long retentionMs) {
+    this.jpaProcessedEventRepository = jpaProcessedEventRepository;
+    this.capacity = capacity;
+    this.retentionMs = retentionMs;
+    this.recentIds = new LinkedHashMap<>() {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+        return this.size() > capacity;
+      }
+    };
+    this.current = new BloomFilter(capacity);
+    this.previous = new BloomFilter(capacity);
+  }
+
+  /**
+   * Indicates if an event has already been processed by this instance.
+   *
+   * @param event received event.
+   * @return true if the event identifier has been recently processed, false if it's not or the
+   *     event has no identifier.
+   */
+  public boolean isDuplicate(IdentifiedEvent event) {
+    return this.isDuplicate(event.getEventId());
+  }
+
+  /**
+   * Indicates if an event identifier has already been processed by this instance, looking it up
+   * in the recent identifiers, without querying the processed events table.
+   *
+   * @param eventId event identifier, may be null.
+   * @return true if the identifier has been recently processed, false if it's not or it's null.
+   */
+  public boolean isDuplicate(String eventId) {
+    if (eventId == null) {
+      return false;
+    }
+    if (this.current.mightContain(eventId) || this.previous.mightContain(eventId)) {
+      synchronized (this) {
+        return this.recentIds.containsKey(eventId);
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Claims an event before processing it, inserting it in the processed events table unless it's
+   * already stored. Must be called at the start of the transaction that processes the event, so
+   * a redelivery processed concurrently by other instance waits for it and is dropped once it's
+   * committed, and the claim is rolled back with the event changes if they fail. The event is
+   * added to recent identifiers once the transaction is committed.
+   *
+   * @param event received event.
+   * @return true if the event must be processed, false if it has already been processed. Events
+   *     without identifier are always processed.
+   */
+  public boolean claim(IdentifiedEvent event) {
+    return this.claim(event, false);
+  }
+
+  /**
+   * Claims an event before processing it, like {@link #claim(IdentifiedEvent)}, skipping the
+   * recent identifiers lookup if it has already been done for the event id header of its record.
+   *
+   * @param event    received event.
+   * @param filtered true if the event id header of its record has already been looked up in
+   *                 recent identifiers, else false.
+   * @return true if the event must be processed, false if it has already been processed. Events
+   *     without identifier are always processed.
+   */
+  public boolean claim(IdentifiedEvent event, boolean filtered) {
+    String eventId = event.getEventId();
+    if (eventId == null) {
+      return true;
+    }
+    if (!filtered && this.isDuplicate(eventId)) {
+      return false;
+    }
+    if (this.jpaProcessedEventRepository.insertIfAbsent(eventId, Instant.now()) == 0) {
+      this.record(eventId);
+      return false;
+    }
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          EventDeduplicator.this.record(eventId);
+        }
+      });
+    } else {
+      this.record(eventId);
+    }
+    return true;
+  }
+
+  /**
+   * Deletes the processed events older than the retention time.
+   */
+  @Scheduled(fixedDelayString = "${kafka.dedupe.purgeIntervalMs}")
+  public void purge() {
+    int purged = this.jpaProcessedEventRepository.deleteAllByProcessedAtBefore(
+        Instant.now().minusMillis(this.retentionMs));
+    if (purged > 0) {
+      log.info("Purged {} processed events", purged);
+    }
+  }
+
+  /**
+   * Adds an identifier to recent identifiers, rotating Bloom filter generations when the current
+   * one is full.
+   *
+   * @param eventId event identifier.
+   */
+  private synchronized void record(String eventId) {
+    if (this.recentIds.put(eventId, Boolean.TRUE) != null) {
+      return;
+    }
+    if (this.currentCount >= this.capacity) {
+      this.previous = this.current;
+      this.current = new BloomFilter(this.capacity);
+      this.currentCount = 0;
+    }
+    this.current.put(eventId);
+    this.currentCount++;
+  }
+
+  /**
+   * Bloom filter of strings, using double hashing of a 64 bits FNV-1a hash.
+   */
+  private static final class BloomFilter {
+
+    /**
+     * Filter bits.
+     */
+    private final AtomicLongArray bits;
+
+    /**
+     * Number of filter bits.
+     */
+    private final long size;
+
+    /**
+     * Constructor.
+     *
+     * @param expectedIds expected number of identifiers.
+     */
+    private BloomFilter(int expectedIds) {
+      int words = Math.max(1, (int) (((long) expectedIds * BITS_PER_ID + 63) / 64));
+      this.bits = new AtomicLongArray(words);
+      this.size = (long) words * 64;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value value to add.
+     */
+    private void put(String value) {
+      long hash = hash(value);
+      for (int i = 0; i < HASH_FUNCTIONS; i++) {
+        long bit = this.bit(hash, i);
+        int word = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long previousWord;
+        do {
+          previousWord = this.bits.get(word);
+        } while ((previousWord & mask) == 0
+            && !this.bits.compareAndSet(word, previousWord, previousWord | mask));
+      }
+    }
+
+    /**
+     * Indicates if a value might have been added.
+     *
+     * @param value value to check.
+     * @return false if the value has not been added, true if it might have been.
+     */
+    private boolean mightContain(String value) {
+      long hash = hash(value);
+      for (int i = 0; i < HASH_FUNCTIONS; i++) {
+        long bit = this.bit(hash, i);
+        if ((this.bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Gets the bit of the passed hash function.
+     *
+     * @param hash  value hash.
+     * @param index hash function index.
+     * @return bit index.
+     */
+    private long bit(long hash, int index) {
+      int hash1 = (int) hash;
+      int hash2 = (int) (hash >>> 32);
+      return Math.floorMod(hash1 + (long) index * hash2, this.size);
+    }
+
+    /**
+     * Computes 64 bits FNV-1a hash of a value.
+     *
+     * @param value value.
+     * @return hash.
+     */
+    private static long hash(String value) {
+      long hash = 0xcbf29ce484222325L;
+      for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+        hash ^= b & 0xff;
+        hash *= 0x100000001b3L;
+      }
+      return hash;
+    }
+
+  }
+
+}
@@ -0,0 +1,106 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import java.util.Map;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Dispatches encoded events to the listener method of their topic, so listeners logic can be
+ * invoked without a Kafka listener container.
+ */
+@Component
+public class EventDispatcher {
+
+  /**
+   * Event handlers by topic.
+   */
+  private final Map<String, EventHandler> handlers;
+
+  /**
+   * Constructor.
+   *
+   * @param shoppingCartEventsListener shopping cart events listener.
+   * @param orderEventsListener        order events listener.
+   * @param createShoppingCartTopic    create shopping cart topic.
+   * @param deleteShoppingCartTopic    delete shopping cart topic.
+   * @param completeShoppingCartTopic  complete shopping cart topic.
+   * @param updateItemsTopic           update items topic.
+   * @param createOrderTopic           create order topic.
+   * @param updateOrderTopic           update order topic.
+   * @param changeStateTopic           change order state topic.
+   */
+  public EventDispatcher(ShoppingCartEventsListener shoppingCartEventsListener,
+      OrderEventsListener orderEventsListener,
+      @Value("${kafka.topics.createShoppingCart}") String createShoppingCartTopic,
+      @Value("${kafka.topics.deleteShoppingCart}") String deleteShoppingCartTopic,
+      @Value("${kafka.topics.completeShoppingCart}") String completeShoppingCartTopic,
+      @Value("${kafka.topics.updateItems}") String updateItemsTopic,
+      @Value("${kafka.topics.createOrder}") String createOrderTopic,
+      @Value("${kafka.topics.updateOrder}") String updateOrderTopic,
+      @Value("${kafka.topics.changeState}") String changeStateTopic) {
+    this.handlers = Map.of(
+        createShoppingCartTopic,
+        (payload, headers) -> shoppingCartEventsListener.onCreatedShoppingCart(payload,
+            EventHeaders.getBytes(headers, EventHeaders.ID)),
+        deleteShoppingCartTopic,
+        (payload, headers) -> shoppingCartEventsListener.onDeletedShoppingCart(payload,
+            EventHeaders.getBytes(headers, EventHeaders.ID)),
+        completeShoppingCartTopic,
+        (payload, headers) -> shoppingCartEventsListener.onCompletedShoppingCart(payload,
+            EventHeaders.getBytes(headers, EventHeaders.AGGREGATE_ID),
+            EventHeaders.getBytes(headers, EventHeaders.ID)),
+        updateItemsTopic,
+        (payload, headers) -> shoppingCartEventsListener.onUpdateShoppingCartItems(payload,
+            EventHeaders.getBytes(headers, EventHeaders.ID)),
+        createOrderTopic,
+        (payload, headers) -> orderEventsListener.onCreatedOrder(payload,
+            EventHeaders.getBytes(headers, EventHeaders.ID)),
+        updateOrderTopic,
+        (payload, headers) -> orderEventsListener.onUpdatedOrder(payload,
+            EventHeaders.getBytes(headers, EventHeaders.ID)),
+        changeStateTopic,
+        (payload, headers) -> orderEventsListener.onOrderStateChanged(payload,
+            EventHeaders.getBytes(headers, EventHeaders.ID)));
+  }
+
+  /**
+   * Indicates if there is a listener for passed topic.
+   *
+   * @param topic topic.
+   * @return true if there is a listener for the topic, else false.
+   */
+  public boolean handles(String topic) {
+    return this.handlers.containsKey(topic);
+  }
+
+  /**
+   * Dispatches an encoded event without record headers to the listener of its topic.
+   *
+   * @param topic   event topic.
+   * @param payload encoded event.
+   * @throws Exception if listener fails processing event.
+   */
+  public void dispatch(String topic, byte[] payload) throws Exception {
+    this.dispatch(topic, payload, new RecordHeaders());
+  }
+
+  /**
+   * Dispatches an encoded event to the listener of its topic.
+   *
+   * @param topic   event topic.
+   * @param payload encoded event.
+   * @param headers event record headers.
+   * @throws Exception if listener fails processing event.
+   */
+  public void dispatch(String topic, byte[] payload, Headers headers) throws Exception {
+    EventHandler handler = this.handlers.get(topic);
+    if (handler == null) {
+      throw new IllegalArgumentException("Not listener found for topic " + topic);
+    }
+    handler.handle(payload, headers);
+  }
+
+}
@@ -0,0 +1,20 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import org.apache.kafka.common.header.Headers;
+
+/**
+ * Handler of encoded events of a topic, with their record headers.
+ */
+@FunctionalInterface
+public interface EventHandler {
+
+  /**
+   * Handles an encoded event.
+   *
+   * @param payload encoded event.
+   * @param headers event record headers, empty if the event was not received from Kafka.
+   * @throws Exception if an error processing event happens.
+   */
+  void handle(byte[] payload, Headers headers) throws Exception;
+
+}
@@ -0,0 +1,119 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Executor that runs tasks of the same key sequentially, in arrival order, while tasks of distinct
+ * keys run in parallel. Tasks run in the calling listener thread, so the transactions bound to it
+ * still apply, and the pool running tasks in parallel is the listener threads of the consumed
+ * topics. The number of tasks waiting for a key is bounded, so a hot key can't hold all listener
+ * threads.
+ */
+@Component
+public class KeyedSerialExecutor {
+
+  /**
+   * Metrics name prefix.
+   */
+  private static final String METRIC_PREFIX = "purchases.keyed.executor";
+
+  /**
+   * Slots of keys with running or waiting tasks.
+   */
+  private final Map<Object, KeySlot> slots = new ConcurrentHashMap<>();
+
+  /**
+   * Max number of tasks waiting for a key, apart from the running one.
+   */
+  private final int maxQueuedPerKey;
+
+  /**
+   * Time tasks wait for their key.
+   */
+  private final Timer waitTimer;
+
+  /**
+   * Tasks rejected because their key queue is full.
+   */
+  private final Counter rejectedCounter;
+
+  /**
+   * Constructor.
+   *
+   * @param meterRegistry   meter registry.
+   * @param maxQueuedPerKey max number of tasks waiting for a key.
+   */
+  public KeyedSerialExecutor(MeterRegistry meterRegistry,
+      @Value("${kafka.keyedExecutor.maxQueuedPerKey}") int maxQueuedPerKey) {
+    this.maxQueuedPerKey = maxQueuedPerKey;
+    this.waitTimer = Timer.builder(METRIC_PREFIX + ".wait")
+        .description("Time tasks wait until previous tasks of their key finish")
+        .register(meterRegistry);
+    this.rejectedCounter = Counter.builder(METRIC_PREFIX + ".rejected")
+        .description("Tasks rejected because too many tasks of their key are waiting")
+        .register(meterRegistry);
+    meterRegistry.gauge(METRIC_PREFIX + ".keys", this.slots, Map::size);
+    meterRegistry.gauge(METRIC_PREFIX + ".queued", this.slots, slots ->
+        slots.values().stream().mapToInt(slot -> Math.max(0, slot.tasks - 1)).sum());
+  }
+
+  /**
+   * Runs a task once previous tasks of its key have finished.
+   *
+   * @param key  key whose tasks run sequentially, i.e. an order identifier.
+   * @param task task to run.
+   * @param <T>  task result type.
+   * @return task result.
+   * @throws RejectedExecutionException if too many tasks of the key are waiting.
+   * @throws Exception                  if task fails.
+   */
+  public <T> T execute(Object key, Callable<T> task) throws Exception {
+    KeySlot slot = this.slots.compute(key, (k, keySlot) -> {
+      if (keySlot == null) {
+        keySlot = new KeySlot();
+      } else if (keySlot.tasks > this.maxQueuedPerKey) {
+        this.rejectedCounter.increment();
+        throw new RejectedExecutionException("Too many tasks waiting for key " + k);
+      }
+      keySlot.tasks++;
+      return keySlot;
+    });
+    long start = System.nanoTime();
+    slot.lock.lock();
+    try {
+      this.waitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      return task.call();
+    } finally {
+      slot.lock.unlock();
+      this.slots.computeIfPresent(key, (k, keySlot) -> --keySlot.tasks == 0 ? null : keySlot);
+    }
+  }
+
+  /**
+   * Running and waiting tasks of a key.
+   */
+  private static final class KeySlot {
+
+    /**
+     * Fair lock, so waiting tasks run in arrival order.
+     */
+    private final ReentrantLock lock = new ReentrantLock(true);
+
+    /**
+     * Number of running and waiting tasks, only modified while computing the slot.
+     */
+    private int tasks;
+
+  }
+
+}
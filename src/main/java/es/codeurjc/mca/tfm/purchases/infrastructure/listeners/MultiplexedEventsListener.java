@@ -0,0 +1,51 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.kafka.listener.MessageListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Listener of the multiplexed container, that consumes all multiplexed topics with the same
+ * consumers and dispatches each record to the listener method of its topic.
+ */
+@Service
+@ConditionalOnProperty(value = "kafka.multiplexed.enabled", havingValue = "true")
+public class MultiplexedEventsListener implements MessageListener<String, byte[]> {
+
+  /**
+   * Event dispatcher.
+   */
+  private final EventDispatcher eventDispatcher;
+
+  /**
+   * Constructor.
+   *
+   * @param eventDispatcher event dispatcher.
+   */
+  public MultiplexedEventsListener(EventDispatcher eventDispatcher) {
+    this.eventDispatcher = eventDispatcher;
+  }
+
+  /**
+   * Dispatches a record to the listener of its topic.
+   *
+   * @param consumerRecord received record.
+   * @throws ListenerExecutionFailedException if the listener fails, so the container error handler
+   *                                          retries the record or forwards it to the dead letter
+   *                                          topic.
+   */
+  @Override
+  public void onMessage(ConsumerRecord<String, byte[]> consumerRecord) {
+    try {
+      this.eventDispatcher.dispatch(consumerRecord.topic(), consumerRecord.value(),
+          consumerRecord.headers());
+    } catch (RuntimeException e) {
+      throw e;
+    } catch (Exception e) {
+      throw new ListenerExecutionFailedException(e.getMessage(), e);
+    }
+  }
+
+}
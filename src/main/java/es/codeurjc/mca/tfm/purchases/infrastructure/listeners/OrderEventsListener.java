@@ -1,12 +1,12 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.datatype.jdk8.Jdk8Module;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.IllegalOrderStateException;
 import es.codeurjc.mca.tfm.purchases.domain.exceptions.PreviousOrderStateUpdateException;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
@@ -14,7 +14,9 @@ import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderReposit
 import java.util.Optional;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * Orders events listener.
@@ -38,99 +40,176 @@ public class OrderEventsListener {
    */
   private OrderUseCase orderUseCase;
 
+  /**
+   * Event codecs.
+   */
+  private EventCodecs eventCodecs;
+
+  /**
+   * Barrier for order state changes received before their preceding order update.
+   */
+  private OrderUpdateBarrier orderUpdateBarrier;
+
+  /**
+   * Transaction template.
+   */
+  private TransactionTemplate transactionTemplate;
 
   /**
-   * Object mapper.
+   * Deduplicator of redelivered events.
    */
-  private ObjectMapper objectMapper;
+  private EventDeduplicator eventDeduplicator;
+
+  /**
+   * Executor that runs the changes of each order sequentially.
+   */
+  private KeyedSerialExecutor keyedSerialExecutor;
 
   /**
    * Constructor.
    *
-   * @param infraMapper        mapper.
-   * @param jpaOrderRepository order repository.
-   * @param orderUseCase       order use case.
+   * @param infraMapper         mapper.
+   * @param jpaOrderRepository  order repository.
+   * @param orderUseCase        order use case.
+   * @param eventCodecs         event codecs.
+   * @param orderUpdateBarrier  order update barrier.
+   * @param transactionTemplate transaction template.
+   * @param eventDeduplicator   deduplicator of redelivered events.
+   * @param keyedSerialExecutor executor that runs the changes of each order sequentially.
    */
   public OrderEventsListener(InfraMapper infraMapper,
       JpaOrderRepository jpaOrderRepository,
-      OrderUseCase orderUseCase) {
+      OrderUseCase orderUseCase,
+      EventCodecs eventCodecs,
+      OrderUpdateBarrier orderUpdateBarrier,
+      TransactionTemplate transactionTemplate,
+      EventDeduplicator eventDeduplicator,
+      KeyedSerialExecutor keyedSerialExecutor) {
     this.infraMapper = infraMapper;
     this.jpaOrderRepository = jpaOrderRepository;
     this.orderUseCase = orderUseCase;
-    this.objectMapper = new ObjectMapper();
-    objectMapper.registerModule(new Jdk8Module());
+    this.eventCodecs = eventCodecs;
+    this.orderUpdateBarrier = orderUpdateBarrier;
+    this.transactionTemplate = transactionTemplate;
+    this.eventDeduplicator = eventDeduplicator;
+    this.keyedSerialExecutor = keyedSerialExecutor;
   }
 
   /**
-   * Listener to process created order events and save them in database.
+   * Listener to process created order events and save them in database. Changes of the same order
+   * received from distinct topics are processed sequentially.
    *
    * @param orderCreationRequestedEvent with order info to save.
+   * @param eventId                     event id header, null if not present.
    */
   @KafkaListener(topics = "${kafka.topics.createOrder}", groupId = "${kafka.groupId}")
-  public void onCreatedOrder(String orderCreationRequestedEvent) throws Exception {
+  public void onCreatedOrder(byte[] orderCreationRequestedEvent,
+      @Header(name = EventHeaders.ID, required = false) byte[] eventId) throws Exception {
     try {
-      log.info("Received orderCreationRequestedEvent {}", orderCreationRequestedEvent);
-      OrderEntity orderEntity = this.infraMapper.mapToOrderEntity(
-          this.objectMapper.readValue(orderCreationRequestedEvent,
-              OrderCreationRequestedEvent.class));
-      this.jpaOrderRepository.save(orderEntity);
-      log.info("Order {} saved", orderEntity);
-
-      this.orderUseCase.update(orderEntity.getId(), OrderState.VALIDATING_ITEMS.name(),
-          Optional.empty());
+      OrderCreationRequestedEvent creationRequestedEvent = this.eventCodecs.decode(
+          orderCreationRequestedEvent, OrderCreationRequestedEvent.class);
+      log.info("Received orderCreationRequestedEvent {}", creationRequestedEvent);
+      this.keyedSerialExecutor.execute(creationRequestedEvent.getId(), () ->
+          this.transactionTemplate.execute(status -> {
+            if (!this.eventDeduplicator.claim(creationRequestedEvent, eventId != null)) {
+              log.info("Dropped duplicated orderCreationRequestedEvent {}",
+                  creationRequestedEvent.getEventId());
+              return null;
+            }
+            OrderEntity orderEntity = this.infraMapper.mapToOrderEntity(creationRequestedEvent);
+            this.jpaOrderRepository.save(orderEntity);
+            log.info("Order {} saved", orderEntity);
+
+            this.orderUseCase.update(orderEntity.getId(), OrderState.VALIDATING_ITEMS.name(),
+                Optional.empty()).join();
+            return null;
+          }));
     } catch (IllegalOrderStateException illegalOrderStateException) {
       log.error(illegalOrderStateException.getMessage());
     } catch (PreviousOrderStateUpdateException previousOrderStateUpdateException) {
       log.error(previousOrderStateUpdateException.getMessage());
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", orderCreationRequestedEvent, e.getMessage());
+      log.error("Error processing orderCreationRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
 
   /**
-   * Listener to process updated order events and save them in database.
+   * Listener to process updated order events and save them in database. Changes of the same order
+   * received from distinct topics are processed sequentially.
    *
    * @param orderUpdateRequestedEvent with order info to update.
+   * @param eventId                   event id header, null if not present.
    */
   @KafkaListener(topics = "${kafka.topics.updateOrder}", groupId = "${kafka.groupId}")
-  public void onUpdatedOrder(String orderUpdateRequestedEvent) throws Exception {
+  public void onUpdatedOrder(byte[] orderUpdateRequestedEvent,
+      @Header(name = EventHeaders.ID, required = false) byte[] eventId) throws Exception {
     try {
-      log.info("Received orderUpdateRequestedEvent {}", orderUpdateRequestedEvent);
-      OrderUpdateRequestedEvent orderUpdateEvent = this.objectMapper.readValue(
+      OrderUpdateRequestedEvent orderUpdateEvent = this.eventCodecs.decode(
           orderUpdateRequestedEvent, OrderUpdateRequestedEvent.class);
+      log.info("Received orderUpdateRequestedEvent {}", orderUpdateEvent);
       String errors = this.infraMapper.map(orderUpdateEvent.getErrors());
-      this.jpaOrderRepository.findById(orderUpdateEvent.getId()).ifPresentOrElse(
-          orderEntity -> {
-            orderEntity.setState(orderUpdateEvent.getState());
-            if (errors != null) {
-              orderEntity.setErrors(errors);
+      this.keyedSerialExecutor.execute(orderUpdateEvent.getId(), () ->
+          this.transactionTemplate.execute(status -> {
+            if (!this.eventDeduplicator.claim(orderUpdateEvent, eventId != null)) {
+              log.info("Dropped duplicated orderUpdateRequestedEvent {}",
+                  orderUpdateEvent.getEventId());
+              return null;
             }
-            this.jpaOrderRepository.save(orderEntity);
-            log.info("order {} updated", orderEntity);
-          },
-          () -> log.error("Not order found with id {}", orderUpdateEvent.getId()));
+            this.jpaOrderRepository.findById(orderUpdateEvent.getId()).ifPresentOrElse(
+                orderEntity -> {
+                  orderEntity.setState(orderUpdateEvent.getState());
+                  if (errors != null) {
+                    orderEntity.setErrors(errors);
+                  }
+                  this.jpaOrderRepository.save(orderEntity);
+                  log.info("order {} updated", orderEntity);
+                },
+                () -> log.error("Not order found with id {}", orderUpdateEvent.getId()));
+            return null;
+          }));
+      this.orderUpdateBarrier.updated();
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", orderUpdateRequestedEvent, e.getMessage());
+      log.error("Error processing orderUpdateRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
 
   /**
-   * Listener to process state order changed events and save them in database.
+   * Listener to process state order changed events and save them in database. Changes received
+   * before the last order update published is stored wait for it. If it's not stored in time,
+   * the change is retried later in a retry topic, without blocking the changes of other orders.
+   * The wait is done before taking the order turn, so the awaited update can be processed.
    *
    * @param orderChangeRequestedEvent with order info to update.
+   * @param eventId                   event id header, null if not present.
    */
   @KafkaListener(topics = "${kafka.topics.changeState}", groupId = "${kafka.groupId}")
-  public void onOrderStateChanged(String orderChangeRequestedEvent) throws Exception {
+  public void onOrderStateChanged(byte[] orderChangeRequestedEvent,
+      @Header(name = EventHeaders.ID, required = false) byte[] eventId) throws Exception {
     try {
-      // To avoid change state before a previous update order state ir performed
-      Thread.sleep(200);
-      log.info("Received orderChangeRequestedEvent {}", orderChangeRequestedEvent);
-      OrderUpdateRequestedEvent orderUpdateEvent = this.objectMapper.readValue(
+      OrderUpdateRequestedEvent orderUpdateEvent = this.eventCodecs.decode(
           orderChangeRequestedEvent, OrderUpdateRequestedEvent.class);
-      this.orderUseCase.update(orderUpdateEvent.getId(), orderUpdateEvent.getState(),
-          orderUpdateEvent.getErrors());
+      log.info("Received orderChangeRequestedEvent {}", orderUpdateEvent);
+      if (eventId == null && this.eventDeduplicator.isDuplicate(orderUpdateEvent)) {
+        log.info("Dropped duplicated orderChangeRequestedEvent {}", orderUpdateEvent.getEventId());
+        return;
+      }
+      if (!this.orderUpdateBarrier.await(orderUpdateEvent.getId())) {
+        throw new IllegalStateException("Order " + orderUpdateEvent.getId()
+            + " is not ready to change to " + orderUpdateEvent.getState() + " state yet");
+      }
+      this.keyedSerialExecutor.execute(orderUpdateEvent.getId(), () ->
+          this.transactionTemplate.execute(status -> {
+            if (!this.eventDeduplicator.claim(orderUpdateEvent, eventId != null)) {
+              log.info("Dropped duplicated orderChangeRequestedEvent {}",
+                  orderUpdateEvent.getEventId());
+              return null;
+            }
+            this.orderUseCase.update(orderUpdateEvent.getId(), orderUpdateEvent.getState(),
+                orderUpdateEvent.getErrors()).join();
+            return null;
+          }));
     } catch (IllegalOrderStateException illegalOrderStateException) {
       log.error(illegalOrderStateException.getMessage());
     } catch (PreviousOrderStateUpdateException previousOrderStateUpdateException) {
@@ -138,7 +217,7 @@ public class OrderEventsListener {
     } catch (InterruptedException ie) {
       Thread.currentThread().interrupt();
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", orderChangeRequestedEvent, e.getMessage());
+      log.error("Error processing orderChangeRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
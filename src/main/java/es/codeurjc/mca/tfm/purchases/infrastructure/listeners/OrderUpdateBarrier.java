@@ -0,0 +1,100 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
+import java.util.Optional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Barrier that holds order state changes received before the last order update published is
+ * stored, i.e. a balance validation result received before the order is stored in validating
+ * balance state. The stored order is ready once its state is the last published one. Waiting
+ * changes are woken up when an order update is stored, and re-check the stored order periodically
+ * in case the update is stored by other instance.
+ */
+@Component
+public class OrderUpdateBarrier {
+
+  /**
+   * Monitor notified when an order update is stored.
+   */
+  private final Object monitor = new Object();
+
+  /**
+   * Order repository.
+   */
+  private final JpaOrderRepository jpaOrderRepository;
+
+  /**
+   * Max time to wait for the preceding order update.
+   */
+  private final long maxWaitMs;
+
+  /**
+   * Max time between stored order checks.
+   */
+  private final long pollIntervalMs;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaOrderRepository order repository.
+   * @param maxWaitMs          max time to wait for the preceding order update.
+   * @param pollIntervalMs     max time between stored order checks.
+   */
+  public OrderUpdateBarrier(JpaOrderRepository jpaOrderRepository,
+      @Value("${kafka.orderSequencing.maxWaitMs}") long maxWaitMs,
+      @Value("${kafka.orderSequencing.pollIntervalMs}") long pollIntervalMs) {
+    this.jpaOrderRepository = jpaOrderRepository;
+    this.maxWaitMs = maxWaitMs;
+    this.pollIntervalMs = pollIntervalMs;
+  }
+
+  /**
+   * Waits until the last order update published is stored. Returns immediately if it's already
+   * stored, or if the order doesn't exist or has no published state. Must be called outside a
+   * transaction, so each check reads the last stored order.
+   *
+   * @param id order identifier.
+   * @return true if the order is ready, false if max wait time elapsed.
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  public boolean await(Long id) throws InterruptedException {
+    long deadline = System.currentTimeMillis() + this.maxWaitMs;
+    while (true) {
+      Optional<OrderEntity> orderEntity = this.jpaOrderRepository.findById(id);
+      if (orderEntity.isEmpty() || isStored(orderEntity.get())) {
+        return true;
+      }
+      long remaining = deadline - System.currentTimeMillis();
+      if (remaining <= 0) {
+        return false;
+      }
+      synchronized (this.monitor) {
+        this.monitor.wait(Math.min(remaining, this.pollIntervalMs));
+      }
+    }
+  }
+
+  /**
+   * Checks if the last order update published is stored.
+   *
+   * @param orderEntity stored order.
+   * @return true if it has no published state or it's the stored one, else false.
+   */
+  private static boolean isStored(OrderEntity orderEntity) {
+    return orderEntity.getPublishedState() == null
+        || orderEntity.getPublishedState().equals(orderEntity.getState());
+  }
+
+  /**
+   * Wakes up waiting order state changes, as an order update has been stored.
+   */
+  public void updated() {
+    synchronized (this.monitor) {
+      this.monitor.notifyAll();
+    }
+  }
+
+}
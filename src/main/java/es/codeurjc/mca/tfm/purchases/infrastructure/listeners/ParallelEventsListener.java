@@ -0,0 +1,203 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Listener of the parallel container, that processes the records of a poll with a pool of worker
+ * threads. Records of the same partition and key are processed sequentially, in offset order, while
+ * records with distinct keys are processed in parallel, even when they come from the same
+ * partition. The poll offsets are committed once all its records are processed. If some record
+ * fails, offsets are only committed up to the lowest failed one, and the rest are redelivered.
+ */
+@Service
+@ConditionalOnProperty(value = "kafka.parallel.enabled", havingValue = "true")
+@Slf4j
+public class ParallelEventsListener implements BatchMessageListener<String, byte[]> {
+
+  /**
+   * Event dispatcher.
+   */
+  private final EventDispatcher eventDispatcher;
+
+  /**
+   * Worker threads.
+   */
+  private final ExecutorService workers;
+
+  /**
+   * Constructor.
+   *
+   * @param eventDispatcher event dispatcher.
+   * @param threads         number of worker threads.
+   */
+  public ParallelEventsListener(EventDispatcher eventDispatcher,
+      @Value("${kafka.parallel.threads}") int threads) {
+    this.eventDispatcher = eventDispatcher;
+    AtomicInteger index = new AtomicInteger();
+    this.workers = Executors.newFixedThreadPool(threads,
+        runnable -> new Thread(runnable, "parallel-listener-" + index.getAndIncrement()));
+  }
+
+  /**
+   * Processes the records of a poll, in parallel by partition and key.
+   *
+   * @param records received records.
+   * @throws BatchListenerFailedException with the lowest failed record, so the previous ones are
+   *                                      committed, and it and the following ones are retried.
+   */
+  @Override
+  public void onMessage(List<ConsumerRecord<String, byte[]>> records) {
+    Map<KeySequence, List<Integer>> sequences = new LinkedHashMap<>();
+    for (int i = 0; i < records.size(); i++) {
+      ConsumerRecord<String, byte[]> consumerRecord = records.get(i);
+      sequences.computeIfAbsent(new KeySequence(consumerRecord), key -> new ArrayList<>()).add(i);
+    }
+
+    List<CompletableFuture<Failure>> results = new ArrayList<>(sequences.size());
+    for (List<Integer> sequence : sequences.values()) {
+      results.add(CompletableFuture.supplyAsync(() -> this.process(records, sequence),
+          this.workers));
+    }
+
+    Failure lowestFailure = null;
+    for (CompletableFuture<Failure> result : results) {
+      Failure failure = result.join();
+      if (failure != null && (lowestFailure == null || failure.index < lowestFailure.index)) {
+        lowestFailure = failure;
+      }
+    }
+    if (lowestFailure != null) {
+      throw new BatchListenerFailedException(lowestFailure.exception.getMessage(),
+          lowestFailure.exception, lowestFailure.index);
+    }
+  }
+
+  /**
+   * Stops worker threads.
+   */
+  @PreDestroy
+  public void close() {
+    this.workers.shutdown();
+  }
+
+  /**
+   * Processes a sequence of records of the same partition and key in order, stopping at the first
+   * failed one so the following ones are not processed before it.
+   *
+   * @param records  received records.
+   * @param sequence indexes of the sequence records.
+   * @return the failure, or null if all records are processed.
+   */
+  private Failure process(List<ConsumerRecord<String, byte[]>> records, List<Integer> sequence) {
+    for (int index : sequence) {
+      ConsumerRecord<String, byte[]> consumerRecord = records.get(index);
+      try {
+        this.eventDispatcher.dispatch(consumerRecord.topic(), consumerRecord.value(),
+            consumerRecord.headers());
+      } catch (Exception e) {
+        log.error("Error processing record {} of {}-{}: {}", consumerRecord.offset(),
+            consumerRecord.topic(), consumerRecord.partition(), e.getMessage());
+        return new Failure(index, e);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Identifies the records that must be processed sequentially: the ones of the same partition and
+   * key. Records without key are processed sequentially with the rest of keyless records of their
+   * partition.
+   */
+  private static final class KeySequence {
+
+    /**
+     * Record topic.
+     */
+    private final String topic;
+
+    /**
+     * Record partition.
+     */
+    private final int partition;
+
+    /**
+     * Record key.
+     */
+    private final String key;
+
+    /**
+     * Constructor.
+     *
+     * @param consumerRecord record.
+     */
+    private KeySequence(ConsumerRecord<String, byte[]> consumerRecord) {
+      this.topic = consumerRecord.topic();
+      this.partition = consumerRecord.partition();
+      this.key = consumerRecord.key();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof KeySequence)) {
+        return false;
+      }
+      KeySequence that = (KeySequence) o;
+      return this.partition == that.partition && this.topic.equals(that.topic)
+          && Objects.equals(this.key, that.key);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(this.topic, this.partition, this.key);
+    }
+
+  }
+
+  /**
+   * Failed record.
+   */
+  private static final class Failure {
+
+    /**
+     * Index of the record in the poll.
+     */
+    private final int index;
+
+    /**
+     * Failure cause.
+     */
+    private final Exception exception;
+
+    /**
+     * Constructor.
+     *
+     * @param index     index of the record in the poll.
+     * @param exception failure cause.
+     */
+    private Failure(int index, Exception exception) {
+      this.index = index;
+      this.exception = exception;
+    }
+
+  }
+
+}
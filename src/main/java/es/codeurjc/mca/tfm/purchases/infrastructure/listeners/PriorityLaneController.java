@@ -0,0 +1,248 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaPrioritySettings;
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaPrioritySettings.PriorityClass;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Isolates priority classes of topics, so cart editing traffic doesn't starve order saga events.
+ * Listeners of each class process at most its connections quota of events at once, so lower
+ * priority classes can't take all database connections. Listener containers of lower priority
+ * classes are paused while a higher priority class lag is over its pause threshold, and resumed
+ * once it goes below its resume threshold.
+ */
+@Component
+@ConditionalOnProperty(value = "kafka.priority.enabled", havingValue = "true")
+@Slf4j
+public class PriorityLaneController {
+
+  /**
+   * Metrics name prefix.
+   */
+  private static final String METRIC_PREFIX = "purchases.priority";
+
+  /**
+   * Registry of listener containers.
+   */
+  private final KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+  /**
+   * Consumer lag monitor.
+   */
+  private final ConsumerLagMonitor consumerLagMonitor;
+
+  /**
+   * Priority classes settings.
+   */
+  private final KafkaPrioritySettings kafkaPrioritySettings;
+
+  /**
+   * Database backpressure controller, if enabled.
+   */
+  private final ObjectProvider<DatabaseBackpressureController> databaseBackpressureController;
+
+  /**
+   * Connections quota by class.
+   */
+  private final Map<String, Semaphore> quotas = new HashMap<>();
+
+  /**
+   * Classes whose lag is over their pause threshold.
+   */
+  private final Set<String> laggingClasses = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Paused classes.
+   */
+  private final Set<String> pausedClasses = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaListenerEndpointRegistry  registry of listener containers.
+   * @param consumerLagMonitor             consumer lag monitor.
+   * @param kafkaPrioritySettings          priority classes settings.
+   * @param databaseBackpressureController database backpressure controller, if enabled.
+   * @param meterRegistry                  meter registry.
+   */
+  public PriorityLaneController(KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry,
+      ConsumerLagMonitor consumerLagMonitor,
+      KafkaPrioritySettings kafkaPrioritySettings,
+      ObjectProvider<DatabaseBackpressureController> databaseBackpressureController,
+      MeterRegistry meterRegistry) {
+    this.kafkaListenerEndpointRegistry = kafkaListenerEndpointRegistry;
+    this.consumerLagMonitor = consumerLagMonitor;
+    this.kafkaPrioritySettings = kafkaPrioritySettings;
+    this.databaseBackpressureController = databaseBackpressureController;
+    kafkaPrioritySettings.getClasses().forEach((name, priorityClass) -> {
+      if (priorityClass.getConnections() != null) {
+        Semaphore quota = new Semaphore(priorityClass.getConnections(), true);
+        this.quotas.put(name, quota);
+        meterRegistry.gauge(METRIC_PREFIX + ".connections.available",
+            List.of(Tag.of("class", name)), quota, Semaphore::availablePermits);
+      }
+      meterRegistry.gauge(METRIC_PREFIX + ".paused", List.of(Tag.of("class", name)),
+          this.pausedClasses, paused -> paused.contains(name) ? 1 : 0);
+    });
+  }
+
+  /**
+   * Gets the interceptor that holds the listener invocations of a container to the connections
+   * quota of its topics class.
+   *
+   * @param topics topics consumed by the container.
+   * @return listener invocations interceptor, empty if the class has no quota.
+   */
+  public Optional<MethodInterceptor> getConnectionsQuota(Collection<String> topics) {
+    return this.kafkaPrioritySettings.getClassName(topics)
+        .map(this.quotas::get)
+        .map(quota -> invocation -> {
+          quota.acquire();
+          try {
+            return invocation.proceed();
+          } finally {
+            quota.release();
+          }
+        });
+  }
+
+  /**
+   * Indicates if a container is paused because a higher priority class lags.
+   *
+   * @param container listener container.
+   * @return true if the container class is paused, else false.
+   */
+  public boolean isPaused(MessageListenerContainer container) {
+    return this.getClassName(container).map(this.pausedClasses::contains).orElse(false);
+  }
+
+  /**
+   * Checks the lag of each class, from highest to lowest priority, pausing the classes below a
+   * lagging one and resuming the rest. Paused containers are paused again on each check, in case
+   * they were resumed or restarted meanwhile.
+   */
+  @Scheduled(fixedDelayString = "${kafka.priority.checkIntervalMs}")
+  public synchronized void check() {
+    List<Map.Entry<String, PriorityClass>> classes =
+        this.kafkaPrioritySettings.getClasses().entrySet().stream()
+            .sorted(Comparator.comparingInt(
+                (Map.Entry<String, PriorityClass> entry) -> entry.getValue().getPriority())
+                .reversed())
+            .collect(Collectors.toList());
+    String laggingClass = null;
+    for (Map.Entry<String, PriorityClass> entry : classes) {
+      String name = entry.getKey();
+      if (laggingClass != null) {
+        this.pause(name, laggingClass);
+      } else {
+        this.resume(name);
+      }
+      if (this.isLagging(name, entry.getValue()) && laggingClass == null) {
+        laggingClass = name;
+      }
+    }
+  }
+
+  /**
+   * Checks if a class lag is over its pause threshold, or still over its resume threshold if it
+   * was already lagging.
+   *
+   * @param name          class name.
+   * @param priorityClass class settings.
+   * @return true if the class is lagging, else false.
+   */
+  private boolean isLagging(String name, PriorityClass priorityClass) {
+    if (priorityClass.getPauseLag() <= 0) {
+      return false;
+    }
+    long lag = this.consumerLagMonitor.getLag(priorityClass.getTopics());
+    boolean lagging = this.laggingClasses.contains(name)
+        ? lag > priorityClass.getResumeLag()
+        : lag >= priorityClass.getPauseLag();
+    if (lagging) {
+      this.laggingClasses.add(name);
+    } else {
+      this.laggingClasses.remove(name);
+    }
+    return lagging;
+  }
+
+  /**
+   * Pauses the running containers of a class.
+   *
+   * @param name         class name.
+   * @param laggingClass higher priority class that lags.
+   */
+  private void pause(String name, String laggingClass) {
+    if (this.pausedClasses.add(name)) {
+      log.warn("Pausing {} priority class listeners, {} priority class lags", name, laggingClass);
+    }
+    this.getContainers(name).stream()
+        .filter(MessageListenerContainer::isRunning)
+        .filter(container -> !container.isPauseRequested())
+        .forEach(MessageListenerContainer::pause);
+  }
+
+  /**
+   * Resumes the containers of a paused class, unless they are paused by database backpressure,
+   * which resumes them once the database recovers.
+   *
+   * @param name class name.
+   */
+  private void resume(String name) {
+    if (this.pausedClasses.remove(name)) {
+      log.info("Resuming {} priority class listeners", name);
+      DatabaseBackpressureController backpressure =
+          this.databaseBackpressureController.getIfAvailable();
+      if (backpressure == null || !backpressure.isPaused()) {
+        this.getContainers(name).forEach(MessageListenerContainer::resume);
+      }
+    }
+  }
+
+  /**
+   * Gets the listener containers of a class.
+   *
+   * @param name class name.
+   * @return containers of the class.
+   */
+  private List<MessageListenerContainer> getContainers(String name) {
+    return this.kafkaListenerEndpointRegistry.getAllListenerContainers().stream()
+        .filter(container -> this.getClassName(container).filter(name::equals).isPresent())
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Gets the priority class of a container.
+   *
+   * @param container listener container.
+   * @return class name, empty if its topics have no class.
+   */
+  private Optional<String> getClassName(MessageListenerContainer container) {
+    String[] topics = container.getContainerProperties().getTopics();
+    return topics == null
+        ? Optional.empty()
+        : this.kafkaPrioritySettings.getClassName(Arrays.asList(topics));
+  }
+
+}
@@ -0,0 +1,360 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.IdentifiedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.ShoppingCartChangelogPublisher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartItemRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.listener.BatchMessageListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Shopping cart events batch listener, that processes create, update items and delete shopping
+ * cart events received in a poll together. Affected shopping carts are loaded with a single query,
+ * events are applied in order in memory, and changes are flushed with JDBC batches in a single
+ * transaction.
+ */
+@Service
+@ConditionalOnProperty(value = "kafka.batch.enabled", havingValue = "true")
+@Slf4j
+public class ShoppingCartBatchEventsListener implements BatchMessageListener<String, byte[]> {
+
+  /**
+   * Mapper.
+   */
+  private final InfraMapper mapper;
+
+  /**
+   * Shopping cart repository.
+   */
+  private final JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  /**
+   * Shopping cart item repository.
+   */
+  private final JpaShoppingCartItemRepository jpaShoppingCartItemRepository;
+
+  /**
+   * Event codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Transaction template.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Deduplicator of redelivered events.
+   */
+  private final EventDeduplicator eventDeduplicator;
+
+  /**
+   * Shopping carts changelog publisher.
+   */
+  private final ShoppingCartChangelogPublisher shoppingCartChangelogPublisher;
+
+  /**
+   * Kafka create shopping cart topic.
+   */
+  private final String createShoppingCartTopic;
+
+  /**
+   * Kafka delete shopping cart topic.
+   */
+  private final String deleteShoppingCartTopic;
+
+  /**
+   * Kafka update items topic.
+   */
+  private final String updateItemsTopic;
+
+  /**
+   * Constructor.
+   *
+   * @param mapper                         mapper.
+   * @param jpaShoppingCartRepository      shopping cart repository.
+   * @param jpaShoppingCartItemRepository  shopping cart item repository.
+   * @param eventCodecs                    event codecs.
+   * @param transactionTemplate            transaction template.
+   * @param eventDeduplicator              deduplicator of redelivered events.
+   * @param shoppingCartChangelogPublisher shopping carts changelog publisher.
+   * @param createShoppingCartTopic        create shopping cart topic.
+   * @param deleteShoppingCartTopic        delete shopping cart topic.
+   * @param updateItemsTopic               update items topic.
+   */
+  public ShoppingCartBatchEventsListener(InfraMapper mapper,
+      JpaShoppingCartRepository jpaShoppingCartRepository,
+      JpaShoppingCartItemRepository jpaShoppingCartItemRepository,
+      EventCodecs eventCodecs,
+      TransactionTemplate transactionTemplate,
+      EventDeduplicator eventDeduplicator,
+      ShoppingCartChangelogPublisher shoppingCartChangelogPublisher,
+      @Value("${kafka.topics.createShoppingCart}") String createShoppingCartTopic,
+      @Value("${kafka.topics.deleteShoppingCart}") String deleteShoppingCartTopic,
+      @Value("${kafka.topics.updateItems}") String updateItemsTopic) {
+    this.mapper = mapper;
+    this.jpaShoppingCartRepository = jpaShoppingCartRepository;
+    this.jpaShoppingCartItemRepository = jpaShoppingCartItemRepository;
+    this.eventCodecs = eventCodecs;
+    this.transactionTemplate = transactionTemplate;
+    this.eventDeduplicator = eventDeduplicator;
+    this.shoppingCartChangelogPublisher = shoppingCartChangelogPublisher;
+    this.createShoppingCartTopic = createShoppingCartTopic;
+    this.deleteShoppingCartTopic = deleteShoppingCartTopic;
+    this.updateItemsTopic = updateItemsTopic;
+  }
+
+  /**
+   * Processes a batch of shopping cart events, dropping already processed ones. Records without
+   * event id header, not filtered by their container, are looked up in recent identifiers once
+   * decoded. If a record can't be decoded, the records before it are applied before failing, as
+   * their offsets are committed.
+   *
+   * @param records received records.
+   * @throws BatchListenerFailedException with the first record that can't be decoded, once the
+   *                                      previous ones are applied.
+   */
+  @Override
+  public void onMessage(List<ConsumerRecord<String, byte[]>> records) {
+    List<ShoppingCartChange> changes = new ArrayList<>(records.size());
+    BatchListenerFailedException decodeFailure = null;
+    for (ConsumerRecord<String, byte[]> consumerRecord : records) {
+      ShoppingCartChange change;
+      try {
+        change = this.decode(consumerRecord);
+      } catch (BatchListenerFailedException e) {
+        decodeFailure = e;
+        break;
+      }
+      if (!change.filtered && this.eventDeduplicator.isDuplicate(change.event)) {
+        log.info("Dropped duplicated shopping cart event {}", change.event.getEventId());
+      } else {
+        changes.add(change);
+      }
+    }
+    if (!changes.isEmpty()) {
+      this.transactionTemplate.executeWithoutResult(status -> {
+        List<ShoppingCartChange> claimed = new ArrayList<>(changes.size());
+        for (ShoppingCartChange change : changes) {
+          if (this.eventDeduplicator.claim(change.event, change.filtered)) {
+            claimed.add(change);
+          } else {
+            log.info("Dropped duplicated shopping cart event {}", change.event.getEventId());
+          }
+        }
+        if (!claimed.isEmpty()) {
+          this.apply(claimed);
+        }
+      });
+    }
+    if (decodeFailure != null) {
+      throw decodeFailure;
+    }
+    log.info("Processed batch of {} shopping cart events", records.size());
+  }
+
+  /**
+   * Decodes a record to the shopping cart change it requests.
+   *
+   * @param consumerRecord record to decode.
+   * @return shopping cart change.
+   * @throws BatchListenerFailedException if the record can't be decoded, so it's sent to the dead
+   *                                      letter topic, and previous records are committed.
+   */
+  private ShoppingCartChange decode(ConsumerRecord<String, byte[]> consumerRecord) {
+    try {
+      String topic = consumerRecord.topic();
+      boolean filtered = EventHeaders.getBytes(consumerRecord.headers(), EventHeaders.ID) != null;
+      if (topic.equals(this.createShoppingCartTopic)) {
+        ShoppingCartCreationRequestedEvent creationRequestedEvent = this.eventCodecs.decode(
+            consumerRecord.value(), ShoppingCartCreationRequestedEvent.class);
+        ShoppingCartEntity shoppingCartEntity = this.mapper.map(creationRequestedEvent);
+        return new ShoppingCartChange(creationRequestedEvent, shoppingCartEntity.getId(),
+            shoppingCartEntity, null, false, filtered);
+      } else if (topic.equals(this.updateItemsTopic)) {
+        ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent = this.eventCodecs.decode(
+            consumerRecord.value(), ShoppingCartItemsUpdateRequestedEvent.class);
+        return new ShoppingCartChange(itemsUpdateRequestedEvent,
+            itemsUpdateRequestedEvent.getId(), null, itemsUpdateRequestedEvent, false, filtered);
+      } else if (topic.equals(this.deleteShoppingCartTopic)) {
+        ShoppingCartDeletionRequestedEvent deletionRequestedEvent = this.eventCodecs.decode(
+            consumerRecord.value(), ShoppingCartDeletionRequestedEvent.class);
+        return new ShoppingCartChange(deletionRequestedEvent, deletionRequestedEvent.getId(), null,
+            null, true, filtered);
+      }
+      throw new IllegalArgumentException("Not shopping cart batch listener for topic " + topic);
+    } catch (Exception e) {
+      log.error("Error decoding shopping cart event from topic {}: {}", consumerRecord.topic(),
+          e.getMessage());
+      throw new BatchListenerFailedException(e.getMessage(), e, consumerRecord);
+    }
+  }
+
+  /**
+   * Applies shopping cart changes in order, loading affected shopping carts and their items with a
+   * single query. Changes of loaded shopping carts are flushed on commit, only writing changed
+   * items, new shopping carts are inserted and deleted ones are removed with their items in
+   * batches. The final state of each changed shopping cart is published to the changelog once the
+   * transaction commits.
+   *
+   * @param changes shopping cart changes to apply.
+   */
+  private void apply(List<ShoppingCartChange> changes) {
+    Set<Long> ids = new HashSet<>();
+    Set<Integer> userIds = new HashSet<>();
+    for (ShoppingCartChange change : changes) {
+      ids.add(change.id);
+      if (change.created != null) {
+        userIds.add(change.created.getUserId());
+      }
+    }
+
+    Map<Long, ShoppingCartEntity> shoppingCarts = new HashMap<>();
+    Map<Integer, ShoppingCartEntity> incompleteShoppingCarts = new HashMap<>();
+    List<ShoppingCartEntity> storedShoppingCarts = userIds.isEmpty()
+        ? this.jpaShoppingCartRepository.findAllById(ids)
+        : this.jpaShoppingCartRepository.findByIdInOrUserIdInAndCompletedIsFalse(ids, userIds);
+    for (ShoppingCartEntity shoppingCartEntity : storedShoppingCarts) {
+      shoppingCarts.put(shoppingCartEntity.getId(), shoppingCartEntity);
+      if (!shoppingCartEntity.isCompleted()) {
+        incompleteShoppingCarts.put(shoppingCartEntity.getUserId(), shoppingCartEntity);
+      }
+    }
+
+    Map<Long, ShoppingCartEntity> createdShoppingCarts = new LinkedHashMap<>();
+    Set<Long> deletedIds = new HashSet<>();
+    Set<Long> changedIds = new LinkedHashSet<>();
+    for (ShoppingCartChange change : changes) {
+      if (change.created != null) {
+        ShoppingCartEntity shoppingCartEntity = change.created;
+        ShoppingCartEntity incompleteShoppingCartEntity =
+            incompleteShoppingCarts.get(shoppingCartEntity.getUserId());
+        if (incompleteShoppingCartEntity != null) {
+          log.error("Can't create shopping cart. Already exists an incomplete shopping cart {}",
+              incompleteShoppingCartEntity);
+        } else {
+          shoppingCarts.put(shoppingCartEntity.getId(), shoppingCartEntity);
+          incompleteShoppingCarts.put(shoppingCartEntity.getUserId(), shoppingCartEntity);
+          createdShoppingCarts.put(shoppingCartEntity.getId(), shoppingCartEntity);
+          changedIds.add(shoppingCartEntity.getId());
+        }
+      } else if (change.deleted) {
+        ShoppingCartEntity shoppingCartEntity = shoppingCarts.remove(change.id);
+        if (shoppingCartEntity == null) {
+          log.error("Not shopping cart found with id {}", change.id);
+        } else {
+          incompleteShoppingCarts.remove(shoppingCartEntity.getUserId(), shoppingCartEntity);
+          if (createdShoppingCarts.remove(change.id) == null) {
+            deletedIds.add(change.id);
+          }
+          changedIds.add(change.id);
+          log.info("Shopping cart with id {} deleted", change.id);
+        }
+      } else {
+        ShoppingCartEntity shoppingCartEntity = shoppingCarts.get(change.id);
+        if (shoppingCartEntity == null) {
+          log.error("Not shopping cart found with id {}", change.id);
+        } else if (shoppingCartEntity.isCompleted()) {
+          log.error("Can't update items on a completed shopping cart.");
+        } else {
+          this.mapper.applyItemsUpdate(change.itemsUpdate, shoppingCartEntity);
+          changedIds.add(change.id);
+        }
+      }
+    }
+
+    this.jpaShoppingCartRepository.saveAll(createdShoppingCarts.values());
+    if (!deletedIds.isEmpty()) {
+      this.jpaShoppingCartItemRepository.deleteAllByCartIdIn(deletedIds);
+      this.jpaShoppingCartRepository.deleteAllByIdInBatch(deletedIds);
+    }
+    for (Long id : changedIds) {
+      ShoppingCartEntity shoppingCartEntity = shoppingCarts.get(id);
+      if (shoppingCartEntity == null) {
+        this.shoppingCartChangelogPublisher.publishDeletion(id);
+      } else {
+        this.shoppingCartChangelogPublisher.publish(shoppingCartEntity);
+      }
+    }
+  }
+
+  /**
+   * Shopping cart change requested by an event.
+   */
+  private static final class ShoppingCartChange {
+
+    /**
+     * Event requesting the change.
+     */
+    private final IdentifiedEvent event;
+
+    /**
+     * Shopping cart identifier.
+     */
+    private final Long id;
+
+    /**
+     * Created shopping cart, if the event is a creation one.
+     */
+    private final ShoppingCartEntity created;
+
+    /**
+     * Items update, if the event is an update items one.
+     */
+    private final ShoppingCartItemsUpdateRequestedEvent itemsUpdate;
+
+    /**
+     * Indicates if the event is a deletion one.
+     */
+    private final boolean deleted;
+
+    /**
+     * Indicates if the event id header of its record has already been looked up in recent
+     * identifiers.
+     */
+    private final boolean filtered;
+
+    /**
+     * Constructor.
+     *
+     * @param event       event requesting the change.
+     * @param id          shopping cart identifier.
+     * @param created     created shopping cart.
+     * @param itemsUpdate items update.
+     * @param deleted     indicates if the event is a deletion one.
+     * @param filtered    indicates if the event id header has already been looked up.
+     */
+    private ShoppingCartChange(IdentifiedEvent event, Long id, ShoppingCartEntity created,
+        ShoppingCartItemsUpdateRequestedEvent itemsUpdate, boolean deleted, boolean filtered) {
+      this.event = event;
+      this.id = id;
+      this.created = created;
+      this.itemsUpdate = itemsUpdate;
+      this.deleted = deleted;
+      this.filtered = filtered;
+    }
+
+  }
+
+}
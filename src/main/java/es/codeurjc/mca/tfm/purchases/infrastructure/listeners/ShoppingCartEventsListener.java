@@ -1,20 +1,25 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.ShoppingCartChangelogPublisher;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
- * Shopping cart events listener.
+ * Shopping cart events listener. When batch mode is enabled, create, update items and delete
+ * shopping cart events are consumed by {@link ShoppingCartBatchEventsListener} instead.
  */
 @Service
 @Slf4j
@@ -36,39 +41,65 @@ public class ShoppingCartEventsListener {
   private OrderUseCase orderUseCase;
 
   /**
-   * Object mapper.
+   * Event codecs.
    */
-  private ObjectMapper objectMapper;
+  private EventCodecs eventCodecs;
+
+  /**
+   * Deduplicator of redelivered events.
+   */
+  private EventDeduplicator eventDeduplicator;
+
+  /**
+   * Shopping carts changelog publisher.
+   */
+  private ShoppingCartChangelogPublisher shoppingCartChangelogPublisher;
 
   /**
    * Constructor.
    *
-   * @param mapper                    mapper.
-   * @param jpaShoppingCartRepository shopping cart repository.
-   * @param orderUseCase              order use case.
+   * @param mapper                         mapper.
+   * @param jpaShoppingCartRepository      shopping cart repository.
+   * @param orderUseCase                   order use case.
+   * @param eventCodecs                    event codecs.
+   * @param eventDeduplicator              deduplicator of redelivered events.
+   * @param shoppingCartChangelogPublisher shopping carts changelog publisher.
    */
   public ShoppingCartEventsListener(InfraMapper mapper,
       JpaShoppingCartRepository jpaShoppingCartRepository,
-      OrderUseCase orderUseCase) {
+      OrderUseCase orderUseCase,
+      EventCodecs eventCodecs,
+      EventDeduplicator eventDeduplicator,
+      ShoppingCartChangelogPublisher shoppingCartChangelogPublisher) {
     this.mapper = mapper;
     this.jpaShoppingCartRepository = jpaShoppingCartRepository;
     this.orderUseCase = orderUseCase;
-    this.objectMapper = new ObjectMapper();
+    this.eventCodecs = eventCodecs;
+    this.eventDeduplicator = eventDeduplicator;
+    this.shoppingCartChangelogPublisher = shoppingCartChangelogPublisher;
   }
 
   /**
    * Listener to process created shopping cart events and save them in database.
    *
    * @param shoppingCartCreationRequestedEvent with shopping cart to save info.
+   * @param eventId                            event id header, null if not present.
    */
-  @KafkaListener(topics = "${kafka.topics.createShoppingCart}", groupId = "${kafka.groupId}")
-  public void onCreatedShoppingCart(String shoppingCartCreationRequestedEvent) throws Exception {
+  @KafkaListener(topics = "${kafka.topics.createShoppingCart}", groupId = "${kafka.groupId}",
+      autoStartup = "#{!${kafka.batch.enabled}}")
+  @Transactional
+  public void onCreatedShoppingCart(byte[] shoppingCartCreationRequestedEvent,
+      @Header(name = EventHeaders.ID, required = false) byte[] eventId) throws Exception {
     try {
-      log.info("Received shoppingCartCreationRequestedEvent {}",
-          shoppingCartCreationRequestedEvent);
-      ShoppingCartEntity shoppingCartEntity = this.mapper.map(
-          this.objectMapper.readValue(shoppingCartCreationRequestedEvent,
-              ShoppingCartCreationRequestedEvent.class));
+      ShoppingCartCreationRequestedEvent creationRequestedEvent = this.eventCodecs.decode(
+          shoppingCartCreationRequestedEvent, ShoppingCartCreationRequestedEvent.class);
+      log.info("Received shoppingCartCreationRequestedEvent {}", creationRequestedEvent);
+      if (!this.eventDeduplicator.claim(creationRequestedEvent, eventId != null)) {
+        log.info("Dropped duplicated shoppingCartCreationRequestedEvent {}",
+            creationRequestedEvent.getEventId());
+        return;
+      }
+      ShoppingCartEntity shoppingCartEntity = this.mapper.map(creationRequestedEvent);
       this.jpaShoppingCartRepository.findByUserIdAndCompletedIsFalse(shoppingCartEntity.getUserId())
           .ifPresentOrElse(
               incompleteShoppingCartEntity -> log.error(
@@ -77,11 +108,11 @@ public class ShoppingCartEventsListener {
               () -> {
                 this.jpaShoppingCartRepository.save(shoppingCartEntity);
                 log.info("Shopping cart {} saved", shoppingCartEntity);
+                this.shoppingCartChangelogPublisher.publish(shoppingCartEntity);
               }
           );
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartCreationRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartCreationRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
@@ -90,37 +121,60 @@ public class ShoppingCartEventsListener {
    * Listener to process delete shopping cart events.
    *
    * @param shoppingCartDeletionRequestedEvent with shopping cart to delete id.
+   * @param eventId                            event id header, null if not present.
    */
-  @KafkaListener(topics = "${kafka.topics.deleteShoppingCart}", groupId = "${kafka.groupId}")
-  public void onDeletedShoppingCart(String shoppingCartDeletionRequestedEvent) throws Exception {
+  @KafkaListener(topics = "${kafka.topics.deleteShoppingCart}", groupId = "${kafka.groupId}",
+      autoStartup = "#{!${kafka.batch.enabled}}")
+  @Transactional
+  public void onDeletedShoppingCart(byte[] shoppingCartDeletionRequestedEvent,
+      @Header(name = EventHeaders.ID, required = false) byte[] eventId) throws Exception {
     try {
-      log.info("Received shoppingCartDeletionRequestedEvent {}",
-          shoppingCartDeletionRequestedEvent);
-      Long id =
-          this.objectMapper.readValue(shoppingCartDeletionRequestedEvent,
-              ShoppingCartDeletionRequestedEvent.class).getId();
+      ShoppingCartDeletionRequestedEvent deletionRequestedEvent = this.eventCodecs.decode(
+          shoppingCartDeletionRequestedEvent, ShoppingCartDeletionRequestedEvent.class);
+      log.info("Received shoppingCartDeletionRequestedEvent {}", deletionRequestedEvent);
+      if (!this.eventDeduplicator.claim(deletionRequestedEvent, eventId != null)) {
+        log.info("Dropped duplicated shoppingCartDeletionRequestedEvent {}",
+            deletionRequestedEvent.getEventId());
+        return;
+      }
+      Long id = deletionRequestedEvent.getId();
       this.jpaShoppingCartRepository.deleteById(id);
       log.info("Shopping cart with id {} deleted", id);
+      this.shoppingCartChangelogPublisher.publishDeletion(id);
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartDeletionRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartDeletionRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
 
   /**
-   * Listener to process completed shopping cart events and save them in database.
+   * Listener to process completed shopping cart events and save them in database. If the event
+   * aggregate id header references an already completed shopping cart, the event is dropped
+   * without decoding it.
    *
    * @param shoppingCartCompletionRequestedEvent with completed shopping cart to save info.
+   * @param aggregateId                          shopping cart id header, null if not present.
+   * @param eventId                              event id header, null if not present.
    */
   @KafkaListener(topics = "${kafka.topics.completeShoppingCart}", groupId = "${kafka.groupId}")
-  public void onCompletedShoppingCart(String shoppingCartCompletionRequestedEvent)
-      throws Exception {
+  @Transactional
+  public void onCompletedShoppingCart(byte[] shoppingCartCompletionRequestedEvent,
+      @Header(name = EventHeaders.AGGREGATE_ID, required = false) byte[] aggregateId,
+      @Header(name = EventHeaders.ID, required = false) byte[] eventId) throws Exception {
     try {
-      log.info("Received shoppingCartCompletionRequestedEvent {}",
-          shoppingCartCompletionRequestedEvent);
-      ShoppingCartCompletionRequestedEvent completionRequestedEvent = this.objectMapper.readValue(
+      if (this.isCompleted(EventHeaders.toString(aggregateId))) {
+        log.info("Shopping cart with id {} already completed",
+            EventHeaders.toString(aggregateId));
+        return;
+      }
+      ShoppingCartCompletionRequestedEvent completionRequestedEvent = this.eventCodecs.decode(
           shoppingCartCompletionRequestedEvent, ShoppingCartCompletionRequestedEvent.class);
+      log.info("Received shoppingCartCompletionRequestedEvent {}", completionRequestedEvent);
+      if (!this.eventDeduplicator.claim(completionRequestedEvent, eventId != null)) {
+        log.info("Dropped duplicated shoppingCartCompletionRequestedEvent {}",
+            completionRequestedEvent.getEventId());
+        return;
+      }
       this.jpaShoppingCartRepository.findById(completionRequestedEvent.getId()).ifPresentOrElse(
           shoppingCartEntity -> {
             if (shoppingCartEntity.isCompleted()) {
@@ -135,52 +189,76 @@ public class ShoppingCartEventsListener {
               shoppingCartEntity.setCompleted(true);
               this.jpaShoppingCartRepository.save(shoppingCartEntity);
               log.info("Shopping cart {} saved", shoppingCartEntity);
+              this.shoppingCartChangelogPublisher.publish(shoppingCartEntity);
 
-              this.orderUseCase.create(this.mapper.map(shoppingCartEntity));
+              this.orderUseCase.create(this.mapper.map(shoppingCartEntity)).join();
               log.info("Requested order creation for shopping cart {}", shoppingCartEntity);
             }
           },
           () -> log.error("Not shopping cart found with id {}", completionRequestedEvent.getId())
       );
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartCompletionRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartCompletionRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
 
   /**
-   * Listener to process shopping cart update items events and save them in database.
+   * Listener to process shopping cart update items events and save them in database. Only the
+   * rows of changed items are written, flushed when the transaction commits.
    *
    * @param shoppingCartItemsUpdateRequestedEvent with info to save items in shopping cart.
+   * @param eventId                               event id header, null if not present.
    */
-  @KafkaListener(topics = "${kafka.topics.updateItems}", groupId = "${kafka.groupId}")
-  public void onUpdateShoppingCartItems(String shoppingCartItemsUpdateRequestedEvent)
-      throws Exception {
+  @KafkaListener(topics = "${kafka.topics.updateItems}", groupId = "${kafka.groupId}",
+      autoStartup = "#{!${kafka.batch.enabled}}")
+  @Transactional
+  public void onUpdateShoppingCartItems(byte[] shoppingCartItemsUpdateRequestedEvent,
+      @Header(name = EventHeaders.ID, required = false) byte[] eventId) throws Exception {
     try {
-      log.info("Received shoppingCartItemsUpdateRequestedEvent {}",
-          shoppingCartItemsUpdateRequestedEvent);
-      ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent = this.objectMapper.readValue(
+      ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent = this.eventCodecs.decode(
           shoppingCartItemsUpdateRequestedEvent, ShoppingCartItemsUpdateRequestedEvent.class);
-      String items = this.mapper.map(itemsUpdateRequestedEvent.getItems());
+      log.info("Received shoppingCartItemsUpdateRequestedEvent {}", itemsUpdateRequestedEvent);
+      if (!this.eventDeduplicator.claim(itemsUpdateRequestedEvent, eventId != null)) {
+        log.info("Dropped duplicated shoppingCartItemsUpdateRequestedEvent {}",
+            itemsUpdateRequestedEvent.getEventId());
+        return;
+      }
       this.jpaShoppingCartRepository.findById(itemsUpdateRequestedEvent.getId()).ifPresentOrElse(
           shoppingCartEntity -> {
             if (shoppingCartEntity.isCompleted()) {
               log.error("Can't update items on a completed shopping cart.");
             } else {
-              shoppingCartEntity.setItems(items);
-              shoppingCartEntity.setTotalPrice(itemsUpdateRequestedEvent.getTotalPrice());
-              this.jpaShoppingCartRepository.save(shoppingCartEntity);
+              this.mapper.applyItemsUpdate(itemsUpdateRequestedEvent, shoppingCartEntity);
               log.info("Shopping cart {} saved", shoppingCartEntity);
+              this.shoppingCartChangelogPublisher.publish(shoppingCartEntity);
             }
           },
           () -> log.error("Not shopping cart found with id {}", itemsUpdateRequestedEvent.getId())
       );
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", shoppingCartItemsUpdateRequestedEvent,
-          e.getMessage());
+      log.error("Error processing shoppingCartItemsUpdateRequestedEvent: {}", e.getMessage());
       throw e;
     }
   }
 
+  /**
+   * Checks if a shopping cart is completed.
+   *
+   * @param id shopping cart id, may be null.
+   * @return true if the shopping cart exists and is completed, else false.
+   */
+  private boolean isCompleted(String id) {
+    if (id == null) {
+      return false;
+    }
+    try {
+      return this.jpaShoppingCartRepository.findById(Long.valueOf(id))
+          .map(ShoppingCartEntity::isCompleted)
+          .orElse(false);
+    } catch (NumberFormatException e) {
+      return false;
+    }
+  }
+
 }
@@ -0,0 +1,101 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.listeners;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.MemberDescription;
+import org.apache.kafka.clients.admin.MemberToRemove;
+import org.apache.kafka.clients.admin.RemoveMembersFromConsumerGroupOptions;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.stereotype.Component;
+
+/**
+ * Removes the static members of this instance from the consumer group on shutdown, once listener
+ * containers are stopped. Static members don't leave the group when closed, so without it their
+ * partitions would not be processed until the session timeout expires, i.e. when a rolling update
+ * replaces the instance by one with other identifier. Instances killed without a graceful shutdown
+ * keep their membership, so they get back their partitions without a rebalance if they restart
+ * before the session timeout.
+ */
+@Component
+@ConditionalOnExpression("!'${kafka.consumer.groupInstanceId}'.isEmpty() "
+    + "and ${kafka.consumer.leaveGroupOnShutdown}")
+@Slf4j
+public class StaticMembershipReleaser {
+
+  /**
+   * Kafka admin.
+   */
+  private final KafkaAdmin kafkaAdmin;
+
+  /**
+   * Kafka group identifier.
+   */
+  private final String groupId;
+
+  /**
+   * Static group membership identifier of this instance.
+   */
+  private final String groupInstanceId;
+
+  /**
+   * Max time to wait for the group members removal.
+   */
+  private final long timeoutMs;
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaAdmin      kafka admin.
+   * @param groupId         kafka group identifier.
+   * @param groupInstanceId static group membership identifier of this instance.
+   * @param timeoutMs       max time to wait for the group members removal.
+   */
+  public StaticMembershipReleaser(KafkaAdmin kafkaAdmin,
+      @Value("${kafka.groupId}") String groupId,
+      @Value("${kafka.consumer.groupInstanceId}") String groupInstanceId,
+      @Value("${kafka.lag.timeoutMs}") long timeoutMs) {
+    this.kafkaAdmin = kafkaAdmin;
+    this.groupId = groupId;
+    this.groupInstanceId = groupInstanceId;
+    this.timeoutMs = timeoutMs;
+  }
+
+  /**
+   * Removes the group members whose static identifier was derived from this instance one.
+   */
+  @PreDestroy
+  public void release() {
+    String prefix = this.groupInstanceId + ".";
+    try (AdminClient adminClient =
+        AdminClient.create(this.kafkaAdmin.getConfigurationProperties())) {
+      Set<MemberToRemove> members = adminClient.describeConsumerGroups(Set.of(this.groupId))
+          .describedGroups().get(this.groupId).get(this.timeoutMs, TimeUnit.MILLISECONDS)
+          .members().stream()
+          .map(MemberDescription::groupInstanceId)
+          .flatMap(Optional::stream)
+          .filter(instanceId -> instanceId.startsWith(prefix))
+          .map(MemberToRemove::new)
+          .collect(Collectors.toSet());
+      if (!members.isEmpty()) {
+        adminClient.removeMembersFromConsumerGroup(this.groupId,
+                new RemoveMembersFromConsumerGroupOptions(members))
+            .all().get(this.timeoutMs, TimeUnit.MILLISECONDS);
+        log.info("Removed {} static members of {} from group {}", members.size(),
+            this.groupInstanceId, this.groupId);
+      }
+    } catch (InterruptedException ie) {
+      Thread.currentThread().interrupt();
+    } catch (Exception e) {
+      log.error("Error removing static members of {} from group {}: {}", this.groupInstanceId,
+          this.groupId, e.getMessage());
+    }
+  }
+
+}
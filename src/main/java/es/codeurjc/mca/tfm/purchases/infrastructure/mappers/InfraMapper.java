@@ -1,12 +1,13 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.mappers;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ItemDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartItemEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderRejectedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderShoppingCart;
@@ -16,15 +17,26 @@ import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletio
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
 import java.util.List;
 import java.util.Optional;
+import org.mapstruct.AfterMapping;
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.MappingTarget;
+import org.springframework.beans.factory.annotation.Autowired;
 
 /**
  * Infrastructure mapper.
  */
 @Mapper(componentModel = "spring")
-public interface InfraMapper {
+public abstract class InfraMapper {
+
+  /**
+   * Event codecs, providing the shared JSON codec.
+   */
+  @Autowired
+  protected EventCodecs eventCodecs;
 
   /**
    * Maps shopping cart DTO to shopping cart creation requested event.
@@ -32,7 +44,8 @@ public interface InfraMapper {
    * @param shoppingCartDto shopping cart DTO to map.
    * @return CreatedShoppingCartEvent instance.
    */
-  ShoppingCartCreationRequestedEvent mapToShoppingCartCreationRequestedEvent(
+  @Mapping(target = "eventId", ignore = true)
+  public abstract ShoppingCartCreationRequestedEvent mapToShoppingCartCreationRequestedEvent(
       ShoppingCartDto shoppingCartDto);
 
   /**
@@ -41,22 +54,9 @@ public interface InfraMapper {
    * @param shoppingCartCreationRequestedEvent created shopping cart event to map.
    * @return ShoppingCartEntity instance.
    */
-  ShoppingCartEntity map(ShoppingCartCreationRequestedEvent shoppingCartCreationRequestedEvent);
-
-  /**
-   * Map list of shopping cart items to json array as string.
-   *
-   * @param items list of items to map.
-   * @return json array as string.
-   * @throws JsonProcessingException if an error mapping list to json happens.
-   */
-  default String map(List<ShoppingCartItem> items) throws JsonProcessingException {
-    if (items == null) {
-      return "[]";
-    }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return objectMapper.writeValueAsString(items);
-  }
+  @Mapping(target = "persisted", ignore = true)
+  public abstract ShoppingCartEntity map(
+      ShoppingCartCreationRequestedEvent shoppingCartCreationRequestedEvent);
 
   /**
    * Map an optional list of string to json array as string.
@@ -65,12 +65,11 @@ public interface InfraMapper {
    * @return json array as string.
    * @throws JsonProcessingException if an error mapping list to json happens.
    */
-  default String map(Optional<List<String>> stringList) throws JsonProcessingException {
+  public String map(Optional<List<String>> stringList) throws JsonProcessingException {
     if (stringList == null || stringList.isEmpty()) {
       return null;
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return objectMapper.writeValueAsString(stringList.get());
+    return this.eventCodecs.getJsonCodec().encodeToString(stringList.get());
   }
 
   /**
@@ -79,47 +78,106 @@ public interface InfraMapper {
    * @param shoppingCartEntity entity to map.
    * @return ShoppingCartEntity instance.
    */
-  ShoppingCartDto map(ShoppingCartEntity shoppingCartEntity);
+  public abstract ShoppingCartDto map(ShoppingCartEntity shoppingCartEntity);
 
   /**
-   * Map a string to a list of items DTOs.
+   * Maps shopping cart item to shopping cart item entity, not linked to a shopping cart yet.
    *
-   * @param items string to map.
-   * @return a list of items DTOs.
-   * @throws JsonProcessingException if an error happens.
+   * @param shoppingCartItem shopping cart item to map.
+   * @return ShoppingCartItemEntity instance.
+   */
+  @Mapping(target = "cartId", ignore = true)
+  @Mapping(target = "cart", ignore = true)
+  public abstract ShoppingCartItemEntity mapToShoppingCartItemEntity(
+      ShoppingCartItem shoppingCartItem);
+
+  /**
+   * Maps a list of shopping cart items to a list of shopping cart item entities.
+   *
+   * @param items list of shopping cart items to map.
+   * @return a list of shopping cart item entities.
+   */
+  public abstract List<ShoppingCartItemEntity> mapToShoppingCartItemEntityList(
+      List<ShoppingCartItem> items);
+
+  /**
+   * Maps item DTO to shopping cart item.
+   *
+   * @param itemDto item DTO to map.
+   * @return ShoppingCartItem instance.
+   */
+  public abstract ShoppingCartItem mapToShoppingCartItem(ItemDto itemDto);
+
+  /**
+   * Applies an items update to a shopping cart entity: replaces all the items if the event carries
+   * them, or sets or deletes a single item, so only the rows of changed items are written. The
+   * total price is computed from the resulting items, as single item events don't carry it.
+   *
+   * @param itemsUpdateRequestedEvent items update event.
+   * @param shoppingCartEntity        shopping cart entity to update.
    */
-  default List<ItemDto> mapToItemDtoList(String items) throws JsonProcessingException {
-    if (items == null) {
-      return List.of();
+  public void applyItemsUpdate(ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent,
+      ShoppingCartEntity shoppingCartEntity) {
+    if (itemsUpdateRequestedEvent.getItems() != null) {
+      shoppingCartEntity.replaceItems(
+          this.mapToShoppingCartItemEntityList(itemsUpdateRequestedEvent.getItems()));
+    }
+    if (itemsUpdateRequestedEvent.getUpsertedItem() != null) {
+      shoppingCartEntity.upsertItem(
+          this.mapToShoppingCartItemEntity(itemsUpdateRequestedEvent.getUpsertedItem()));
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return List.of(objectMapper.readValue(items, ItemDto[].class));
+    if (itemsUpdateRequestedEvent.getDeletedProductId() != null) {
+      shoppingCartEntity.removeItem(itemsUpdateRequestedEvent.getDeletedProductId());
+    }
+    shoppingCartEntity.setTotalPrice(shoppingCartEntity.getItems().stream()
+        .map(ShoppingCartItemEntity::getTotalPrice)
+        .reduce(0.0, Double::sum));
   }
 
   /**
-   * Map a string to a list of shopping cart items.
+   * Links the items of a mapped shopping cart entity to it.
    *
-   * @param items string to map.
-   * @return a list of shopping cart items.
-   * @throws JsonProcessingException if an error happens.
+   * @param shoppingCartEntity mapped shopping cart entity.
    */
-  default List<ShoppingCartItem> mapToShoppingCartItemList(String items)
-      throws JsonProcessingException {
-    if (items == null) {
-      return List.of();
-    }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return List.of(objectMapper.readValue(items, ShoppingCartItem[].class));
+  @AfterMapping
+  protected void attachItems(@MappingTarget ShoppingCartEntity shoppingCartEntity) {
+    shoppingCartEntity.attachItems();
   }
 
+  /**
+   * Maps shopping cart entity to shopping cart changelog snapshot.
+   *
+   * @param shoppingCartEntity entity to map.
+   * @return ShoppingCartSnapshot instance.
+   */
+  public abstract ShoppingCartSnapshot mapToShoppingCartSnapshot(
+      ShoppingCartEntity shoppingCartEntity);
+
+  /**
+   * Maps shopping cart changelog snapshot to shopping cart DTO.
+   *
+   * @param shoppingCartSnapshot snapshot to map.
+   * @return ShoppingCartDto instance.
+   */
+  public abstract ShoppingCartDto mapToShoppingCartDto(ShoppingCartSnapshot shoppingCartSnapshot);
+
+  /**
+   * Map a list of shopping cart items to a list of items DTOs.
+   *
+   * @param items list of shopping cart items to map.
+   * @return a list of items DTOs.
+   */
+  public abstract List<ItemDto> mapToItemDtoList(List<ShoppingCartItem> items);
+
   /**
    * Maps shopping cart DTO to shopping cart completion requested event.
    *
    * @param shoppingCartDto shopping cart DTO to map.
    * @return ShoppingCartCompletionRequestedEvent instance.
    */
-  ShoppingCartCompletionRequestedEvent mapToShoppingCartCompletionRequestedEvent(
-      ShoppingCartDto shoppingCartDto);
+  @Mapping(target = "eventId", ignore = true)
+  public abstract ShoppingCartCompletionRequestedEvent
+      mapToShoppingCartCompletionRequestedEvent(ShoppingCartDto shoppingCartDto);
 
   /**
    * Maps order DTO to order creation requested event.
@@ -127,7 +185,8 @@ public interface InfraMapper {
    * @param orderDto order DTO to map.
    * @return OrderCreationRequestedEvent instance.
    */
-  OrderCreationRequestedEvent mapToOrderCreationRequestedEvent(OrderDto orderDto);
+  @Mapping(target = "eventId", ignore = true)
+  public abstract OrderCreationRequestedEvent mapToOrderCreationRequestedEvent(OrderDto orderDto);
 
   /**
    * Maps order creation requested event to order entity.
@@ -135,7 +194,9 @@ public interface InfraMapper {
    * @param orderCreationRequestedEvent created order event to map.
    * @return OrderEntity instance.
    */
-  OrderEntity mapToOrderEntity(OrderCreationRequestedEvent orderCreationRequestedEvent);
+  @Mapping(target = "publishedState", ignore = true)
+  public abstract OrderEntity mapToOrderEntity(
+      OrderCreationRequestedEvent orderCreationRequestedEvent);
 
   /**
    * Maps order update requested event to order entity.
@@ -143,7 +204,8 @@ public interface InfraMapper {
    * @param orderUpdateRequestedEvent created order event to map.
    * @return OrderEntity instance.
    */
-  OrderEntity mapToOrderEntity(OrderUpdateRequestedEvent orderUpdateRequestedEvent);
+  @Mapping(target = "publishedState", ignore = true)
+  public abstract OrderEntity mapToOrderEntity(OrderUpdateRequestedEvent orderUpdateRequestedEvent);
 
   /**
    * Maps order DTO to order update requested event.
@@ -151,7 +213,8 @@ public interface InfraMapper {
    * @param orderDto order DTO to map.
    * @return OrderUpdateRequestedEvent instance.
    */
-  OrderUpdateRequestedEvent mapToOrderUpdateRequestedEvent(OrderDto orderDto);
+  @Mapping(target = "eventId", ignore = true)
+  public abstract OrderUpdateRequestedEvent mapToOrderUpdateRequestedEvent(OrderDto orderDto);
 
   /**
    * Maps event order shopping cart to a shopping cart entity.
@@ -159,7 +222,8 @@ public interface InfraMapper {
    * @param orderShoppingCart event order shopping cart.
    * @return mapped shopping cart entity.
    */
-  ShoppingCartEntity mapToShoppingCartEntity(OrderShoppingCart orderShoppingCart);
+  @Mapping(target = "persisted", ignore = true)
+  public abstract ShoppingCartEntity mapToShoppingCartEntity(OrderShoppingCart orderShoppingCart);
 
   /**
    * Maps shopping cart DTO to shopping cart items update requested event.
@@ -167,8 +231,11 @@ public interface InfraMapper {
    * @param shoppingCartDto shopping cart DTO to map.
    * @return ShoppingCartItemsUpdateRequestedEvent instance.
    */
-  ShoppingCartItemsUpdateRequestedEvent mapToShoppingCartItemsUpdateRequestedEvent(
-      ShoppingCartDto shoppingCartDto);
+  @Mapping(target = "eventId", ignore = true)
+  @Mapping(target = "upsertedItem", ignore = true)
+  @Mapping(target = "deletedProductId", ignore = true)
+  public abstract ShoppingCartItemsUpdateRequestedEvent
+      mapToShoppingCartItemsUpdateRequestedEvent(ShoppingCartDto shoppingCartDto);
 
   /**
    * Maps order entity to order DTO.
@@ -176,7 +243,7 @@ public interface InfraMapper {
    * @param orderEntity order entity to map.
    * @return mapped order DTO.
    */
-  OrderDto mapToOrderDto(OrderEntity orderEntity);
+  public abstract OrderDto mapToOrderDto(OrderEntity orderEntity);
 
   /**
    * Maps order DTO to order validation requested event.
@@ -184,7 +251,8 @@ public interface InfraMapper {
    * @param orderDto shopping cart DTO to map.
    * @return OrderValidationRequestedEvent instance.
    */
-  OrderValidationRequestedEvent mapToOrderValidationRequestedEvent(OrderDto orderDto);
+  public abstract OrderValidationRequestedEvent mapToOrderValidationRequestedEvent(
+      OrderDto orderDto);
 
   /**
    * Map a string to a optional list of strings.
@@ -193,13 +261,13 @@ public interface InfraMapper {
    * @return an optinal with a list of string.
    * @throws JsonProcessingException if an error happens.
    */
-  default Optional<List<String>> mapToOptionalListOfString(String errors)
+  public Optional<List<String>> mapToOptionalListOfString(String errors)
       throws JsonProcessingException {
     if (errors == null) {
       return Optional.empty();
     }
-    final ObjectMapper objectMapper = new ObjectMapper();
-    return Optional.ofNullable(List.of(objectMapper.readValue(errors, String[].class)));
+    return Optional.ofNullable(
+        List.of(this.eventCodecs.getJsonCodec().decodeFromString(errors, String[].class)));
   }
 
   /**
@@ -208,7 +276,7 @@ public interface InfraMapper {
    * @param orderDto shopping cart DTO to map.
    * @return OrderRejectedEvent instance.
    */
-  OrderRejectedEvent mapToOrderRejectedEvent(OrderDto orderDto);
+  public abstract OrderRejectedEvent mapToOrderRejectedEvent(OrderDto orderDto);
 
 
 }
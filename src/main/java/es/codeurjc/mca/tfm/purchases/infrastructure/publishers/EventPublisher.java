@@ -0,0 +1,21 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Event publisher interface.
+ */
+public interface EventPublisher {
+
+  /**
+   * Publish an event.
+   *
+   * @param topic topic where the event is published.
+   * @param key   event key, the identifier of the aggregate the event belongs to.
+   * @param event event to publish.
+   * @return future completed when the event is acknowledged, or completed exceptionally if it
+   *     can't be published.
+   */
+  CompletableFuture<Void> publish(String topic, String key, Object event);
+
+}
@@ -0,0 +1,53 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaAggregateSettings;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.springframework.stereotype.Component;
+
+/**
+ * Builds the records of published events, with headers describing the event: its type, identifier,
+ * aggregate identifier, payload version and produce time. Events of listener topics that belong to
+ * an aggregate topic are sent to it.
+ */
+@Component
+public class EventRecordFactory {
+
+  /**
+   * Aggregate topics settings.
+   */
+  private final KafkaAggregateSettings kafkaAggregateSettings;
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaAggregateSettings aggregate topics settings.
+   */
+  public EventRecordFactory(KafkaAggregateSettings kafkaAggregateSettings) {
+    this.kafkaAggregateSettings = kafkaAggregateSettings;
+  }
+
+  /**
+   * Builds the record of an encoded event.
+   *
+   * @param topic   topic where the event is published, that is the event type.
+   * @param key     event key, the identifier of the aggregate the event belongs to.
+   * @param eventId event identifier, null if it's not an identified event.
+   * @param payload encoded event, null for a tombstone.
+   * @return record to send.
+   */
+  public ProducerRecord<String, byte[]> create(String topic, String key, String eventId,
+      byte[] payload) {
+    ProducerRecord<String, byte[]> producerRecord = new ProducerRecord<>(
+        this.kafkaAggregateSettings.getAggregateTopic(topic).orElse(topic), key, payload);
+    Headers headers = producerRecord.headers();
+    EventHeaders.add(headers, EventHeaders.TYPE, topic);
+    EventHeaders.add(headers, EventHeaders.ID, eventId);
+    EventHeaders.add(headers, EventHeaders.AGGREGATE_ID, key);
+    EventHeaders.add(headers, EventHeaders.VERSION, EventHeaders.CURRENT_VERSION);
+    EventHeaders.add(headers, EventHeaders.TIMESTAMP, String.valueOf(System.currentTimeMillis()));
+    return producerRecord;
+  }
+
+}
@@ -0,0 +1,394 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.domain.exceptions.EventPublicationRejectedException;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.IdentifiedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDispatcher;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.ExponentialBackOffWithMaxRetries;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
+
+/**
+ * Event publisher in-process implementation, for single node deployments. Events of in-process
+ * topics are dispatched to their listeners through bounded ring buffer lanes, each one consumed by
+ * a single thread. Events are assigned to lanes by key, so events of the same shopping cart or
+ * order are processed in order, like in a Kafka partition. Failed events are retried in place with
+ * exponential backoff, like in listener containers, and then forwarded to their Kafka dead letter
+ * topic, so they can be replayed once the failure cause is fixed. Events of other topics, consumed
+ * by other services, are published to Kafka.
+ */
+@Component
+@Primary
+@Profile("inprocess")
+@Slf4j
+public class InProcessEventPublisher implements EventPublisher {
+
+  /**
+   * Max time a lane consumer thread waits for an event before checking if it must stop.
+   */
+  private static final long POLL_TIMEOUT_MS = 100;
+
+  /**
+   * Kafka event publisher, used for topics not processed in-process.
+   */
+  private final KafkaEventPublisher kafkaEventPublisher;
+
+  /**
+   * Event dispatcher. Lazy as listeners depend on this publisher through use cases.
+   */
+  private final EventDispatcher eventDispatcher;
+
+  /**
+   * Event codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Topics processed in-process.
+   */
+  private final Set<String> topics;
+
+  /**
+   * Lanes ring buffers.
+   */
+  private final List<BlockingQueue<InProcessEvent>> lanes;
+
+  /**
+   * Lanes consumer threads.
+   */
+  private final List<Thread> workers;
+
+  /**
+   * Kafka template used to forward failed events to dead letter topics.
+   */
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  /**
+   * Backoff of failed events retries.
+   */
+  private final BackOff retryBackOff;
+
+  /**
+   * Suffix of dead letter topics.
+   */
+  private final String dltSuffix;
+
+  /**
+   * Max time to wait for queued events to be processed on shutdown.
+   */
+  private final long shutdownTimeoutMs;
+
+  /**
+   * Max time to wait for a dead letter acknowledgement.
+   */
+  private final long sendTimeoutMs;
+
+  /**
+   * Indicates if the publisher is stopping, so lanes consumer threads exit once their lane is
+   * drained.
+   */
+  private volatile boolean stopping;
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaEventPublisher kafka event publisher.
+   * @param eventDispatcher     event dispatcher.
+   * @param eventCodecs         event codecs.
+   * @param topics              topics processed in-process.
+   * @param lanes               number of lanes.
+   * @param laneCapacity        max events waiting in each lane.
+   * @param kafkaTemplate       kafka template used to forward failed events to dead letter topics.
+   * @param maxAttempts         max processing attempts of an event, including the first one.
+   * @param initialIntervalMs   delay before the first retry.
+   * @param multiplier          delay multiplier between retries.
+   * @param maxIntervalMs       max delay between retries.
+   * @param dltSuffix           suffix of dead letter topics.
+   * @param shutdownTimeoutMs   max time to wait for queued events to be processed on shutdown.
+   * @param sendTimeoutMs       max time to wait for a dead letter acknowledgement.
+   */
+  public InProcessEventPublisher(KafkaEventPublisher kafkaEventPublisher,
+      @Lazy EventDispatcher eventDispatcher,
+      EventCodecs eventCodecs,
+      @Value("${kafka.inprocess.topics}") Set<String> topics,
+      @Value("${kafka.inprocess.lanes}") int lanes,
+      @Value("${kafka.inprocess.laneCapacity}") int laneCapacity,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      @Value("${kafka.retry.maxAttempts}") int maxAttempts,
+      @Value("${kafka.retry.initialIntervalMs}") long initialIntervalMs,
+      @Value("${kafka.retry.multiplier}") double multiplier,
+      @Value("${kafka.retry.maxIntervalMs}") long maxIntervalMs,
+      @Value("${kafka.retry.dltSuffix}") String dltSuffix,
+      @Value("${kafka.consumer.shutdownTimeoutMs}") long shutdownTimeoutMs,
+      @Value("${kafka.producer.maxBlockMs}") long sendTimeoutMs) {
+    this.kafkaEventPublisher = kafkaEventPublisher;
+    this.eventDispatcher = eventDispatcher;
+    this.eventCodecs = eventCodecs;
+    this.topics = topics;
+    this.kafkaTemplate = kafkaTemplate;
+    ExponentialBackOffWithMaxRetries backOff = new ExponentialBackOffWithMaxRetries(maxAttempts - 1);
+    backOff.setInitialInterval(initialIntervalMs);
+    backOff.setMultiplier(multiplier);
+    backOff.setMaxInterval(maxIntervalMs);
+    this.retryBackOff = backOff;
+    this.dltSuffix = dltSuffix;
+    this.shutdownTimeoutMs = shutdownTimeoutMs;
+    this.sendTimeoutMs = sendTimeoutMs;
+    this.lanes = new ArrayList<>(lanes);
+    this.workers = new ArrayList<>(lanes);
+    for (int i = 0; i < lanes; i++) {
+      BlockingQueue<InProcessEvent> lane = new ArrayBlockingQueue<>(laneCapacity);
+      Thread worker = new Thread(() -> this.consume(lane), "inprocess-lane-" + i);
+      worker.setDaemon(true);
+      worker.start();
+      this.lanes.add(lane);
+      this.workers.add(worker);
+    }
+  }
+
+  /**
+   * Publish an event.
+   *
+   * @param topic topic where the event is published.
+   * @param key   event key, the identifier of the aggregate the event belongs to.
+   * @param event event to publish.
+   * @return future completed when the event is queued in its lane, or published to Kafka if the
+   *     topic is not processed in-process.
+   */
+  @Override
+  public CompletableFuture<Void> publish(String topic, String key, Object event) {
+    if (!this.topics.contains(topic)) {
+      return this.kafkaEventPublisher.publish(topic, key, event);
+    }
+    if (this.stopping) {
+      log.error("Rejected event {} to topic {}, publisher is stopping", event, topic);
+      return CompletableFuture.failedFuture(new EventPublicationRejectedException(
+          "Too many pending requests, please try again later"));
+    }
+    IdentifiedEvent.stamp(event);
+    try {
+      InProcessEvent inProcessEvent = new InProcessEvent(topic, key, IdentifiedEvent.idOf(event),
+          this.eventCodecs.encode(topic, event));
+      if (!this.laneOf(key).offer(inProcessEvent)) {
+        log.error("Rejected event {} to topic {}, lane is full", event, topic);
+        return CompletableFuture.failedFuture(new EventPublicationRejectedException(
+            "Too many pending requests, please try again later"));
+      }
+      return CompletableFuture.completedFuture(null);
+    } catch (IOException e) {
+      log.error("Error encoding event {} to topic {}: {}", event, topic, e.getMessage());
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+  /**
+   * Indicates if events of passed topic are processed in-process.
+   *
+   * @param topic topic.
+   * @return true if its events are processed in-process, else false.
+   */
+  public boolean isInProcess(String topic) {
+    return this.topics.contains(topic);
+  }
+
+  /**
+   * Queues a dead letter of an in-process topic back in its lane, waiting for room if it's full.
+   *
+   * @param topic   event topic.
+   * @param key     event key.
+   * @param eventId event identifier, null if unknown.
+   * @param payload encoded event.
+   * @throws InterruptedException if interrupted while waiting for room in the lane.
+   */
+  public void replay(String topic, String key, String eventId, byte[] payload)
+      throws InterruptedException {
+    this.laneOf(key).put(new InProcessEvent(topic, key, eventId, payload));
+  }
+
+  /**
+   * Stops lanes consumer threads once queued events are processed, waiting up to the shutdown
+   * timeout before interrupting them. Events still queued after it are forwarded to their dead
+   * letter topic.
+   *
+   * @throws InterruptedException if interrupted while waiting for lanes to be drained.
+   */
+  @PreDestroy
+  public void stop() throws InterruptedException {
+    this.stopping = true;
+    long deadline = System.currentTimeMillis() + this.shutdownTimeoutMs;
+    for (Thread worker : this.workers) {
+      worker.join(Math.max(1, deadline - System.currentTimeMillis()));
+    }
+    this.workers.forEach(Thread::interrupt);
+    for (Thread worker : this.workers) {
+      worker.join(this.sendTimeoutMs);
+    }
+    List<InProcessEvent> pending = new ArrayList<>();
+    this.lanes.forEach(lane -> lane.drainTo(pending));
+    if (!pending.isEmpty()) {
+      log.warn("Forwarding {} pending in-process events to dead letter topics", pending.size());
+      pending.forEach(inProcessEvent -> this.deadLetter(inProcessEvent,
+          new IllegalStateException("In-process event not processed before shutdown")));
+    }
+  }
+
+  /**
+   * Gets the lane of a key.
+   *
+   * @param key event key.
+   * @return lane ring buffer.
+   */
+  private BlockingQueue<InProcessEvent> laneOf(String key) {
+    return this.lanes.get(Math.floorMod(key.hashCode(), this.lanes.size()));
+  }
+
+  /**
+   * Consumes events of a lane, dispatching them to their listener, until the publisher is stopping
+   * and the lane is drained.
+   *
+   * @param lane lane ring buffer.
+   */
+  private void consume(BlockingQueue<InProcessEvent> lane) {
+    while (!Thread.currentThread().isInterrupted() && !(this.stopping && lane.isEmpty())) {
+      try {
+        InProcessEvent inProcessEvent = lane.poll(POLL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        if (inProcessEvent != null) {
+          this.process(inProcessEvent);
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Dispatches an event to its listener, retrying it with backoff while it fails, and forwarding
+   * it to its dead letter topic once retries are exhausted. Events that can't be decoded are not
+   * retried.
+   *
+   * @param inProcessEvent event to process.
+   * @throws InterruptedException if interrupted while waiting for a retry, once the event is
+   *                              forwarded to its dead letter topic.
+   */
+  private void process(InProcessEvent inProcessEvent) throws InterruptedException {
+    BackOffExecution backOffExecution = this.retryBackOff.start();
+    while (true) {
+      try {
+        this.eventDispatcher.dispatch(inProcessEvent.topic, inProcessEvent.payload);
+        return;
+      } catch (Exception e) {
+        long interval = e instanceof JsonProcessingException
+            ? BackOffExecution.STOP : backOffExecution.nextBackOff();
+        if (interval == BackOffExecution.STOP) {
+          log.error("Error processing in-process event from topic {}: {}", inProcessEvent.topic,
+              e.getMessage());
+          this.deadLetter(inProcessEvent, e);
+          return;
+        }
+        log.warn("Error processing in-process event from topic {}, retrying in {} ms: {}",
+            inProcessEvent.topic, interval, e.getMessage());
+        try {
+          Thread.sleep(interval);
+        } catch (InterruptedException ie) {
+          this.deadLetter(inProcessEvent, e);
+          throw ie;
+        }
+      }
+    }
+  }
+
+  /**
+   * Forwards a failed event to the dead letter topic of its topic, with the failure cause in
+   * headers.
+   *
+   * @param inProcessEvent failed event.
+   * @param cause          failure cause.
+   */
+  private void deadLetter(InProcessEvent inProcessEvent, Exception cause) {
+    ProducerRecord<String, byte[]> producerRecord = new ProducerRecord<>(
+        inProcessEvent.topic + this.dltSuffix, inProcessEvent.key, inProcessEvent.payload);
+    EventHeaders.add(producerRecord.headers(), EventHeaders.ID, inProcessEvent.eventId);
+    producerRecord.headers()
+        .add(KafkaHeaders.DLT_ORIGINAL_TOPIC,
+            inProcessEvent.topic.getBytes(StandardCharsets.UTF_8))
+        .add(KafkaHeaders.DLT_EXCEPTION_FQCN,
+            cause.getClass().getName().getBytes(StandardCharsets.UTF_8))
+        .add(KafkaHeaders.DLT_EXCEPTION_MESSAGE,
+            String.valueOf(cause.getMessage()).getBytes(StandardCharsets.UTF_8));
+    try {
+      this.kafkaTemplate.send(producerRecord).get(this.sendTimeoutMs, TimeUnit.MILLISECONDS);
+      log.info("Forwarded in-process event {} to topic {}", inProcessEvent.eventId,
+          producerRecord.topic());
+    } catch (Exception e) {
+      if (e instanceof InterruptedException) {
+        Thread.currentThread().interrupt();
+      }
+      log.error("Lost in-process event {} of topic {}, it can't be forwarded to its dead letter"
+              + " topic: {}", inProcessEvent.eventId, inProcessEvent.topic, e.getMessage());
+    }
+  }
+
+  /**
+   * Event queued in a lane.
+   */
+  private static final class InProcessEvent {
+
+    /**
+     * Event topic.
+     */
+    private final String topic;
+
+    /**
+     * Event key.
+     */
+    private final String key;
+
+    /**
+     * Event identifier.
+     */
+    private final String eventId;
+
+    /**
+     * Encoded event.
+     */
+    private final byte[] payload;
+
+    /**
+     * Constructor.
+     *
+     * @param topic   event topic.
+     * @param key     event key.
+     * @param eventId event identifier.
+     * @param payload encoded event.
+     */
+    private InProcessEvent(String topic, String key, String eventId, byte[] payload) {
+      this.topic = topic;
+      this.key = key;
+      this.eventId = eventId;
+      this.payload = payload;
+    }
+
+  }
+
+}
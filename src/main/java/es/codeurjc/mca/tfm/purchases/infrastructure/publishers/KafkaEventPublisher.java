@@ -0,0 +1,219 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.domain.exceptions.EventPublicationRejectedException;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.IdentifiedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import javax.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Event publisher Kafka implementation. It doesn't wait for broker acknowledgements, and bounds
+ * the number of in flight sends rejecting new ones when the bound is reached. Events are handed to
+ * a sender thread, so callers don't block while the producer fetches topic metadata or waits for
+ * buffer space, and are sent in publication order. Events published inside a Kafka transaction are
+ * sent by the calling thread, the one the transaction is bound to.
+ */
+@Component
+@Slf4j
+public class KafkaEventPublisher implements EventPublisher {
+
+  /**
+   * Send latency metric name.
+   */
+  private static final String SEND_METRIC = "purchases.events.send";
+
+  /**
+   * Kafka template.
+   */
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  /**
+   * Event codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Event records factory.
+   */
+  private final EventRecordFactory eventRecordFactory;
+
+  /**
+   * Meter registry.
+   */
+  private final MeterRegistry meterRegistry;
+
+  /**
+   * Permits of in flight sends.
+   */
+  private final Semaphore inFlightSends;
+
+  /**
+   * Sender thread, whose queue is bounded by the in flight sends permits.
+   */
+  private final ExecutorService sender;
+
+  /**
+   * Max time to wait for queued events to be sent on shutdown.
+   */
+  private final long shutdownTimeoutMs;
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaTemplate      kafka template.
+   * @param eventCodecs        event codecs.
+   * @param eventRecordFactory event records factory.
+   * @param meterRegistry      meter registry.
+   * @param maxInFlightSends   max number of sends waiting for acknowledgement.
+   * @param shutdownTimeoutMs  max time to wait for queued events to be sent on shutdown.
+   */
+  public KafkaEventPublisher(KafkaTemplate<String, byte[]> kafkaTemplate,
+      EventCodecs eventCodecs,
+      EventRecordFactory eventRecordFactory,
+      MeterRegistry meterRegistry,
+      @Value("${kafka.producer.maxInFlightSends}") int maxInFlightSends,
+      @Value("${kafka.consumer.shutdownTimeoutMs}") long shutdownTimeoutMs) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.eventCodecs = eventCodecs;
+    this.eventRecordFactory = eventRecordFactory;
+    this.meterRegistry = meterRegistry;
+    this.inFlightSends = new Semaphore(maxInFlightSends);
+    this.shutdownTimeoutMs = shutdownTimeoutMs;
+    this.sender = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(maxInFlightSends), runnable -> {
+          Thread thread = new Thread(runnable, "event-sender");
+          thread.setDaemon(true);
+          return thread;
+        });
+    meterRegistry.gauge("purchases.events.send.available", this.inFlightSends,
+        Semaphore::availablePermits);
+  }
+
+  /**
+   * Publish an event.
+   *
+   * @param topic topic where the event is published.
+   * @param key   event key, the identifier of the aggregate the event belongs to.
+   * @param event event to publish.
+   * @return future completed when the event is acknowledged, or completed exceptionally if it
+   *     can't be published.
+   */
+  @Override
+  public CompletableFuture<Void> publish(String topic, String key, Object event) {
+    if (!this.inFlightSends.tryAcquire()) {
+      log.error("Rejected event {} to topic {}, too many in flight sends", event, topic);
+      return CompletableFuture.failedFuture(new EventPublicationRejectedException(
+          "Too many pending requests, please try again later"));
+    }
+    IdentifiedEvent.stamp(event);
+    final long start = System.nanoTime();
+    ProducerRecord<String, byte[]> producerRecord;
+    try {
+      producerRecord = this.eventRecordFactory.create(topic, key, IdentifiedEvent.idOf(event),
+          this.eventCodecs.encode(topic, event));
+    } catch (Exception e) {
+      return this.failed(topic, event, start, e);
+    }
+    if (this.kafkaTemplate.inTransaction()) {
+      return this.send(producerRecord, event, start);
+    }
+    try {
+      return CompletableFuture.supplyAsync(() -> this.send(producerRecord, event, start),
+          this.sender).thenCompose(Function.identity());
+    } catch (RejectedExecutionException e) {
+      return this.failed(topic, event, start, new EventPublicationRejectedException(
+          "Too many pending requests, please try again later"));
+    }
+  }
+
+  /**
+   * Waits for queued events to be sent, up to the shutdown timeout.
+   *
+   * @throws InterruptedException if interrupted while waiting.
+   */
+  @PreDestroy
+  public void close() throws InterruptedException {
+    this.sender.shutdown();
+    if (!this.sender.awaitTermination(this.shutdownTimeoutMs, TimeUnit.MILLISECONDS)) {
+      log.error("Lost {} queued events, not sent before shutdown",
+          this.sender.shutdownNow().size());
+    }
+  }
+
+  /**
+   * Sends an event record, releasing its in flight send permit once acknowledged or failed.
+   *
+   * @param producerRecord event record.
+   * @param event          event to send, for logging.
+   * @param start          publication start in nanoseconds.
+   * @return future completed when the event is acknowledged, or completed exceptionally if it
+   *     can't be sent.
+   */
+  private CompletableFuture<Void> send(ProducerRecord<String, byte[]> producerRecord,
+      Object event, long start) {
+    String topic = producerRecord.topic();
+    try {
+      return this.kafkaTemplate.send(producerRecord)
+          .completable()
+          .whenComplete((result, ex) -> {
+            this.inFlightSends.release();
+            this.record(topic, start, ex);
+            if (ex != null) {
+              log.error("Error sending event {} to topic {}: {}", event, topic, ex.getMessage());
+            } else {
+              log.info("Sent event {} to topic {}", event, topic);
+            }
+          })
+          .thenApply(result -> null);
+    } catch (Exception e) {
+      return this.failed(topic, event, start, e);
+    }
+  }
+
+  /**
+   * Releases the in flight send permit of an event that couldn't be sent.
+   *
+   * @param topic topic where the event was published.
+   * @param event event that couldn't be sent.
+   * @param start publication start in nanoseconds.
+   * @param ex    send failure.
+   * @return future completed exceptionally with the failure.
+   */
+  private CompletableFuture<Void> failed(String topic, Object event, long start, Exception ex) {
+    this.inFlightSends.release();
+    this.record(topic, start, ex);
+    log.error("Error sending event {} to topic {}: {}", event, topic, ex.getMessage());
+    return CompletableFuture.failedFuture(ex);
+  }
+
+  /**
+   * Records send latency of a topic.
+   *
+   * @param topic topic where the event was sent.
+   * @param start send start in nanoseconds.
+   * @param ex    exception if send failed, else null.
+   */
+  private void record(String topic, long start, Throwable ex) {
+    Timer.builder(SEND_METRIC)
+        .description("Latency from event send until broker acknowledgement")
+        .tag("topic", topic)
+        .tag("outcome", ex == null ? "success" : "failure")
+        .register(this.meterRegistry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+  }
+
+}
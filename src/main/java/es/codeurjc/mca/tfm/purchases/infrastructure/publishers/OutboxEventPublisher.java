@@ -0,0 +1,72 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OutboxEventEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.IdentifiedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOutboxEventRepository;
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Event publisher outbox implementation. Events are stored in outbox table, in the same
+ * transaction as the caller entity changes if any, and relayed to Kafka by {@link OutboxRelay}.
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "kafka.outbox.enabled", havingValue = "true")
+@Slf4j
+public class OutboxEventPublisher implements EventPublisher {
+
+  /**
+   * Outbox event repository.
+   */
+  private final JpaOutboxEventRepository jpaOutboxEventRepository;
+
+  /**
+   * Event codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaOutboxEventRepository outbox event repository.
+   * @param eventCodecs              event codecs.
+   */
+  public OutboxEventPublisher(JpaOutboxEventRepository jpaOutboxEventRepository,
+      EventCodecs eventCodecs) {
+    this.jpaOutboxEventRepository = jpaOutboxEventRepository;
+    this.eventCodecs = eventCodecs;
+  }
+
+  /**
+   * Publish an event storing it in outbox table.
+   *
+   * @param topic topic where the event is published.
+   * @param key   event key, the identifier of the aggregate the event belongs to.
+   * @param event event to publish.
+   * @return future completed when the event is stored.
+   */
+  @Override
+  @Transactional
+  public CompletableFuture<Void> publish(String topic, String key, Object event) {
+    IdentifiedEvent.stamp(event);
+    try {
+      this.jpaOutboxEventRepository.save(
+          new OutboxEventEntity(null, topic, key, IdentifiedEvent.idOf(event),
+              this.eventCodecs.encode(topic, event)));
+      log.info("Stored event {} for topic {} in outbox", event, topic);
+      return CompletableFuture.completedFuture(null);
+    } catch (IOException e) {
+      log.error("Error storing event {} for topic {} in outbox: {}", event, topic,
+          e.getMessage());
+      return CompletableFuture.failedFuture(e);
+    }
+  }
+
+}
@@ -0,0 +1,134 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OutboxEventEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOutboxEventRepository;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Relays outbox table events to Kafka in batches, keeping insertion order.
+ */
+@Component
+@ConditionalOnProperty(name = "kafka.outbox.enabled", havingValue = "true")
+@Slf4j
+public class OutboxRelay {
+
+  /**
+   * Outbox event repository.
+   */
+  private final JpaOutboxEventRepository jpaOutboxEventRepository;
+
+  /**
+   * Kafka template.
+   */
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  /**
+   * Event records factory.
+   */
+  private final EventRecordFactory eventRecordFactory;
+
+  /**
+   * Transaction template.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Max number of events relayed in a batch.
+   */
+  private final int batchSize;
+
+  /**
+   * Max time in milliseconds to wait for a batch acknowledgement.
+   */
+  private final long sendTimeoutMs;
+
+  /**
+   * Constructor.
+   *
+   * @param jpaOutboxEventRepository outbox event repository.
+   * @param kafkaTemplate            kafka template.
+   * @param eventRecordFactory       event records factory.
+   * @param transactionTemplate      transaction template.
+   * @param batchSize                max number of events relayed in a batch.
+   * @param sendTimeoutMs            max time to wait for a batch acknowledgement.
+   */
+  public OutboxRelay(JpaOutboxEventRepository jpaOutboxEventRepository,
+      KafkaTemplate<String, byte[]> kafkaTemplate,
+      EventRecordFactory eventRecordFactory,
+      TransactionTemplate transactionTemplate,
+      @Value("${kafka.outbox.batchSize}") int batchSize,
+      @Value("${kafka.outbox.sendTimeoutMs}") long sendTimeoutMs) {
+    this.jpaOutboxEventRepository = jpaOutboxEventRepository;
+    this.kafkaTemplate = kafkaTemplate;
+    this.eventRecordFactory = eventRecordFactory;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.sendTimeoutMs = sendTimeoutMs;
+  }
+
+  /**
+   * Drains outbox table, relaying batches until a partial batch is found. Each poll starts from
+   * the beginning of the table, so rows committed out of identifier order are relayed in the next
+   * poll.
+   */
+  @Scheduled(fixedDelayString = "${kafka.outbox.pollIntervalMs}")
+  public void relay() {
+    long lastId = 0L;
+    int relayed;
+    do {
+      final long afterId = lastId;
+      List<Long> ids = this.transactionTemplate.execute(status -> this.relayBatch(afterId));
+      relayed = ids.size();
+      if (relayed > 0) {
+        lastId = ids.get(relayed - 1);
+      }
+    } while (relayed == this.batchSize);
+  }
+
+  /**
+   * Relays next batch of events after passed identifier and deletes them from outbox table.
+   *
+   * @param afterId identifier after which events are relayed.
+   * @return relayed events identifiers in order.
+   */
+  private List<Long> relayBatch(long afterId) {
+    List<OutboxEventEntity> batch =
+        this.jpaOutboxEventRepository.findNextBatchForUpdate(afterId, this.batchSize);
+    if (batch.isEmpty()) {
+      return List.of();
+    }
+    List<ListenableFuture<SendResult<String, byte[]>>> futures = new ArrayList<>(batch.size());
+    batch.forEach(outboxEvent -> futures.add(this.kafkaTemplate.send(
+        this.eventRecordFactory.create(outboxEvent.getTopic(), outboxEvent.getKey(),
+            outboxEvent.getEventId(), outboxEvent.getPayload()))));
+    this.kafkaTemplate.flush();
+    try {
+      for (ListenableFuture<SendResult<String, byte[]>> future : futures) {
+        future.get(this.sendTimeoutMs, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted relaying outbox events", e);
+    } catch (Exception e) {
+      log.error("Error relaying outbox events, they will be retried: {}", e.getMessage());
+      throw new IllegalStateException("Error relaying outbox events", e);
+    }
+    List<Long> ids = batch.stream().map(OutboxEventEntity::getId).collect(Collectors.toList());
+    this.jpaOutboxEventRepository.deleteAllByIdInBatch(ids);
+    log.info("Relayed {} outbox events", ids.size());
+    return ids;
+  }
+
+}
@@ -0,0 +1,208 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.publishers;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.concurrent.ListenableFuture;
+
+/**
+ * Publishes the latest state of each stored shopping cart to the compacted shopping carts
+ * changelog topic, keyed by shopping cart identifier, and a tombstone when it's deleted. Inside a
+ * database transaction, the latest record of each shopping cart is sent when it's about to commit,
+ * and the commit waits for their acknowledgement: if they can't be sent, the transaction rolls back
+ * and the listener fails, so its event is retried instead of leaving the changelog behind the
+ * database. Compaction keeps only the last record of each shopping cart, so the topic can be read
+ * from the beginning to rebuild the state of all of them.
+ */
+@Component
+@Slf4j
+public class ShoppingCartChangelogPublisher {
+
+  /**
+   * Kafka template.
+   */
+  private final KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  /**
+   * Event codecs.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Mapper.
+   */
+  private final InfraMapper mapper;
+
+  /**
+   * Whether the changelog is published.
+   */
+  private final boolean enabled;
+
+  /**
+   * Kafka shopping carts changelog topic.
+   */
+  private final String shoppingCartsChangelogTopic;
+
+  /**
+   * Max time in milliseconds to wait for changelog records acknowledgement.
+   */
+  private final long sendTimeoutMs;
+
+  /**
+   * Constructor.
+   *
+   * @param kafkaTemplate               kafka template.
+   * @param eventCodecs                 event codecs.
+   * @param mapper                      mapper.
+   * @param enabled                     whether the changelog is published.
+   * @param shoppingCartsChangelogTopic shopping carts changelog topic.
+   * @param sendTimeoutMs               max time to wait for records acknowledgement.
+   */
+  public ShoppingCartChangelogPublisher(KafkaTemplate<String, byte[]> kafkaTemplate,
+      EventCodecs eventCodecs,
+      InfraMapper mapper,
+      @Value("${kafka.changelog.enabled}") boolean enabled,
+      @Value("${kafka.topics.shoppingCartsChangelog}") String shoppingCartsChangelogTopic,
+      @Value("${kafka.changelog.sendTimeoutMs}") long sendTimeoutMs) {
+    this.kafkaTemplate = kafkaTemplate;
+    this.eventCodecs = eventCodecs;
+    this.mapper = mapper;
+    this.enabled = enabled;
+    this.shoppingCartsChangelogTopic = shoppingCartsChangelogTopic;
+    this.sendTimeoutMs = sendTimeoutMs;
+  }
+
+  /**
+   * Publishes the current state of a stored shopping cart.
+   *
+   * @param shoppingCartEntity stored shopping cart.
+   * @throws UncheckedIOException  if the snapshot can't be encoded.
+   * @throws IllegalStateException if there is no transaction and the record can't be sent.
+   */
+  public void publish(ShoppingCartEntity shoppingCartEntity) {
+    if (!this.enabled) {
+      return;
+    }
+    ShoppingCartSnapshot shoppingCartSnapshot =
+        this.mapper.mapToShoppingCartSnapshot(shoppingCartEntity);
+    try {
+      this.send(shoppingCartSnapshot.getId(),
+          this.eventCodecs.encode(this.shoppingCartsChangelogTopic, shoppingCartSnapshot));
+    } catch (IOException e) {
+      log.error("Error encoding snapshot of shopping cart {}: {}", shoppingCartEntity.getId(),
+          e.getMessage());
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Publishes the tombstone of a deleted shopping cart.
+   *
+   * @param id deleted shopping cart identifier.
+   * @throws IllegalStateException if there is no transaction and the record can't be sent.
+   */
+  public void publishDeletion(Long id) {
+    if (this.enabled) {
+      this.send(id, null);
+    }
+  }
+
+  /**
+   * Sends a changelog record, before the current transaction commits if there is one, replacing
+   * any previous record of the shopping cart in the transaction.
+   *
+   * @param id    shopping cart identifier.
+   * @param value encoded snapshot, or null for a tombstone.
+   */
+  private void send(Long id, byte[] value) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      Map<Long, byte[]> records = new LinkedHashMap<>();
+      records.put(id, value);
+      this.sendAll(records);
+      return;
+    }
+    PendingRecords pendingRecords =
+        (PendingRecords) TransactionSynchronizationManager.getResource(this);
+    if (pendingRecords == null) {
+      pendingRecords = new PendingRecords();
+      TransactionSynchronizationManager.bindResource(this, pendingRecords);
+      TransactionSynchronizationManager.registerSynchronization(pendingRecords);
+    }
+    pendingRecords.records.put(id, value);
+  }
+
+  /**
+   * Sends changelog records and waits for their acknowledgement.
+   *
+   * @param records encoded snapshots, or null for tombstones, by shopping cart identifier.
+   * @throws IllegalStateException if some record can't be sent.
+   */
+  private void sendAll(Map<Long, byte[]> records) {
+    try {
+      List<ListenableFuture<SendResult<String, byte[]>>> futures =
+          new ArrayList<>(records.size());
+      records.forEach((id, value) -> futures.add(
+          this.kafkaTemplate.send(this.shoppingCartsChangelogTopic, String.valueOf(id), value)));
+      for (ListenableFuture<SendResult<String, byte[]>> future : futures) {
+        future.get(this.sendTimeoutMs, TimeUnit.MILLISECONDS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted sending shopping carts changelog records", e);
+    } catch (Exception e) {
+      log.error("Error sending changelog records of shopping carts {}: {}", records.keySet(),
+          e.getMessage());
+      throw new IllegalStateException("Error sending shopping carts changelog records", e);
+    }
+    log.debug("Sent changelog records of shopping carts {}", records.keySet());
+  }
+
+  /**
+   * Changelog records of a transaction, sent before it commits.
+   */
+  private final class PendingRecords implements TransactionSynchronization {
+
+    /**
+     * Latest record of each shopping cart changed in the transaction, in change order.
+     */
+    private final Map<Long, byte[]> records = new LinkedHashMap<>();
+
+    /**
+     * Sends the records, failing the commit if they can't be sent.
+     *
+     * @param readOnly whether the transaction is read only.
+     */
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      ShoppingCartChangelogPublisher.this.sendAll(this.records);
+    }
+
+    /**
+     * Unbinds the records from the finished transaction.
+     *
+     * @param status completion status.
+     */
+    @Override
+    public void afterCompletion(int status) {
+      TransactionSynchronizationManager.unbindResourceIfPossible(
+          ShoppingCartChangelogPublisher.this);
+    }
+
+  }
+
+}
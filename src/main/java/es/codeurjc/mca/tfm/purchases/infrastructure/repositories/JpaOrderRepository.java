@@ -1,6 +1,8 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
 
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -10,4 +12,14 @@ import org.springframework.stereotype.Repository;
 @Repository
 public interface JpaOrderRepository extends JpaRepository<OrderEntity, Long> {
 
+  /**
+   * Find order by identifier, with its shopping cart items.
+   *
+   * @param id order identifier.
+   * @return optional of order with passed id, else empty.
+   */
+  @Override
+  @EntityGraph(attributePaths = "shoppingCart.items")
+  Optional<OrderEntity> findById(Long id);
+
 }
@@ -0,0 +1,28 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OutboxEventEntity;
+import java.util.List;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Outbox event JPA repository interface.
+ */
+@Repository
+public interface JpaOutboxEventRepository extends JpaRepository<OutboxEventEntity, Long> {
+
+  /**
+   * Find and lock the next outbox events after passed identifier, in insertion order.
+   *
+   * @param afterId identifier after which events are searched.
+   * @param limit   max number of events to return.
+   * @return list of found outbox events.
+   */
+  @Query(value = "SELECT * FROM outbox WHERE id > :afterId ORDER BY id LIMIT :limit FOR UPDATE",
+      nativeQuery = true)
+  List<OutboxEventEntity> findNextBatchForUpdate(@Param("afterId") Long afterId,
+      @Param("limit") int limit);
+
+}
@@ -0,0 +1,44 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ProcessedEventEntity;
+import java.time.Instant;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Processed event JPA repository interface.
+ */
+@Repository
+public interface JpaProcessedEventRepository extends JpaRepository<ProcessedEventEntity, String> {
+
+  /**
+   * Insert a processed event unless its identifier is already stored, with a single statement
+   * that doesn't fail on duplicated identifiers. If other transaction is inserting the same
+   * identifier, it waits for it to finish.
+   *
+   * @param eventId     event identifier.
+   * @param processedAt time the event is processed.
+   * @return 1 if the event is inserted, 0 if it was already stored.
+   */
+  @Modifying
+  @Transactional
+  @Query(value = "INSERT IGNORE INTO processed_events (event_id, processed_at)"
+      + " VALUES (:eventId, :processedAt)", nativeQuery = true)
+  int insertIfAbsent(@Param("eventId") String eventId, @Param("processedAt") Instant processedAt);
+
+  /**
+   * Delete the events processed before passed time with a single statement.
+   *
+   * @param before time before which processed events are deleted.
+   * @return number of deleted events.
+   */
+  @Modifying
+  @Transactional
+  @Query("DELETE FROM processed_events e WHERE e.processedAt < :before")
+  int deleteAllByProcessedAtBefore(@Param("before") Instant before);
+
+}
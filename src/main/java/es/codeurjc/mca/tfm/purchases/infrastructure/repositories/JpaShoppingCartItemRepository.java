@@ -0,0 +1,27 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartItemEntity;
+import java.util.Collection;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Shopping cart item JPA repository interface.
+ */
+@Repository
+public interface JpaShoppingCartItemRepository extends
+    JpaRepository<ShoppingCartItemEntity, ShoppingCartItemEntity.Key> {
+
+  /**
+   * Delete the items of passed shopping carts with a single statement.
+   *
+   * @param cartIds shopping carts identifiers.
+   */
+  @Modifying
+  @Query("DELETE FROM shopping_cart_items i WHERE i.cartId IN :cartIds")
+  void deleteAllByCartIdIn(@Param("cartIds") Collection<Long> cartIds);
+
+}
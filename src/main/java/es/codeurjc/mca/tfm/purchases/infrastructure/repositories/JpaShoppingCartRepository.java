@@ -1,12 +1,16 @@
 package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
 
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
 /**
- * Shopping cart JPA repository interface.
+ * Shopping cart JPA repository interface. Shopping carts are found with their items in a single
+ * query, fetching them with a join.
  */
 @Repository
 public interface JpaShoppingCartRepository extends JpaRepository<ShoppingCartEntity, Long> {
@@ -17,6 +21,7 @@ public interface JpaShoppingCartRepository extends JpaRepository<ShoppingCartEnt
    * @param userId user identifier.
    * @return optional of incomplete shopping cart of passed user, else empty.
    */
+  @EntityGraph(attributePaths = "items")
   Optional<ShoppingCartEntity> findByUserIdAndCompletedIsFalse(Integer userId);
 
   /**
@@ -26,6 +31,39 @@ public interface JpaShoppingCartRepository extends JpaRepository<ShoppingCartEnt
    * @param userId user identifier.
    * @return optional of shopping cart with passed id and user, else empty.
    */
+  @EntityGraph(attributePaths = "items")
   Optional<ShoppingCartEntity> findByIdAndUserId(Long id, Integer userId);
 
+  /**
+   * Find shopping carts by identifier, and incomplete shopping carts by user identifier, in a
+   * single query.
+   *
+   * @param ids     shopping carts identifiers.
+   * @param userIds users identifiers.
+   * @return shopping carts with passed ids and incomplete shopping carts of passed users.
+   */
+  @EntityGraph(attributePaths = "items")
+  List<ShoppingCartEntity> findByIdInOrUserIdInAndCompletedIsFalse(Collection<Long> ids,
+      Collection<Integer> userIds);
+
+  /**
+   * Find shopping cart by identifier.
+   *
+   * @param id shopping cart identifier.
+   * @return optional of shopping cart with passed id, else empty.
+   */
+  @Override
+  @EntityGraph(attributePaths = "items")
+  Optional<ShoppingCartEntity> findById(Long id);
+
+  /**
+   * Find shopping carts by identifier.
+   *
+   * @param ids shopping carts identifiers.
+   * @return shopping carts with passed ids.
+   */
+  @Override
+  @EntityGraph(attributePaths = "items")
+  List<ShoppingCartEntity> findAllById(Iterable<Long> ids);
+
 }
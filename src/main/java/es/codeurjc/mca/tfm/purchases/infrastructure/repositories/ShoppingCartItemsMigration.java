@@ -0,0 +1,193 @@
+package es.codeurjc.mca.tfm.purchases.infrastructure.repositories;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import javax.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Copies the items stored by previous versions in the json column of shopping carts to the
+ * shopping cart items table. Previous versions keep reading and writing the column while a rolling
+ * update is in progress, so the column is kept, and the copy runs at startup, before listeners are
+ * started, and then periodically while the column exists. The json copied for each shopping cart
+ * is recorded, and shopping carts whose json changes afterwards, written by a previous version,
+ * get their items copied again, replacing their rows. Instances serialize the copy with a database
+ * named lock. The column must be dropped in a later release, once no previous version runs.
+ */
+@Component
+@DependsOn("entityManagerFactory")
+@Slf4j
+public class ShoppingCartItemsMigration {
+
+  private static final String SHOPPING_CARTS_TABLE = "shopping_carts";
+
+  private static final String ITEMS_COLUMN = "items";
+
+  private static final String LOCK_NAME = "shopping_cart_items_migration";
+
+  private static final String GET_LOCK = "SELECT GET_LOCK(?, ?)";
+
+  private static final String RELEASE_LOCK = "SELECT RELEASE_LOCK(?)";
+
+  private static final String CREATE_MIGRATED_TABLE =
+      "CREATE TABLE IF NOT EXISTS shopping_cart_items_migrations"
+          + " (cart_id BIGINT NOT NULL PRIMARY KEY, items JSON NOT NULL)";
+
+  private static final String SELECT_NOT_MIGRATED = "SELECT c.id, c.items FROM shopping_carts c"
+      + " LEFT JOIN shopping_cart_items_migrations m ON m.cart_id = c.id"
+      + " WHERE c.items IS NOT NULL AND (m.cart_id IS NULL OR m.items <> c.items)";
+
+  private static final String DELETE_ITEMS = "DELETE FROM shopping_cart_items WHERE cart_id = ?";
+
+  private static final String INSERT_ITEM = "INSERT INTO shopping_cart_items"
+      + " (cart_id, product_id, unit_price, quantity, total_price) VALUES (?, ?, ?, ?, ?)";
+
+  private static final String UPSERT_MIGRATED = "INSERT INTO shopping_cart_items_migrations"
+      + " (cart_id, items) VALUES (?, ?) ON DUPLICATE KEY UPDATE items = VALUES(items)";
+
+  /**
+   * JDBC template.
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Transaction template.
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Event codecs, providing the JSON codec the items were stored with.
+   */
+  private final EventCodecs eventCodecs;
+
+  /**
+   * Max time to wait for the migration lock held by other instance.
+   */
+  private final int lockTimeoutSeconds;
+
+  /**
+   * Indicates if the items json column doesn't exist, so there is nothing to copy anymore.
+   */
+  private volatile boolean columnDropped;
+
+  /**
+   * Constructor.
+   *
+   * @param jdbcTemplate        JDBC template.
+   * @param transactionTemplate transaction template.
+   * @param eventCodecs         event codecs.
+   * @param lockTimeoutSeconds  max time to wait for the migration lock held by other instance.
+   */
+  public ShoppingCartItemsMigration(JdbcTemplate jdbcTemplate,
+      TransactionTemplate transactionTemplate, EventCodecs eventCodecs,
+      @Value("${migrations.shoppingCartItems.lockTimeoutSeconds}") int lockTimeoutSeconds) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = transactionTemplate;
+    this.eventCodecs = eventCodecs;
+    this.lockTimeoutSeconds = lockTimeoutSeconds;
+  }
+
+  /**
+   * Copies the items of the shopping carts not migrated yet, or changed since they were, if the
+   * items json column still exists.
+   *
+   * @throws IllegalStateException if the migration lock can't be taken, or if the items of a
+   *                               shopping cart can't be decoded, so startup fails instead of
+   *                               losing them.
+   */
+  @PostConstruct
+  @Scheduled(fixedDelayString = "${migrations.shoppingCartItems.syncIntervalMs}",
+      initialDelayString = "${migrations.shoppingCartItems.syncIntervalMs}")
+  public void migrate() {
+    if (this.columnDropped) {
+      return;
+    }
+    if (!this.hasItemsColumn()) {
+      this.columnDropped = true;
+      return;
+    }
+    this.jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+      try (PreparedStatement getLock = connection.prepareStatement(GET_LOCK)) {
+        getLock.setString(1, LOCK_NAME);
+        getLock.setInt(2, this.lockTimeoutSeconds);
+        try (ResultSet locked = getLock.executeQuery()) {
+          if (!locked.next() || locked.getInt(1) != 1) {
+            throw new IllegalStateException("Can't take shopping cart items migration lock");
+          }
+        }
+      }
+      try {
+        this.jdbcTemplate.execute(CREATE_MIGRATED_TABLE);
+        Integer migrated = this.transactionTemplate.execute(status -> this.copyItems());
+        if (migrated != null && migrated > 0) {
+          log.info("Migrated items of {} shopping carts to shopping_cart_items table", migrated);
+        }
+      } finally {
+        try (PreparedStatement releaseLock = connection.prepareStatement(RELEASE_LOCK)) {
+          releaseLock.setString(1, LOCK_NAME);
+          releaseLock.execute();
+        }
+      }
+      return null;
+    });
+  }
+
+  /**
+   * Checks if the shopping carts table still has the items json column.
+   *
+   * @return true if it has the column, else false.
+   */
+  private boolean hasItemsColumn() {
+    return Boolean.TRUE.equals(this.jdbcTemplate.execute(
+        (ConnectionCallback<Boolean>) connection -> {
+          try (ResultSet columns = connection.getMetaData().getColumns(connection.getCatalog(),
+              null, SHOPPING_CARTS_TABLE, ITEMS_COLUMN)) {
+            return columns.next();
+          }
+        }));
+  }
+
+  /**
+   * Replaces the rows of the shopping carts not migrated yet, or whose json changed since they
+   * were, with the items of their json, and records the copied json.
+   *
+   * @return number of migrated shopping carts.
+   */
+  private int copyItems() {
+    List<Object[]> ids = new ArrayList<>();
+    List<Object[]> rows = new ArrayList<>();
+    List<Object[]> migratedItems = new ArrayList<>();
+    this.jdbcTemplate.query(SELECT_NOT_MIGRATED, resultSet -> {
+      long id = resultSet.getLong(1);
+      String items = resultSet.getString(2);
+      try {
+        for (ShoppingCartItem item : this.eventCodecs.getJsonCodec()
+            .decodeFromString(items, ShoppingCartItem[].class)) {
+          rows.add(new Object[]{id, item.getProductId(), item.getUnitPrice(), item.getQuantity(),
+              item.getTotalPrice()});
+        }
+      } catch (JsonProcessingException e) {
+        throw new IllegalStateException("Can't decode items of shopping cart " + id, e);
+      }
+      ids.add(new Object[]{id});
+      migratedItems.add(new Object[]{id, items});
+    });
+    this.jdbcTemplate.batchUpdate(DELETE_ITEMS, ids);
+    this.jdbcTemplate.batchUpdate(INSERT_ITEM, rows);
+    this.jdbcTemplate.batchUpdate(UPSERT_MIGRATED, migratedItems);
+    return ids.size();
+  }
+
+}
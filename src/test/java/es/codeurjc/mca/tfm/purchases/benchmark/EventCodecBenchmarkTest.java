@@ -0,0 +1,126 @@
+package es.codeurjc.mca.tfm.purchases.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.JsonEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.SmileEventCodec;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderRejectedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderShoppingCart;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderValidationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+@Slf4j
+@Tag("Benchmark")
+@DisplayName("Event codecs benchmark")
+public class EventCodecBenchmarkTest {
+
+  private static final int WARMUP_ITERATIONS = 20_000;
+
+  private static final int ITERATIONS = 100_000;
+
+  private static final int CART_ITEMS = 20;
+
+  private final List<EventCodec> codecs = List.of(new JsonEventCodec(), new SmileEventCodec());
+
+  @Test
+  @DisplayName("Compare bytes/event and ser/de ns/event of order validation requested events")
+  public void benchmarkOrderValidationRequestedEvent() throws IOException {
+    this.benchmark(buildOrderValidationRequestedEvent(), OrderValidationRequestedEvent.class);
+  }
+
+  @Test
+  @DisplayName("Compare bytes/event and ser/de ns/event of order rejected events")
+  public void benchmarkOrderRejectedEvent() throws IOException {
+    this.benchmark(buildOrderRejectedEvent(), OrderRejectedEvent.class);
+  }
+
+  @Test
+  @DisplayName("Compare bytes/event and ser/de ns/event of shopping cart completion events")
+  public void benchmarkShoppingCartCompletionRequestedEvent() throws IOException {
+    ShoppingCartCompletionRequestedEvent event = new ShoppingCartCompletionRequestedEvent();
+    event.setId(1652692327498L);
+    event.setTotalPrice(199.9);
+    this.benchmark(event, ShoppingCartCompletionRequestedEvent.class);
+  }
+
+  private <T> void benchmark(T event, Class<T> type) throws IOException {
+    int jsonSize = 0;
+    for (EventCodec codec : this.codecs) {
+      byte[] payload = codec.encode(event);
+      assertEquals(event, codec.decode(payload, type));
+
+      for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+        codec.decode(codec.encode(event), type);
+      }
+
+      long start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        codec.encode(event);
+      }
+      long encodeNanos = (System.nanoTime() - start) / ITERATIONS;
+
+      start = System.nanoTime();
+      for (int i = 0; i < ITERATIONS; i++) {
+        codec.decode(payload, type);
+      }
+      long decodeNanos = (System.nanoTime() - start) / ITERATIONS;
+
+      log.info("{} {}: {} bytes/event, {} ns/event serialization, {} ns/event deserialization",
+          type.getSimpleName(), codec.getName(), payload.length, encodeNanos, decodeNanos);
+
+      if (JsonEventCodec.NAME.equals(codec.getName())) {
+        jsonSize = payload.length;
+      } else {
+        assertTrue(payload.length <= jsonSize);
+      }
+    }
+  }
+
+  private static OrderShoppingCart buildShoppingCart() {
+    List<ShoppingCartItem> items = new ArrayList<>();
+    for (int i = 0; i < CART_ITEMS; i++) {
+      ShoppingCartItem item = new ShoppingCartItem();
+      item.setProductId(100 + i);
+      item.setUnitPrice(19.99);
+      item.setQuantity(i + 1);
+      item.setTotalPrice(19.99 * (i + 1));
+      items.add(item);
+    }
+    OrderShoppingCart shoppingCart = new OrderShoppingCart();
+    shoppingCart.setId(1652692327498L);
+    shoppingCart.setUserId(1);
+    shoppingCart.setCompleted(true);
+    shoppingCart.setItems(items);
+    shoppingCart.setTotalPrice(items.stream().mapToDouble(ShoppingCartItem::getTotalPrice).sum());
+    return shoppingCart;
+  }
+
+  private static OrderValidationRequestedEvent buildOrderValidationRequestedEvent() {
+    OrderValidationRequestedEvent event = new OrderValidationRequestedEvent();
+    event.setId(1652692327532L);
+    event.setShoppingCart(buildShoppingCart());
+    event.setSuccessState("VALIDATING_BALANCE");
+    event.setFailureState("REJECTED");
+    return event;
+  }
+
+  private static OrderRejectedEvent buildOrderRejectedEvent() {
+    OrderRejectedEvent event = new OrderRejectedEvent();
+    event.setId(1652692327532L);
+    event.setShoppingCart(buildShoppingCart());
+    event.setErrors(Optional.of(List.of("User 1 hasn't enough balance")));
+    return event;
+  }
+
+}
@@ -0,0 +1,149 @@
+package es.codeurjc.mca.tfm.purchases.benchmark;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import es.codeurjc.mca.tfm.purchases.testcontainers.TestContainersBase;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Future;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.NewTopic;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.clients.consumer.KafkaConsumer;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.clients.producer.KafkaProducer;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.serialization.ByteArrayDeserializer;
+import org.apache.kafka.common.serialization.ByteArraySerializer;
+import org.apache.kafka.common.serialization.StringDeserializer;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Compares the throughput of a listener step, consuming one record and producing two (like
+ * create-orders produces update-orders and validate-items), in at-least-once and in exactly-once
+ * transactional modes.
+ */
+@Slf4j
+@Tag("Benchmark")
+@DisplayName("Kafka transactions benchmark")
+public class KafkaTransactionsBenchmarkTest extends TestContainersBase {
+
+  private static final String BOOTSTRAP_ADDRESS = "127.0.0.1:" + KAFKA_PORT;
+
+  private static final int RECORDS = 5_000;
+
+  private static final byte[] PAYLOAD = new byte[512];
+
+  @Test
+  @DisplayName("Compare records/s of at-least-once and transactional consume-transform-produce")
+  public void benchmarkConsumeTransformProduce() throws Exception {
+    double atLeastOnce = this.run(false);
+    double exactlyOnce = this.run(true);
+
+    log.info("Consume-transform-produce: at-least-once {} records/s, transactional {} records/s",
+        Math.round(atLeastOnce), Math.round(exactlyOnce));
+  }
+
+  private double run(boolean transactional) throws Exception {
+    String suffix = UUID.randomUUID().toString();
+    String input = "benchmark-input-" + suffix;
+    String output = "benchmark-output-" + suffix;
+    try (AdminClient adminClient = AdminClient.create(
+        Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_ADDRESS))) {
+      adminClient.createTopics(List.of(new NewTopic(input, 1, (short) 1),
+          new NewTopic(output, 1, (short) 1))).all().get();
+    }
+
+    try (KafkaProducer<String, byte[]> producer = this.createProducer(null)) {
+      for (int i = 0; i < RECORDS; i++) {
+        producer.send(new ProducerRecord<>(input, String.valueOf(i), PAYLOAD));
+      }
+      producer.flush();
+    }
+
+    try (KafkaConsumer<String, byte[]> consumer = this.createConsumer(suffix, transactional);
+        KafkaProducer<String, byte[]> producer =
+            this.createProducer(transactional ? "benchmark-tx-" + suffix : null)) {
+      if (transactional) {
+        producer.initTransactions();
+      }
+      consumer.subscribe(List.of(input));
+
+      int processed = 0;
+      long start = System.nanoTime();
+      while (processed < RECORDS) {
+        ConsumerRecords<String, byte[]> records = consumer.poll(Duration.ofSeconds(1));
+        for (ConsumerRecord<String, byte[]> consumerRecord : records) {
+          TopicPartition partition =
+              new TopicPartition(consumerRecord.topic(), consumerRecord.partition());
+          Map<TopicPartition, OffsetAndMetadata> offsets =
+              Map.of(partition, new OffsetAndMetadata(consumerRecord.offset() + 1));
+          if (transactional) {
+            producer.beginTransaction();
+            this.transform(producer, output, consumerRecord);
+            producer.sendOffsetsToTransaction(offsets, consumer.groupMetadata());
+            producer.commitTransaction();
+          } else {
+            for (Future<RecordMetadata> future : this.transform(producer, output, consumerRecord)) {
+              future.get();
+            }
+          }
+          processed++;
+        }
+        if (!transactional && !records.isEmpty()) {
+          consumer.commitSync();
+        }
+      }
+      long elapsed = System.nanoTime() - start;
+      assertEquals(RECORDS, processed);
+      return processed / (elapsed / 1_000_000_000.0);
+    }
+  }
+
+  private List<Future<RecordMetadata>> transform(KafkaProducer<String, byte[]> producer,
+      String output, ConsumerRecord<String, byte[]> consumerRecord) {
+    List<Future<RecordMetadata>> futures = new ArrayList<>();
+    futures.add(producer.send(
+        new ProducerRecord<>(output, consumerRecord.key(), consumerRecord.value())));
+    futures.add(producer.send(
+        new ProducerRecord<>(output, consumerRecord.key(), consumerRecord.value())));
+    return futures;
+  }
+
+  private KafkaProducer<String, byte[]> createProducer(String transactionalId) {
+    Map<String, Object> props = new HashMap<>(Map.of(
+        ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_ADDRESS,
+        ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+        ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, ByteArraySerializer.class));
+    if (transactionalId != null) {
+      props.put(ProducerConfig.TRANSACTIONAL_ID_CONFIG, transactionalId);
+    }
+    return new KafkaProducer<>(props);
+  }
+
+  private KafkaConsumer<String, byte[]> createConsumer(String groupId, boolean transactional) {
+    return new KafkaConsumer<>(Map.of(
+        ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, BOOTSTRAP_ADDRESS,
+        ConsumerConfig.GROUP_ID_CONFIG, "benchmark-" + groupId,
+        ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest",
+        ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false,
+        ConsumerConfig.ISOLATION_LEVEL_CONFIG, transactional ? "read_committed" : "read_uncommitted",
+        ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class,
+        ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ByteArrayDeserializer.class));
+  }
+
+}
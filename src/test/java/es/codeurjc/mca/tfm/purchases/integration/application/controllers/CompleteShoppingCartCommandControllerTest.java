@@ -12,6 +12,7 @@ import es.codeurjc.mca.tfm.purchases.application.dtos.responses.ShoppingCartResp
 import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartItemEntity;
 import java.util.Map;
 import java.util.stream.Collectors;
 import org.junit.jupiter.api.DisplayName;
@@ -38,12 +39,7 @@ public class CompleteShoppingCartCommandControllerTest extends ShoppingCartComma
   public void givenShoppingCartIdWithTokenWhenCompleteThenShouldReturnAcceptedResponse()
       throws InterruptedException {
     ShoppingCartEntity shoppingCartEntity = buildShoppingCart(System.currentTimeMillis());
-    shoppingCartEntity.setItems("[{\n"
-        + "    \"productId\": 1,\n"
-        + "    \"unitPrice\": 1,\n"
-        + "    \"quantity\": 1,\n"
-        + "    \"totalPrice\": 1\n"
-        + "  }]");
+    shoppingCartEntity.upsertItem(new ShoppingCartItemEntity(null, 1, 1.0, 1, 1.0, null));
     shoppingCartEntity.setTotalPrice(1.0);
     this.jpaShoppingCartRepository.save(shoppingCartEntity);
 
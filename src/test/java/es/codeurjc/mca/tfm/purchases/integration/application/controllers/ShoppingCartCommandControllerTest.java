@@ -20,13 +20,12 @@ public abstract class ShoppingCartCommandControllerTest extends AuthenticatedBas
   protected JpaShoppingCartRepository jpaShoppingCartRepository;
 
   @SpyBean
-  protected KafkaTemplate<String, String> kafkaTemplate;
+  protected KafkaTemplate<String, byte[]> kafkaTemplate;
 
   protected static ShoppingCartEntity buildShoppingCart(Long id) {
     ShoppingCartEntity shoppingCartEntity = new ShoppingCartEntity();
     shoppingCartEntity.setId(id);
     shoppingCartEntity.setUserId(USER_ID);
-    shoppingCartEntity.setItems("[]");
     shoppingCartEntity.setTotalPrice(0.0);
 
     return shoppingCartEntity;
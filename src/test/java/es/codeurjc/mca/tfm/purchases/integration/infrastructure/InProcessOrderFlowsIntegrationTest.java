@@ -0,0 +1,14 @@
+package es.codeurjc.mca.tfm.purchases.integration.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+@Import(OrderFlowsIntegrationTest.OrderFlowsIntegrationTestContextConfiguration.class)
+@ActiveProfiles({"test", "inprocess"})
+@Tag("IntegrationTest")
+@DisplayName("Order flow integration tests with in-process event bus")
+public class InProcessOrderFlowsIntegrationTest extends OrderFlowsIntegrationTest {
+
+}
@@ -8,14 +8,15 @@ import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import es.codeurjc.mca.tfm.purchases.PurchasesApplication;
 import es.codeurjc.mca.tfm.purchases.domain.dtos.OrderDto;
 import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
 import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
 import es.codeurjc.mca.tfm.purchases.domain.ports.out.OrderRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartItemEntity;
 import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
 import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
@@ -71,9 +72,9 @@ public class OrderFlowsIntegrationTest extends TestContainersBase {
   static class OrderFlowsIntegrationTestContextConfiguration {
 
     @Bean
-    public TestEventsListener testEventsListener(KafkaTemplate<String, String> kafkaTemplate,
-        ObjectMapper objectMapper) {
-      return new TestEventsListener(kafkaTemplate, objectMapper);
+    public TestEventsListener testEventsListener(KafkaTemplate<String, byte[]> kafkaTemplate,
+        EventCodecs eventCodecs) {
+      return new TestEventsListener(kafkaTemplate, eventCodecs);
     }
 
   }
@@ -106,7 +107,8 @@ public class OrderFlowsIntegrationTest extends TestContainersBase {
   public void setup() {
     for (MessageListenerContainer messageListenerContainer : kafkaListenerEndpointRegistry
         .getListenerContainers()) {
-      if (messageListenerContainer.getAssignedPartitions().isEmpty()) {
+      if (messageListenerContainer.isAutoStartup()
+          && messageListenerContainer.getAssignedPartitions().isEmpty()) {
         ContainerTestUtils.waitForAssignment(messageListenerContainer, 1);
       }
     }
@@ -200,12 +202,7 @@ public class OrderFlowsIntegrationTest extends TestContainersBase {
     shoppingCartEntity.setId(shoppingCartId);
     shoppingCartEntity.setUserId(1);
     shoppingCartEntity.setCompleted(true);
-    shoppingCartEntity.setItems("[{"
-        + "\"productId\": 1, "
-        + "\"unitPrice\": 1.0, "
-        + "\"quantity\": 1, "
-        + "\"totalPrice\": 1.0"
-        + "}]");
+    shoppingCartEntity.upsertItem(new ShoppingCartItemEntity(null, 1, 1.0, 1, 1.0, null));
     shoppingCartEntity.setTotalPrice(1.0);
 
     return shoppingCartEntity;
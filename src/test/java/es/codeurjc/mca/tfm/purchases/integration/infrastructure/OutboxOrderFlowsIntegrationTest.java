@@ -0,0 +1,14 @@
+package es.codeurjc.mca.tfm.purchases.integration.infrastructure;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+
+@Import(OrderFlowsIntegrationTest.OrderFlowsIntegrationTestContextConfiguration.class)
+@TestPropertySource(properties = "kafka.outbox.enabled=true")
+@Tag("IntegrationTest")
+@DisplayName("Order flow integration tests with outbox")
+public class OutboxOrderFlowsIntegrationTest extends OrderFlowsIntegrationTest {
+
+}
@@ -0,0 +1,148 @@
+package es.codeurjc.mca.tfm.purchases.integration.infrastructure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.PurchasesApplication;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import es.codeurjc.mca.tfm.purchases.testcontainers.TestContainersBase;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.ConcurrentMessageListenerContainer;
+import org.springframework.kafka.test.utils.ContainerTestUtils;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(classes = PurchasesApplication.class)
+@ActiveProfiles("test")
+@TestPropertySource(properties = "kafka.batch.enabled=true")
+@Tag("IntegrationTest")
+@DisplayName("Shopping cart batch events integration tests")
+@DirtiesContext
+public class ShoppingCartBatchEventsIntegrationTest extends TestContainersBase {
+
+  private static final long WAIT_TIME = 5000L;
+
+  private static final Integer USER_ID = 1;
+
+  @Value("${kafka.topics.createShoppingCart}")
+  private String createShoppingCartTopic;
+
+  @Value("${kafka.topics.updateItems}")
+  private String updateItemsTopic;
+
+  @Value("${kafka.topics.deleteShoppingCart}")
+  private String deleteShoppingCartTopic;
+
+  @Autowired
+  private ConcurrentMessageListenerContainer<String, byte[]> shoppingCartBatchListenerContainer;
+
+  @Autowired
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  @Autowired
+  private EventCodecs eventCodecs;
+
+  @Autowired
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @BeforeEach
+  public void setup() {
+    if (this.shoppingCartBatchListenerContainer.getAssignedPartitions().isEmpty()) {
+      ContainerTestUtils.waitForAssignment(this.shoppingCartBatchListenerContainer, 3);
+    }
+  }
+
+  @Test
+  @DisplayName("Test shopping cart creation and items update in the same batch")
+  public void givenCreationAndItemsUpdateEventsWhenProcessedThenShouldStoreShoppingCartWithItems()
+      throws Exception {
+    Long shoppingCartId = System.currentTimeMillis();
+    this.send(this.createShoppingCartTopic, shoppingCartId,
+        buildCreationRequestedEvent(shoppingCartId));
+    this.send(this.updateItemsTopic, shoppingCartId,
+        buildItemsUpdateRequestedEvent(shoppingCartId));
+
+    Thread.sleep(WAIT_TIME);
+
+    Optional<ShoppingCartEntity> shoppingCartEntity =
+        this.jpaShoppingCartRepository.findById(shoppingCartId);
+    assertTrue(shoppingCartEntity.isPresent());
+    assertEquals(USER_ID, shoppingCartEntity.get().getUserId());
+    assertFalse(shoppingCartEntity.get().isCompleted());
+    assertEquals(2.0, shoppingCartEntity.get().getTotalPrice());
+
+    this.send(this.deleteShoppingCartTopic, shoppingCartId,
+        new ShoppingCartDeletionRequestedEvent(shoppingCartId));
+
+    Thread.sleep(WAIT_TIME);
+
+    assertTrue(this.jpaShoppingCartRepository.findById(shoppingCartId).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart creation and deletion in the same batch")
+  public void givenCreationAndDeletionEventsWhenProcessedThenShouldNotStoreShoppingCart()
+      throws Exception {
+    Long shoppingCartId = System.currentTimeMillis();
+    this.send(this.createShoppingCartTopic, shoppingCartId,
+        buildCreationRequestedEvent(shoppingCartId));
+    this.send(this.deleteShoppingCartTopic, shoppingCartId,
+        new ShoppingCartDeletionRequestedEvent(shoppingCartId));
+
+    Thread.sleep(WAIT_TIME);
+
+    assertTrue(this.jpaShoppingCartRepository.findById(shoppingCartId).isEmpty());
+  }
+
+  private void send(String topic, Long shoppingCartId, Object event) throws Exception {
+    this.kafkaTemplate.send(topic, shoppingCartId.toString(), this.eventCodecs.encode(topic, event))
+        .get();
+  }
+
+  private static ShoppingCartCreationRequestedEvent buildCreationRequestedEvent(
+      Long shoppingCartId) {
+    ShoppingCartCreationRequestedEvent creationRequestedEvent =
+        new ShoppingCartCreationRequestedEvent();
+    creationRequestedEvent.setId(shoppingCartId);
+    creationRequestedEvent.setUserId(USER_ID);
+    creationRequestedEvent.setItems(List.of());
+    creationRequestedEvent.setTotalPrice(0.0);
+    return creationRequestedEvent;
+  }
+
+  private static ShoppingCartItemsUpdateRequestedEvent buildItemsUpdateRequestedEvent(
+      Long shoppingCartId) {
+    ShoppingCartItem item = new ShoppingCartItem();
+    item.setProductId(1);
+    item.setUnitPrice(1.0);
+    item.setQuantity(2);
+    item.setTotalPrice(2.0);
+    ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent =
+        new ShoppingCartItemsUpdateRequestedEvent();
+    itemsUpdateRequestedEvent.setId(shoppingCartId);
+    itemsUpdateRequestedEvent.setItems(List.of(item));
+    itemsUpdateRequestedEvent.setTotalPrice(2.0);
+    return itemsUpdateRequestedEvent;
+  }
+
+}
@@ -5,7 +5,7 @@ import static es.codeurjc.mca.tfm.purchases.integration.infrastructure.OrderFlow
 import static es.codeurjc.mca.tfm.purchases.integration.infrastructure.OrderFlowsIntegrationTest.ORDER_INVALID_BALANCE_SC_ID;
 import static es.codeurjc.mca.tfm.purchases.integration.infrastructure.OrderFlowsIntegrationTest.ORDER_INVALID_ITEMS_SC_ID;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
 import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderValidationRequestedEvent;
 import java.util.List;
@@ -18,14 +18,14 @@ import org.springframework.kafka.core.KafkaTemplate;
 @Slf4j
 public class TestEventsListener {
 
-  private KafkaTemplate<String, String> kafkaTemplate;
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
 
-  private ObjectMapper objectMapper;
+  private EventCodecs eventCodecs;
 
-  public TestEventsListener(KafkaTemplate<String, String> kafkaTemplate,
-      ObjectMapper objectMapper) {
+  public TestEventsListener(KafkaTemplate<String, byte[]> kafkaTemplate,
+      EventCodecs eventCodecs) {
     this.kafkaTemplate = kafkaTemplate;
-    this.objectMapper = objectMapper;
+    this.eventCodecs = eventCodecs;
   }
 
   /**
@@ -35,11 +35,11 @@ public class TestEventsListener {
   private String changeOrderStateTopic;
 
   @KafkaListener(topics = "${kafka.topics.validateItems}", groupId = "${kafka.groupId}")
-  public void onValidateItems(String validateItemsEvent) throws Exception {
+  public void onValidateItems(byte[] validateItemsEvent) throws Exception {
     try {
-      log.info("Received {}", validateItemsEvent);
-      OrderValidationRequestedEvent orderValidationRequestedEvent = this.objectMapper.readValue(
+      OrderValidationRequestedEvent orderValidationRequestedEvent = this.eventCodecs.decode(
           validateItemsEvent, OrderValidationRequestedEvent.class);
+      log.info("Received {}", orderValidationRequestedEvent);
       OrderUpdateRequestedEvent orderUpdateRequestedEvent = new OrderUpdateRequestedEvent();
       orderUpdateRequestedEvent.setId(orderValidationRequestedEvent.getId());
       orderUpdateRequestedEvent.setState(orderValidationRequestedEvent.getSuccessState());
@@ -49,20 +49,21 @@ public class TestEventsListener {
         orderUpdateRequestedEvent.setErrors(Optional.of(List.of(INVALID_ITEMS_MSG)));
       }
       this.kafkaTemplate.send(this.changeOrderStateTopic,
-          this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
-      log.info("Sent {}", this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
+          String.valueOf(orderUpdateRequestedEvent.getId()),
+          this.eventCodecs.encode(this.changeOrderStateTopic, orderUpdateRequestedEvent));
+      log.info("Sent {}", orderUpdateRequestedEvent);
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", validateItemsEvent, e.getMessage());
+      log.error("Error processing event: {}", e.getMessage());
       throw e;
     }
   }
 
   @KafkaListener(topics = "${kafka.topics.validateBalance}", groupId = "${kafka.groupId}")
-  public void onValidateBalance(String validateBalanceEvent) throws Exception {
+  public void onValidateBalance(byte[] validateBalanceEvent) throws Exception {
     try {
-      log.info("Received {}", validateBalanceEvent);
-      OrderValidationRequestedEvent orderValidationRequestedEvent = this.objectMapper.readValue(
+      OrderValidationRequestedEvent orderValidationRequestedEvent = this.eventCodecs.decode(
           validateBalanceEvent, OrderValidationRequestedEvent.class);
+      log.info("Received {}", orderValidationRequestedEvent);
       OrderUpdateRequestedEvent orderUpdateRequestedEvent = new OrderUpdateRequestedEvent();
       orderUpdateRequestedEvent.setId(orderValidationRequestedEvent.getId());
       orderUpdateRequestedEvent.setState(orderValidationRequestedEvent.getSuccessState());
@@ -72,10 +73,11 @@ public class TestEventsListener {
         orderUpdateRequestedEvent.setErrors(Optional.of(List.of(INVALID_BALANCE_MSG)));
       }
       this.kafkaTemplate.send(this.changeOrderStateTopic,
-          this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
-      log.info("Sent {}", this.objectMapper.writeValueAsString(orderUpdateRequestedEvent));
+          String.valueOf(orderUpdateRequestedEvent.getId()),
+          this.eventCodecs.encode(this.changeOrderStateTopic, orderUpdateRequestedEvent));
+      log.info("Sent {}", orderUpdateRequestedEvent);
     } catch (Exception e) {
-      log.error("Error processing event {}: {}", validateBalanceEvent, e.getMessage());
+      log.error("Error processing event: {}", e.getMessage());
       throw e;
     }
   }
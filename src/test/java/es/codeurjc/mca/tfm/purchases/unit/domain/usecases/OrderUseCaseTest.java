@@ -26,6 +26,7 @@ import es.codeurjc.mca.tfm.purchases.domain.usecases.OrderUseCaseImpl;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
@@ -70,12 +71,18 @@ public class OrderUseCaseTest {
   @BeforeEach
   public void setUp() {
     this.orderUseCase = new OrderUseCaseImpl(this.orderRepository, this.orderStateServiceMap);
+    when(this.orderRepository.create(any(OrderDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.orderRepository.update(any(OrderDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.orderStateService.performAction(any(), any(), any(OrderDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
   }
 
   @Test
   @DisplayName("Test order creation with completed shopping cart")
   public void givenACompletedShoppingCartDtoWhenCreateThenShouldCreateAndReturnOrderDto() {
-    OrderDto orderDto = this.orderUseCase.create(buildCompletedShoppingCartDto());
+    OrderDto orderDto = this.orderUseCase.create(buildCompletedShoppingCartDto()).join();
 
     verify(this.orderRepository, times(1)).create(orderDtoArgumentCaptor.capture());
 
@@ -94,7 +101,7 @@ public class OrderUseCaseTest {
   @DisplayName("Test order creation with incomplete shopping cart")
   public void givenAnIncompleteShoppingCartDtoWhenCreateThenShouldThrowIllegalShoppingCartStateException() {
     assertThrows(IllegalShoppingCartStateException.class,
-        () -> this.orderUseCase.create(buildIncompleteShoppingCartDto()));
+        () -> this.orderUseCase.create(buildIncompleteShoppingCartDto()).join());
     verify(this.orderRepository, never()).create(any(OrderDto.class));
   }
 
@@ -102,7 +109,7 @@ public class OrderUseCaseTest {
   @DisplayName("Test update a non existing order")
   public void givenANonExistingOrderWhenUpdateThenShouldTReturnEmptyOptional() {
     assertTrue(this.orderUseCase
-        .update(ORDER_ID, OrderState.VALIDATING_ITEMS.name(), Optional.empty())
+        .update(ORDER_ID, OrderState.VALIDATING_ITEMS.name(), Optional.empty()).join()
         .isEmpty());
     verify(this.orderRepository, never()).update(any(OrderDto.class));
   }
@@ -114,7 +121,7 @@ public class OrderUseCaseTest {
         Optional.of(buildFinalStateOrderDto()));
 
     assertThrows(IllegalOrderStateException.class, () -> this.orderUseCase
-        .update(ORDER_ID, OrderState.VALIDATING_ITEMS.name(), Optional.empty()));
+        .update(ORDER_ID, OrderState.VALIDATING_ITEMS.name(), Optional.empty()).join());
     verify(this.orderRepository, never()).update(any(OrderDto.class));
   }
 
@@ -129,7 +136,8 @@ public class OrderUseCaseTest {
 
     List<String> errors = List.of("Not enough stock for product " + PRODUCT_1_ID);
     Optional<OrderDto> optionalOrderDto =
-        this.orderUseCase.update(ORDER_ID, OrderState.REJECTED.name(), Optional.of(errors));
+        this.orderUseCase.update(ORDER_ID, OrderState.REJECTED.name(), Optional.of(errors))
+            .join();
 
     assertFalse(optionalOrderDto.isEmpty());
     OrderDto updatedOrder = optionalOrderDto.get();
@@ -153,7 +161,7 @@ public class OrderUseCaseTest {
         Optional.of(buildNonFinalStateOrderDto()));
 
     assertThrows(PreviousOrderStateUpdateException.class, () -> this.orderUseCase
-        .update(ORDER_ID, OrderState.CREATED.name(), Optional.empty()));
+        .update(ORDER_ID, OrderState.CREATED.name(), Optional.empty()).join());
     verify(this.orderRepository, never()).update(any(OrderDto.class));
   }
 
@@ -168,7 +176,8 @@ public class OrderUseCaseTest {
 
     List<String> errors = List.of("Not enough stock for product " + PRODUCT_1_ID);
     Optional<OrderDto> optionalOrderDto =
-        this.orderUseCase.update(ORDER_ID, OrderState.VALIDATING_BALANCE.name(), Optional.of(errors));
+        this.orderUseCase.update(ORDER_ID, OrderState.VALIDATING_BALANCE.name(), Optional.of(errors))
+            .join();
 
     assertFalse(optionalOrderDto.isEmpty());
     OrderDto updatedOrder = optionalOrderDto.get();
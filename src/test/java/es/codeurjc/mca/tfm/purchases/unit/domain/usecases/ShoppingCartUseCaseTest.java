@@ -22,6 +22,7 @@ import es.codeurjc.mca.tfm.purchases.domain.ports.out.ShoppingCartRepository;
 import es.codeurjc.mca.tfm.purchases.domain.usecases.ShoppingCartUseCaseImpl;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Tag;
@@ -58,6 +59,16 @@ public class ShoppingCartUseCaseTest {
   @BeforeEach
   public void setUp() {
     this.shoppingCartUseCase = new ShoppingCartUseCaseImpl(this.shoppingCartRepository);
+    when(this.shoppingCartRepository.create(any(ShoppingCartDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.shoppingCartRepository.delete(any(Long.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.shoppingCartRepository.complete(any(ShoppingCartDto.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.shoppingCartRepository.setItem(any(ShoppingCartDto.class), any(Integer.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.shoppingCartRepository.deleteItem(any(ShoppingCartDto.class), any(Integer.class)))
+        .thenReturn(CompletableFuture.completedFuture(null));
   }
 
   @Test
@@ -67,14 +78,14 @@ public class ShoppingCartUseCaseTest {
         Optional.of(buildShoppingCartDto(USER_ID)));
 
     assertThrows(IncompleteShoppingCartAlreadyExistsException.class,
-        () -> this.shoppingCartUseCase.create(USER_ID));
+        () -> this.shoppingCartUseCase.create(USER_ID).join());
     verify(this.shoppingCartRepository, never()).create(any(ShoppingCartDto.class));
   }
 
   @Test
   @DisplayName("Test shopping cart creation when user hasn't an incomplete shopping cart")
   public void givenAnUserIdWhenCreateAndDoesNotExistIncompleteShoppingCartForHimThenShouldCreateShoppingCart() {
-    ShoppingCartDto shoppingCartDto = this.shoppingCartUseCase.create(USER_ID);
+    ShoppingCartDto shoppingCartDto = this.shoppingCartUseCase.create(USER_ID).join();
 
     verify(this.shoppingCartRepository, times(1)).create(shoppingCartDtoArgumentCaptor.capture());
 
@@ -89,7 +100,7 @@ public class ShoppingCartUseCaseTest {
   @Test
   @DisplayName("Test shopping cart deletion when shopping cart not found")
   public void givenAShoppingCartIdAndUserIdWhenDeleteAndNotFoundShoppingCartThenShouldReturnEmptyOptional() {
-    assertTrue(this.shoppingCartUseCase.delete(SHOPPING_CART_ID, USER_ID).isEmpty());
+    assertTrue(this.shoppingCartUseCase.delete(SHOPPING_CART_ID, USER_ID).join().isEmpty());
 
     verify(this.shoppingCartRepository, never()).delete(SHOPPING_CART_ID);
   }
@@ -101,7 +112,7 @@ public class ShoppingCartUseCaseTest {
         .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     assertThrows(IllegalShoppingCartStateException.class,
-        () -> this.shoppingCartUseCase.delete(SHOPPING_CART_ID, USER_ID));
+        () -> this.shoppingCartUseCase.delete(SHOPPING_CART_ID, USER_ID).join());
     verify(this.shoppingCartRepository, never()).delete(SHOPPING_CART_ID);
   }
 
@@ -112,7 +123,7 @@ public class ShoppingCartUseCaseTest {
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalDeletedCart = this.shoppingCartUseCase.delete(
-        SHOPPING_CART_ID, USER_ID);
+        SHOPPING_CART_ID, USER_ID).join();
 
     verify(this.shoppingCartRepository, times(1)).delete(SHOPPING_CART_ID);
 
@@ -127,7 +138,7 @@ public class ShoppingCartUseCaseTest {
   @Test
   @DisplayName("Test shopping cart completion when shopping cart not found")
   public void givenAShoppingCartIdAndUserIdWhenCompleteAndNotFoundShoppingCartThenShouldReturnEmptyOptional() {
-    assertTrue(this.shoppingCartUseCase.complete(SHOPPING_CART_ID, USER_ID).isEmpty());
+    assertTrue(this.shoppingCartUseCase.complete(SHOPPING_CART_ID, USER_ID).join().isEmpty());
 
     verify(this.shoppingCartRepository, never()).complete(any(ShoppingCartDto.class));
   }
@@ -139,7 +150,7 @@ public class ShoppingCartUseCaseTest {
         .thenReturn(Optional.of(buildCompletedShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     assertThrows(IllegalShoppingCartStateException.class,
-        () -> this.shoppingCartUseCase.complete(SHOPPING_CART_ID, USER_ID));
+        () -> this.shoppingCartUseCase.complete(SHOPPING_CART_ID, USER_ID).join());
     verify(this.shoppingCartRepository, never()).complete(any(ShoppingCartDto.class));
   }
 
@@ -150,7 +161,7 @@ public class ShoppingCartUseCaseTest {
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalCompletedCart =
-        this.shoppingCartUseCase.complete(SHOPPING_CART_ID, USER_ID);
+        this.shoppingCartUseCase.complete(SHOPPING_CART_ID, USER_ID).join();
 
     assertFalse(optionalCompletedCart.isEmpty());
     ShoppingCartDto completedShoppingCart = optionalCompletedCart.get();
@@ -167,9 +178,10 @@ public class ShoppingCartUseCaseTest {
   @DisplayName("Test set item to shopping cart when shopping cart not found")
   public void givenAShoppingCartIdAndUserIdAdnProductInfoWhenSetItemAndNotFoundShoppingCartThenShouldReturnEmptyOptional() {
     assertTrue(this.shoppingCartUseCase.setItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId(),
-        ITEM_1.getUnitPrice(), ITEM_1.getQuantity()).isEmpty());
+        ITEM_1.getUnitPrice(), ITEM_1.getQuantity()).join().isEmpty());
 
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+    verify(this.shoppingCartRepository, never())
+        .setItem(any(ShoppingCartDto.class), any(Integer.class));
   }
 
   @Test
@@ -180,8 +192,9 @@ public class ShoppingCartUseCaseTest {
 
     assertThrows(IllegalShoppingCartStateException.class,
         () -> this.shoppingCartUseCase.setItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId(),
-            ITEM_1.getUnitPrice(), ITEM_1.getQuantity()));
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+            ITEM_1.getUnitPrice(), ITEM_1.getQuantity()).join());
+    verify(this.shoppingCartRepository, never())
+        .setItem(any(ShoppingCartDto.class), any(Integer.class));
   }
 
   @Test
@@ -192,8 +205,9 @@ public class ShoppingCartUseCaseTest {
 
     assertThrows(InvalidItemException.class,
         () -> this.shoppingCartUseCase.setItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId(),
-            ITEM_1.getUnitPrice(), -1));
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+            ITEM_1.getUnitPrice(), -1).join());
+    verify(this.shoppingCartRepository, never())
+        .setItem(any(ShoppingCartDto.class), any(Integer.class));
   }
 
   @Test
@@ -204,7 +218,7 @@ public class ShoppingCartUseCaseTest {
 
     Optional<ShoppingCartDto> optionalUpdatedCart =
         this.shoppingCartUseCase.setItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId(),
-            ITEM_1.getUnitPrice(), ITEM_1.getQuantity());
+            ITEM_1.getUnitPrice(), ITEM_1.getQuantity()).join();
 
     assertFalse(optionalUpdatedCart.isEmpty());
     ShoppingCartDto updatedShoppingCart = optionalUpdatedCart.get();
@@ -214,16 +228,17 @@ public class ShoppingCartUseCaseTest {
     assertEquals(PRODUCT_1_PRICE, updatedShoppingCart.getTotalPrice());
 
     verify(this.shoppingCartRepository, times(1))
-        .updateItems(updatedShoppingCart);
+        .setItem(updatedShoppingCart, ITEM_1.getProductId());
   }
 
   @Test
   @DisplayName("Test delete item from shopping cart when shopping cart not found")
   public void givenAShoppingCartIdAndUserIdAndProductIdWhenDeleteItemAndNotFoundShoppingCartThenShouldReturnEmptyOptional() {
     assertTrue(this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId())
-        .isEmpty());
+        .join().isEmpty());
 
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+    verify(this.shoppingCartRepository, never())
+        .deleteItem(any(ShoppingCartDto.class), any(Integer.class));
   }
 
   @Test
@@ -234,8 +249,9 @@ public class ShoppingCartUseCaseTest {
 
     assertThrows(IllegalShoppingCartStateException.class,
         () -> this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID,
-            ITEM_1.getProductId()));
-    verify(this.shoppingCartRepository, never()).updateItems(any(ShoppingCartDto.class));
+            ITEM_1.getProductId()).join());
+    verify(this.shoppingCartRepository, never())
+        .deleteItem(any(ShoppingCartDto.class), any(Integer.class));
   }
 
   @Test
@@ -245,7 +261,7 @@ public class ShoppingCartUseCaseTest {
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalUpdatedCart =
-        this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID, 999);
+        this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID, 999).join();
 
     assertFalse(optionalUpdatedCart.isEmpty());
     ShoppingCartDto updatedShoppingCart = optionalUpdatedCart.get();
@@ -254,7 +270,7 @@ public class ShoppingCartUseCaseTest {
     assertEquals(List.of(new ItemDto(ITEM_1)), updatedShoppingCart.getItems());
     assertEquals(PRODUCT_1_PRICE, updatedShoppingCart.getTotalPrice());
 
-    verify(this.shoppingCartRepository, never()).updateItems(updatedShoppingCart);
+    verify(this.shoppingCartRepository, never()).deleteItem(updatedShoppingCart, 999);
   }
 
   @Test
@@ -264,7 +280,8 @@ public class ShoppingCartUseCaseTest {
         .thenReturn(Optional.of(buildIncompleteShoppingCartDto(SHOPPING_CART_ID, USER_ID)));
 
     Optional<ShoppingCartDto> optionalUpdatedCart =
-        this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId());
+        this.shoppingCartUseCase.deleteItem(SHOPPING_CART_ID, USER_ID, ITEM_1.getProductId())
+            .join();
 
     assertFalse(optionalUpdatedCart.isEmpty());
     ShoppingCartDto updatedShoppingCart = optionalUpdatedCart.get();
@@ -274,7 +291,7 @@ public class ShoppingCartUseCaseTest {
     assertEquals(0, updatedShoppingCart.getTotalPrice());
 
     verify(this.shoppingCartRepository, times(1))
-        .updateItems(updatedShoppingCart);
+        .deleteItem(updatedShoppingCart, ITEM_1.getProductId());
   }
 
   private static ShoppingCartDto buildShoppingCartDto(Integer userId) {
@@ -0,0 +1,168 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.adapters;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.infrastructure.adapters.KafkaShoppingCartRepositoryAdapter;
+import es.codeurjc.mca.tfm.purchases.infrastructure.adapters.ShoppingCartChangelogView;
+import es.codeurjc.mca.tfm.purchases.infrastructure.adapters.ShoppingCartItemsCoalescer;
+import es.codeurjc.mca.tfm.purchases.infrastructure.adapters.ShoppingCartStreamsStore;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.EventPublisher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Kafka Shopping Cart Repository Adapter tests")
+public class KafkaShoppingCartRepositoryAdapterTest {
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Integer USER_ID = 1;
+
+  private static final String UPDATE_ITEMS_TOPIC = "update-items";
+
+  private static final String DELETE_SHOPPING_CART_TOPIC = "delete-shopping-carts";
+
+  private static final String COMPLETE_SHOPPING_CART_TOPIC = "complete-shopping-carts";
+
+  private static final long LONG_WINDOW_MS = 60000;
+
+  @Mock
+  private InfraMapper infraMapper;
+
+  @Mock
+  private EventPublisher eventPublisher;
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @Mock
+  private ObjectProvider<ShoppingCartChangelogView> shoppingCartChangelogView;
+
+  @Mock
+  private ObjectProvider<ShoppingCartStreamsStore> shoppingCartStreamsStore;
+
+  private ShoppingCartItemsCoalescer coalescer;
+
+  private KafkaShoppingCartRepositoryAdapter adapter;
+
+  private CompletableFuture<Void> itemsUpdatePublication;
+
+  @BeforeEach
+  public void setUp() {
+    this.coalescer = new ShoppingCartItemsCoalescer(LONG_WINDOW_MS);
+    this.adapter = new KafkaShoppingCartRepositoryAdapter(this.infraMapper, this.eventPublisher,
+        this.jpaShoppingCartRepository, this.coalescer, this.shoppingCartChangelogView,
+        this.shoppingCartStreamsStore);
+    ReflectionTestUtils.setField(this.adapter, "updateItemsTopic", UPDATE_ITEMS_TOPIC);
+    ReflectionTestUtils.setField(this.adapter, "deleteShoppingCartTopic",
+        DELETE_SHOPPING_CART_TOPIC);
+    ReflectionTestUtils.setField(this.adapter, "completeShoppingCartTopic",
+        COMPLETE_SHOPPING_CART_TOPIC);
+    this.itemsUpdatePublication = new CompletableFuture<>();
+    when(this.eventPublisher.publish(eq(UPDATE_ITEMS_TOPIC), any(), any()))
+        .thenReturn(this.itemsUpdatePublication);
+    when(this.eventPublisher.publish(eq(DELETE_SHOPPING_CART_TOPIC), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.eventPublisher.publish(eq(COMPLETE_SHOPPING_CART_TOPIC), any(), any()))
+        .thenReturn(CompletableFuture.completedFuture(null));
+    when(this.infraMapper.mapToShoppingCartItemsUpdateRequestedEvent(any(ShoppingCartDto.class)))
+        .thenReturn(new ShoppingCartItemsUpdateRequestedEvent());
+    when(this.infraMapper.mapToShoppingCartCompletionRequestedEvent(any(ShoppingCartDto.class)))
+        .thenReturn(new ShoppingCartCompletionRequestedEvent());
+  }
+
+  @AfterEach
+  public void tearDown() {
+    this.itemsUpdatePublication.complete(null);
+    this.coalescer.stop();
+  }
+
+  @Test
+  @DisplayName("Test held items update is published before the deletion")
+  public void givenHeldItemsUpdateWhenDeleteThenShouldPublishDeletionOnceItemsUpdateIsPublished() {
+    this.adapter.setItem(buildShoppingCartDto(), 100);
+
+    CompletableFuture<Void> future = this.adapter.delete(SHOPPING_CART_ID);
+
+    verify(this.eventPublisher).publish(eq(UPDATE_ITEMS_TOPIC), any(), any());
+    verify(this.eventPublisher, never()).publish(eq(DELETE_SHOPPING_CART_TOPIC), any(), any());
+    assertFalse(future.isDone());
+
+    this.itemsUpdatePublication.complete(null);
+
+    verify(this.eventPublisher).publish(eq(DELETE_SHOPPING_CART_TOPIC),
+        eq(String.valueOf(SHOPPING_CART_ID)), any(ShoppingCartDeletionRequestedEvent.class));
+    assertTrue(future.isDone());
+  }
+
+  @Test
+  @DisplayName("Test held items update is published before the completion")
+  public void givenHeldItemsUpdateWhenCompleteThenShouldPublishCompletionOnceItemsUpdateIsPublished() {
+    ShoppingCartDto shoppingCartDto = buildShoppingCartDto();
+    this.adapter.setItem(shoppingCartDto, 100);
+
+    CompletableFuture<Void> future = this.adapter.complete(shoppingCartDto);
+
+    verify(this.eventPublisher, never()).publish(eq(COMPLETE_SHOPPING_CART_TOPIC), any(), any());
+    assertFalse(future.isDone());
+
+    this.itemsUpdatePublication.complete(null);
+
+    verify(this.eventPublisher).publish(eq(COMPLETE_SHOPPING_CART_TOPIC), any(),
+        any(ShoppingCartCompletionRequestedEvent.class));
+    assertTrue(future.isDone());
+  }
+
+  @Test
+  @DisplayName("Test read shopping cart returns its held items update")
+  public void givenHeldItemsUpdateWhenGetByIdAndUserThenShouldReturnHeldShoppingCart() {
+    ShoppingCartDto shoppingCartDto = buildShoppingCartDto();
+    ShoppingCartEntity shoppingCartEntity = new ShoppingCartEntity();
+    shoppingCartEntity.setId(SHOPPING_CART_ID);
+    shoppingCartEntity.setUserId(USER_ID);
+    when(this.jpaShoppingCartRepository.findByIdAndUserId(SHOPPING_CART_ID, USER_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    this.adapter.setItem(shoppingCartDto, 100);
+
+    Optional<ShoppingCartDto> result = this.adapter.getByIdAndUser(SHOPPING_CART_ID, USER_ID);
+
+    assertSame(shoppingCartDto, result.orElseThrow());
+    verify(this.infraMapper, never()).map(any(ShoppingCartEntity.class));
+  }
+
+  private static ShoppingCartDto buildShoppingCartDto() {
+    ShoppingCartDto shoppingCartDto = new ShoppingCartDto();
+    shoppingCartDto.setId(SHOPPING_CART_ID);
+    shoppingCartDto.setUserId(USER_ID);
+    shoppingCartDto.setItems(List.of());
+    shoppingCartDto.setTotalPrice(0.0);
+    return shoppingCartDto;
+  }
+
+}
@@ -0,0 +1,186 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.adapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.domain.dtos.ShoppingCartDto;
+import es.codeurjc.mca.tfm.purchases.infrastructure.adapters.ShoppingCartItemsCoalescer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping Cart Items Coalescer tests")
+public class ShoppingCartItemsCoalescerTest {
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final long WINDOW_MS = 100;
+
+  private static final long LONG_WINDOW_MS = 60000;
+
+  private static final long TIMEOUT_MS = 5000;
+
+  private final List<ShoppingCartDto> published = new CopyOnWriteArrayList<>();
+
+  private ShoppingCartItemsCoalescer coalescer;
+
+  @AfterEach
+  public void tearDown() {
+    if (this.coalescer != null) {
+      this.coalescer.stop();
+    }
+  }
+
+  @Test
+  @DisplayName("Test coalescing is disabled without window")
+  public void givenZeroWindowWhenIsEnabledThenShouldReturnFalse() {
+    this.coalescer = new ShoppingCartItemsCoalescer(0);
+
+    assertFalse(this.coalescer.isEnabled());
+  }
+
+  @Test
+  @DisplayName("Test only the newest snapshot held in a window is published when it expires")
+  public void givenSeveralSnapshotsHeldInWindowWhenWindowExpiresThenShouldPublishOnlyTheNewest()
+      throws Exception {
+    this.coalescer = new ShoppingCartItemsCoalescer(WINDOW_MS);
+    ShoppingCartDto first = buildShoppingCartDto(1.0);
+    ShoppingCartDto second = buildShoppingCartDto(2.0);
+    ShoppingCartDto third = buildShoppingCartDto(3.0);
+
+    CompletableFuture<Void> firstFuture = this.coalescer.hold(first, this::publish);
+    CompletableFuture<Void> secondFuture = this.coalescer.hold(second, this::publish);
+    CompletableFuture<Void> thirdFuture = this.coalescer.hold(third, this::publish);
+    assertTrue(this.published.isEmpty());
+
+    thirdFuture.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    assertTrue(firstFuture.isDone());
+    assertTrue(secondFuture.isDone());
+    assertEquals(List.of(third), this.published);
+    assertTrue(this.coalescer.getHeld(SHOPPING_CART_ID).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test held snapshot is returned until it's published")
+  public void givenHeldSnapshotWhenGetHeldThenShouldReturnItUntilItsFlushed() {
+    this.coalescer = new ShoppingCartItemsCoalescer(LONG_WINDOW_MS);
+    ShoppingCartDto first = buildShoppingCartDto(1.0);
+    ShoppingCartDto second = buildShoppingCartDto(2.0);
+
+    assertTrue(this.coalescer.getHeld(SHOPPING_CART_ID).isEmpty());
+    this.coalescer.hold(first, this::publish);
+    assertSame(first, this.coalescer.getHeld(SHOPPING_CART_ID).orElseThrow());
+    this.coalescer.hold(second, this::publish);
+    assertSame(second, this.coalescer.getHeld(SHOPPING_CART_ID).orElseThrow());
+
+    this.coalescer.flush(SHOPPING_CART_ID);
+
+    assertTrue(this.coalescer.getHeld(SHOPPING_CART_ID).isEmpty());
+    assertEquals(List.of(second), this.published);
+  }
+
+  @Test
+  @DisplayName("Test flush publishes the held snapshot before its window expires")
+  public void givenHeldSnapshotWhenFlushThenShouldPublishItOnceWithoutWaitingWindow()
+      throws Exception {
+    this.coalescer = new ShoppingCartItemsCoalescer(WINDOW_MS);
+    ShoppingCartDto first = buildShoppingCartDto(1.0);
+    CompletableFuture<Void> holdFuture = this.coalescer.hold(first, this::publish);
+
+    CompletableFuture<Void> flushFuture = this.coalescer.flush(SHOPPING_CART_ID);
+
+    assertSame(holdFuture, flushFuture);
+    assertTrue(flushFuture.isDone());
+    assertEquals(List.of(first), this.published);
+    Thread.sleep(WINDOW_MS * 3);
+    assertEquals(List.of(first), this.published);
+    assertTrue(this.coalescer.flush(SHOPPING_CART_ID).isDone());
+  }
+
+  @Test
+  @DisplayName("Test snapshot held after a flush waits for its own window")
+  public void givenSnapshotHeldAfterFlushWhenFirstWindowExpiresThenShouldNotPublishItEarly()
+      throws Exception {
+    this.coalescer = new ShoppingCartItemsCoalescer(WINDOW_MS);
+    ShoppingCartDto first = buildShoppingCartDto(1.0);
+    ShoppingCartDto second = buildShoppingCartDto(2.0);
+    this.coalescer.hold(first, this::publish);
+    Thread.sleep(WINDOW_MS / 2);
+    this.coalescer.flush(SHOPPING_CART_ID);
+
+    CompletableFuture<Void> secondFuture = this.coalescer.hold(second, this::publish);
+    Thread.sleep(WINDOW_MS / 2 + 20);
+
+    assertEquals(List.of(first), this.published);
+    assertSame(second, this.coalescer.getHeld(SHOPPING_CART_ID).orElseThrow());
+    secondFuture.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    assertEquals(List.of(first, second), this.published);
+  }
+
+  @Test
+  @DisplayName("Test concurrent holds and flushes complete every held snapshot future")
+  public void givenConcurrentHoldsAndFlushesWhenAllArePublishedThenShouldCompleteEveryFuture()
+      throws Exception {
+    this.coalescer = new ShoppingCartItemsCoalescer(1);
+    int threads = 4;
+    int holdsPerThread = 200;
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<CompletableFuture<List<CompletableFuture<Void>>>> tasks = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      int thread = t;
+      tasks.add(CompletableFuture.supplyAsync(() -> {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < holdsPerThread; i++) {
+          futures.add(this.coalescer.hold(buildShoppingCartDto(thread * holdsPerThread + i),
+              this::publish));
+          if (i % 10 == 0) {
+            futures.add(this.coalescer.flush(SHOPPING_CART_ID));
+          }
+        }
+        return futures;
+      }, executor));
+    }
+
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    for (CompletableFuture<List<CompletableFuture<Void>>> task : tasks) {
+      futures.addAll(task.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    }
+    this.coalescer.flush(SHOPPING_CART_ID);
+    CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]))
+        .get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    executor.shutdown();
+
+    assertTrue(this.coalescer.getHeld(SHOPPING_CART_ID).isEmpty());
+    assertFalse(this.published.isEmpty());
+    assertTrue(this.published.size() <= threads * holdsPerThread);
+  }
+
+  private CompletableFuture<Void> publish(ShoppingCartDto shoppingCartDto) {
+    this.published.add(shoppingCartDto);
+    return CompletableFuture.completedFuture(null);
+  }
+
+  private static ShoppingCartDto buildShoppingCartDto(double totalPrice) {
+    ShoppingCartDto shoppingCartDto = new ShoppingCartDto();
+    shoppingCartDto.setId(SHOPPING_CART_ID);
+    shoppingCartDto.setUserId(1);
+    shoppingCartDto.setItems(List.of());
+    shoppingCartDto.setTotalPrice(totalPrice);
+    return shoppingCartDto;
+  }
+
+}
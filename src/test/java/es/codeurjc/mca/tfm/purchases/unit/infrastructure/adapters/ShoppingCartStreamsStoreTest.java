@@ -0,0 +1,148 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.adapters;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.application.security.config.SecurityConfig;
+import es.codeurjc.mca.tfm.purchases.application.security.filters.JwtTokenProvider;
+import es.codeurjc.mca.tfm.purchases.infrastructure.adapters.ShoppingCartStreamsStore;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.kafka.common.serialization.Serializer;
+import org.apache.kafka.streams.KafkaStreams;
+import org.apache.kafka.streams.KeyQueryMetadata;
+import org.apache.kafka.streams.state.HostInfo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.kafka.config.StreamsBuilderFactoryBean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.RestTemplate;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping Cart Streams Store tests")
+public class ShoppingCartStreamsStoreTest {
+
+  private static final String STORE_NAME = "shopping-carts-store";
+
+  private static final int MANAGEMENT_PORT = 8447;
+
+  private static final HostInfo OWNER = new HostInfo("10.0.0.2", MANAGEMENT_PORT);
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Integer USER_ID = 1;
+
+  private static final String SERVICE_TOKEN = "service-token";
+
+  private static final String REMOTE_URL = "http://10.0.0.2:8447/actuator/shoppingcartstore/"
+      + SHOPPING_CART_ID + "?userId=" + USER_ID;
+
+  @Mock
+  private StreamsBuilderFactoryBean streamsBuilderFactoryBean;
+
+  @Mock
+  private KafkaStreams kafkaStreams;
+
+  @Mock
+  private JwtTokenProvider jwtTokenProvider;
+
+  @Mock
+  private RestTemplateBuilder restTemplateBuilder;
+
+  @Mock
+  private RestTemplate restTemplate;
+
+  @Captor
+  private ArgumentCaptor<HttpEntity<?>> requestCaptor;
+
+  private ShoppingCartStreamsStore shoppingCartStreamsStore;
+
+  @BeforeEach
+  public void setUp() {
+    when(this.restTemplateBuilder.setConnectTimeout(any(Duration.class)))
+        .thenReturn(this.restTemplateBuilder);
+    when(this.restTemplateBuilder.setReadTimeout(any(Duration.class)))
+        .thenReturn(this.restTemplateBuilder);
+    when(this.restTemplateBuilder.build()).thenReturn(this.restTemplate);
+    when(this.streamsBuilderFactoryBean.getKafkaStreams()).thenReturn(this.kafkaStreams);
+    when(this.kafkaStreams.queryMetadataForKey(eq(STORE_NAME), anyString(),
+        any(Serializer.class))).thenReturn(new KeyQueryMetadata(OWNER, Set.of(), 0));
+    when(this.jwtTokenProvider.createServiceToken(SecurityConfig.SERVICE_ROLE))
+        .thenReturn(SERVICE_TOKEN);
+
+    EventCodecs eventCodecs = new EventCodecs();
+    eventCodecs.init();
+    this.shoppingCartStreamsStore = new ShoppingCartStreamsStore(this.streamsBuilderFactoryBean,
+        eventCodecs, this.jwtTokenProvider, this.restTemplateBuilder, STORE_NAME, "10.0.0.1",
+        MANAGEMENT_PORT, "http", 500);
+  }
+
+  @Test
+  @DisplayName("Test shopping cart held by other instance is queried with a token of the service")
+  public void givenShoppingCartInOtherInstanceWhenGetThenShouldQueryItWithServiceToken() {
+    when(this.restTemplate.exchange(eq(REMOTE_URL), eq(HttpMethod.GET), any(HttpEntity.class),
+        eq(ShoppingCartSnapshot.class)))
+        .thenReturn(ResponseEntity.ok(buildShoppingCartSnapshot(USER_ID)));
+
+    Optional<ShoppingCartSnapshot> shoppingCartSnapshot =
+        this.shoppingCartStreamsStore.getByIdAndUser(SHOPPING_CART_ID, USER_ID);
+
+    assertTrue(shoppingCartSnapshot.isPresent());
+    assertEquals(SHOPPING_CART_ID, shoppingCartSnapshot.get().getId());
+    verify(this.restTemplate).exchange(eq(REMOTE_URL), eq(HttpMethod.GET),
+        this.requestCaptor.capture(), eq(ShoppingCartSnapshot.class));
+    assertEquals("Bearer " + SERVICE_TOKEN,
+        this.requestCaptor.getValue().getHeaders().getFirst(HttpHeaders.AUTHORIZATION));
+  }
+
+  @Test
+  @DisplayName("Test shopping cart not found in other instance is reported as missing")
+  public void givenShoppingCartNotFoundInOtherInstanceWhenGetThenShouldReturnEmpty() {
+    when(this.restTemplate.exchange(eq(REMOTE_URL), eq(HttpMethod.GET), any(HttpEntity.class),
+        eq(ShoppingCartSnapshot.class)))
+        .thenThrow(HttpClientErrorException.create(HttpStatus.NOT_FOUND, "Not Found", null, null,
+            null));
+
+    assertTrue(this.shoppingCartStreamsStore.getByIdAndUser(SHOPPING_CART_ID, USER_ID).isEmpty());
+  }
+
+  @Test
+  @DisplayName("Test shopping cart of other user returned by other instance is not returned")
+  public void givenShoppingCartOfOtherUserInOtherInstanceWhenGetThenShouldReturnEmpty() {
+    when(this.restTemplate.exchange(eq(REMOTE_URL), eq(HttpMethod.GET), any(HttpEntity.class),
+        eq(ShoppingCartSnapshot.class)))
+        .thenReturn(ResponseEntity.ok(buildShoppingCartSnapshot(USER_ID + 1)));
+
+    assertTrue(this.shoppingCartStreamsStore.getByIdAndUser(SHOPPING_CART_ID, USER_ID).isEmpty());
+  }
+
+  private static ShoppingCartSnapshot buildShoppingCartSnapshot(Integer userId) {
+    ShoppingCartSnapshot shoppingCartSnapshot = new ShoppingCartSnapshot();
+    shoppingCartSnapshot.setId(SHOPPING_CART_ID);
+    shoppingCartSnapshot.setUserId(userId);
+    return shoppingCartSnapshot;
+  }
+
+}
@@ -0,0 +1,71 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.configs;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaConsumerConfig;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDispatcher;
+import java.util.Set;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Kafka Consumer Config tests")
+public class KafkaConsumerConfigTest {
+
+  private static final String UPDATE_ORDER_TOPIC = "update-orders";
+
+  private static final String CHANGE_STATE_TOPIC = "change-orders-state";
+
+  @Mock
+  private EventDispatcher eventDispatcher;
+
+  @Test
+  @DisplayName("Test startup fails if order updates and order state changes are both multiplexed")
+  public void givenOrderUpdatesAndStateChangesMultiplexedWhenCreateContainerThenShouldFail() {
+    KafkaConsumerConfig kafkaConsumerConfig =
+        buildConfig(Set.of("create-orders", UPDATE_ORDER_TOPIC, CHANGE_STATE_TOPIC));
+
+    IllegalStateException exception = assertThrows(IllegalStateException.class,
+        () -> kafkaConsumerConfig.multiplexedListenerContainer(null, this.eventDispatcher, null,
+            1));
+
+    assertTrue(exception.getMessage().contains(CHANGE_STATE_TOPIC));
+  }
+
+  @Test
+  @DisplayName("Test order updates can be multiplexed if order state changes are left out")
+  public void givenStateChangesLeftOutWhenCreateContainerThenShouldCheckListeners() {
+    KafkaConsumerConfig kafkaConsumerConfig =
+        buildConfig(Set.of(UPDATE_ORDER_TOPIC, CHANGE_STATE_TOPIC));
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "transactionsEnabled", true);
+
+    IllegalStateException exception = assertThrows(IllegalStateException.class,
+        () -> kafkaConsumerConfig.multiplexedListenerContainer(null, this.eventDispatcher, null,
+            1));
+
+    assertTrue(exception.getMessage().startsWith("Not listener found"));
+  }
+
+  private static KafkaConsumerConfig buildConfig(Set<String> multiplexedTopics) {
+    KafkaConsumerConfig kafkaConsumerConfig = new KafkaConsumerConfig();
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "multiplexedEnabled", true);
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "multiplexedTopics", multiplexedTopics);
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "parallelEnabled", false);
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "parallelTopics", Set.of());
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "inProcessTopics", Set.of());
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "transactionsEnabled", false);
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "transactionalTopics",
+        Set.of(CHANGE_STATE_TOPIC));
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "updateOrderTopic", UPDATE_ORDER_TOPIC);
+    ReflectionTestUtils.setField(kafkaConsumerConfig, "changeStateTopic", CHANGE_STATE_TOPIC);
+    return kafkaConsumerConfig;
+  }
+
+}
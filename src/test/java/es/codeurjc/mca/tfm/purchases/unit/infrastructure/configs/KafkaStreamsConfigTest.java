@@ -0,0 +1,37 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.configs;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaStreamsConfig;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Kafka Streams Config tests")
+public class KafkaStreamsConfigTest {
+
+  @Test
+  @DisplayName("Test startup fails if shopping carts changelog is not published")
+  public void givenChangelogDisabledWhenInitThenShouldFail() {
+    KafkaStreamsConfig kafkaStreamsConfig = new KafkaStreamsConfig();
+    ReflectionTestUtils.setField(kafkaStreamsConfig, "changelogEnabled", false);
+
+    assertThrows(IllegalStateException.class, kafkaStreamsConfig::init);
+  }
+
+  @Test
+  @DisplayName("Test startup succeeds if shopping carts changelog is published")
+  public void givenChangelogEnabledWhenInitThenShouldNotFail() {
+    KafkaStreamsConfig kafkaStreamsConfig = new KafkaStreamsConfig();
+    ReflectionTestUtils.setField(kafkaStreamsConfig, "changelogEnabled", true);
+
+    assertDoesNotThrow(kafkaStreamsConfig::init);
+  }
+
+}
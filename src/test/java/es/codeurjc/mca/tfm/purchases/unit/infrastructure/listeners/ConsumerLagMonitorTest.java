@@ -0,0 +1,173 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ConsumerLagMonitor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import org.apache.kafka.clients.admin.AdminClient;
+import org.apache.kafka.clients.admin.AdminClientConfig;
+import org.apache.kafka.clients.admin.ListConsumerGroupOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult;
+import org.apache.kafka.clients.admin.ListOffsetsResult.ListOffsetsResultInfo;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.KafkaFuture;
+import org.apache.kafka.common.TopicPartition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaAdmin;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Consumer Lag Monitor tests")
+public class ConsumerLagMonitorTest {
+
+  private static final String LAG_METRIC = "purchases.consumer.lag";
+
+  private static final String GROUP = "purchases-group";
+
+  private static final String TOPIC = "update-items";
+
+  private static final String OTHER_TOPIC = "create-orders";
+
+  private static final long TIMEOUT_MS = 3000;
+
+  private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+
+  private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+  private static final TopicPartition OTHER_PARTITION = new TopicPartition(OTHER_TOPIC, 0);
+
+  @Mock
+  private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+  @Mock
+  private KafkaAdmin kafkaAdmin;
+
+  @Mock
+  private AdminClient adminClient;
+
+  @Mock
+  private ListConsumerGroupOffsetsResult listConsumerGroupOffsetsResult;
+
+  @Mock
+  private MessageListenerContainer container;
+
+  @Mock
+  private MessageListenerContainer otherContainer;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private ConsumerLagMonitor consumerLagMonitor;
+
+  @BeforeEach
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    when(this.kafkaAdmin.getConfigurationProperties())
+        .thenReturn(Map.of(AdminClientConfig.BOOTSTRAP_SERVERS_CONFIG, "localhost:9092"));
+    this.consumerLagMonitor = new ConsumerLagMonitor(this.kafkaListenerEndpointRegistry,
+        this.meterRegistry, this.kafkaAdmin, TIMEOUT_MS);
+    this.consumerLagMonitor.close();
+    ReflectionTestUtils.setField(this.consumerLagMonitor, "adminClient", this.adminClient);
+
+    when(this.container.isRunning()).thenReturn(true);
+    when(this.container.getGroupId()).thenReturn(GROUP);
+    when(this.otherContainer.isRunning()).thenReturn(true);
+    when(this.otherContainer.getGroupId()).thenReturn(GROUP);
+    when(this.kafkaListenerEndpointRegistry.getAllListenerContainers())
+        .thenReturn(List.of(this.container, this.otherContainer));
+    when(this.adminClient.listOffsets(anyMap())).thenAnswer(invocation -> {
+      Map<TopicPartition, ?> partitions = invocation.getArgument(0);
+      return new ListOffsetsResult(partitions.keySet().stream().collect(Collectors.toMap(
+          partition -> partition,
+          partition -> KafkaFuture.completedFuture(
+              new ListOffsetsResultInfo(100, -1, Optional.empty())))));
+    });
+    when(this.adminClient.listConsumerGroupOffsets(GROUP))
+        .thenReturn(this.listConsumerGroupOffsetsResult);
+    when(this.listConsumerGroupOffsetsResult.partitionsToOffsetAndMetadata())
+        .thenReturn(KafkaFuture.completedFuture(Map.of(
+            PARTITION_0, new OffsetAndMetadata(90),
+            PARTITION_1, new OffsetAndMetadata(60),
+            OTHER_PARTITION, new OffsetAndMetadata(100))));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    this.meterRegistry.close();
+  }
+
+  @Test
+  @DisplayName("Test lag of each assigned partition is reported by group, topic and partition")
+  public void givenAssignedPartitionsWhenUpdateThenShouldReportLagOfEachPartition() {
+    when(this.container.getAssignedPartitions()).thenReturn(List.of(PARTITION_0, PARTITION_1));
+    when(this.otherContainer.getAssignedPartitions()).thenReturn(List.of(OTHER_PARTITION));
+
+    this.consumerLagMonitor.update();
+
+    assertEquals(10, this.lag(PARTITION_0));
+    assertEquals(40, this.lag(PARTITION_1));
+    assertEquals(0, this.lag(OTHER_PARTITION));
+    assertEquals(50, this.consumerLagMonitor.getLag(Set.of(TOPIC)));
+    assertEquals(50, this.consumerLagMonitor.getLag(Set.of(TOPIC, OTHER_TOPIC)));
+  }
+
+  @Test
+  @DisplayName("Test partitions no longer assigned stop being reported")
+  public void givenRevokedPartitionWhenUpdateThenShouldStopReportingIt() {
+    when(this.container.getAssignedPartitions()).thenReturn(List.of(PARTITION_0, PARTITION_1));
+    when(this.otherContainer.getAssignedPartitions()).thenReturn(List.of());
+    this.consumerLagMonitor.update();
+
+    when(this.container.getAssignedPartitions()).thenReturn(List.of(PARTITION_0));
+    this.consumerLagMonitor.update();
+
+    assertEquals(10, this.lag(PARTITION_0));
+    assertNull(this.meterRegistry.find(LAG_METRIC)
+        .tag("partition", String.valueOf(PARTITION_1.partition()))
+        .gauge());
+    assertEquals(10, this.consumerLagMonitor.getLag(Set.of(TOPIC)));
+  }
+
+  @Test
+  @DisplayName("Test partitions of stopped containers are not reported")
+  public void givenStoppedContainerWhenUpdateThenShouldNotReportItsPartitions() {
+    when(this.container.isRunning()).thenReturn(false);
+    when(this.container.getAssignedPartitions()).thenReturn(List.of(PARTITION_0));
+    when(this.otherContainer.isRunning()).thenReturn(false);
+
+    this.consumerLagMonitor.update();
+
+    assertNull(this.meterRegistry.find(LAG_METRIC).gauge());
+    verify(this.adminClient, never()).listOffsets(anyMap());
+    verify(this.adminClient, never()).listConsumerGroupOffsets(GROUP);
+  }
+
+  private double lag(TopicPartition partition) {
+    return this.meterRegistry.get(LAG_METRIC)
+        .tag("group", GROUP)
+        .tag("topic", partition.topic())
+        .tag("partition", String.valueOf(partition.partition()))
+        .gauge()
+        .value();
+  }
+
+}
@@ -0,0 +1,195 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.DatabaseBackpressureController;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.PriorityLaneController;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import javax.sql.DataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Database Backpressure Controller tests")
+public class DatabaseBackpressureControllerTest {
+
+  private static final String POOL_NAME = "HikariPool-1";
+
+  private static final int MAX_POOL_SIZE = 10;
+
+  private static final double PAUSE_WAIT_MS = 200;
+
+  private static final double RESUME_WAIT_MS = 20;
+
+  private static final double PAUSE_ACTIVE_RATIO = 1.0;
+
+  private static final double RESUME_ACTIVE_RATIO = 0.7;
+
+  @Mock
+  private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+  @Mock
+  private DataSource dataSource;
+
+  @Mock
+  private HikariDataSource hikariDataSource;
+
+  @Mock
+  private HikariPoolMXBean pool;
+
+  @Mock
+  private ObjectProvider<PriorityLaneController> priorityLaneControllerProvider;
+
+  @Mock
+  private PriorityLaneController priorityLaneController;
+
+  @Mock
+  private MessageListenerContainer container;
+
+  @Mock
+  private MessageListenerContainer laneContainer;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private Timer acquireTimer;
+
+  private DatabaseBackpressureController databaseBackpressureController;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.acquireTimer = Timer.builder("hikari.connections.acquire")
+        .tag("pool", POOL_NAME)
+        .register(this.meterRegistry);
+    when(this.dataSource.unwrap(HikariDataSource.class)).thenReturn(this.hikariDataSource);
+    when(this.hikariDataSource.getHikariPoolMXBean()).thenReturn(this.pool);
+    when(this.hikariDataSource.getMaximumPoolSize()).thenReturn(MAX_POOL_SIZE);
+    when(this.hikariDataSource.getPoolName()).thenReturn(POOL_NAME);
+    when(this.container.isRunning()).thenReturn(true);
+    when(this.laneContainer.isRunning()).thenReturn(true);
+    when(this.kafkaListenerEndpointRegistry.getAllListenerContainers())
+        .thenReturn(List.of(this.container, this.laneContainer));
+    this.databaseBackpressureController = new DatabaseBackpressureController(
+        this.kafkaListenerEndpointRegistry, this.meterRegistry, this.dataSource, PAUSE_WAIT_MS,
+        RESUME_WAIT_MS, PAUSE_ACTIVE_RATIO, RESUME_ACTIVE_RATIO,
+        this.priorityLaneControllerProvider);
+  }
+
+  @Test
+  @DisplayName("Test containers are paused once when all connections are active")
+  public void givenAllConnectionsActiveWhenCheckThenShouldPauseContainersOnce() {
+    when(this.pool.getActiveConnections()).thenReturn(MAX_POOL_SIZE);
+
+    this.databaseBackpressureController.check();
+    this.databaseBackpressureController.check();
+
+    assertTrue(this.databaseBackpressureController.isPaused());
+    verify(this.container, times(1)).pause();
+    verify(this.laneContainer, times(1)).pause();
+    assertEquals(1.0, this.transitions("pause"));
+    assertEquals(1.0, this.meterRegistry.get("purchases.backpressure.paused").gauge().value());
+  }
+
+  @Test
+  @DisplayName("Test paused containers are not resumed until active connections are below resume"
+      + " threshold")
+  public void givenPausedContainersWhenActiveRatioBetweenThresholdsThenShouldKeepThemPaused() {
+    when(this.pool.getActiveConnections()).thenReturn(MAX_POOL_SIZE);
+    this.databaseBackpressureController.check();
+
+    when(this.pool.getActiveConnections()).thenReturn(8);
+    this.databaseBackpressureController.check();
+
+    assertTrue(this.databaseBackpressureController.isPaused());
+    verify(this.container, never()).resume();
+
+    when(this.pool.getActiveConnections()).thenReturn(7);
+    this.databaseBackpressureController.check();
+
+    assertFalse(this.databaseBackpressureController.isPaused());
+    verify(this.container, times(1)).resume();
+    assertEquals(1.0, this.transitions("pause"));
+    assertEquals(1.0, this.transitions("resume"));
+  }
+
+  @Test
+  @DisplayName("Test containers are paused by connection acquire time and only resumed when it"
+      + " drops below resume threshold")
+  public void givenSlowAcquisitionsWhenCheckThenShouldPauseAndResumeOnlyBelowResumeWait() {
+    when(this.pool.getActiveConnections()).thenReturn(1);
+    this.acquireTimer.record(Duration.ofMillis(300));
+    this.databaseBackpressureController.check();
+
+    assertTrue(this.databaseBackpressureController.isPaused());
+    verify(this.container, times(1)).pause();
+
+    this.acquireTimer.record(Duration.ofMillis(50));
+    this.databaseBackpressureController.check();
+
+    assertTrue(this.databaseBackpressureController.isPaused());
+    verify(this.container, never()).resume();
+
+    this.acquireTimer.record(Duration.ofMillis(10));
+    this.databaseBackpressureController.check();
+
+    assertFalse(this.databaseBackpressureController.isPaused());
+    verify(this.container, times(1)).resume();
+  }
+
+  @Test
+  @DisplayName("Test containers with wait below pause threshold are not paused")
+  public void givenFastAcquisitionsAndFreeConnectionsWhenCheckThenShouldNotPause() {
+    when(this.pool.getActiveConnections()).thenReturn(9);
+    this.acquireTimer.record(Duration.ofMillis(150));
+
+    this.databaseBackpressureController.check();
+
+    assertFalse(this.databaseBackpressureController.isPaused());
+    verify(this.container, never()).pause();
+    assertEquals(0.0, this.transitions("pause"));
+  }
+
+  @Test
+  @DisplayName("Test containers paused by priority lanes are left paused on resume")
+  public void givenContainerPausedByPriorityLanesWhenResumeThenShouldLeaveItPaused() {
+    when(this.priorityLaneControllerProvider.getIfAvailable())
+        .thenReturn(this.priorityLaneController);
+    when(this.priorityLaneController.isPaused(this.laneContainer)).thenReturn(true);
+    when(this.pool.getActiveConnections()).thenReturn(MAX_POOL_SIZE);
+    this.databaseBackpressureController.check();
+
+    when(this.pool.getActiveConnections()).thenReturn(0);
+    this.databaseBackpressureController.check();
+
+    verify(this.container, times(1)).resume();
+    verify(this.laneContainer, never()).resume();
+  }
+
+  private double transitions(String action) {
+    return this.meterRegistry.get("purchases.backpressure.transitions")
+        .tag("action", action)
+        .counter()
+        .count();
+  }
+
+}
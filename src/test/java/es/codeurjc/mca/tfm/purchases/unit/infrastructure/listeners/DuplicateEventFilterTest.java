@@ -0,0 +1,114 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.DuplicateEventFilter;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDeduplicator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Duplicate Event Filter tests")
+public class DuplicateEventFilterTest {
+
+  private static final String TOPIC = "update-items";
+
+  private static final TopicPartition PARTITION_0 = new TopicPartition(TOPIC, 0);
+
+  private static final TopicPartition PARTITION_1 = new TopicPartition(TOPIC, 1);
+
+  private static final String PROCESSED_EVENT_ID = "processed-event";
+
+  private static final String NEW_EVENT_ID = "new-event";
+
+  @Mock
+  private EventDeduplicator eventDeduplicator;
+
+  @Mock
+  private Consumer<String, byte[]> consumer;
+
+  private DuplicateEventFilter duplicateEventFilter;
+
+  @BeforeEach
+  public void setUp() {
+    when(this.eventDeduplicator.isDuplicate(PROCESSED_EVENT_ID)).thenReturn(true);
+    this.duplicateEventFilter = new DuplicateEventFilter(this.eventDeduplicator);
+  }
+
+  @Test
+  @DisplayName("Test record whose event id header has been processed is dropped")
+  public void givenProcessedEventIdHeaderWhenInterceptRecordThenShouldDropIt() {
+    ConsumerRecord<String, byte[]> consumerRecord =
+        buildRecord(PARTITION_0, 0, PROCESSED_EVENT_ID);
+
+    assertNull(this.duplicateEventFilter.intercept(consumerRecord, this.consumer));
+  }
+
+  @Test
+  @DisplayName("Test record whose event id header has not been processed, or without it, is passed")
+  public void givenNewOrMissingEventIdHeaderWhenInterceptRecordThenShouldPassIt() {
+    ConsumerRecord<String, byte[]> newRecord = buildRecord(PARTITION_0, 0, NEW_EVENT_ID);
+    ConsumerRecord<String, byte[]> withoutIdRecord = buildRecord(PARTITION_0, 1, null);
+
+    assertSame(newRecord, this.duplicateEventFilter.intercept(newRecord, this.consumer));
+    assertSame(withoutIdRecord,
+        this.duplicateEventFilter.intercept(withoutIdRecord, this.consumer));
+  }
+
+  @Test
+  @DisplayName("Test records of a batch whose event id header has been processed are dropped")
+  public void givenBatchWithProcessedEventIdHeadersWhenInterceptBatchThenShouldDropThem() {
+    ConsumerRecord<String, byte[]> newRecord = buildRecord(PARTITION_0, 1, NEW_EVENT_ID);
+    ConsumerRecord<String, byte[]> withoutIdRecord = buildRecord(PARTITION_0, 2, null);
+    ConsumerRecords<String, byte[]> consumerRecords = new ConsumerRecords<>(Map.of(
+        PARTITION_0, List.of(buildRecord(PARTITION_0, 0, PROCESSED_EVENT_ID), newRecord,
+            withoutIdRecord),
+        PARTITION_1, List.of(buildRecord(PARTITION_1, 0, PROCESSED_EVENT_ID))));
+
+    ConsumerRecords<String, byte[]> intercepted =
+        this.duplicateEventFilter.intercept(consumerRecords, this.consumer);
+
+    assertEquals(Set.of(PARTITION_0), intercepted.partitions());
+    assertEquals(List.of(newRecord, withoutIdRecord), intercepted.records(PARTITION_0));
+  }
+
+  @Test
+  @DisplayName("Test batch without processed events is passed unchanged")
+  public void givenBatchWithoutProcessedEventsWhenInterceptBatchThenShouldPassSameRecords() {
+    ConsumerRecords<String, byte[]> consumerRecords = new ConsumerRecords<>(Map.of(
+        PARTITION_0, List.of(buildRecord(PARTITION_0, 0, NEW_EVENT_ID))));
+
+    assertSame(consumerRecords,
+        this.duplicateEventFilter.intercept(consumerRecords, this.consumer));
+  }
+
+  private static ConsumerRecord<String, byte[]> buildRecord(TopicPartition partition, long offset,
+      String eventId) {
+    RecordHeaders headers = new RecordHeaders();
+    EventHeaders.add(headers, EventHeaders.ID, eventId);
+    return new ConsumerRecord<>(partition.topic(), partition.partition(), offset,
+        ConsumerRecord.NO_TIMESTAMP, TimestampType.NO_TIMESTAMP_TYPE, 0, 0, "1", new byte[0],
+        headers, Optional.empty());
+  }
+
+}
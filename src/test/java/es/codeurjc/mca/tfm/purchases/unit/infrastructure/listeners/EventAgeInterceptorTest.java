@@ -0,0 +1,113 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventAgeInterceptor;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.ConsumerRecords;
+import org.apache.kafka.common.TopicPartition;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Event Age Interceptor tests")
+public class EventAgeInterceptorTest {
+
+  private static final String AGE_METRIC = "purchases.events.age";
+
+  private static final String TOPIC = "update-items";
+
+  private static final String OTHER_TOPIC = "create-orders";
+
+  private static final long AGE_MS = 1000;
+
+  @Mock
+  private Consumer<String, byte[]> consumer;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private EventAgeInterceptor eventAgeInterceptor;
+
+  @BeforeEach
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.eventAgeInterceptor = new EventAgeInterceptor(this.meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Test received record is passed unchanged to the listener")
+  public void givenRecordWhenInterceptThenShouldReturnSameRecord() {
+    ConsumerRecord<String, byte[]> consumerRecord =
+        buildRecord(TOPIC, 0, System.currentTimeMillis());
+
+    assertSame(consumerRecord, this.eventAgeInterceptor.intercept(consumerRecord, this.consumer));
+  }
+
+  @Test
+  @DisplayName("Test age of a processed record is recorded by topic")
+  public void givenProcessedRecordWhenSuccessThenShouldRecordItsAgeByTopic() {
+    ConsumerRecord<String, byte[]> consumerRecord =
+        buildRecord(TOPIC, 0, System.currentTimeMillis() - AGE_MS);
+
+    this.eventAgeInterceptor.success(consumerRecord, this.consumer);
+
+    Timer timer = this.meterRegistry.get(AGE_METRIC).tag("topic", TOPIC).timer();
+    assertEquals(1, timer.count());
+    assertTrue(timer.max(TimeUnit.MILLISECONDS) >= AGE_MS);
+  }
+
+  @Test
+  @DisplayName("Test record without timestamp is not recorded")
+  public void givenProcessedRecordWithoutTimestampWhenSuccessThenShouldNotRecordIt() {
+    ConsumerRecord<String, byte[]> consumerRecord =
+        buildRecord(TOPIC, 0, ConsumerRecord.NO_TIMESTAMP);
+
+    this.eventAgeInterceptor.success(consumerRecord, this.consumer);
+
+    assertNull(this.meterRegistry.find(AGE_METRIC).timer());
+  }
+
+  @Test
+  @DisplayName("Test age of each processed record of a batch is recorded by its topic")
+  public void givenProcessedBatchWhenSuccessThenShouldRecordAgeOfEachRecordByTopic() {
+    long timestamp = System.currentTimeMillis() - AGE_MS;
+    ConsumerRecords<String, byte[]> consumerRecords = new ConsumerRecords<>(Map.of(
+        new TopicPartition(TOPIC, 0),
+        List.of(buildRecord(TOPIC, 0, timestamp), buildRecord(TOPIC, 1, timestamp)),
+        new TopicPartition(OTHER_TOPIC, 0),
+        List.of(buildRecord(OTHER_TOPIC, 0, timestamp))));
+
+    assertSame(consumerRecords,
+        this.eventAgeInterceptor.intercept(consumerRecords, this.consumer));
+    this.eventAgeInterceptor.success(consumerRecords, this.consumer);
+
+    assertEquals(2, this.meterRegistry.get(AGE_METRIC).tag("topic", TOPIC).timer().count());
+    assertEquals(1,
+        this.meterRegistry.get(AGE_METRIC).tag("topic", OTHER_TOPIC).timer().count());
+  }
+
+  private static ConsumerRecord<String, byte[]> buildRecord(String topic, long offset,
+      long timestamp) {
+    return new ConsumerRecord<>(topic, 0, offset, timestamp, TimestampType.CREATE_TIME, 0, 0,
+        "1", new byte[0], new RecordHeaders(), Optional.empty());
+  }
+
+}
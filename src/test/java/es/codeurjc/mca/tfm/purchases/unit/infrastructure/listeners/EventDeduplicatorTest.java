@@ -0,0 +1,171 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartDeletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDeduplicator;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaProcessedEventRepository;
+import java.time.Instant;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Event Deduplicator tests")
+public class EventDeduplicatorTest {
+
+  private static final int CAPACITY = 2;
+
+  private static final long RETENTION_MS = 60000;
+
+  @Mock
+  private JpaProcessedEventRepository jpaProcessedEventRepository;
+
+  @Captor
+  private ArgumentCaptor<Instant> instantCaptor;
+
+  private EventDeduplicator eventDeduplicator;
+
+  @BeforeEach
+  public void setUp() {
+    this.eventDeduplicator =
+        new EventDeduplicator(this.jpaProcessedEventRepository, CAPACITY, RETENTION_MS);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  @DisplayName("Test event without identifier is always processed without accessing database")
+  public void givenEventWithoutIdWhenClaimThenShouldReturnTrueWithoutAccessingDatabase() {
+    ShoppingCartDeletionRequestedEvent event = buildEvent(null);
+
+    assertTrue(this.eventDeduplicator.claim(event));
+    assertTrue(this.eventDeduplicator.claim(event));
+
+    assertFalse(this.eventDeduplicator.isDuplicate(event));
+    verifyNoInteractions(this.jpaProcessedEventRepository);
+  }
+
+  @Test
+  @DisplayName("Test new event is claimed inserting it, without querying database first")
+  public void givenNewEventWhenClaimThenShouldInsertItWithoutQueryingDatabase() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(1);
+
+    assertFalse(this.eventDeduplicator.isDuplicate("event-1"));
+    assertTrue(this.eventDeduplicator.claim(buildEvent("event-1")));
+
+    verify(this.jpaProcessedEventRepository).insertIfAbsent(eq("event-1"), any());
+    verify(this.jpaProcessedEventRepository, never()).existsById(anyString());
+  }
+
+  @Test
+  @DisplayName("Test event processed by this instance is a duplicate without accessing database")
+  public void givenClaimedEventWhenClaimAgainThenShouldReturnFalseFromRecentIds() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(1);
+    ShoppingCartDeletionRequestedEvent event = buildEvent("event-1");
+    this.eventDeduplicator.claim(event);
+
+    assertTrue(this.eventDeduplicator.isDuplicate(event));
+    assertTrue(this.eventDeduplicator.isDuplicate("event-1"));
+    assertFalse(this.eventDeduplicator.claim(event));
+    verify(this.jpaProcessedEventRepository, times(1)).insertIfAbsent(anyString(), any());
+  }
+
+  @Test
+  @DisplayName("Test event processed by other instance is dropped when its insert is ignored")
+  public void givenEventProcessedByOtherInstanceWhenClaimThenShouldReturnFalse() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(0);
+
+    assertFalse(this.eventDeduplicator.claim(buildEvent("event-1")));
+    assertFalse(this.eventDeduplicator.claim(buildEvent("event-1")));
+
+    verify(this.jpaProcessedEventRepository, times(1)).insertIfAbsent(anyString(), any());
+  }
+
+  @Test
+  @DisplayName("Test event already filtered by its header is claimed without looking it up again")
+  public void givenFilteredEventWhenClaimThenShouldInsertItWithoutLookingUpRecentIds() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(1, 0);
+    this.eventDeduplicator.claim(buildEvent("event-1"));
+
+    assertFalse(this.eventDeduplicator.claim(buildEvent("event-1"), true));
+
+    verify(this.jpaProcessedEventRepository, times(2)).insertIfAbsent(eq("event-1"), any());
+  }
+
+  @Test
+  @DisplayName("Test event claimed in a transaction is recorded in memory once committed")
+  public void givenEventClaimedInTransactionWhenCommittedThenShouldBeRecordedInRecentIds() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(1);
+    TransactionSynchronizationManager.initSynchronization();
+    this.eventDeduplicator.claim(buildEvent("event-1"));
+
+    assertFalse(this.eventDeduplicator.isDuplicate("event-1"));
+
+    TransactionSynchronizationManager.getSynchronizations()
+        .forEach(TransactionSynchronization::afterCommit);
+
+    assertTrue(this.eventDeduplicator.isDuplicate("event-1"));
+  }
+
+  @Test
+  @DisplayName("Test event evicted from recent ids is claimed again in database")
+  public void givenEventEvictedFromRecentIdsWhenClaimThenShouldInsertItAgain() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(1);
+    this.eventDeduplicator.claim(buildEvent("event-1"));
+    this.eventDeduplicator.claim(buildEvent("event-2"));
+    this.eventDeduplicator.claim(buildEvent("event-3"));
+    when(this.jpaProcessedEventRepository.insertIfAbsent(eq("event-1"), any())).thenReturn(0);
+
+    assertFalse(this.eventDeduplicator.isDuplicate("event-1"));
+    assertFalse(this.eventDeduplicator.claim(buildEvent("event-1")));
+
+    verify(this.jpaProcessedEventRepository, times(2)).insertIfAbsent(eq("event-1"), any());
+  }
+
+  @Test
+  @DisplayName("Test purge deletes the events older than the retention")
+  public void givenRetentionWhenPurgeThenShouldDeleteEventsProcessedBeforeIt() {
+    Instant before = Instant.now().minusMillis(RETENTION_MS);
+
+    this.eventDeduplicator.purge();
+
+    verify(this.jpaProcessedEventRepository)
+        .deleteAllByProcessedAtBefore(this.instantCaptor.capture());
+    Instant after = Instant.now().minusMillis(RETENTION_MS);
+    assertFalse(this.instantCaptor.getValue().isBefore(before));
+    assertFalse(this.instantCaptor.getValue().isAfter(after));
+  }
+
+  private static ShoppingCartDeletionRequestedEvent buildEvent(String eventId) {
+    ShoppingCartDeletionRequestedEvent event = new ShoppingCartDeletionRequestedEvent(1L);
+    event.setEventId(eventId);
+    return event;
+  }
+
+}
@@ -0,0 +1,161 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.KeyedSerialExecutor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.lang.Thread.State;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Keyed Serial Executor tests")
+public class KeyedSerialExecutorTest {
+
+  private static final String KEY = "1652692327498";
+
+  private static final String OTHER_KEY = "1652692327499";
+
+  private static final int MAX_QUEUED_PER_KEY = 1;
+
+  private static final long TIMEOUT_MS = 5000;
+
+  private final ExecutorService threads = Executors.newCachedThreadPool();
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private KeyedSerialExecutor keyedSerialExecutor;
+
+  @BeforeEach
+  public void setUp() {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.keyedSerialExecutor = new KeyedSerialExecutor(this.meterRegistry, MAX_QUEUED_PER_KEY);
+  }
+
+  @AfterEach
+  public void tearDown() {
+    this.threads.shutdownNow();
+  }
+
+  @Test
+  @DisplayName("Test tasks of the same key run one at a time in arrival order")
+  public void givenSeveralTasksOfSameKeyWhenExecuteThenShouldRunThemSequentiallyInArrivalOrder()
+      throws Exception {
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.keyedSerialExecutor = new KeyedSerialExecutor(this.meterRegistry, 3);
+    List<Integer> executed = new CopyOnWriteArrayList<>();
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+
+    Future<Integer> first = this.threads.submit(() -> this.keyedSerialExecutor.execute(KEY, () -> {
+      firstStarted.countDown();
+      releaseFirst.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      executed.add(1);
+      return 1;
+    }));
+    assertTrue(firstStarted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    Future<Integer> second = this.submitAndAwaitQueued(KEY, 2, executed, 1);
+    Future<Integer> third = this.submitAndAwaitQueued(KEY, 3, executed, 2);
+    assertEquals(List.of(), executed);
+
+    releaseFirst.countDown();
+
+    assertEquals(1, first.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertEquals(2, second.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertEquals(3, third.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertEquals(List.of(1, 2, 3), executed);
+    assertEquals(0, this.gauge("keys"));
+  }
+
+  @Test
+  @DisplayName("Test tasks of distinct keys run in parallel")
+  public void givenTasksOfDistinctKeysWhenExecuteThenShouldRunThemInParallel() throws Exception {
+    CountDownLatch otherKeyRunning = new CountDownLatch(1);
+
+    Future<Boolean> blocked = this.threads.submit(() -> this.keyedSerialExecutor.execute(KEY,
+        () -> otherKeyRunning.await(TIMEOUT_MS, TimeUnit.MILLISECONDS)));
+    Future<Boolean> other = this.threads.submit(() -> this.keyedSerialExecutor.execute(OTHER_KEY,
+        () -> {
+          otherKeyRunning.countDown();
+          return true;
+        }));
+
+    assertTrue(other.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertTrue(blocked.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertEquals(0, this.gauge("keys"));
+  }
+
+  @Test
+  @DisplayName("Test a task is rejected when the queue of its key is full")
+  public void givenFullKeyQueueWhenExecuteThenShouldRejectTaskOnlyForThatKey() throws Exception {
+    List<Integer> executed = new CopyOnWriteArrayList<>();
+    CountDownLatch firstStarted = new CountDownLatch(1);
+    CountDownLatch releaseFirst = new CountDownLatch(1);
+    Future<Integer> first = this.threads.submit(() -> this.keyedSerialExecutor.execute(KEY, () -> {
+      firstStarted.countDown();
+      releaseFirst.await(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+      executed.add(1);
+      return 1;
+    }));
+    assertTrue(firstStarted.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    Future<Integer> second = this.submitAndAwaitQueued(KEY, 2, executed, 1);
+
+    assertThrows(RejectedExecutionException.class,
+        () -> this.keyedSerialExecutor.execute(KEY, () -> executed.add(3)));
+    assertEquals(1.0, this.meterRegistry.get("purchases.keyed.executor.rejected").counter().count());
+    assertEquals(4, this.keyedSerialExecutor.execute(OTHER_KEY, () -> 4));
+
+    releaseFirst.countDown();
+
+    assertEquals(1, first.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertEquals(2, second.get(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+    assertEquals(List.of(1, 2), executed);
+    assertEquals(5, this.keyedSerialExecutor.execute(KEY, () -> 5));
+  }
+
+  private Future<Integer> submitAndAwaitQueued(String key, int value, List<Integer> executed,
+      int expectedQueued) throws InterruptedException {
+    CompletableFuture<Integer> future = new CompletableFuture<>();
+    Thread thread = new Thread(() -> {
+      try {
+        future.complete(this.keyedSerialExecutor.execute(key, () -> {
+          executed.add(value);
+          return value;
+        }));
+      } catch (Exception e) {
+        future.completeExceptionally(e);
+      }
+    });
+    thread.start();
+    long deadline = System.currentTimeMillis() + TIMEOUT_MS;
+    while ((this.gauge("queued") < expectedQueued || thread.getState() != State.WAITING)
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(expectedQueued, this.gauge("queued"));
+    assertEquals(State.WAITING, thread.getState());
+    return future;
+  }
+
+  private double gauge(String name) {
+    return this.meterRegistry.get("purchases.keyed.executor." + name).gauge().value();
+  }
+
+}
@@ -0,0 +1,166 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDispatcher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.MultiplexedEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.OrderEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ShoppingCartEventsListener;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.kafka.listener.ListenerExecutionFailedException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Multiplexed Events Listener tests")
+public class MultiplexedEventsListenerTest {
+
+  private static final String CREATE_SHOPPING_CART_TOPIC = "create-shopping-carts";
+
+  private static final String DELETE_SHOPPING_CART_TOPIC = "delete-shopping-carts";
+
+  private static final String COMPLETE_SHOPPING_CART_TOPIC = "complete-shopping-carts";
+
+  private static final String UPDATE_ITEMS_TOPIC = "update-items";
+
+  private static final String CREATE_ORDER_TOPIC = "create-orders";
+
+  private static final String UPDATE_ORDER_TOPIC = "update-orders";
+
+  private static final String CHANGE_STATE_TOPIC = "change-orders-state";
+
+  private static final String SHOPPING_CART_ID = "1652692327498";
+
+  private static final String EVENT_ID = "event-1";
+
+  @Mock
+  private ShoppingCartEventsListener shoppingCartEventsListener;
+
+  @Mock
+  private OrderEventsListener orderEventsListener;
+
+  @Captor
+  private ArgumentCaptor<byte[]> aggregateIdCaptor;
+
+  private MultiplexedEventsListener multiplexedEventsListener;
+
+  @BeforeEach
+  public void setUp() {
+    EventDispatcher eventDispatcher = new EventDispatcher(this.shoppingCartEventsListener,
+        this.orderEventsListener, CREATE_SHOPPING_CART_TOPIC, DELETE_SHOPPING_CART_TOPIC,
+        COMPLETE_SHOPPING_CART_TOPIC, UPDATE_ITEMS_TOPIC, CREATE_ORDER_TOPIC, UPDATE_ORDER_TOPIC,
+        CHANGE_STATE_TOPIC);
+    this.multiplexedEventsListener = new MultiplexedEventsListener(eventDispatcher);
+  }
+
+  @Test
+  @DisplayName("Test each record is dispatched to the listener of its topic")
+  public void givenRecordsOfEachTopicWhenOnMessageThenShouldDispatchEachToItsTopicListener()
+      throws Exception {
+    this.multiplexedEventsListener.onMessage(buildRecord(CREATE_SHOPPING_CART_TOPIC));
+    this.multiplexedEventsListener.onMessage(buildRecord(DELETE_SHOPPING_CART_TOPIC));
+    this.multiplexedEventsListener.onMessage(buildRecord(COMPLETE_SHOPPING_CART_TOPIC));
+    this.multiplexedEventsListener.onMessage(buildRecord(UPDATE_ITEMS_TOPIC));
+    this.multiplexedEventsListener.onMessage(buildRecord(CREATE_ORDER_TOPIC));
+    this.multiplexedEventsListener.onMessage(buildRecord(UPDATE_ORDER_TOPIC));
+    this.multiplexedEventsListener.onMessage(buildRecord(CHANGE_STATE_TOPIC));
+
+    verify(this.shoppingCartEventsListener).onCreatedShoppingCart(
+        eq(payload(CREATE_SHOPPING_CART_TOPIC)), eq(eventId()));
+    verify(this.shoppingCartEventsListener).onDeletedShoppingCart(
+        eq(payload(DELETE_SHOPPING_CART_TOPIC)), eq(eventId()));
+    verify(this.shoppingCartEventsListener).onCompletedShoppingCart(
+        eq(payload(COMPLETE_SHOPPING_CART_TOPIC)),
+        this.aggregateIdCaptor.capture(), eq(eventId()));
+    assertArrayEquals(SHOPPING_CART_ID.getBytes(StandardCharsets.UTF_8),
+        this.aggregateIdCaptor.getValue());
+    verify(this.shoppingCartEventsListener).onUpdateShoppingCartItems(
+        eq(payload(UPDATE_ITEMS_TOPIC)), eq(eventId()));
+    verify(this.orderEventsListener).onCreatedOrder(eq(payload(CREATE_ORDER_TOPIC)),
+        eq(eventId()));
+    verify(this.orderEventsListener).onUpdatedOrder(eq(payload(UPDATE_ORDER_TOPIC)),
+        eq(eventId()));
+    verify(this.orderEventsListener).onOrderStateChanged(eq(payload(CHANGE_STATE_TOPIC)),
+        eq(eventId()));
+  }
+
+  @Test
+  @DisplayName("Test a checked listener failure fails only its record, wrapped for the container"
+      + " error handler")
+  public void givenListenerFailingWithCheckedExceptionWhenOnMessageThenShouldFailOnlyThatRecord()
+      throws Exception {
+    Exception failure = new Exception("Database unavailable");
+    doThrow(failure).when(this.orderEventsListener).onCreatedOrder(any(), any());
+
+    ListenerExecutionFailedException exception = assertThrows(
+        ListenerExecutionFailedException.class,
+        () -> this.multiplexedEventsListener.onMessage(buildRecord(CREATE_ORDER_TOPIC)));
+    this.multiplexedEventsListener.onMessage(buildRecord(UPDATE_ORDER_TOPIC));
+
+    assertSame(failure, exception.getCause());
+    verify(this.orderEventsListener).onUpdatedOrder(eq(payload(UPDATE_ORDER_TOPIC)),
+        eq(eventId()));
+  }
+
+  @Test
+  @DisplayName("Test a runtime listener failure is passed unchanged to the container error"
+      + " handler")
+  public void givenListenerFailingWithRuntimeExceptionWhenOnMessageThenShouldRethrowIt()
+      throws Exception {
+    IllegalStateException failure = new IllegalStateException("Invalid state");
+    doThrow(failure).when(this.shoppingCartEventsListener).onUpdateShoppingCartItems(any(),
+        any());
+
+    IllegalStateException exception = assertThrows(IllegalStateException.class,
+        () -> this.multiplexedEventsListener.onMessage(buildRecord(UPDATE_ITEMS_TOPIC)));
+
+    assertSame(failure, exception);
+  }
+
+  @Test
+  @DisplayName("Test a record of a topic without listener fails")
+  public void givenRecordOfUnknownTopicWhenOnMessageThenShouldFailWithoutDispatching() {
+    assertThrows(IllegalArgumentException.class,
+        () -> this.multiplexedEventsListener.onMessage(buildRecord("validate-items")));
+
+    verifyNoInteractions(this.shoppingCartEventsListener, this.orderEventsListener);
+  }
+
+  private static ConsumerRecord<String, byte[]> buildRecord(String topic) {
+    RecordHeaders headers = new RecordHeaders();
+    EventHeaders.add(headers, EventHeaders.AGGREGATE_ID, SHOPPING_CART_ID);
+    EventHeaders.add(headers, EventHeaders.ID, EVENT_ID);
+    return new ConsumerRecord<>(topic, 0, 0, ConsumerRecord.NO_TIMESTAMP,
+        TimestampType.NO_TIMESTAMP_TYPE, 0, 0, SHOPPING_CART_ID, payload(topic), headers,
+        Optional.empty());
+  }
+
+  private static byte[] payload(String topic) {
+    return topic.getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] eventId() {
+    return EVENT_ID.getBytes(StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,102 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.models.OrderState;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.OrderEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.OrderUpdateBarrier;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaOrderRepository;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Order Update Barrier tests")
+public class OrderUpdateBarrierTest {
+
+  private static final Long ORDER_ID = 1L;
+
+  private static final long MAX_WAIT_MS = 200;
+
+  private static final long POLL_INTERVAL_MS = 10_000;
+
+  @Mock
+  private JpaOrderRepository jpaOrderRepository;
+
+  @Test
+  @DisplayName("Test order is ready when its last published state is stored")
+  public void givenPublishedStateStoredWhenAwaitThenShouldReturnTrue() throws Exception {
+    when(this.jpaOrderRepository.findById(ORDER_ID)).thenReturn(Optional.of(
+        buildOrderEntity(OrderState.VALIDATING_ITEMS, OrderState.VALIDATING_ITEMS)));
+
+    assertTrue(this.buildBarrier().await(ORDER_ID));
+  }
+
+  @Test
+  @DisplayName("Test order is ready when it doesn't exist or has no published state")
+  public void givenMissingOrderOrPublishedStateWhenAwaitThenShouldReturnTrue() throws Exception {
+    when(this.jpaOrderRepository.findById(ORDER_ID)).thenReturn(Optional.empty());
+    when(this.jpaOrderRepository.findById(2L)).thenReturn(Optional.of(
+        buildOrderEntity(OrderState.VALIDATING_ITEMS, null)));
+
+    OrderUpdateBarrier orderUpdateBarrier = this.buildBarrier();
+
+    assertTrue(orderUpdateBarrier.await(ORDER_ID));
+    assertTrue(orderUpdateBarrier.await(2L));
+  }
+
+  @Test
+  @DisplayName("Test change waits while validating balance state is published but not stored")
+  public void givenPublishedStateNotStoredWhenAwaitThenShouldTimeOut() throws Exception {
+    when(this.jpaOrderRepository.findById(ORDER_ID)).thenReturn(Optional.of(
+        buildOrderEntity(OrderState.VALIDATING_ITEMS, OrderState.VALIDATING_BALANCE)));
+
+    assertFalse(this.buildBarrier().await(ORDER_ID));
+  }
+
+  @Test
+  @DisplayName("Test waiting change is woken up when the published state is stored")
+  public void givenPublishedStateStoredWhileWaitingWhenUpdatedThenShouldReturnTrue()
+      throws Exception {
+    OrderEntity orderEntity =
+        buildOrderEntity(OrderState.VALIDATING_ITEMS, OrderState.VALIDATING_BALANCE);
+    when(this.jpaOrderRepository.findById(ORDER_ID)).thenReturn(Optional.of(orderEntity));
+    OrderUpdateBarrier orderUpdateBarrier = new OrderUpdateBarrier(this.jpaOrderRepository,
+        POLL_INTERVAL_MS, POLL_INTERVAL_MS);
+
+    CompletableFuture<Boolean> ready = CompletableFuture.supplyAsync(() -> {
+      try {
+        return orderUpdateBarrier.await(ORDER_ID);
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    Thread.sleep(MAX_WAIT_MS);
+    orderEntity.setState(OrderState.VALIDATING_BALANCE.name());
+    orderUpdateBarrier.updated();
+
+    assertTrue(ready.get(POLL_INTERVAL_MS / 2, TimeUnit.MILLISECONDS));
+  }
+
+  private OrderUpdateBarrier buildBarrier() {
+    return new OrderUpdateBarrier(this.jpaOrderRepository, MAX_WAIT_MS, POLL_INTERVAL_MS);
+  }
+
+  private static OrderEntity buildOrderEntity(OrderState state, OrderState publishedState) {
+    OrderEntity orderEntity = new OrderEntity();
+    orderEntity.setId(ORDER_ID);
+    orderEntity.setState(state.name());
+    orderEntity.setPublishedState(publishedState == null ? null : publishedState.name());
+    return orderEntity;
+  }
+
+}
@@ -0,0 +1,186 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDispatcher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ParallelEventsListener;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.apache.kafka.common.record.TimestampType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Parallel Events Listener tests")
+public class ParallelEventsListenerTest {
+
+  private static final String TOPIC = "update-orders";
+
+  private static final String KEY = "1";
+
+  private static final String OTHER_KEY = "2";
+
+  private static final int THREADS = 4;
+
+  private static final long TIMEOUT_MS = 5000;
+
+  @Mock
+  private EventDispatcher eventDispatcher;
+
+  private final Map<String, List<Long>> dispatched = new ConcurrentHashMap<>();
+
+  private ParallelEventsListener parallelEventsListener;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    this.parallelEventsListener = new ParallelEventsListener(this.eventDispatcher, THREADS);
+    doAnswer(invocation -> {
+      String[] event = new String(invocation.<byte[]>getArgument(1), StandardCharsets.UTF_8)
+          .split(":");
+      this.dispatched.computeIfAbsent(event[0], key -> new CopyOnWriteArrayList<>())
+          .add(Long.valueOf(event[1]));
+      return null;
+    }).when(this.eventDispatcher).dispatch(anyString(), any(), any(Headers.class));
+  }
+
+  @AfterEach
+  public void tearDown() {
+    this.parallelEventsListener.close();
+  }
+
+  @Test
+  @DisplayName("Test records of the same key are processed in offset order")
+  public void givenInterleavedRecordsOfSeveralKeysWhenOnMessageThenShouldKeepOrderOfEachKey() {
+    List<ConsumerRecord<String, byte[]>> records = new ArrayList<>();
+    for (long offset = 0; offset < 200; offset++) {
+      records.add(buildRecord(0, offset, String.valueOf(offset % 5)));
+    }
+
+    this.parallelEventsListener.onMessage(records);
+
+    assertEquals(Set.of("0", "1", "2", "3", "4"), this.dispatched.keySet());
+    this.dispatched.forEach((key, offsets) -> {
+      assertEquals(40, offsets.size());
+      for (int i = 1; i < offsets.size(); i++) {
+        assertTrue(offsets.get(i - 1) < offsets.get(i), "Key " + key + " out of order");
+      }
+    });
+  }
+
+  @Test
+  @DisplayName("Test records of distinct keys of the same partition are processed in parallel")
+  public void givenRecordsOfDistinctKeysWhenOnMessageThenShouldProcessThemInParallel()
+      throws Exception {
+    CountDownLatch otherKeyDispatched = new CountDownLatch(1);
+    List<Boolean> otherKeyRunInParallel = new CopyOnWriteArrayList<>();
+    doAnswer(invocation -> {
+      otherKeyRunInParallel.add(otherKeyDispatched.await(TIMEOUT_MS, TimeUnit.MILLISECONDS));
+      return null;
+    }).when(this.eventDispatcher).dispatch(anyString(), any(), any(Headers.class));
+    doAnswer(invocation -> {
+      otherKeyDispatched.countDown();
+      return null;
+    }).when(this.eventDispatcher).dispatch(anyString(), isEvent(OTHER_KEY, 1), any(Headers.class));
+
+    this.parallelEventsListener.onMessage(List.of(buildRecord(0, 0, KEY),
+        buildRecord(0, 1, OTHER_KEY)));
+
+    assertEquals(List.of(true), otherKeyRunInParallel);
+  }
+
+  @Test
+  @DisplayName("Test lowest failed record is reported, so only previous records are committed")
+  public void givenFailedRecordsOfSeveralKeysWhenOnMessageThenShouldFailWithLowestFailedIndex()
+      throws Exception {
+    Exception failure = new Exception("Order not found");
+    Exception otherFailure = new Exception("Database unavailable");
+    doAnswer(invocation -> {
+      throw failure;
+    }).when(this.eventDispatcher).dispatch(anyString(), isEvent(KEY, 2), any(Headers.class));
+    doAnswer(invocation -> {
+      throw otherFailure;
+    }).when(this.eventDispatcher).dispatch(anyString(), isEvent(OTHER_KEY, 4),
+        any(Headers.class));
+    List<ConsumerRecord<String, byte[]>> records = List.of(
+        buildRecord(0, 0, KEY),
+        buildRecord(0, 1, OTHER_KEY),
+        buildRecord(0, 2, KEY),
+        buildRecord(0, 3, OTHER_KEY),
+        buildRecord(0, 4, OTHER_KEY),
+        buildRecord(0, 5, KEY),
+        buildRecord(0, 6, OTHER_KEY));
+
+    BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+        () -> this.parallelEventsListener.onMessage(records));
+
+    assertEquals(2, exception.getIndex());
+    assertSame(failure, exception.getCause());
+    assertEquals(List.of(0L), this.dispatched.get(KEY));
+    assertEquals(List.of(1L, 3L), this.dispatched.get(OTHER_KEY));
+  }
+
+  @Test
+  @DisplayName("Test lowest failed record is reported across partitions of the poll")
+  public void givenFailedRecordsOfSeveralPartitionsWhenOnMessageThenShouldFailWithLowestIndex()
+      throws Exception {
+    Exception failure = new Exception("Database unavailable");
+    doAnswer(invocation -> {
+      throw failure;
+    }).when(this.eventDispatcher).dispatch(anyString(), isEvent(KEY, 7), any(Headers.class));
+    List<ConsumerRecord<String, byte[]>> records = List.of(
+        buildRecord(0, 5, KEY),
+        buildRecord(1, 7, KEY),
+        buildRecord(0, 6, KEY),
+        buildRecord(1, 8, KEY));
+
+    BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+        () -> this.parallelEventsListener.onMessage(records));
+
+    assertEquals(1, exception.getIndex());
+    assertEquals(List.of(5L, 6L), this.dispatched.get(KEY));
+  }
+
+  private static ConsumerRecord<String, byte[]> buildRecord(int partition, long offset,
+      String key) {
+    return new ConsumerRecord<>(TOPIC, partition, offset, ConsumerRecord.NO_TIMESTAMP,
+        TimestampType.NO_TIMESTAMP_TYPE, 0, 0, key, payload(key, offset), new RecordHeaders(),
+        Optional.empty());
+  }
+
+  private static byte[] payload(String key, long offset) {
+    return (key + ":" + offset).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static byte[] isEvent(String key, long offset) {
+    byte[] expected = payload(key, offset);
+    return argThat(payload -> Arrays.equals(expected, payload));
+  }
+
+}
@@ -0,0 +1,199 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaPrioritySettings;
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaPrioritySettings.PriorityClass;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ConsumerLagMonitor;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.DatabaseBackpressureController;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.PriorityLaneController;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Priority Lane Controller tests")
+public class PriorityLaneControllerTest {
+
+  private static final String HIGH_CLASS = "saga";
+
+  private static final String LOW_CLASS = "cart";
+
+  private static final String HIGH_TOPIC = "change-orders-state";
+
+  private static final String LOW_TOPIC = "update-items";
+
+  private static final long PAUSE_LAG = 1000;
+
+  private static final long RESUME_LAG = 100;
+
+  @Mock
+  private KafkaListenerEndpointRegistry kafkaListenerEndpointRegistry;
+
+  @Mock
+  private ConsumerLagMonitor consumerLagMonitor;
+
+  @Mock
+  private ObjectProvider<DatabaseBackpressureController> databaseBackpressureControllerProvider;
+
+  @Mock
+  private DatabaseBackpressureController databaseBackpressureController;
+
+  @Mock
+  private MessageListenerContainer highContainer;
+
+  @Mock
+  private MessageListenerContainer lowContainer;
+
+  @Mock
+  private MessageListenerContainer lowRetryContainer;
+
+  private SimpleMeterRegistry meterRegistry;
+
+  private PriorityLaneController priorityLaneController;
+
+  @BeforeEach
+  public void setUp() {
+    KafkaPrioritySettings kafkaPrioritySettings = new KafkaPrioritySettings();
+    ReflectionTestUtils.setField(kafkaPrioritySettings, "retryTopicSuffix", "-retry");
+    ReflectionTestUtils.setField(kafkaPrioritySettings, "dltSuffix", "-dlt");
+    kafkaPrioritySettings.setEnabled(true);
+    kafkaPrioritySettings.setClasses(Map.of(
+        HIGH_CLASS, buildPriorityClass(HIGH_TOPIC, 10, PAUSE_LAG, RESUME_LAG),
+        LOW_CLASS, buildPriorityClass(LOW_TOPIC, 1, 0, 0)));
+    kafkaPrioritySettings.init();
+
+    mockContainer(this.highContainer, HIGH_TOPIC);
+    mockContainer(this.lowContainer, LOW_TOPIC);
+    mockContainer(this.lowRetryContainer, LOW_TOPIC + "-retry-0");
+    when(this.kafkaListenerEndpointRegistry.getAllListenerContainers())
+        .thenReturn(List.of(this.highContainer, this.lowContainer, this.lowRetryContainer));
+
+    this.meterRegistry = new SimpleMeterRegistry();
+    this.priorityLaneController = new PriorityLaneController(this.kafkaListenerEndpointRegistry,
+        this.consumerLagMonitor, kafkaPrioritySettings,
+        this.databaseBackpressureControllerProvider, this.meterRegistry);
+  }
+
+  @Test
+  @DisplayName("Test lower priority containers are paused while a higher priority class lags")
+  public void givenHigherPriorityClassLagWhenCheckThenShouldPauseLowerPriorityContainers() {
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(PAUSE_LAG);
+
+    this.priorityLaneController.check();
+
+    verify(this.lowContainer).pause();
+    verify(this.lowRetryContainer).pause();
+    verify(this.highContainer, never()).pause();
+    assertTrue(this.priorityLaneController.isPaused(this.lowContainer));
+    assertFalse(this.priorityLaneController.isPaused(this.highContainer));
+    assertEquals(1.0, this.paused(LOW_CLASS));
+    assertEquals(0.0, this.paused(HIGH_CLASS));
+  }
+
+  @Test
+  @DisplayName("Test lower priority containers are not paused while higher priority lag is below"
+      + " pause threshold")
+  public void givenHigherPriorityClassLagBelowPauseWhenCheckThenShouldNotPauseContainers() {
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(PAUSE_LAG - 1);
+
+    this.priorityLaneController.check();
+
+    verify(this.lowContainer, never()).pause();
+    assertFalse(this.priorityLaneController.isPaused(this.lowContainer));
+  }
+
+  @Test
+  @DisplayName("Test paused containers are resumed only once the higher priority lag is below"
+      + " resume threshold")
+  public void givenPausedClassWhenLagDropsThenShouldResumeItOnlyBelowResumeThreshold() {
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(PAUSE_LAG);
+    this.priorityLaneController.check();
+
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(RESUME_LAG + 1);
+    this.priorityLaneController.check();
+
+    assertTrue(this.priorityLaneController.isPaused(this.lowContainer));
+    verify(this.lowContainer, never()).resume();
+
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(RESUME_LAG);
+    this.priorityLaneController.check();
+
+    assertFalse(this.priorityLaneController.isPaused(this.lowContainer));
+    verify(this.lowContainer).resume();
+    verify(this.lowRetryContainer).resume();
+    verify(this.highContainer, never()).resume();
+    assertEquals(0.0, this.paused(LOW_CLASS));
+  }
+
+  @Test
+  @DisplayName("Test paused containers resumed meanwhile are paused again on next check")
+  public void givenPausedClassWhenContainerResumedMeanwhileThenShouldPauseItAgain() {
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(PAUSE_LAG);
+    this.priorityLaneController.check();
+    when(this.lowRetryContainer.isPauseRequested()).thenReturn(true);
+
+    this.priorityLaneController.check();
+
+    verify(this.lowContainer, times(2)).pause();
+    verify(this.lowRetryContainer, times(1)).pause();
+  }
+
+  @Test
+  @DisplayName("Test containers are left paused on resume while database backpressure pauses them")
+  public void givenDatabaseBackpressurePausedWhenLagDropsThenShouldLeaveContainersPaused() {
+    when(this.databaseBackpressureControllerProvider.getIfAvailable())
+        .thenReturn(this.databaseBackpressureController);
+    when(this.databaseBackpressureController.isPaused()).thenReturn(true);
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(PAUSE_LAG);
+    this.priorityLaneController.check();
+
+    when(this.consumerLagMonitor.getLag(List.of(HIGH_TOPIC))).thenReturn(0L);
+    this.priorityLaneController.check();
+
+    assertFalse(this.priorityLaneController.isPaused(this.lowContainer));
+    verify(this.lowContainer, never()).resume();
+  }
+
+  private double paused(String className) {
+    return this.meterRegistry.get("purchases.priority.paused")
+        .tag("class", className)
+        .gauge()
+        .value();
+  }
+
+  private static PriorityClass buildPriorityClass(String topic, int priority, long pauseLag,
+      long resumeLag) {
+    PriorityClass priorityClass = new PriorityClass();
+    priorityClass.setTopics(List.of(topic));
+    priorityClass.setPriority(priority);
+    priorityClass.setPauseLag(pauseLag);
+    priorityClass.setResumeLag(resumeLag);
+    return priorityClass;
+  }
+
+  private static void mockContainer(MessageListenerContainer container, String topic) {
+    when(container.getContainerProperties()).thenReturn(new ContainerProperties(topic));
+    when(container.isRunning()).thenReturn(true);
+  }
+
+}
@@ -0,0 +1,149 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCreationRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDeduplicator;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ShoppingCartBatchEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.ShoppingCartChangelogPublisher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaProcessedEventRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartItemRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping Cart Batch Events Listener tests")
+public class ShoppingCartBatchEventsListenerTest {
+
+  private static final String CREATE_SHOPPING_CART_TOPIC = "create-shopping-carts";
+
+  private static final String DELETE_SHOPPING_CART_TOPIC = "delete-shopping-carts";
+
+  private static final String UPDATE_ITEMS_TOPIC = "update-items";
+
+  private static final byte[] POISON_PAYLOAD = "{not json".getBytes(StandardCharsets.UTF_8);
+
+  @Mock
+  private InfraMapper mapper;
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @Mock
+  private JpaShoppingCartItemRepository jpaShoppingCartItemRepository;
+
+  @Mock
+  private JpaProcessedEventRepository jpaProcessedEventRepository;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private ShoppingCartChangelogPublisher shoppingCartChangelogPublisher;
+
+  @Captor
+  private ArgumentCaptor<Iterable<ShoppingCartEntity>> savedShoppingCartsCaptor;
+
+  private EventCodecs eventCodecs;
+
+  private ShoppingCartBatchEventsListener listener;
+
+  @BeforeEach
+  public void setUp() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(1);
+    this.eventCodecs = new EventCodecs();
+    this.eventCodecs.init();
+    this.listener = new ShoppingCartBatchEventsListener(this.mapper,
+        this.jpaShoppingCartRepository, this.jpaShoppingCartItemRepository, this.eventCodecs,
+        new TransactionTemplate(this.transactionManager),
+        new EventDeduplicator(this.jpaProcessedEventRepository, 100, 60000),
+        this.shoppingCartChangelogPublisher, CREATE_SHOPPING_CART_TOPIC,
+        DELETE_SHOPPING_CART_TOPIC, UPDATE_ITEMS_TOPIC);
+    when(this.mapper.map(any(ShoppingCartCreationRequestedEvent.class))).thenAnswer(
+        invocation -> {
+          ShoppingCartCreationRequestedEvent event = invocation.getArgument(0);
+          ShoppingCartEntity shoppingCartEntity = new ShoppingCartEntity();
+          shoppingCartEntity.setId(event.getId());
+          shoppingCartEntity.setUserId(event.getUserId());
+          shoppingCartEntity.setTotalPrice(0.0);
+          return shoppingCartEntity;
+        });
+  }
+
+  @Test
+  @DisplayName("Test batch with a record that can't be decoded in the middle")
+  public void givenBatchWithPoisonRecordInTheMiddleWhenOnMessageThenShouldApplyPreviousRecordsAndFailOnPoisonRecord()
+      throws Exception {
+    ConsumerRecord<String, byte[]> poisonRecord =
+        new ConsumerRecord<>(CREATE_SHOPPING_CART_TOPIC, 0, 2, "3", POISON_PAYLOAD);
+    List<ConsumerRecord<String, byte[]>> records = List.of(
+        this.buildCreationRecord(0, 1L, 1),
+        this.buildCreationRecord(1, 2L, 2),
+        poisonRecord,
+        this.buildCreationRecord(3, 4L, 4));
+
+    BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+        () -> this.listener.onMessage(records));
+
+    assertSame(poisonRecord, exception.getRecord());
+    verify(this.jpaShoppingCartRepository).saveAll(this.savedShoppingCartsCaptor.capture());
+    List<Long> savedIds = new ArrayList<>();
+    this.savedShoppingCartsCaptor.getValue().forEach(entity -> savedIds.add(entity.getId()));
+    assertEquals(List.of(1L, 2L), savedIds);
+    verify(this.transactionManager).commit(any());
+  }
+
+  @Test
+  @DisplayName("Test batch whose first record can't be decoded")
+  public void givenBatchWithPoisonFirstRecordWhenOnMessageThenShouldNotApplyAnyRecord() {
+    ConsumerRecord<String, byte[]> poisonRecord =
+        new ConsumerRecord<>(CREATE_SHOPPING_CART_TOPIC, 0, 0, "1", POISON_PAYLOAD);
+    List<ConsumerRecord<String, byte[]>> records = List.of(poisonRecord);
+
+    BatchListenerFailedException exception = assertThrows(BatchListenerFailedException.class,
+        () -> this.listener.onMessage(records));
+
+    assertSame(poisonRecord, exception.getRecord());
+    verify(this.jpaShoppingCartRepository, never()).saveAll(any());
+    verify(this.transactionManager, never()).getTransaction(any());
+  }
+
+  private ConsumerRecord<String, byte[]> buildCreationRecord(long offset, Long id, Integer userId)
+      throws Exception {
+    ShoppingCartCreationRequestedEvent event = new ShoppingCartCreationRequestedEvent();
+    event.setEventId("event-" + id);
+    event.setId(id);
+    event.setUserId(userId);
+    event.setItems(List.of());
+    event.setTotalPrice(0.0);
+    return new ConsumerRecord<>(CREATE_SHOPPING_CART_TOPIC, 0, offset, String.valueOf(id),
+        this.eventCodecs.encode(CREATE_SHOPPING_CART_TOPIC, event));
+  }
+
+}
@@ -0,0 +1,258 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.listeners;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.domain.ports.in.OrderUseCase;
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartItemEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartCompletionRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItem;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartItemsUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDeduplicator;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.ShoppingCartEventsListener;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.ShoppingCartChangelogPublisher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaProcessedEventRepository;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.JpaShoppingCartRepository;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping Cart Events Listener tests")
+public class ShoppingCartEventsListenerTest {
+
+  private static final String COMPLETE_SHOPPING_CART_TOPIC = "complete-shopping-carts";
+
+  private static final String UPDATE_ITEMS_TOPIC = "update-items";
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final byte[] SHOPPING_CART_ID_HEADER =
+      String.valueOf(SHOPPING_CART_ID).getBytes(StandardCharsets.UTF_8);
+
+  private static final Double TOTAL_PRICE = 30.0;
+
+  private static final byte[] POISON_PAYLOAD = "{not json".getBytes(StandardCharsets.UTF_8);
+
+  @Mock
+  private InfraMapper mapper;
+
+  @Mock
+  private JpaShoppingCartRepository jpaShoppingCartRepository;
+
+  @Mock
+  private JpaProcessedEventRepository jpaProcessedEventRepository;
+
+  @Mock
+  private OrderUseCase orderUseCase;
+
+  @Mock
+  private ShoppingCartChangelogPublisher shoppingCartChangelogPublisher;
+
+  private EventCodecs eventCodecs;
+
+  private ShoppingCartEventsListener listener;
+
+  @BeforeEach
+  public void setUp() {
+    when(this.jpaProcessedEventRepository.insertIfAbsent(anyString(), any())).thenReturn(1);
+    this.eventCodecs = new EventCodecs();
+    this.eventCodecs.init();
+    this.listener = new ShoppingCartEventsListener(this.mapper, this.jpaShoppingCartRepository,
+        this.orderUseCase, this.eventCodecs,
+        new EventDeduplicator(this.jpaProcessedEventRepository, 100, 60000),
+        this.shoppingCartChangelogPublisher);
+    doCallRealMethod().when(this.mapper).applyItemsUpdate(any(), any());
+    when(this.mapper.mapToShoppingCartItemEntity(any())).thenAnswer(invocation -> {
+      ShoppingCartItem item = invocation.getArgument(0);
+      return buildItem(item.getProductId(), item.getUnitPrice(), item.getQuantity());
+    });
+  }
+
+  @Test
+  @DisplayName("Test completion of a completed shopping cart is dropped by its aggregate id header,"
+      + " without decoding it")
+  public void givenCompletedShoppingCartHeaderWhenOnCompletedShoppingCartThenShouldDropEvent()
+      throws Exception {
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(buildShoppingCart(true)));
+
+    this.listener.onCompletedShoppingCart(POISON_PAYLOAD, SHOPPING_CART_ID_HEADER, null);
+
+    verify(this.jpaShoppingCartRepository, never()).save(any());
+    verifyNoInteractions(this.orderUseCase, this.shoppingCartChangelogPublisher,
+        this.jpaProcessedEventRepository);
+  }
+
+  @Test
+  @DisplayName("Test completion of an incomplete shopping cart is processed")
+  public void givenIncompleteShoppingCartHeaderWhenOnCompletedShoppingCartThenShouldCompleteIt()
+      throws Exception {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCart(false);
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    when(this.orderUseCase.create(any())).thenReturn(CompletableFuture.completedFuture(null));
+    ShoppingCartCompletionRequestedEvent completionRequestedEvent =
+        new ShoppingCartCompletionRequestedEvent();
+    completionRequestedEvent.setEventId("completion-event");
+    completionRequestedEvent.setId(SHOPPING_CART_ID);
+    completionRequestedEvent.setTotalPrice(TOTAL_PRICE);
+
+    this.listener.onCompletedShoppingCart(
+        this.eventCodecs.encode(COMPLETE_SHOPPING_CART_TOPIC, completionRequestedEvent),
+        SHOPPING_CART_ID_HEADER, null);
+
+    assertTrue(shoppingCartEntity.isCompleted());
+    verify(this.jpaShoppingCartRepository).save(shoppingCartEntity);
+    verify(this.shoppingCartChangelogPublisher).publish(shoppingCartEntity);
+    verify(this.orderUseCase).create(any());
+    verify(this.jpaProcessedEventRepository).insertIfAbsent(anyString(), any());
+  }
+
+  @Test
+  @DisplayName("Test upserted item updates the stored item of its product and the total price")
+  public void givenUpsertedStoredItemWhenOnUpdateShoppingCartItemsThenShouldUpdateItAndTotalPrice()
+      throws Exception {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartWithItems();
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent =
+        buildItemsUpdate("upsert-event");
+    itemsUpdateRequestedEvent.setUpsertedItem(buildShoppingCartItem(2, 5.0, 4));
+
+    this.listener.onUpdateShoppingCartItems(
+        this.eventCodecs.encode(UPDATE_ITEMS_TOPIC, itemsUpdateRequestedEvent), null);
+
+    assertEquals(List.of(buildItem(1, 10.0, 1), buildItem(2, 5.0, 4)),
+        shoppingCartEntity.getItems());
+    assertEquals(30.0, shoppingCartEntity.getTotalPrice());
+    verify(this.shoppingCartChangelogPublisher).publish(shoppingCartEntity);
+    verify(this.jpaProcessedEventRepository).insertIfAbsent(anyString(), any());
+  }
+
+  @Test
+  @DisplayName("Test upserted item of a new product is added and the total price updated")
+  public void givenUpsertedNewItemWhenOnUpdateShoppingCartItemsThenShouldAddItAndTotalPrice()
+      throws Exception {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartWithItems();
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent =
+        buildItemsUpdate("upsert-event");
+    itemsUpdateRequestedEvent.setUpsertedItem(buildShoppingCartItem(3, 2.5, 2));
+
+    this.listener.onUpdateShoppingCartItems(
+        this.eventCodecs.encode(UPDATE_ITEMS_TOPIC, itemsUpdateRequestedEvent), null);
+
+    assertEquals(List.of(buildItem(1, 10.0, 1), buildItem(2, 10.0, 2), buildItem(3, 2.5, 2)),
+        shoppingCartEntity.getItems());
+    assertEquals(SHOPPING_CART_ID, shoppingCartEntity.getItems().get(2).getCartId());
+    assertEquals(35.0, shoppingCartEntity.getTotalPrice());
+    verify(this.shoppingCartChangelogPublisher).publish(shoppingCartEntity);
+  }
+
+  @Test
+  @DisplayName("Test deleted product removes its item and updates the total price")
+  public void givenDeletedProductWhenOnUpdateShoppingCartItemsThenShouldRemoveItAndTotalPrice()
+      throws Exception {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartWithItems();
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent =
+        buildItemsUpdate("delete-event");
+    itemsUpdateRequestedEvent.setDeletedProductId(1);
+
+    this.listener.onUpdateShoppingCartItems(
+        this.eventCodecs.encode(UPDATE_ITEMS_TOPIC, itemsUpdateRequestedEvent), null);
+
+    assertEquals(List.of(buildItem(2, 10.0, 2)), shoppingCartEntity.getItems());
+    assertEquals(20.0, shoppingCartEntity.getTotalPrice());
+    verify(this.shoppingCartChangelogPublisher).publish(shoppingCartEntity);
+    verify(this.jpaProcessedEventRepository).insertIfAbsent(anyString(), any());
+  }
+
+  @Test
+  @DisplayName("Test items of a completed shopping cart are not updated")
+  public void givenCompletedShoppingCartWhenOnUpdateShoppingCartItemsThenShouldNotUpdateItems()
+      throws Exception {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCartWithItems();
+    shoppingCartEntity.setCompleted(true);
+    when(this.jpaShoppingCartRepository.findById(SHOPPING_CART_ID))
+        .thenReturn(Optional.of(shoppingCartEntity));
+    ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent =
+        buildItemsUpdate("delete-event");
+    itemsUpdateRequestedEvent.setDeletedProductId(1);
+
+    this.listener.onUpdateShoppingCartItems(
+        this.eventCodecs.encode(UPDATE_ITEMS_TOPIC, itemsUpdateRequestedEvent), null);
+
+    assertEquals(2, shoppingCartEntity.getItems().size());
+    assertEquals(TOTAL_PRICE, shoppingCartEntity.getTotalPrice());
+    verifyNoInteractions(this.shoppingCartChangelogPublisher);
+  }
+
+  private static ShoppingCartEntity buildShoppingCart(boolean completed) {
+    ShoppingCartEntity shoppingCartEntity = new ShoppingCartEntity();
+    shoppingCartEntity.setId(SHOPPING_CART_ID);
+    shoppingCartEntity.setUserId(1);
+    shoppingCartEntity.setCompleted(completed);
+    shoppingCartEntity.setTotalPrice(TOTAL_PRICE);
+    return shoppingCartEntity;
+  }
+
+  private static ShoppingCartEntity buildShoppingCartWithItems() {
+    ShoppingCartEntity shoppingCartEntity = buildShoppingCart(false);
+    shoppingCartEntity.upsertItem(buildItem(1, 10.0, 1));
+    shoppingCartEntity.upsertItem(buildItem(2, 10.0, 2));
+    return shoppingCartEntity;
+  }
+
+  private static ShoppingCartItemsUpdateRequestedEvent buildItemsUpdate(String eventId) {
+    ShoppingCartItemsUpdateRequestedEvent itemsUpdateRequestedEvent =
+        new ShoppingCartItemsUpdateRequestedEvent();
+    itemsUpdateRequestedEvent.setEventId(eventId);
+    itemsUpdateRequestedEvent.setId(SHOPPING_CART_ID);
+    return itemsUpdateRequestedEvent;
+  }
+
+  private static ShoppingCartItem buildShoppingCartItem(Integer productId, Double unitPrice,
+      Integer quantity) {
+    ShoppingCartItem item = new ShoppingCartItem();
+    item.setProductId(productId);
+    item.setUnitPrice(unitPrice);
+    item.setQuantity(quantity);
+    item.setTotalPrice(unitPrice * quantity);
+    return item;
+  }
+
+  private static ShoppingCartItemEntity buildItem(Integer productId, Double unitPrice,
+      Integer quantity) {
+    ShoppingCartItemEntity item = new ShoppingCartItemEntity();
+    item.setCartId(SHOPPING_CART_ID);
+    item.setProductId(productId);
+    item.setUnitPrice(unitPrice);
+    item.setQuantity(quantity);
+    item.setTotalPrice(unitPrice * quantity);
+    return item;
+  }
+
+}
@@ -0,0 +1,81 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.configs.kafka.KafkaAggregateSettings;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.EventRecordFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Event Record Factory tests")
+public class EventRecordFactoryTest {
+
+  private static final String ORDER_EVENTS_TOPIC = "order-events";
+
+  private static final String CREATE_ORDER_TOPIC = "create-orders";
+
+  private static final String UPDATE_ORDER_TOPIC = "update-orders";
+
+  private static final String ORDER_ID = "1";
+
+  private static final byte[] PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+  @Test
+  @DisplayName("Test events of aggregate listener topics are sent to their aggregate topic")
+  public void givenTransactionsDisabledWhenCreateThenShouldSendEventsToAggregateTopic() {
+    EventRecordFactory eventRecordFactory = new EventRecordFactory(buildSettings(false));
+
+    ProducerRecord<String, byte[]> created =
+        eventRecordFactory.create(CREATE_ORDER_TOPIC, ORDER_ID, null, PAYLOAD);
+    ProducerRecord<String, byte[]> updated =
+        eventRecordFactory.create(UPDATE_ORDER_TOPIC, ORDER_ID, null, PAYLOAD);
+
+    assertEquals(ORDER_EVENTS_TOPIC, created.topic());
+    assertEquals(CREATE_ORDER_TOPIC, EventHeaders.toString(
+        created.headers().lastHeader(EventHeaders.TYPE).value()));
+    assertEquals(ORDER_EVENTS_TOPIC, updated.topic());
+  }
+
+  @Test
+  @DisplayName("Test events of transactional topics are sent to their own topic while transactions"
+      + " are enabled")
+  public void givenTransactionsEnabledWhenCreateThenShouldSendTransactionalEventsToTheirTopic() {
+    KafkaAggregateSettings kafkaAggregateSettings = buildSettings(true);
+    EventRecordFactory eventRecordFactory = new EventRecordFactory(kafkaAggregateSettings);
+
+    ProducerRecord<String, byte[]> created =
+        eventRecordFactory.create(CREATE_ORDER_TOPIC, ORDER_ID, null, PAYLOAD);
+    ProducerRecord<String, byte[]> updated =
+        eventRecordFactory.create(UPDATE_ORDER_TOPIC, ORDER_ID, null, PAYLOAD);
+
+    assertEquals(CREATE_ORDER_TOPIC, created.topic());
+    assertEquals(ORDER_EVENTS_TOPIC, updated.topic());
+    assertEquals(Set.of(ORDER_EVENTS_TOPIC), kafkaAggregateSettings.getAggregateTopics());
+  }
+
+  private static KafkaAggregateSettings buildSettings(boolean transactionsEnabled) {
+    KafkaAggregateSettings kafkaAggregateSettings = new KafkaAggregateSettings();
+    ReflectionTestUtils.setField(kafkaAggregateSettings, "transactionsEnabled",
+        transactionsEnabled);
+    ReflectionTestUtils.setField(kafkaAggregateSettings, "transactionalTopics",
+        Set.of(CREATE_ORDER_TOPIC, "change-orders-state"));
+    kafkaAggregateSettings.setEnabled(true);
+    kafkaAggregateSettings.setTopics(
+        Map.of(ORDER_EVENTS_TOPIC, List.of(CREATE_ORDER_TOPIC, UPDATE_ORDER_TOPIC)));
+    kafkaAggregateSettings.init();
+    return kafkaAggregateSettings;
+  }
+
+}
@@ -0,0 +1,133 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.EventHeaders;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.listeners.EventDispatcher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.InProcessEventPublisher;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.KafkaEventPublisher;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.KafkaHeaders;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("In Process Event Publisher tests")
+public class InProcessEventPublisherTest {
+
+  private static final String UPDATE_ORDER_TOPIC = "update-orders";
+
+  private static final String ORDER_ID = "1";
+
+  private static final byte[] PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+  private static final int MAX_ATTEMPTS = 3;
+
+  private static final long VERIFY_TIMEOUT_MS = 5000;
+
+  @Mock
+  private KafkaEventPublisher kafkaEventPublisher;
+
+  @Mock
+  private EventDispatcher eventDispatcher;
+
+  @Mock
+  private EventCodecs eventCodecs;
+
+  @Mock
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  @Captor
+  private ArgumentCaptor<ProducerRecord<String, byte[]>> producerRecordCaptor;
+
+  private InProcessEventPublisher inProcessEventPublisher;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    when(this.eventCodecs.encode(eq(UPDATE_ORDER_TOPIC), any())).thenReturn(PAYLOAD);
+    SettableListenableFuture<SendResult<String, byte[]>> sent = new SettableListenableFuture<>();
+    sent.set(null);
+    when(this.kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(sent);
+    this.inProcessEventPublisher = new InProcessEventPublisher(this.kafkaEventPublisher,
+        this.eventDispatcher, this.eventCodecs, Set.of(UPDATE_ORDER_TOPIC), 1, 16,
+        this.kafkaTemplate, MAX_ATTEMPTS, 1, 1.0, 1, "-dlt", VERIFY_TIMEOUT_MS,
+        VERIFY_TIMEOUT_MS);
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    this.inProcessEventPublisher.stop();
+  }
+
+  @Test
+  @DisplayName("Test failed event is retried and then forwarded to its dead letter topic")
+  public void givenFailingListenerWhenPublishThenShouldRetryAndForwardToDeadLetterTopic()
+      throws Exception {
+    doThrow(new IllegalStateException("failed")).when(this.eventDispatcher)
+        .dispatch(UPDATE_ORDER_TOPIC, PAYLOAD);
+    OrderUpdateRequestedEvent event = new OrderUpdateRequestedEvent();
+
+    this.inProcessEventPublisher.publish(UPDATE_ORDER_TOPIC, ORDER_ID, event).join();
+
+    verify(this.kafkaTemplate, timeout(VERIFY_TIMEOUT_MS)).send(
+        this.producerRecordCaptor.capture());
+    verify(this.eventDispatcher, times(MAX_ATTEMPTS)).dispatch(UPDATE_ORDER_TOPIC, PAYLOAD);
+    ProducerRecord<String, byte[]> deadLetter = this.producerRecordCaptor.getValue();
+    assertEquals(UPDATE_ORDER_TOPIC + "-dlt", deadLetter.topic());
+    assertEquals(ORDER_ID, deadLetter.key());
+    assertEquals(event.getEventId(), EventHeaders.toString(
+        deadLetter.headers().lastHeader(EventHeaders.ID).value()));
+    assertNotNull(deadLetter.headers().lastHeader(KafkaHeaders.DLT_EXCEPTION_MESSAGE));
+  }
+
+  @Test
+  @DisplayName("Test queued events are processed on stop before lanes consumer threads exit")
+  public void givenQueuedEventsWhenStopThenShouldProcessThemFirst() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    doAnswer(invocation -> {
+      release.await();
+      return null;
+    }).when(this.eventDispatcher).dispatch(UPDATE_ORDER_TOPIC, PAYLOAD);
+    for (int i = 0; i < 3; i++) {
+      this.inProcessEventPublisher.publish(UPDATE_ORDER_TOPIC, ORDER_ID,
+          new OrderUpdateRequestedEvent()).join();
+    }
+    CompletableFuture.runAsync(release::countDown,
+        CompletableFuture.delayedExecutor(100, TimeUnit.MILLISECONDS));
+
+    this.inProcessEventPublisher.stop();
+
+    verify(this.eventDispatcher, times(3)).dispatch(UPDATE_ORDER_TOPIC, PAYLOAD);
+    verify(this.kafkaTemplate, never()).send(any(ProducerRecord.class));
+  }
+
+}
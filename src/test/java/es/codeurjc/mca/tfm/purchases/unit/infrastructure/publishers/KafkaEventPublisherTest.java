@@ -0,0 +1,114 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.OrderUpdateRequestedEvent;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.EventRecordFactory;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.KafkaEventPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Kafka Event Publisher tests")
+public class KafkaEventPublisherTest {
+
+  private static final String UPDATE_ORDER_TOPIC = "update-orders";
+
+  private static final String ORDER_ID = "1";
+
+  private static final byte[] PAYLOAD = "{}".getBytes(StandardCharsets.UTF_8);
+
+  private static final long TIMEOUT_MS = 5000;
+
+  @Mock
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  @Mock
+  private EventCodecs eventCodecs;
+
+  @Mock
+  private EventRecordFactory eventRecordFactory;
+
+  private KafkaEventPublisher kafkaEventPublisher;
+
+  @BeforeEach
+  public void setUp() throws Exception {
+    when(this.eventCodecs.encode(eq(UPDATE_ORDER_TOPIC), any())).thenReturn(PAYLOAD);
+    when(this.eventRecordFactory.create(eq(UPDATE_ORDER_TOPIC), eq(ORDER_ID), anyString(),
+        eq(PAYLOAD))).thenReturn(new ProducerRecord<>(UPDATE_ORDER_TOPIC, ORDER_ID, PAYLOAD));
+    this.kafkaEventPublisher = new KafkaEventPublisher(this.kafkaTemplate, this.eventCodecs,
+        this.eventRecordFactory, new SimpleMeterRegistry(), 1, TIMEOUT_MS);
+  }
+
+  @AfterEach
+  public void tearDown() throws Exception {
+    this.kafkaEventPublisher.close();
+  }
+
+  @Test
+  @DisplayName("Test publish returns without waiting for a blocked send, keeping its permit")
+  public void givenBlockedSendWhenPublishThenShouldReturnWithoutWaitingForIt() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    SettableListenableFuture<SendResult<String, byte[]>> sent = new SettableListenableFuture<>();
+    sent.set(null);
+    when(this.kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+      release.await();
+      return sent;
+    });
+
+    CompletableFuture<Void> published = this.kafkaEventPublisher.publish(UPDATE_ORDER_TOPIC,
+        ORDER_ID, new OrderUpdateRequestedEvent());
+    CompletableFuture<Void> rejected = this.kafkaEventPublisher.publish(UPDATE_ORDER_TOPIC,
+        ORDER_ID, new OrderUpdateRequestedEvent());
+
+    assertFalse(published.isDone());
+    assertTrue(rejected.isCompletedExceptionally());
+    release.countDown();
+    published.get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    this.kafkaEventPublisher.publish(UPDATE_ORDER_TOPIC, ORDER_ID,
+        new OrderUpdateRequestedEvent()).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+  }
+
+  @Test
+  @DisplayName("Test event published inside a Kafka transaction is sent by the calling thread")
+  public void givenKafkaTransactionWhenPublishThenShouldSendInCallingThread() throws Exception {
+    AtomicReference<Thread> senderThread = new AtomicReference<>();
+    SettableListenableFuture<SendResult<String, byte[]>> sent = new SettableListenableFuture<>();
+    sent.set(null);
+    when(this.kafkaTemplate.inTransaction()).thenReturn(true);
+    when(this.kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+      senderThread.set(Thread.currentThread());
+      return sent;
+    });
+
+    this.kafkaEventPublisher.publish(UPDATE_ORDER_TOPIC, ORDER_ID,
+        new OrderUpdateRequestedEvent()).get(TIMEOUT_MS, TimeUnit.MILLISECONDS);
+
+    assertEquals(Thread.currentThread(), senderThread.get());
+  }
+
+}
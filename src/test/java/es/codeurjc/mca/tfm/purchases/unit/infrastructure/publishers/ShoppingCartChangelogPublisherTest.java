@@ -0,0 +1,191 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.publishers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.entities.ShoppingCartEntity;
+import es.codeurjc.mca.tfm.purchases.infrastructure.events.ShoppingCartSnapshot;
+import es.codeurjc.mca.tfm.purchases.infrastructure.mappers.InfraMapper;
+import es.codeurjc.mca.tfm.purchases.infrastructure.publishers.ShoppingCartChangelogPublisher;
+import java.util.List;
+import org.apache.kafka.common.errors.TimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.SendResult;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.concurrent.SettableListenableFuture;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping Cart Changelog Publisher tests")
+public class ShoppingCartChangelogPublisherTest {
+
+  private static final String CHANGELOG_TOPIC = "shopping-carts-changelog";
+
+  private static final Long SHOPPING_CART_ID = 1652692327498L;
+
+  private static final Long OTHER_SHOPPING_CART_ID = 1652692327499L;
+
+  private static final Integer USER_ID = 1;
+
+  private static final long SEND_TIMEOUT_MS = 1000;
+
+  @Mock
+  private KafkaTemplate<String, byte[]> kafkaTemplate;
+
+  @Mock
+  private InfraMapper mapper;
+
+  private EventCodecs eventCodecs;
+
+  private ShoppingCartChangelogPublisher shoppingCartChangelogPublisher;
+
+  @BeforeEach
+  public void setUp() {
+    this.eventCodecs = new EventCodecs();
+    this.eventCodecs.init();
+    this.shoppingCartChangelogPublisher = new ShoppingCartChangelogPublisher(this.kafkaTemplate,
+        this.eventCodecs, this.mapper, true, CHANGELOG_TOPIC, SEND_TIMEOUT_MS);
+    when(this.mapper.mapToShoppingCartSnapshot(any())).thenAnswer(invocation -> {
+      ShoppingCartEntity shoppingCartEntity = invocation.getArgument(0);
+      ShoppingCartSnapshot shoppingCartSnapshot = new ShoppingCartSnapshot();
+      shoppingCartSnapshot.setId(shoppingCartEntity.getId());
+      shoppingCartSnapshot.setUserId(shoppingCartEntity.getUserId());
+      shoppingCartSnapshot.setCompleted(shoppingCartEntity.isCompleted());
+      return shoppingCartSnapshot;
+    });
+  }
+
+  @AfterEach
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+    TransactionSynchronizationManager.unbindResourceIfPossible(
+        this.shoppingCartChangelogPublisher);
+  }
+
+  @Test
+  @DisplayName("Test nothing is sent when changelog is disabled")
+  public void givenDisabledChangelogWhenPublishThenShouldNotSendAnything() {
+    this.shoppingCartChangelogPublisher = new ShoppingCartChangelogPublisher(this.kafkaTemplate,
+        this.eventCodecs, this.mapper, false, CHANGELOG_TOPIC, SEND_TIMEOUT_MS);
+
+    this.shoppingCartChangelogPublisher.publish(buildShoppingCart(SHOPPING_CART_ID, false));
+    this.shoppingCartChangelogPublisher.publishDeletion(SHOPPING_CART_ID);
+
+    verifyNoInteractions(this.kafkaTemplate);
+  }
+
+  @Test
+  @DisplayName("Test snapshot is sent and acknowledged right away without transaction")
+  public void givenNoTransactionWhenPublishThenShouldSendSnapshotAndWaitForIt() throws Exception {
+    when(this.kafkaTemplate.send(eq(CHANGELOG_TOPIC), anyString(), any()))
+        .thenReturn(acknowledged());
+
+    this.shoppingCartChangelogPublisher.publish(buildShoppingCart(SHOPPING_CART_ID, true));
+
+    ArgumentCaptor<byte[]> valueCaptor = ArgumentCaptor.forClass(byte[].class);
+    verify(this.kafkaTemplate).send(eq(CHANGELOG_TOPIC), eq(String.valueOf(SHOPPING_CART_ID)),
+        valueCaptor.capture());
+    ShoppingCartSnapshot sent =
+        this.eventCodecs.decode(valueCaptor.getValue(), ShoppingCartSnapshot.class);
+    assertEquals(SHOPPING_CART_ID, sent.getId());
+    assertEquals(USER_ID, sent.getUserId());
+  }
+
+  @Test
+  @DisplayName("Test failed send without transaction fails the caller")
+  public void givenNoTransactionAndFailedSendWhenPublishDeletionThenShouldThrow() {
+    when(this.kafkaTemplate.send(eq(CHANGELOG_TOPIC), anyString(), isNull()))
+        .thenReturn(failed());
+
+    assertThrows(IllegalStateException.class,
+        () -> this.shoppingCartChangelogPublisher.publishDeletion(SHOPPING_CART_ID));
+  }
+
+  @Test
+  @DisplayName("Test records of a transaction are sent before it commits, the latest one of each"
+      + " shopping cart")
+  public void givenTransactionWhenPublishThenShouldSendLatestRecordOfEachCartBeforeCommit() {
+    when(this.kafkaTemplate.send(eq(CHANGELOG_TOPIC), anyString(), any()))
+        .thenReturn(acknowledged());
+    when(this.kafkaTemplate.send(eq(CHANGELOG_TOPIC), anyString(), isNull()))
+        .thenReturn(acknowledged());
+    TransactionSynchronizationManager.initSynchronization();
+
+    this.shoppingCartChangelogPublisher.publish(buildShoppingCart(SHOPPING_CART_ID, false));
+    this.shoppingCartChangelogPublisher.publish(buildShoppingCart(OTHER_SHOPPING_CART_ID, false));
+    this.shoppingCartChangelogPublisher.publishDeletion(SHOPPING_CART_ID);
+
+    verifyNoInteractions(this.kafkaTemplate);
+    List<TransactionSynchronization> synchronizations =
+        TransactionSynchronizationManager.getSynchronizations();
+    assertEquals(1, synchronizations.size());
+    synchronizations.get(0).beforeCommit(false);
+
+    verify(this.kafkaTemplate).send(eq(CHANGELOG_TOPIC), eq(String.valueOf(SHOPPING_CART_ID)),
+        isNull());
+    verify(this.kafkaTemplate).send(eq(CHANGELOG_TOPIC),
+        eq(String.valueOf(OTHER_SHOPPING_CART_ID)), any());
+    verify(this.kafkaTemplate, never()).send(eq(CHANGELOG_TOPIC),
+        eq(String.valueOf(SHOPPING_CART_ID)), any(byte[].class));
+
+    synchronizations.get(0).afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+    assertNull(TransactionSynchronizationManager.getResource(this.shoppingCartChangelogPublisher));
+  }
+
+  @Test
+  @DisplayName("Test failed send of a transaction records fails its commit, so it rolls back")
+  public void givenTransactionAndFailedSendWhenBeforeCommitThenShouldThrow() {
+    when(this.kafkaTemplate.send(eq(CHANGELOG_TOPIC), anyString(), any())).thenReturn(failed());
+    TransactionSynchronizationManager.initSynchronization();
+    this.shoppingCartChangelogPublisher.publish(buildShoppingCart(SHOPPING_CART_ID, false));
+    TransactionSynchronization synchronization =
+        TransactionSynchronizationManager.getSynchronizations().get(0);
+
+    assertThrows(IllegalStateException.class, () -> synchronization.beforeCommit(false));
+  }
+
+  private static ShoppingCartEntity buildShoppingCart(Long id, boolean completed) {
+    ShoppingCartEntity shoppingCartEntity = new ShoppingCartEntity();
+    shoppingCartEntity.setId(id);
+    shoppingCartEntity.setUserId(USER_ID);
+    shoppingCartEntity.setCompleted(completed);
+    return shoppingCartEntity;
+  }
+
+  private static SettableListenableFuture<SendResult<String, byte[]>> acknowledged() {
+    SettableListenableFuture<SendResult<String, byte[]>> future =
+        new SettableListenableFuture<>();
+    future.set(new SendResult<>(null, null));
+    return future;
+  }
+
+  private static SettableListenableFuture<SendResult<String, byte[]>> failed() {
+    SettableListenableFuture<SendResult<String, byte[]>> future =
+        new SettableListenableFuture<>();
+    future.setException(new TimeoutException("Topic not present in metadata"));
+    return future;
+  }
+
+}
@@ -0,0 +1,114 @@
+package es.codeurjc.mca.tfm.purchases.unit.infrastructure.repositories;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import es.codeurjc.mca.tfm.purchases.infrastructure.codecs.EventCodecs;
+import es.codeurjc.mca.tfm.purchases.infrastructure.repositories.ShoppingCartItemsMigration;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@ExtendWith(SpringExtension.class)
+@Tag("UnitTest")
+@DisplayName("Shopping Cart Items Migration tests")
+public class ShoppingCartItemsMigrationTest {
+
+  @Mock
+  private JdbcTemplate jdbcTemplate;
+
+  @Mock
+  private TransactionTemplate transactionTemplate;
+
+  @Mock
+  private EventCodecs eventCodecs;
+
+  @Mock
+  private Connection connection;
+
+  @Mock
+  private DatabaseMetaData databaseMetaData;
+
+  @Mock
+  private ResultSet columns;
+
+  @Mock
+  private PreparedStatement lockStatement;
+
+  @Mock
+  private ResultSet lockResult;
+
+  private ShoppingCartItemsMigration shoppingCartItemsMigration;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  public void setUp() throws Exception {
+    when(this.jdbcTemplate.execute(any(ConnectionCallback.class))).thenAnswer(invocation ->
+        ((ConnectionCallback<?>) invocation.getArgument(0)).doInConnection(this.connection));
+    when(this.connection.getMetaData()).thenReturn(this.databaseMetaData);
+    when(this.databaseMetaData.getColumns(any(), any(), anyString(), anyString()))
+        .thenReturn(this.columns);
+    when(this.connection.prepareStatement(anyString())).thenReturn(this.lockStatement);
+    when(this.lockStatement.executeQuery()).thenReturn(this.lockResult);
+    this.shoppingCartItemsMigration = new ShoppingCartItemsMigration(this.jdbcTemplate,
+        this.transactionTemplate, this.eventCodecs, 1);
+  }
+
+  @Test
+  @DisplayName("Test nothing is copied, nor checked again, once items column doesn't exist")
+  public void givenNotItemsColumnWhenMigrateThenShouldNotTakeLock() throws Exception {
+    when(this.columns.next()).thenReturn(false);
+
+    this.shoppingCartItemsMigration.migrate();
+    this.shoppingCartItemsMigration.migrate();
+
+    verify(this.connection, times(1)).getMetaData();
+    verify(this.connection, never()).prepareStatement(anyString());
+    verify(this.transactionTemplate, never()).execute(any());
+  }
+
+  @Test
+  @DisplayName("Test items are copied under the migration lock, keeping the items column")
+  public void givenItemsColumnWhenMigrateThenShouldCopyItemsAndReleaseLock() throws Exception {
+    when(this.columns.next()).thenReturn(true);
+    when(this.lockResult.next()).thenReturn(true);
+    when(this.lockResult.getInt(1)).thenReturn(1);
+
+    this.shoppingCartItemsMigration.migrate();
+
+    verify(this.transactionTemplate).execute(any());
+    verify(this.connection).prepareStatement("SELECT GET_LOCK(?, ?)");
+    verify(this.connection).prepareStatement("SELECT RELEASE_LOCK(?)");
+    verify(this.jdbcTemplate, never()).execute(
+        "ALTER TABLE shopping_carts DROP COLUMN items");
+  }
+
+  @Test
+  @DisplayName("Test migration fails if the lock is held by other instance")
+  public void givenLockTakenWhenMigrateThenShouldFail() throws Exception {
+    when(this.columns.next()).thenReturn(true);
+    when(this.lockResult.next()).thenReturn(true);
+    when(this.lockResult.getInt(1)).thenReturn(0);
+
+    assertThrows(IllegalStateException.class, this.shoppingCartItemsMigration::migrate);
+
+    verify(this.transactionTemplate, never()).execute(any());
+  }
+
+}